@@ -5,7 +5,10 @@ import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.servlets.HealthCheckServlet;
 import com.tramchester.cloud.*;
 import com.tramchester.config.AppConfiguration;
+import com.tramchester.graph.BuildGraphCommand;
 import com.tramchester.graph.CachedNodeOperations;
+import com.tramchester.graph.GraphDatabase;
+import com.tramchester.graph.search.SearchBudgets;
 import com.tramchester.healthchecks.*;
 import com.tramchester.repository.LiveDataRepository;
 import com.tramchester.repository.VersionRepository;
@@ -91,6 +94,9 @@ public class App extends Application<AppConfiguration>  {
 
         // https://www.tramchester.com/api/swagger
         bootstrap.addBundle(new AssetsBundle("/assets/swagger-ui", "/swagger-ui"));
+
+        // offline build of the graph
+        bootstrap.addCommand(new BuildGraphCommand());
         logger.info("initialize finished");
     }
 
@@ -138,6 +144,20 @@ public class App extends Application<AppConfiguration>  {
         metricRegistry.register(MetricRegistry.name(LiveDataRepository.class, "liveData", "messages"),
                 (Gauge<Integer>) liveDataRepository::entriesWithMessages);
 
+        // journey searches cut short by their deadline or expansion budget
+        SearchBudgets searchBudgets = dependencies.get(SearchBudgets.class);
+        metricRegistry.register(MetricRegistry.name(SearchBudgets.class, "search", "exhausted"),
+                (Gauge<Long>) searchBudgets::getNumberExhausted);
+
+        // effect of sizing and warming the graph page cache, see config readOnlyGraph
+        GraphDatabase graphDatabase = dependencies.get(GraphDatabase.class);
+        metricRegistry.register(MetricRegistry.name(GraphDatabase.class, "pageCache", "hitRatio"),
+                (Gauge<Double>) graphDatabase::getPageCacheHitRatio);
+        metricRegistry.register(MetricRegistry.name(GraphDatabase.class, "pageCache", "hits"),
+                (Gauge<Long>) graphDatabase::getPageCacheHits);
+        metricRegistry.register(MetricRegistry.name(GraphDatabase.class, "pageCache", "faults"),
+                (Gauge<Long>) graphDatabase::getPageCacheFaults);
+
         CacheMetricSet cacheMetrics = new CacheMetricSet(dependencies.getHasCacheStat(), metricRegistry);
 
         // report specific metrics to AWS cloudwatch
@@ -21,6 +21,8 @@ import com.tramchester.graph.*;
 import com.tramchester.graph.search.MapPathToStages;
 import com.tramchester.graph.search.RouteCalculator;
 import com.tramchester.graph.search.RouteCalculatorArriveBy;
+import com.tramchester.graph.search.SearchBudgets;
+import com.tramchester.graph.search.SearchContexts;
 import com.tramchester.graph.search.ServiceHeuristics;
 import com.tramchester.healthchecks.*;
 import com.tramchester.livedata.LiveDataHTTPFetcher;
@@ -28,7 +30,14 @@ import com.tramchester.livedata.TramPositionInference;
 import com.tramchester.mappers.*;
 import com.tramchester.repository.*;
 import com.tramchester.resources.*;
+import com.tramchester.router.JourneyResultsCache;
 import com.tramchester.router.ProcessPlanRequest;
+import com.tramchester.router.raptor.RaptorIsochrone;
+import com.tramchester.router.raptor.RaptorRouteCalculator;
+import com.tramchester.router.raptor.RaptorTimetable;
+import com.tramchester.router.raptor.TransferPatternRouteCalculator;
+import com.tramchester.router.raptor.TransferPatterns;
+import com.tramchester.router.raptor.TravelTimeMatrix;
 import com.tramchester.services.SpatialService;
 import org.apache.commons.lang3.tuple.Pair;
 import org.picocontainer.DefaultPicoContainer;
@@ -62,6 +71,13 @@ public class Dependencies {
 
     // load data from files, see below for version that can be used for testing injecting alternative TransportDataSource
     public void initialise(TramchesterConfig configuration) throws IOException {
+        TransportDataSource transportData = loadTransportData(configuration);
+
+        initialise(configuration, transportData);
+    }
+
+    // fetch, cleanse and import the data files, also used by the offline graph build
+    public TransportDataSource loadTransportData(TramchesterConfig configuration) throws IOException {
         // caching is on by default
         picoContainer.addComponent(TramchesterConfig.class, configuration);
 
@@ -78,9 +94,7 @@ public class Dependencies {
         cleanseData();
 
         TransportDataFileImporter transportDataImporter = get(TransportDataFileImporter.class);
-        TransportDataSource transportData = transportDataImporter.createSource();
-
-        initialise(configuration, transportData);
+        return transportDataImporter.createSource();
     }
 
     // init dependencies but possibly with alternative source of transport data
@@ -106,9 +120,18 @@ public class Dependencies {
         picoContainer.addComponent(TramPositionsResource.class);
         picoContainer.addComponent(ServiceHeuristics.class);
 
+        picoContainer.addComponent(SearchBudgets.class);
+        picoContainer.addComponent(SearchContexts.class);
         picoContainer.addComponent(RouteCalculator.class);
         picoContainer.addComponent(RouteCalculatorArriveBy.class);
+        picoContainer.addComponent(RaptorTimetable.class);
+        picoContainer.addComponent(RaptorRouteCalculator.class);
+        picoContainer.addComponent(RaptorIsochrone.class);
+        picoContainer.addComponent(TravelTimeMatrix.class);
+        picoContainer.addComponent(TransferPatterns.class);
+        picoContainer.addComponent(TransferPatternRouteCalculator.class);
         picoContainer.addComponent(ProcessPlanRequest.class);
+        picoContainer.addComponent(JourneyResultsCache.class);
         picoContainer.addComponent(NodeIdQuery.class);
         picoContainer.addComponent(ProvidesNotes.class);
         picoContainer.addComponent(JourneysMapper.class);
@@ -116,6 +139,8 @@ public class Dependencies {
         picoContainer.addComponent(RouteCodeToClassMapper.class);
         picoContainer.addComponent(UpdateRecentJourneys.class);
         picoContainer.addComponent(TransportGraphBuilder.class);
+        picoContainer.addComponent(GraphAdjacency.class);
+        picoContainer.addComponent(GraphPropertyTables.class);
         picoContainer.addComponent(SpatialService.class);
         picoContainer.addComponent(ConfigFromInstanceUserData.class);
         picoContainer.addComponent(FetchInstanceMetadata.class);
@@ -127,6 +152,8 @@ public class Dependencies {
         picoContainer.addComponent(RoutesRepository.class);
         picoContainer.addComponent(RouteResource.class);
         picoContainer.addComponent(AreaResource.class);
+        picoContainer.addComponent(IsochroneResource.class);
+        picoContainer.addComponent(TravelTimeMatrixResource.class);
         picoContainer.addComponent(LiveDataHTTPFetcher.class);
         picoContainer.addComponent(LiveDataParser.class);
         picoContainer.addComponent(LiveDataRepository.class);
@@ -136,20 +163,24 @@ public class Dependencies {
         picoContainer.addComponent(MyLocationFactory.class);
         picoContainer.addComponent(RouteReachable.class);
         picoContainer.addComponent(TramReachabilityRepository.class);
+        picoContainer.addComponent(BusReachabilityRepository.class);
         picoContainer.addComponent(NodeIdLabelMap.class);
         picoContainer.addComponent(GraphQuery.class);
         picoContainer.addComponent(StationAdjacenyRepository.class);
+        picoContainer.addComponent(TravelTimeLowerBounds.class);
         picoContainer.addComponent(new ObjectMapper());
         picoContainer.addComponent(StageDTOFactory.class);
         picoContainer.addComponent(JourneyDTOFactory.class);
         picoContainer.addComponent(HeadsignMapper.class);
         picoContainer.addComponent(TramPositionInference.class);
         picoContainer.addComponent(GraphHealthCheck.class);
+        picoContainer.addComponent(GraphArtifactHealthCheck.class);
         picoContainer.addComponent(DataExpiryHealthCheck.class);
         picoContainer.addComponent(LiveDataHealthCheck.class);
         picoContainer.addComponent(NewDataAvailableHealthCheck.class);
         picoContainer.addComponent(LiveDataMessagesHealthCheck.class);
         picoContainer.addComponent(InterchangeRepository.class);
+        picoContainer.addComponent(GraphArtifacts.class);
         picoContainer.addComponent(GraphDatabase.class);
 
         if (logger.isDebugEnabled()) {
@@ -157,9 +188,6 @@ public class Dependencies {
         }
         logger.info("Start components");
         picoContainer.start();
-
-        TramReachabilityRepository tramReachabilityRepository = get(TramReachabilityRepository.class);
-        tramReachabilityRepository.buildRepository();
     }
 
     private void cleanseData() throws IOException {
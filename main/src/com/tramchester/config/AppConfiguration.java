@@ -123,12 +123,48 @@ public class AppConfiguration extends TramchesterConfig {
     @JsonProperty("changeAtInterchangeOnly")
     private boolean changeAtInterchangeOnly;
 
+    @JsonProperty("inMemoryRouting")
+    private boolean inMemoryRouting;
+
+    @JsonProperty("preloadGraphProperties")
+    private boolean preloadGraphProperties;
+
+    @JsonProperty("tramSearchDeadlineMillis")
+    private long tramSearchDeadlineMillis;
+
+    @JsonProperty("busSearchDeadlineMillis")
+    private long busSearchDeadlineMillis;
+
+    @JsonProperty("tramSearchExpansionBudget")
+    private long tramSearchExpansionBudget;
+
+    @JsonProperty("busSearchExpansionBudget")
+    private long busSearchExpansionBudget;
+
+    @JsonProperty("busReachabilityMaxChanges")
+    private int busReachabilityMaxChanges;
+
+    @JsonProperty("transferPatterns")
+    private boolean transferPatterns;
+
+    @JsonProperty("incrementalGraphUpdate")
+    private boolean incrementalGraphUpdate;
+
+    @JsonProperty("graphCacheDirectory")
+    private Path graphCacheDirectory;
+
+    @JsonProperty("readOnlyGraph")
+    private boolean readOnlyGraph;
+
     @JsonProperty("maxNumberResults")
     private int maxNumberResults;
 
     @JsonProperty("numberQueries")
     private int numberQueries;
 
+    @JsonProperty("numberQueryThreads")
+    private int numberQueryThreads;
+
     @JsonProperty("bus")
     private boolean bus;
 
@@ -179,6 +215,11 @@ public class AppConfiguration extends TramchesterConfig {
         return queryInterval;
     }
 
+    @Override
+    public int getNumberQueryThreads() {
+        return numberQueryThreads;
+    }
+
     @Override
     public int getRecentStopsToShow() {
         return recentStopsToShow;
@@ -279,6 +320,61 @@ public class AppConfiguration extends TramchesterConfig {
         return changeAtInterchangeOnly;
     }
 
+    @Override
+    public boolean getInMemoryRouting() {
+        return inMemoryRouting;
+    }
+
+    @Override
+    public boolean getPreloadGraphProperties() {
+        return preloadGraphProperties;
+    }
+
+    @Override
+    public long getTramSearchDeadlineMillis() {
+        return tramSearchDeadlineMillis;
+    }
+
+    @Override
+    public long getBusSearchDeadlineMillis() {
+        return busSearchDeadlineMillis;
+    }
+
+    @Override
+    public long getTramSearchExpansionBudget() {
+        return tramSearchExpansionBudget;
+    }
+
+    @Override
+    public long getBusSearchExpansionBudget() {
+        return busSearchExpansionBudget;
+    }
+
+    @Override
+    public int getBusReachabilityMaxChanges() {
+        return busReachabilityMaxChanges;
+    }
+
+    @Override
+    public boolean getTransferPatterns() {
+        return transferPatterns;
+    }
+
+    @Override
+    public boolean getIncrementalGraphUpdate() {
+        return incrementalGraphUpdate;
+    }
+
+    @Override
+    public Path getGraphCacheDirectory() {
+        return graphCacheDirectory;
+    }
+
+    @Override
+    public boolean getReadOnlyGraph() {
+        return readOnlyGraph;
+    }
+
     @Override
     public int getMaxJourneyDuration() {
         return maxJourneyDuration;
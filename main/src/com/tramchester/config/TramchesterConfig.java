@@ -65,6 +65,9 @@ public abstract class TramchesterConfig extends Configuration implements AssetsB
     // Interval between queryies i.e. every 6 minutes
     public abstract int getQueryInterval();
 
+    // number of threads used to search the query times concurrently, 1 or less means on the request thread
+    public abstract int getNumberQueryThreads();
+
     // how many stops show in Recent on the stations dropdowns
     public abstract int getRecentStopsToShow();
 
@@ -94,6 +97,36 @@ public abstract class TramchesterConfig extends Configuration implements AssetsB
     // only allow changing vehicles at interchanges
     public abstract boolean getChangeAtInterchangeOnly();
 
+    // plan journeys using the in-memory timetable instead of traversing the graph
+    public abstract boolean getInMemoryRouting();
+
+    // load the properties used by graph traversal into memory at start up, instead of caching as used
+    public abstract boolean getPreloadGraphProperties();
+
+    // limits on each journey search, over all the query times, 0 for no limit. Found journeys are returned when hit
+    public abstract long getTramSearchDeadlineMillis();
+    public abstract long getBusSearchDeadlineMillis();
+    public abstract long getTramSearchExpansionBudget();
+    public abstract long getBusSearchExpansionBudget();
+
+    // most changes covered by the bus reachability index, searches allowing more are not pruned by it unless every
+    // reachable station is already covered
+    public abstract int getBusReachabilityMaxChanges();
+
+    // precompute the transfer patterns between tram stations in the background, used to answer station to station
+    // journeys once ready
+    public abstract boolean getTransferPatterns();
+
+    // when not rebuilding, bring the existing graph up to date with the timetable by replacing changed services only
+    public abstract boolean getIncrementalGraphUpdate();
+
+    // directory of previously built graphs, used instead of rebuilding when one matches the timetable, null for none
+    public abstract Path getGraphCacheDirectory();
+
+    // serve from a read only graph, page cache sized to the store and warmed before ready, only when the graph does not
+    // need building or updating
+    public abstract boolean getReadOnlyGraph();
+
     // limit on missing messages before triggering healthcheck
     public abstract int getMaxNumberMissingLiveMessages();
 
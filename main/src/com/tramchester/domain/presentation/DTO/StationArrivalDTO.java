@@ -0,0 +1,53 @@
+package com.tramchester.domain.presentation.DTO;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.mappers.serialisation.TramTimeJsonDeserializer;
+import com.tramchester.mappers.serialisation.TramTimeJsonSerializer;
+
+public class StationArrivalDTO {
+    private LocationDTO station;
+    private TramTime arrivalTime;
+    private int duration;
+    private int changes;
+
+    public StationArrivalDTO(LocationDTO station, TramTime arrivalTime, int duration, int changes) {
+        this.station = station;
+        this.arrivalTime = arrivalTime;
+        this.duration = duration;
+        this.changes = changes;
+    }
+
+    public StationArrivalDTO() {
+        // deserialisation
+    }
+
+    public LocationDTO getStation() {
+        return station;
+    }
+
+    @JsonSerialize(using = TramTimeJsonSerializer.class)
+    @JsonDeserialize(using = TramTimeJsonDeserializer.class)
+    public TramTime getArrivalTime() {
+        return arrivalTime;
+    }
+
+    public int getDuration() {
+        return duration;
+    }
+
+    public int getChanges() {
+        return changes;
+    }
+
+    @Override
+    public String toString() {
+        return "StationArrivalDTO{" +
+                "station=" + station +
+                ", arrivalTime=" + arrivalTime +
+                ", duration=" + duration +
+                ", changes=" + changes +
+                '}';
+    }
+}
@@ -0,0 +1,56 @@
+package com.tramchester.domain.presentation.DTO;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.mappers.serialisation.TramTimeJsonDeserializer;
+import com.tramchester.mappers.serialisation.TramTimeJsonSerializer;
+
+import java.util.Arrays;
+
+// durations and changes are in the same order as the station ids of the matrix, -1 if not reachable
+public class TravelTimeRowDTO {
+    private String origin;
+    private TramTime departureTime;
+    private int[] durations;
+    private int[] changes;
+
+    public TravelTimeRowDTO(String origin, TramTime departureTime, int[] durations, int[] changes) {
+        this.origin = origin;
+        this.departureTime = departureTime;
+        this.durations = durations;
+        this.changes = changes;
+    }
+
+    public TravelTimeRowDTO() {
+        // deserialisation
+    }
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    @JsonSerialize(using = TramTimeJsonSerializer.class)
+    @JsonDeserialize(using = TramTimeJsonDeserializer.class)
+    public TramTime getDepartureTime() {
+        return departureTime;
+    }
+
+    public int[] getDurations() {
+        return durations;
+    }
+
+    public int[] getChanges() {
+        return changes;
+    }
+
+    @Override
+    public String toString() {
+        return "TravelTimeRowDTO{" +
+                "origin='" + origin + '\'' +
+                ", departureTime=" + departureTime +
+                ", durations=" + Arrays.toString(durations) +
+                ", changes=" + Arrays.toString(changes) +
+                '}';
+    }
+}
@@ -5,6 +5,7 @@ import com.tramchester.domain.Route;
 import com.tramchester.domain.Service;
 import com.tramchester.domain.input.StopCalls;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -66,4 +67,19 @@ public class ActiveGraphFilter implements GraphFilter {
     public boolean isFiltered() {
         return true;
     }
+
+    @Override
+    public Set<String> getRouteIds() {
+        return Collections.unmodifiableSet(routeCodes);
+    }
+
+    @Override
+    public Set<String> getServiceIds() {
+        return Collections.unmodifiableSet(serviceCodes);
+    }
+
+    @Override
+    public Set<String> getStationIds() {
+        return Collections.unmodifiableSet(stations);
+    }
 }
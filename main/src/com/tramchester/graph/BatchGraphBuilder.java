@@ -0,0 +1,329 @@
+package com.tramchester.graph;
+
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.domain.Agency;
+import com.tramchester.domain.Route;
+import com.tramchester.domain.Service;
+import com.tramchester.domain.input.StopCall;
+import com.tramchester.domain.input.StopCalls;
+import com.tramchester.domain.input.Trip;
+import com.tramchester.domain.places.Location;
+import com.tramchester.domain.places.RouteStation;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.presentation.LatLong;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.repository.InterchangeRepository;
+import com.tramchester.repository.TransportData;
+import org.apache.commons.io.FileUtils;
+import org.neo4j.helpers.collection.MapUtil;
+import org.neo4j.unsafe.batchinsert.BatchInserter;
+import org.neo4j.unsafe.batchinsert.BatchInserters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalTime;
+import java.util.*;
+
+import static com.tramchester.graph.GraphStaticKeys.*;
+import static java.lang.String.format;
+
+// Offline build of the same graph as TransportGraphBuilder using the batch inserter, see BuildGraphCommand
+public class BatchGraphBuilder {
+    private static final Logger logger = LoggerFactory.getLogger(BatchGraphBuilder.class);
+
+    private final TransportData transportData;
+    private final InterchangeRepository interchangeRepository;
+    private final GraphFilter graphFilter;
+    private final TramchesterConfig config;
+
+    // ids of nodes created so far
+    private final Map<String, Long> tramStations;
+    private final Map<String, Long> busStations;
+    private final Map<String, Long> platforms;
+    private final Map<String, Long> routeStations;
+    private final Map<String, Long> services;
+    private final Map<String, Long> hours;
+    private final Map<String, Long> times;
+
+    private final Set<String> platformsLinked;
+    private final Map<String, TransportRelationshipTypes> boardings;
+    private final Map<String, TransportRelationshipTypes> departs;
+    private final Set<Long> nodesWithRouteRelationship;
+    private final Map<String, Integer> tripIndexes;
+    private final Map<String, Long> serviceHashes;
+    // service node id -> to service relationship
+    private final Map<String, Long> serviceRelationships;
+    // to service relationship -> trips, written once all trips are known
+    private final Map<Long, SortedSet<Integer>> serviceTrips;
+
+    private BatchInserter inserter;
+    private long numberNodes;
+    private long numberRelationships;
+
+    public BatchGraphBuilder(TransportData transportData, InterchangeRepository interchangeRepository,
+                             GraphFilter graphFilter, TramchesterConfig config) {
+        this.transportData = transportData;
+        this.interchangeRepository = interchangeRepository;
+        this.graphFilter = graphFilter;
+        this.config = config;
+
+        tramStations = new HashMap<>();
+        busStations = new HashMap<>();
+        platforms = new HashMap<>();
+        routeStations = new HashMap<>();
+        services = new HashMap<>();
+        hours = new HashMap<>();
+        times = new HashMap<>();
+        platformsLinked = new HashSet<>();
+        boardings = new HashMap<>();
+        departs = new HashMap<>();
+        nodesWithRouteRelationship = new HashSet<>();
+        tripIndexes = new HashMap<>();
+        serviceHashes = new HashMap<>();
+        serviceRelationships = new HashMap<>();
+        serviceTrips = new HashMap<>();
+    }
+
+    public void buildGraph() throws IOException {
+        File graphFile = new File(config.getGraphName());
+        logger.info(format("Batch build of graph %s from %s", graphFile.getAbsolutePath(), transportData.getFeedInfo()));
+        FileUtils.deleteDirectory(graphFile);
+
+        long started = System.currentTimeMillis();
+        inserter = BatchInserters.inserter(graphFile, MapUtil.load(new File("config/neo4j.conf")));
+        try {
+            for (Agency agency : transportData.getAgencies()) {
+                logger.info("Add routes for agency " + agency.getId());
+                for (Route route : agency.getRoutes()) {
+                    if (graphFilter.shouldInclude(route)) {
+                        addRoute(route);
+                    }
+                }
+            }
+            serviceTrips.forEach((relationshipId, trips) -> inserter.setRelationshipProperty(relationshipId, TRIPS,
+                    trips.stream().mapToInt(Integer::intValue).toArray()));
+            createIndexes();
+        } finally {
+            logger.info("Shutdown, writes indexes and flushes the store");
+            inserter.shutdown();
+            inserter = null;
+        }
+
+        long duration = Math.max(1, System.currentTimeMillis() - started);
+        logger.info(format("Batch build finished, %s nodes, %s relationships, took %s ms, %s nodes/s %s relationships/s",
+                numberNodes, numberRelationships, duration, (numberNodes * 1000) / duration,
+                (numberRelationships * 1000) / duration));
+        clear();
+    }
+
+    private void addRoute(Route route) {
+        logger.info("Add nodes for route " + route.getId());
+        for (Service service : route.getServices()) {
+            if (graphFilter.shouldInclude(service)) {
+                for (Trip trip : service.getTrips()) {
+                    addTrip(route, service, trip, graphFilter.filterStops(trip.getStops()));
+                }
+            }
+        }
+    }
+
+    // mirrors TransportGraphBuilder
+    private void addTrip(Route route, Service service, Trip trip, StopCalls stops) {
+        byte lastStopNum = (byte) stops.size(); // sequence runs from 1
+        boolean runs = service.getDays().containsValue(true);
+
+        for (int stopIndex = 0; stopIndex < stops.size() - 1; stopIndex++) {
+            StopCall currentStop = stops.get(stopIndex);
+            StopCall nextStop = stops.get(stopIndex + 1);
+
+            boolean firstStop = (currentStop.getGetSequenceNumber() == (byte)1); //stop seq num, not index
+            boolean lastStop = nextStop.getGetSequenceNumber() == lastStopNum;
+
+            long fromRouteStation = getOrCreateCallingPointAndStation(currentStop, route, firstStop, false);
+            long toRouteStation = getOrCreateCallingPointAndStation(nextStop, route, false, lastStop);
+
+            int cost = TramTime.diffenceAsMinutes(currentStop.getDepartureTime(), nextStop.getArrivalTime());
+
+            if (runs) {
+                createRouteRelationship(fromRouteStation, toRouteStation, route, cost);
+                createServiceRelationships(fromRouteStation, toRouteStation, currentStop, nextStop, route, service, trip);
+            }
+        }
+    }
+
+    private void createRouteRelationship(long from, long to, Route route, int cost) {
+        if (nodesWithRouteRelationship.add(from)) {
+            createRelationship(from, to, TransportRelationshipTypes.ON_ROUTE, props(ROUTE_ID, route.getId(), COST, cost));
+        }
+    }
+
+    private long getOrCreateCallingPointAndStation(StopCall stop, Route route, boolean firstStop, boolean lastStop) {
+        Station station = stop.getStation();
+        String stationId = station.getId();
+        String routeStationId = RouteStation.formId(station, route);
+
+        long routeStationNode = routeStations.computeIfAbsent(routeStationId, unused ->
+                createNode(TransportGraphBuilder.Labels.ROUTE_STATION, withLatLong(props(ID, routeStationId,
+                        STATION_ID, stationId, ROUTE_ID, route.getId()), station.getLatLong())));
+
+        boolean isInterchange = interchangeRepository.isInterchange(station);
+        long stationNode = getOrCreateStation(station);
+        long platformNode = stationNode;
+
+        String stationOrPlatformID = station.isTram() ? stop.getPlatformId() : stationId;
+
+        if (station.isTram()) {
+            // add a platform node between station and calling points
+            platformNode = platforms.computeIfAbsent(stationOrPlatformID, platformId ->
+                    createNode(TransportGraphBuilder.Labels.PLATFORM, withLatLong(props(ID, platformId),
+                            station.getLatLong())));
+
+            if (platformsLinked.add(stationId + stationOrPlatformID)) {
+                int enterCost = isInterchange ? TransportGraphBuilder.ENTER_INTER_PLATFORM_COST :
+                        TransportGraphBuilder.ENTER_PLATFORM_COST;
+                int leaveCost = isInterchange ? TransportGraphBuilder.LEAVE_INTER_PLATFORM_COST :
+                        TransportGraphBuilder.LEAVE_PLATFORM_COST;
+                createRelationship(stationNode, platformNode, TransportRelationshipTypes.ENTER_PLATFORM,
+                        props(COST, enterCost, PLATFORM_ID, stationOrPlatformID));
+                createRelationship(platformNode, stationNode, TransportRelationshipTypes.LEAVE_PLATFORM,
+                        props(COST, leaveCost, STATION_ID, stationId));
+            }
+        }
+
+        TransportRelationshipTypes boardType = isInterchange ? TransportRelationshipTypes.INTERCHANGE_BOARD :
+                TransportRelationshipTypes.BOARD;
+        int boardCost = isInterchange ? TransportGraphBuilder.INTERCHANGE_BOARD_COST : TransportGraphBuilder.BOARDING_COST;
+        TransportRelationshipTypes departType = isInterchange ? TransportRelationshipTypes.INTERCHANGE_DEPART :
+                TransportRelationshipTypes.DEPART;
+        int departCost = isInterchange ? TransportGraphBuilder.INTERCHANGE_DEPART_COST : TransportGraphBuilder.DEPARTS_COST;
+
+        // no boarding at the last stop of a trip
+        String boardKey = stationOrPlatformID + "->" + routeStationId;
+        if (!lastStop && boardType != boardings.get(boardKey)) {
+            Map<String, Object> properties = props(COST, boardCost, ID, routeStationId, ROUTE_ID, route.getId(),
+                    STATION_ID, stationId);
+            // No platform ID on buses
+            if (route.isTram()) {
+                properties.put(PLATFORM_ID, stationOrPlatformID);
+            }
+            createRelationship(platformNode, routeStationNode, boardType, properties);
+            boardings.put(boardKey, boardType);
+        }
+
+        // no departing at the first stop of a trip
+        String departKey = routeStationId + "->" + stationOrPlatformID;
+        if (!firstStop && departType != departs.get(departKey)) {
+            createRelationship(routeStationNode, platformNode, departType,
+                    props(COST, departCost, ID, routeStationId, STATION_ID, stationId));
+            departs.put(departKey, departType);
+        }
+
+        return routeStationNode;
+    }
+
+    private long getOrCreateStation(Location station) {
+        Map<String, Long> existing = station.isTram() ? tramStations : busStations;
+        TransportGraphBuilder.Labels label = station.isTram() ? TransportGraphBuilder.Labels.TRAM_STATION :
+                TransportGraphBuilder.Labels.BUS_STATION;
+        return existing.computeIfAbsent(station.getId(), id ->
+                createNode(label, withLatLong(props(ID, id), station.getLatLong())));
+    }
+
+    private void createServiceRelationships(long routeStationStart, long routeStationEnd, StopCall beginStop,
+                                            StopCall endStop, Route route, Service service, Trip trip) {
+        String beginSvcNodeId = beginStop.getStation().getId() + "_" + endStop.getStation().getId() + "_" +
+                service.getId();
+        String tripId = trip.getId();
+        int tripIndex = tripIndexes.computeIfAbsent(tripId, unused -> tripIndexes.size());
+
+        Long beginServiceNode = services.get(beginSvcNodeId);
+        if (beginServiceNode == null) {
+            beginServiceNode = createNode(TransportGraphBuilder.Labels.SERVICE, withLatLong(props(ID, beginSvcNodeId,
+                    SERVICE_ID, service.getId(), ROUTE_ID, route.getId(), SERVICE_HASH, serviceHashes.computeIfAbsent(
+                            service.getId(), unused -> GraphUpdater.fingerprint(service, graphFilter))),
+                    endStop.getStation().getLatLong()));
+            services.put(beginSvcNodeId, beginServiceNode);
+
+            long svcRelationship = createRelationship(routeStationStart, beginServiceNode,
+                    TransportRelationshipTypes.TO_SERVICE, props(SERVICE_ID, service.getId(), COST, 0,
+                            ROUTE_ID, route.getId()));
+            serviceRelationships.put(beginSvcNodeId, svcRelationship);
+        }
+        serviceTrips.computeIfAbsent(serviceRelationships.get(beginSvcNodeId), unused -> new TreeSet<>()).add(tripIndex);
+
+        TramTime departureTime = beginStop.getDepartureTime();
+        int hourOfDay = departureTime.getHourOfDay();
+        long serviceNode = beginServiceNode;
+        long hourNode = hours.computeIfAbsent(beginSvcNodeId + "_" + hourOfDay, hourNodeId -> {
+            long node = createNode(TransportGraphBuilder.Labels.HOUR, props(ID, hourNodeId, HOUR, hourOfDay));
+            createRelationship(serviceNode, node, TransportRelationshipTypes.TO_HOUR, props(COST, 0, HOUR, hourOfDay));
+            return node;
+        });
+
+        long timeNode = times.computeIfAbsent(beginSvcNodeId + "_" + departureTime.toPattern(), timeNodeId -> {
+            LocalTime time = departureTime.asLocalTime();
+            long node = createNode(TransportGraphBuilder.Labels.MINUTE, props(ID, timeNodeId, TIME, time,
+                    TRIP_ID, tripId, TRIP_INDEX, tripIndex));
+            createRelationship(hourNode, node, TransportRelationshipTypes.TO_MINUTE, props(COST, 0, TIME, time,
+                    TRIP_ID, tripId));
+            return node;
+        });
+
+        TransportRelationshipTypes goesTo = route.isTram() ? TransportRelationshipTypes.TRAM_GOES_TO :
+                TransportRelationshipTypes.BUS_GOES_TO;
+        int cost = TramTime.diffenceAsMinutes(endStop.getArrivalTime(), departureTime);
+        createRelationship(timeNode, routeStationEnd, goesTo, props(TRIP_ID, tripId, TRIP_INDEX, tripIndex,
+                COST, cost, SERVICE_ID, service.getId(), ROUTE_ID, route.getId()));
+    }
+
+    private void createIndexes() {
+        logger.info("Create deferred DB indexes");
+        for (TransportGraphBuilder.Labels label : GraphDatabase.INDEXED_LABELS) {
+            inserter.createDeferredSchemaIndex(label).on(ID).create();
+        }
+    }
+
+    private long createNode(TransportGraphBuilder.Labels label, Map<String, Object> properties) {
+        numberNodes++;
+        return inserter.createNode(properties, label);
+    }
+
+    private long createRelationship(long from, long to, TransportRelationshipTypes type, Map<String, Object> properties) {
+        numberRelationships++;
+        return inserter.createRelationship(from, to, type, properties);
+    }
+
+    private static Map<String, Object> props(Object... keysAndValues) {
+        Map<String, Object> properties = new HashMap<>();
+        for (int index = 0; index < keysAndValues.length; index = index + 2) {
+            properties.put(keysAndValues[index].toString(), keysAndValues[index + 1]);
+        }
+        return properties;
+    }
+
+    private static Map<String, Object> withLatLong(Map<String, Object> properties, LatLong latLong) {
+        properties.put(GraphStaticKeys.Station.LAT, latLong.getLat());
+        properties.put(GraphStaticKeys.Station.LONG, latLong.getLon());
+        return properties;
+    }
+
+    private void clear() {
+        tramStations.clear();
+        busStations.clear();
+        platforms.clear();
+        routeStations.clear();
+        services.clear();
+        hours.clear();
+        times.clear();
+        platformsLinked.clear();
+        boardings.clear();
+        departs.clear();
+        nodesWithRouteRelationship.clear();
+        tripIndexes.clear();
+        serviceHashes.clear();
+        serviceRelationships.clear();
+        serviceTrips.clear();
+    }
+}
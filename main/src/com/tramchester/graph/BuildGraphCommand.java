@@ -0,0 +1,44 @@
+package com.tramchester.graph;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tramchester.Dependencies;
+import com.tramchester.config.AppConfiguration;
+import com.tramchester.repository.InterchangeRepository;
+import com.tramchester.repository.TransportDataSource;
+import io.dropwizard.cli.ConfiguredCommand;
+import io.dropwizard.setup.Bootstrap;
+import net.sourceforge.argparse4j.inf.Namespace;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Builds the graph offline, i.e. 'buildGraph config/local.yml'
+public class BuildGraphCommand extends ConfiguredCommand<AppConfiguration> {
+    private static final Logger logger = LoggerFactory.getLogger(BuildGraphCommand.class);
+
+    public BuildGraphCommand() {
+        super("buildGraph", "Build the graph offline, the app can then be started without rebuildGraph");
+    }
+
+    @Override
+    protected void run(Bootstrap<AppConfiguration> bootstrap, Namespace namespace, AppConfiguration configuration)
+            throws Exception {
+        Dependencies dependencies = new Dependencies();
+        TransportDataSource transportData = dependencies.loadTransportData(configuration);
+        transportData.start();
+        try {
+            InterchangeRepository interchangeRepository = new InterchangeRepository(transportData, configuration);
+            GraphFilter graphFilter = new IncludeAllFilter();
+            BatchGraphBuilder builder = new BatchGraphBuilder(transportData, interchangeRepository, graphFilter,
+                    configuration);
+            builder.buildGraph();
+
+            GraphArtifacts graphArtifacts = new GraphArtifacts(configuration, transportData, graphFilter,
+                    new ObjectMapper());
+            graphArtifacts.graphBuilt();
+            graphArtifacts.publish();
+        } finally {
+            transportData.dispose();
+        }
+        logger.info("Graph build complete for " + configuration.getGraphName());
+    }
+}
@@ -13,6 +13,7 @@ import org.picocontainer.Disposable;
 
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
@@ -23,7 +24,8 @@ import static com.tramchester.graph.TransportGraphBuilder.Labels.ROUTE_STATION;
 public class CachedNodeOperations implements ReportsCacheStats, Disposable {
 
     private final Cache<Long, Integer> relationshipCostCache;
-    private final Cache<Long, String> tripRelationshipCache;
+    private final Cache<Long, Integer> tripRelationshipCache;
+    private final Cache<Long, int[]> tripsRelationshipCache;
     private final Cache<Long, String> svcIdCache;
     private final Cache<Long, Integer> hourNodeCache;
 
@@ -31,6 +33,8 @@ public class CachedNodeOperations implements ReportsCacheStats, Disposable {
     private final Cache<Long, TramTime> times;
     // node types
     private final NodeIdLabelMap nodeIdLabelMap;
+    // checked before the caches if preloaded, see GraphPropertyTables
+    private volatile GraphPropertyTables propertyTables;
 
     public CachedNodeOperations(NodeIdLabelMap nodeIdLabelMap) {
         this.nodeIdLabelMap = nodeIdLabelMap;
@@ -40,6 +44,7 @@ public class CachedNodeOperations implements ReportsCacheStats, Disposable {
         svcIdCache = createCache(3000);
         hourNodeCache = createCache(38000);
         tripRelationshipCache = createCache(32500);
+        tripsRelationshipCache = createCache(11000);
         times = createCache(40000);
     }
 
@@ -49,9 +54,15 @@ public class CachedNodeOperations implements ReportsCacheStats, Disposable {
         svcIdCache.invalidateAll();
         hourNodeCache.invalidateAll();
         tripRelationshipCache.invalidateAll();
+        tripsRelationshipCache.invalidateAll();
         times.invalidateAll();
     }
 
+    // null to only use the caches
+    public void usePropertyTables(GraphPropertyTables propertyTables) {
+        this.propertyTables = propertyTables;
+    }
+
     @NonNull
     private <T> Cache<Long, T> createCache(int maximumSize) {
         return Caffeine.newBuilder().maximumSize(maximumSize).expireAfterAccess(10, TimeUnit.MINUTES).recordStats().build();
@@ -63,42 +74,61 @@ public class CachedNodeOperations implements ReportsCacheStats, Disposable {
         result.add(Pair.of("svcIdCache",svcIdCache.stats()));
         result.add(Pair.of("hourNodeCache",hourNodeCache.stats()));
         result.add(Pair.of("tripRelationshipCache", tripRelationshipCache.stats()));
+        result.add(Pair.of("tripsRelationshipCache", tripsRelationshipCache.stats()));
         result.add(Pair.of("times", times.stats()));
 
         return result;
     }
 
-    public String getTrips(Relationship relationship) {
-        long relationshipId = relationship.getId();
-        String ifPresent = tripRelationshipCache.getIfPresent(relationshipId);
-        if (ifPresent!=null) {
-            return ifPresent;
+    // trip indexes on a TO_SERVICE relationship are sorted
+    public boolean hasTrip(Relationship toService, int tripIndex) {
+        long relationshipId = toService.getId();
+        int[] trips = tripsRelationshipCache.getIfPresent(relationshipId);
+        if (trips==null) {
+            trips = (int[]) toService.getProperty(TRIPS);
+            tripsRelationshipCache.put(relationshipId, trips);
         }
-        String trips = relationship.getProperty(TRIPS).toString();
-        tripRelationshipCache.put(relationshipId, trips);
-        return trips;
+        return Arrays.binarySearch(trips, tripIndex) >= 0;
     }
 
-    public String getTrip(Relationship relationship) {
+    public int getTripIndex(Relationship relationship) {
         long relationshipId = relationship.getId();
-        String ifPresent = tripRelationshipCache.getIfPresent(relationshipId);
+        GraphPropertyTables tables = propertyTables;
+        if (tables!=null) {
+            int tripIndex = tables.getTripIndex(relationshipId);
+            if (tripIndex!=GraphPropertyTables.MISSING) {
+                return tripIndex;
+            }
+        }
+        Integer ifPresent = tripRelationshipCache.getIfPresent(relationshipId);
         if (ifPresent!=null) {
             return ifPresent;
         }
-        String trip = relationship.getProperty(TRIP_ID).toString().intern();
-        tripRelationshipCache.put(relationshipId, trip);
-        return trip;
-    }
-
-    public String getTrip(Node endNode) {
-        if (!endNode.hasProperty(TRIP_ID)) {
-            return "";
+        int tripIndex = (int) relationship.getProperty(TRIP_INDEX);
+        tripRelationshipCache.put(relationshipId, tripIndex);
+        return tripIndex;
+    }
+
+    public int getTripIndex(Node minuteNode) {
+        GraphPropertyTables tables = propertyTables;
+        if (tables!=null) {
+            int tripIndex = tables.getNodeTripIndex(minuteNode.getId());
+            if (tripIndex!=GraphPropertyTables.MISSING) {
+                return tripIndex;
+            }
         }
-        return endNode.getProperty(TRIP_ID).toString().intern();
+        return (int) minuteNode.getProperty(TRIP_INDEX);
     }
 
     public TramTime getTime(Node node) {
         long nodeId = node.getId();
+        GraphPropertyTables tables = propertyTables;
+        if (tables!=null) {
+            int minutes = tables.getMinutesOfDay(nodeId);
+            if (minutes!=GraphPropertyTables.MISSING) {
+                return TramTime.of(minutes / 60, minutes % 60);
+            }
+        }
         TramTime ifPresent = times.getIfPresent(nodeId);
         if (ifPresent!=null) {
             return ifPresent;
@@ -111,6 +141,13 @@ public class CachedNodeOperations implements ReportsCacheStats, Disposable {
 
     public String getServiceId(Node node) {
         long id = node.getId();
+        GraphPropertyTables tables = propertyTables;
+        if (tables!=null) {
+            String svcId = tables.getServiceId(id);
+            if (svcId!=null) {
+                return svcId;
+            }
+        }
         String ifPresent = svcIdCache.getIfPresent(id);
         if (ifPresent!=null) {
             return ifPresent;
@@ -122,6 +159,17 @@ public class CachedNodeOperations implements ReportsCacheStats, Disposable {
 
     public int getCost(Relationship relationship) {
         long relationshipId = relationship.getId();
+        if (WalkingOverlay.isVirtual(relationshipId)) {
+            // walks only live for a request and their ids are reused, so not cached
+            return (int) relationship.getProperty(GraphStaticKeys.COST);
+        }
+        GraphPropertyTables tables = propertyTables;
+        if (tables!=null) {
+            int cost = tables.getCost(relationshipId);
+            if (cost!=GraphPropertyTables.MISSING) {
+                return cost;
+            }
+        }
         Integer ifPresent = relationshipCostCache.getIfPresent(relationshipId);
         if (ifPresent!=null) {
             return ifPresent;
@@ -132,11 +180,6 @@ public class CachedNodeOperations implements ReportsCacheStats, Disposable {
         return cost;
     }
 
-    public void deleteFromCache(Relationship relationship) {
-        long relationshipId = relationship.getId();
-        relationshipCostCache.invalidate(relationshipId);
-    }
-
     public boolean isService(long nodeId) {
         return nodeIdLabelMap.has(TransportGraphBuilder.Labels.SERVICE, nodeId);
     }
@@ -155,8 +198,25 @@ public class CachedNodeOperations implements ReportsCacheStats, Disposable {
 
     public boolean isBusStation(long nodeId) { return nodeIdLabelMap.has(BUS_STATION, nodeId); }
 
+    // null if not a graph node, such as the walking nodes of a WalkingOverlay
+    public TransportGraphBuilder.Labels getLabel(long nodeId) {
+        return nodeIdLabelMap.getLabel(nodeId);
+    }
+
+    // for sizing per search structures indexed by node id
+    public int getNodeCapacity() {
+        return (int) Math.min(nodeIdLabelMap.getHighestNodeId() + 1, Integer.MAX_VALUE);
+    }
+
     public int getHour(Node node) {
         long id = node.getId();
+        GraphPropertyTables tables = propertyTables;
+        if (tables!=null) {
+            int hour = tables.getHour(id);
+            if (hour!=GraphPropertyTables.MISSING) {
+                return hour;
+            }
+        }
         Integer ifPresent = hourNodeCache.getIfPresent(id);
         if (ifPresent!=null) {
             return ifPresent;
@@ -166,18 +226,4 @@ public class CachedNodeOperations implements ReportsCacheStats, Disposable {
         return hour;
     }
 
-    // for creating query nodes, to support MyLocation joruneys
-    public Node createQueryNode(GraphDatabase graphDatabase) {
-        Node result = graphDatabase.createNode(TransportGraphBuilder.Labels.QUERY_NODE);
-        nodeIdLabelMap.putQueryNode(result.getId());
-        return result;
-    }
-
-    // for deleting query nodes, to support MyLocation joruneys
-    public void deleteNode(Node node) {
-        long id = node.getId();
-        node.delete();
-        nodeIdLabelMap.removeQueryNode(id);
-    }
-
 }
@@ -0,0 +1,157 @@
+package com.tramchester.graph;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+import org.picocontainer.Disposable;
+import org.picocontainer.Startable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+import static com.tramchester.graph.TransportRelationshipTypes.*;
+import static java.lang.String.format;
+
+// Snapshot of the relationships leading to a station from route stations and platforms, so checking for the
+// destination does not go to the property store
+public class GraphAdjacency implements Startable, Disposable {
+    private static final Logger logger = LoggerFactory.getLogger(GraphAdjacency.class);
+
+    public static final long NOT_FOUND = -1;
+
+    private static final int NONE = -1;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final GraphDatabase graphDatabase;
+    private final Map<String, Integer> stationIndexes;
+
+    // indexed by node id, offset into the relationship arrays and number of them, NONE if no outbounds
+    private int[] firstOutbound;
+    private int[] numberOutbound;
+    // outbounds of each node held together, relationship id and index of the station it leads to
+    private long[] relationshipIds;
+    private int[] stationOf;
+    private int size;
+    private int numberOfNodes;
+
+    public GraphAdjacency(GraphDatabase graphDatabase, TransportGraphBuilder transportGraphBuilder) {
+        this.graphDatabase = graphDatabase;
+        stationIndexes = new HashMap<>();
+        clear();
+    }
+
+    @Override
+    public void start() {
+        logger.info("Build adjacency snapshot");
+        long started = System.currentTimeMillis();
+        dispose();
+
+        try (Transaction tx = graphDatabase.beginTx()) {
+            graphDatabase.findNodes(TransportGraphBuilder.Labels.ROUTE_STATION).
+                    forEachRemaining(node -> add(node, DEPART, INTERCHANGE_DEPART));
+            graphDatabase.findNodes(TransportGraphBuilder.Labels.PLATFORM).
+                    forEachRemaining(node -> add(node, LEAVE_PLATFORM));
+            tx.success();
+        }
+
+        long approxBytes = (firstOutbound.length * 8L) + (relationshipIds.length * 12L);
+        logger.info(format("Adjacency snapshot has %s relationships from %s nodes to %s stations, approx %s KB, took %s ms",
+                size, numberOfNodes, stationIndexes.size(), approxBytes / 1024,
+                System.currentTimeMillis() - started));
+    }
+
+    @Override
+    public void stop() {
+        // no op
+    }
+
+    @Override
+    public void dispose() {
+        clear();
+        stationIndexes.clear();
+    }
+
+    private void clear() {
+        firstOutbound = new int[INITIAL_CAPACITY];
+        Arrays.fill(firstOutbound, NONE);
+        numberOutbound = new int[INITIAL_CAPACITY];
+        relationshipIds = new long[INITIAL_CAPACITY];
+        stationOf = new int[INITIAL_CAPACITY];
+        size = 0;
+        numberOfNodes = 0;
+    }
+
+    private void add(Node node, TransportRelationshipTypes... types) {
+        int first = size;
+        for (Relationship relationship : node.getRelationships(Direction.OUTGOING, types)) {
+            if (size == relationshipIds.length) {
+                int capacity = size + (size >> 1);
+                relationshipIds = Arrays.copyOf(relationshipIds, capacity);
+                stationOf = Arrays.copyOf(stationOf, capacity);
+            }
+            relationshipIds[size] = relationship.getId();
+            String stationId = relationship.getProperty(GraphStaticKeys.STATION_ID).toString();
+            stationOf[size] = stationIndexes.computeIfAbsent(stationId, unused -> stationIndexes.size());
+            size++;
+        }
+        if (size == first) {
+            return;
+        }
+
+        int index = asIndex(node.getId());
+        if (index >= firstOutbound.length) {
+            int capacity = Math.max(index + 1, firstOutbound.length + (firstOutbound.length >> 1));
+            int previous = firstOutbound.length;
+            firstOutbound = Arrays.copyOf(firstOutbound, capacity);
+            Arrays.fill(firstOutbound, previous, capacity, NONE);
+            numberOutbound = Arrays.copyOf(numberOutbound, capacity);
+        }
+        firstOutbound[index] = first;
+        numberOutbound[index] = size - first;
+        numberOfNodes++;
+    }
+
+    private int asIndex(long nodeId) {
+        if (nodeId < 0 || nodeId >= Integer.MAX_VALUE) {
+            throw new RuntimeException("Node id out of range for adjacency " + nodeId);
+        }
+        return (int) nodeId;
+    }
+
+    // stations not in the graph are left out
+    public BitSet stationIndexes(Collection<String> stationIds) {
+        BitSet result = new BitSet(stationIndexes.size());
+        stationIds.forEach(stationId -> {
+            Integer index = stationIndexes.get(stationId);
+            if (index != null) {
+                result.set(index);
+            }
+        });
+        return result;
+    }
+
+    // id of the first outbound relationship from the node towards one of the stations, or NOT_FOUND, walking nodes
+    // have negative ids so are never found
+    public long findTowards(long nodeId, BitSet stations) {
+        if (nodeId < 0 || nodeId >= firstOutbound.length) {
+            return NOT_FOUND;
+        }
+        int first = firstOutbound[(int) nodeId];
+        if (first == NONE) {
+            return NOT_FOUND;
+        }
+        int end = first + numberOutbound[(int) nodeId];
+        for (int i = first; i < end; i++) {
+            if (stations.get(stationOf[i])) {
+                return relationshipIds[i];
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    public Relationship getRelationship(long relationshipId) {
+        return graphDatabase.getRelationshipById(relationshipId);
+    }
+}
@@ -0,0 +1,283 @@
+package com.tramchester.graph;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.dataimport.FetchDataFromUrl;
+import com.tramchester.domain.Service;
+import com.tramchester.repository.TransportData;
+import org.apache.commons.io.FileUtils;
+import org.picocontainer.Startable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.lang.String.format;
+
+// Graphs kept with a manifest of the data and build parameters they were built from, reused or restored from the
+// cache directory when they match
+public class GraphArtifacts implements Startable {
+    private static final Logger logger = LoggerFactory.getLogger(GraphArtifacts.class);
+
+    // change when the layout of the graph changes, so older artifacts are not used
+    private static final String GRAPH_VERSION = "1";
+
+    private final TramchesterConfig config;
+    private final TransportData transportData;
+    private final GraphFilter graphFilter;
+    private final ObjectMapper mapper;
+
+    private GraphManifest expected;
+    private GraphManifest current;
+    private boolean rebuild;
+    private boolean update;
+    private boolean built;
+    private String status;
+
+    public GraphArtifacts(TramchesterConfig config, TransportData transportData, GraphFilter graphFilter,
+                          ObjectMapper mapper) {
+        this.config = config;
+        this.transportData = transportData;
+        this.graphFilter = graphFilter;
+        this.mapper = mapper;
+        status = "Not started";
+    }
+
+    @Override
+    public void start() {
+        expected = createManifest();
+        Path graphPath = graphPath();
+        current = readManifest(graphPath).orElse(null);
+        rebuild = false;
+        update = false;
+        built = false;
+
+        if (config.getRebuildGraph()) {
+            rebuild = true;
+            status = "Rebuild configured";
+        } else if (current != null && expected.matches(current)) {
+            status = "Existing graph matches the timetable";
+        } else {
+            String mismatch = current == null ? "no manifest for existing graph" : expected.differences(current);
+            Optional<Path> cached = findInCache();
+            if (cached.isPresent() && restore(cached.get(), graphPath)) {
+                current = readManifest(graphPath).orElse(null);
+                status = format("Using graph from cache %s, existing graph did not match: %s", cached.get(), mismatch);
+            } else if (canUpdate(graphPath)) {
+                update = true;
+                status = "Updating graph, existing graph did not match: " + mismatch;
+            } else {
+                rebuild = true;
+                status = "Rebuilding graph, existing graph did not match: " + mismatch;
+            }
+        }
+        logger.info(status);
+    }
+
+    @Override
+    public void stop() {
+        if (built) {
+            publish();
+        }
+    }
+
+    public boolean rebuildRequired() {
+        return rebuild;
+    }
+
+    // existing graph kept, but needs bringing up to date with the timetable
+    public boolean updateRequired() {
+        return update;
+    }
+
+    // true if the manifest of the graph in use matches the timetable
+    public boolean matches() {
+        return current != null && expected.matches(current);
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    // after a successful build or update, the store at graph name is now for the loaded timetable
+    public void graphBuilt() {
+        if (expected == null) {
+            // offline build, see BuildGraphCommand
+            expected = createManifest();
+        }
+        GraphManifest manifest = new GraphManifest(expected.getFeedVersion(), expected.getSourceChecksum(),
+                expected.getBuildParameters());
+        manifest.setBuiltAt(LocalDateTime.now(TramchesterConfig.TimeZone).toString());
+        try {
+            mapper.writeValue(graphPath().resolve(GraphManifest.FILENAME).toFile(), manifest);
+            current = manifest;
+            built = true;
+            status = status + ", graph built";
+            logger.info("Wrote manifest " + manifest);
+        } catch (IOException exception) {
+            logger.error("Unable to write manifest for " + graphPath(), exception);
+        }
+    }
+
+    // copy the built graph into the cache, the store must not be open
+    public void publish() {
+        Path cacheDirectory = config.getGraphCacheDirectory();
+        if (cacheDirectory == null || graphFilter.isFiltered() || !matches()) {
+            return;
+        }
+        Path target = cacheDirectory.resolve(artifactName(current));
+        boolean exists = Files.exists(target);
+        if (exists && readManifest(target).map(current::matches).orElse(false)) {
+            logger.info("Already in cache " + target);
+            return;
+        }
+        Path working = cacheDirectory.resolve(target.getFileName() + ".tmp");
+        try {
+            FileUtils.deleteDirectory(working.toFile());
+            FileUtils.copyDirectory(graphPath().toFile(), working.toFile());
+            if (exists) {
+                logger.warn("Replacing artifact in cache that does not match its name " + target);
+                FileUtils.deleteDirectory(target.toFile());
+            }
+            Files.move(working, target, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Added graph to cache " + target);
+        } catch (IOException exception) {
+            logger.error("Unable to add graph to cache " + target, exception);
+        }
+    }
+
+    private Path graphPath() {
+        return new File(config.getGraphName()).toPath();
+    }
+
+    private boolean canUpdate(Path graphPath) {
+        if (!config.getIncrementalGraphUpdate() || !Files.exists(graphPath)) {
+            return false;
+        }
+        // graphs without a manifest, or of another graph version, have a different layout so cannot be updated
+        return current != null && expected.sameBuildParameters(current);
+    }
+
+    private Optional<Path> findInCache() {
+        Path cacheDirectory = config.getGraphCacheDirectory();
+        if (cacheDirectory == null || !Files.isDirectory(cacheDirectory)) {
+            return Optional.empty();
+        }
+        try (Stream<Path> artifacts = Files.list(cacheDirectory)) {
+            return artifacts.filter(Files::isDirectory).
+                    filter(artifact -> !artifact.getFileName().toString().endsWith(".tmp")).
+                    filter(artifact -> readManifest(artifact).map(expected::matches).orElse(false)).
+                    findFirst();
+        } catch (IOException exception) {
+            logger.warn("Unable to search graph cache " + cacheDirectory, exception);
+            return Optional.empty();
+        }
+    }
+
+    // copied alongside and then moved into place, so a failed copy leaves the existing graph as it was
+    private boolean restore(Path artifact, Path graphPath) {
+        logger.info(format("Copy graph from cache %s to %s", artifact, graphPath));
+        Path working = graphPath.resolveSibling(graphPath.getFileName() + ".tmp");
+        Path previous = graphPath.resolveSibling(graphPath.getFileName() + ".old");
+        try {
+            FileUtils.deleteDirectory(working.toFile());
+            FileUtils.copyDirectory(artifact.toFile(), working.toFile());
+            FileUtils.deleteDirectory(previous.toFile());
+            if (Files.exists(graphPath)) {
+                Files.move(graphPath, previous, StandardCopyOption.ATOMIC_MOVE);
+            }
+            Files.move(working, graphPath, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException exception) {
+            logger.error("Unable to copy graph from cache " + artifact, exception);
+            return false;
+        }
+        try {
+            FileUtils.deleteDirectory(previous.toFile());
+        } catch (IOException exception) {
+            logger.warn("Unable to remove previous graph " + previous, exception);
+        }
+        return true;
+    }
+
+    private Optional<GraphManifest> readManifest(Path graphPath) {
+        Path file = graphPath.resolve(GraphManifest.FILENAME);
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(mapper.readValue(file.toFile(), GraphManifest.class));
+        } catch (IOException exception) {
+            logger.warn("Unable to read manifest " + file, exception);
+            return Optional.empty();
+        }
+    }
+
+    // includes the build parameters, so graphs of the same timetable built differently are kept apart
+    private String artifactName(GraphManifest manifest) {
+        String graphName = graphPath().getFileName().toString();
+        String version = manifest.getFeedVersion() == null ? "unknown" : manifest.getFeedVersion();
+        String checksum = manifest.getSourceChecksum();
+        String parameters = Integer.toHexString(new TreeMap<>(manifest.getBuildParameters()).toString().hashCode());
+        return (graphName + "-" + version + "-" + checksum.substring(Math.max(0, checksum.length() - 12)) + "-" +
+                parameters).replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    private GraphManifest createManifest() {
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put("graphVersion", GRAPH_VERSION);
+        parameters.put("bus", Boolean.toString(config.getBus()));
+        parameters.put("agencies", new TreeSet<>(config.getAgencies()).toString());
+        parameters.put("filtered", Boolean.toString(graphFilter.isFiltered()));
+        if (graphFilter.isFiltered()) {
+            // graphs with different filters differ
+            parameters.put("filterRoutes", new TreeSet<>(graphFilter.getRouteIds()).toString());
+            parameters.put("filterServices", new TreeSet<>(graphFilter.getServiceIds()).toString());
+            parameters.put("filterStations", new TreeSet<>(graphFilter.getStationIds()).toString());
+        }
+        return new GraphManifest(transportData.getFeedInfo().getVersion(), sourceChecksum(), parameters);
+    }
+
+    // of the downloaded zip, or when there is not one of the services themselves
+    private String sourceChecksum() {
+        Path zip = config.getDataPath().resolve(FetchDataFromUrl.ZIP_FILENAME);
+        if (Files.exists(zip)) {
+            try (InputStream stream = Files.newInputStream(zip)) {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                byte[] buffer = new byte[64 * 1024];
+                int read;
+                while ((read = stream.read(buffer)) > 0) {
+                    digest.update(buffer, 0, read);
+                }
+                return toHex(digest.digest());
+            } catch (IOException | NoSuchAlgorithmException exception) {
+                logger.warn("Unable to checksum " + zip, exception);
+            }
+        }
+        List<Service> services = transportData.getServices().stream().
+                sorted(Comparator.comparing(Service::getId)).collect(Collectors.toList());
+        long hash = 17;
+        for (Service service : services) {
+            hash = (hash * 31) + GraphUpdater.fingerprint(service, graphFilter);
+        }
+        return "services-" + Long.toHexString(hash);
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder result = new StringBuilder();
+        for (byte value : bytes) {
+            result.append(format("%02x", value));
+        }
+        return result.toString();
+    }
+}
@@ -4,10 +4,12 @@ import com.tramchester.config.TramchesterConfig;
 import org.apache.commons.io.FileUtils;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.ResourceIterator;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.graphdb.factory.GraphDatabaseBuilder;
 import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.graphdb.schema.Schema;
 import org.neo4j.graphdb.traversal.TraversalDescription;
 import org.neo4j.logging.slf4j.Slf4jLogProvider;
@@ -22,11 +24,21 @@ import java.util.concurrent.TimeUnit;
 public class GraphDatabase implements Startable {
     private static final Logger logger = LoggerFactory.getLogger(GraphDatabase.class);
 
+    // indexed on the id property
+    static final TransportGraphBuilder.Labels[] INDEXED_LABELS = {
+            TransportGraphBuilder.Labels.TRAM_STATION, TransportGraphBuilder.Labels.BUS_STATION,
+            TransportGraphBuilder.Labels.ROUTE_STATION, TransportGraphBuilder.Labels.PLATFORM,
+            TransportGraphBuilder.Labels.SERVICE, TransportGraphBuilder.Labels.HOUR,
+            TransportGraphBuilder.Labels.MINUTE };
+
     private final TramchesterConfig configuration;
+    private final GraphArtifacts graphArtifacts;
     private GraphDatabaseService theDB;
+    private GraphPageCache pageCache;
 
-    public GraphDatabase(TramchesterConfig configuration) {
+    public GraphDatabase(TramchesterConfig configuration, GraphArtifacts graphArtifacts) {
         this.configuration = configuration;
+        this.graphArtifacts = graphArtifacts;
     }
 
     @Override
@@ -37,7 +49,8 @@ public class GraphDatabase implements Startable {
         logger.info("Create or load graph " + graphName);
         File graphFile = new File(graphName);
 
-        boolean rebuildGraph = configuration.getRebuildGraph();
+        // configured, or the existing graph does not match the timetable
+        boolean rebuildGraph = graphArtifacts.rebuildRequired();
 
         if (rebuildGraph) {
             logger.info("Deleting previous graph db for " + graphFile.getAbsolutePath());
@@ -48,18 +61,37 @@ public class GraphDatabase implements Startable {
             }
         }
 
-        theDB = createGraphDatabaseService(graphFile);
+        // the graph is built or updated in place during start up, so only serve read only once it is up to date
+        boolean readOnly = configuration.getReadOnlyGraph() && !rebuildGraph && !graphArtifacts.updateRequired();
+        if (configuration.getReadOnlyGraph() && !readOnly) {
+            logger.warn("Read only graph configured but graph needs building or updating, opening read write");
+        }
+
+        theDB = createGraphDatabaseService(graphFile, readOnly);
+        pageCache = new GraphPageCache(theDB);
+
+        if (readOnly) {
+            // before ready, so the first requests do not fault in the store
+            pageCache.warm(Runtime.getRuntime().availableProcessors());
+        }
 
         logger.info("graph db ready for " + graphFile.getAbsolutePath());
     }
 
-    private GraphDatabaseService createGraphDatabaseService(File graphFile) {
+    private GraphDatabaseService createGraphDatabaseService(File graphFile, boolean readOnly) {
         GraphDatabaseFactory graphDatabaseFactory = new GraphDatabaseFactory().setUserLogProvider(new Slf4jLogProvider());
 
         GraphDatabaseBuilder builder = graphDatabaseFactory.
                 newEmbeddedDatabaseBuilder(graphFile).
                 loadPropertiesFromFile("config/neo4j.conf");
 
+        if (readOnly) {
+            logger.info("Open graph read only");
+            builder.setConfig(GraphDatabaseSettings.read_only, "true");
+            // in place of the size from neo4j.conf, the whole store is paged in
+            builder.setConfig(GraphDatabaseSettings.pagecache_memory, GraphPageCache.sizeFor(graphFile.toPath()));
+        }
+
         GraphDatabaseService graphDatabaseService = builder.newGraphDatabase();
         if (!graphDatabaseService.isAvailable(1000)) {
             logger.error("DB Service is not available");
@@ -96,13 +128,9 @@ public class GraphDatabase implements Startable {
         try ( Transaction tx = theDB.beginTx() )
         {
             Schema schema = theDB.schema();
-            schema.indexFor(TransportGraphBuilder.Labels.TRAM_STATION).on(GraphStaticKeys.ID).create();
-            schema.indexFor(TransportGraphBuilder.Labels.BUS_STATION).on(GraphStaticKeys.ID).create();
-            schema.indexFor(TransportGraphBuilder.Labels.ROUTE_STATION).on(GraphStaticKeys.ID).create();
-            schema.indexFor(TransportGraphBuilder.Labels.PLATFORM).on(GraphStaticKeys.ID).create();
-            schema.indexFor(TransportGraphBuilder.Labels.SERVICE).on(GraphStaticKeys.ID).create();
-            schema.indexFor(TransportGraphBuilder.Labels.HOUR).on(GraphStaticKeys.ID).create();
-            schema.indexFor(TransportGraphBuilder.Labels.MINUTE).on(GraphStaticKeys.ID).create();
+            for (TransportGraphBuilder.Labels label : INDEXED_LABELS) {
+                schema.indexFor(label).on(GraphStaticKeys.ID).create();
+            }
 
             tx.success();
         }
@@ -145,7 +173,23 @@ public class GraphDatabase implements Startable {
         return theDB.beginTx(timeout, timeUnit);
     }
 
-    public Node getNodeById(int nodeId) {
+    public Node getNodeById(long nodeId) {
         return theDB.getNodeById(nodeId);
     }
+
+    public Relationship getRelationshipById(long relationshipId) {
+        return theDB.getRelationshipById(relationshipId);
+    }
+
+    public long getPageCacheHits() {
+        return pageCache==null ? 0 : pageCache.getHits();
+    }
+
+    public long getPageCacheFaults() {
+        return pageCache==null ? 0 : pageCache.getFaults();
+    }
+
+    public double getPageCacheHitRatio() {
+        return pageCache==null ? 0D : pageCache.getHitRatio();
+    }
 }
@@ -4,9 +4,16 @@ import com.tramchester.domain.Route;
 import com.tramchester.domain.Service;
 import com.tramchester.domain.input.StopCalls;
 
+import java.util.Set;
+
 public interface GraphFilter {
     boolean isFiltered();
     boolean shouldInclude(Route route);
     boolean shouldInclude(Service service);
     StopCalls filterStops(StopCalls stops);
+
+    // ids included, empty if all are
+    Set<String> getRouteIds();
+    Set<String> getServiceIds();
+    Set<String> getStationIds();
 }
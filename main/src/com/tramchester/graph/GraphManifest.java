@@ -0,0 +1,99 @@
+package com.tramchester.graph;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import static java.lang.String.format;
+
+// what a graph was built from, saved alongside it, see GraphArtifacts
+public class GraphManifest {
+    public static final String FILENAME = "manifest.json";
+
+    private String feedVersion;
+    private String sourceChecksum;
+    private Map<String, String> buildParameters;
+    private String builtAt;
+
+    public GraphManifest() {
+        // deserialisation
+    }
+
+    public GraphManifest(String feedVersion, String sourceChecksum, Map<String, String> buildParameters) {
+        this.feedVersion = feedVersion;
+        this.sourceChecksum = sourceChecksum;
+        this.buildParameters = new TreeMap<>(buildParameters);
+    }
+
+    public String getFeedVersion() {
+        return feedVersion;
+    }
+
+    public void setFeedVersion(String feedVersion) {
+        this.feedVersion = feedVersion;
+    }
+
+    public String getSourceChecksum() {
+        return sourceChecksum;
+    }
+
+    public void setSourceChecksum(String sourceChecksum) {
+        this.sourceChecksum = sourceChecksum;
+    }
+
+    public Map<String, String> getBuildParameters() {
+        return buildParameters;
+    }
+
+    public void setBuildParameters(Map<String, String> buildParameters) {
+        this.buildParameters = new TreeMap<>(buildParameters);
+    }
+
+    public String getBuiltAt() {
+        return builtAt;
+    }
+
+    public void setBuiltAt(String builtAt) {
+        this.builtAt = builtAt;
+    }
+
+    @JsonIgnore
+    public boolean sameBuildParameters(GraphManifest other) {
+        return Objects.equals(buildParameters, other.buildParameters);
+    }
+
+    // same timetable and parameters, when built is ignored
+    @JsonIgnore
+    public boolean matches(GraphManifest other) {
+        return sameBuildParameters(other) && Objects.equals(feedVersion, other.feedVersion) &&
+                Objects.equals(sourceChecksum, other.sourceChecksum);
+    }
+
+    // reason other does not match, empty if it does
+    @JsonIgnore
+    public String differences(GraphManifest other) {
+        StringBuilder result = new StringBuilder();
+        if (!Objects.equals(feedVersion, other.feedVersion)) {
+            result.append(format("feed version %s not %s ", other.feedVersion, feedVersion));
+        }
+        if (!Objects.equals(sourceChecksum, other.sourceChecksum)) {
+            result.append("source checksum differs ");
+        }
+        if (!sameBuildParameters(other)) {
+            result.append(format("build parameters %s not %s", other.buildParameters, buildParameters));
+        }
+        return result.toString().trim();
+    }
+
+    @Override
+    public String toString() {
+        return "GraphManifest{" +
+                "feedVersion='" + feedVersion + '\'' +
+                ", sourceChecksum='" + sourceChecksum + '\'' +
+                ", buildParameters=" + buildParameters +
+                ", builtAt='" + builtAt + '\'' +
+                '}';
+    }
+}
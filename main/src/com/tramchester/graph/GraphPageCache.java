@@ -0,0 +1,155 @@
+package com.tramchester.graph;
+
+import org.neo4j.graphdb.DependencyResolver;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.monitoring.PageCacheCounters;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static java.lang.String.format;
+
+// Sizes and warms the page cache for a read only graph
+class GraphPageCache {
+    private static final Logger logger = LoggerFactory.getLogger(GraphPageCache.class);
+
+    // pages read by each warm up task, so large stores are split across the threads
+    private static final long PAGES_PER_TASK = 4096;
+    private static final long MIN_CACHE_BYTES = 8 * 1024 * 1024;
+    // leaves room for the OS, transaction state and other off heap use
+    private static final double OFF_HEAP_FRACTION = 0.5;
+
+    private final PageCache pageCache;
+    private final PageCacheCounters counters;
+
+    GraphPageCache(GraphDatabaseService graphDatabaseService) {
+        DependencyResolver resolver = ((GraphDatabaseAPI) graphDatabaseService).getDependencyResolver();
+        pageCache = resolver.resolveDependency(PageCache.class);
+        counters = resolver.resolveDependency(PageCacheCounters.class);
+    }
+
+    // page cache setting to hold all of the store, with some headroom for the files growing, but no more than a share
+    // of the memory outside of the heap
+    static String sizeFor(Path graphPath) {
+        long storeBytes = storeSize(graphPath);
+        long cacheBytes = Math.max(MIN_CACHE_BYTES, storeBytes + (storeBytes / 10));
+        long limit = Math.max(MIN_CACHE_BYTES, (long) (offHeapBytes() * OFF_HEAP_FRACTION));
+        if (cacheBytes > limit) {
+            logger.warn(format("Store at %s is %s KB, page cache limited to %s KB of available memory, store will " +
+                    "not be fully cached", graphPath, storeBytes / 1024, limit / 1024));
+            cacheBytes = limit;
+        }
+        logger.info(format("Store at %s is %s KB, page cache %s KB", graphPath, storeBytes / 1024, cacheBytes / 1024));
+        return (cacheBytes / 1024) + "k";
+    }
+
+    // physical memory not taken by the heap
+    private static long offHeapBytes() {
+        OperatingSystemMXBean osBean = ManagementFactory.getOperatingSystemMXBean();
+        if (!(osBean instanceof com.sun.management.OperatingSystemMXBean)) {
+            return MIN_CACHE_BYTES;
+        }
+        long physical = ((com.sun.management.OperatingSystemMXBean) osBean).getTotalPhysicalMemorySize();
+        return Math.max(0, physical - Runtime.getRuntime().maxMemory());
+    }
+
+    // transaction logs and the manifest are not paged
+    private static long storeSize(Path graphPath) {
+        if (!Files.isDirectory(graphPath)) {
+            return 0;
+        }
+        try (Stream<Path> files = Files.walk(graphPath)) {
+            return files.filter(Files::isRegularFile).
+                    filter(file -> !file.getFileName().toString().startsWith("neostore.transaction.db")).
+                    filter(file -> !file.getFileName().toString().equals(GraphManifest.FILENAME)).
+                    mapToLong(file -> file.toFile().length()).sum();
+        } catch (IOException exception) {
+            logger.warn("Unable to find size of store " + graphPath, exception);
+            return 0;
+        }
+    }
+
+    // read every page of the mapped store files, in parallel, returns number of pages read
+    long warm(int threads) {
+        long started = System.currentTimeMillis();
+        long faultsBefore = counters.faults();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        // mapped again so there is a reference of our own to close, those of the database must be left alone
+        List<PagedFile> pagedFiles = new ArrayList<>();
+        long pages = 0;
+        try {
+            for (PagedFile existing : pageCache.listExistingMappings()) {
+                pagedFiles.add(pageCache.map(existing.file(), existing.pageSize()));
+            }
+            List<Future<Long>> tasks = new ArrayList<>();
+            for (PagedFile pagedFile : pagedFiles) {
+                long lastPageId = pagedFile.getLastPageId();
+                for (long start = 0; start <= lastPageId; start += PAGES_PER_TASK) {
+                    long first = start;
+                    long count = Math.min(PAGES_PER_TASK, (lastPageId - start) + 1);
+                    tasks.add(executor.submit(() -> touch(pagedFile, first, count)));
+                }
+            }
+            for (Future<Long> task : tasks) {
+                pages = pages + task.get();
+            }
+        } catch (IOException | ExecutionException exception) {
+            logger.warn("Unable to warm page cache", exception);
+        } catch (InterruptedException exception) {
+            logger.warn("Interrupted warming page cache");
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+            pagedFiles.forEach(this::close);
+        }
+        logger.info(format("Warmed page cache with %s pages of %s files, %s faults, took %s ms", pages,
+                pagedFiles.size(), counters.faults() - faultsBefore, System.currentTimeMillis() - started));
+        return pages;
+    }
+
+    private long touch(PagedFile pagedFile, long first, long count) throws IOException {
+        long read = 0;
+        try (PageCursor cursor = pagedFile.io(first, PagedFile.PF_SHARED_READ_LOCK)) {
+            while (read < count && cursor.next()) {
+                read++;
+            }
+        }
+        return read;
+    }
+
+    private void close(PagedFile pagedFile) {
+        try {
+            pagedFile.close();
+        } catch (IOException exception) {
+            logger.warn("Unable to close " + pagedFile, exception);
+        }
+    }
+
+    long getHits() {
+        return counters.hits();
+    }
+
+    long getFaults() {
+        return counters.faults();
+    }
+
+    double getHitRatio() {
+        return counters.hitRatio();
+    }
+}
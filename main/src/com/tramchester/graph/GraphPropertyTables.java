@@ -0,0 +1,204 @@
+package com.tramchester.graph;
+
+import com.tramchester.config.TramchesterConfig;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+import org.picocontainer.Startable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalTime;
+import java.util.*;
+
+import static com.tramchester.graph.GraphStaticKeys.*;
+import static java.lang.String.format;
+
+// Traversal properties preloaded into arrays indexed by node or relationship id, see preloadGraphProperties
+public class GraphPropertyTables implements Startable {
+    private static final Logger logger = LoggerFactory.getLogger(GraphPropertyTables.class);
+
+    public static final int MISSING = -1;
+
+    private final GraphDatabase graphDatabase;
+    private final CachedNodeOperations nodeOperations;
+    private final TramchesterConfig config;
+
+    // by relationship id
+    private short[] costs;
+    private int[] relationshipTrips;
+    // by node id
+    private byte[] hours;
+    private short[] minutesOfDay;
+    private int[] nodeTrips;
+    private int[] services;
+
+    private final List<String> serviceIds;
+
+    // graph builder is a dependency so this is loaded after the graph is
+    public GraphPropertyTables(GraphDatabase graphDatabase, TransportGraphBuilder transportGraphBuilder,
+                               CachedNodeOperations nodeOperations, TramchesterConfig config) {
+        this.graphDatabase = graphDatabase;
+        this.nodeOperations = nodeOperations;
+        this.config = config;
+        serviceIds = new ArrayList<>();
+        clear();
+    }
+
+    @Override
+    public void start() {
+        if (!config.getPreloadGraphProperties()) {
+            logger.info("Not preloading graph properties");
+            return;
+        }
+        logger.info("Preload graph properties");
+        long started = System.currentTimeMillis();
+        clear();
+
+        Map<String, Integer> serviceIndexes = new HashMap<>();
+        try (Transaction tx = graphDatabase.beginTx()) {
+            for (TransportGraphBuilder.Labels label : TransportGraphBuilder.Labels.values()) {
+                if (label == TransportGraphBuilder.Labels.QUERY_NODE) {
+                    continue;
+                }
+                graphDatabase.findNodes(label).forEachRemaining(node -> {
+                    loadNode(label, node, serviceIndexes);
+                    node.getRelationships(Direction.OUTGOING).forEach(this::loadRelationship);
+                });
+            }
+            tx.success();
+        }
+
+        nodeOperations.usePropertyTables(this);
+        logger.info(format("Preloaded graph properties for %s relationships and %s nodes, %s services, approx %s KB, " +
+                        "took %s ms", costs.length, hours.length, serviceIds.size(), getApproxBytes() / 1024,
+                System.currentTimeMillis() - started));
+    }
+
+    @Override
+    public void stop() {
+        nodeOperations.usePropertyTables(null);
+        clear();
+    }
+
+    private void clear() {
+        costs = new short[0];
+        relationshipTrips = new int[0];
+        hours = new byte[0];
+        minutesOfDay = new short[0];
+        nodeTrips = new int[0];
+        services = new int[0];
+        serviceIds.clear();
+    }
+
+    private void loadNode(TransportGraphBuilder.Labels label, Node node, Map<String, Integer> serviceIndexes) {
+        int index = asIndex(node.getId());
+        switch (label) {
+            case HOUR:
+                hours = ensureCapacity(hours, index);
+                hours[index] = (byte) (int) node.getProperty(HOUR);
+                break;
+            case MINUTE:
+                LocalTime time = (LocalTime) node.getProperty(TIME);
+                minutesOfDay = ensureCapacity(minutesOfDay, index);
+                minutesOfDay[index] = (short) ((time.getHour() * 60) + time.getMinute());
+                nodeTrips = ensureCapacity(nodeTrips, index);
+                nodeTrips[index] = (int) node.getProperty(TRIP_INDEX);
+                break;
+            case SERVICE:
+                String serviceId = node.getProperty(SERVICE_ID).toString().intern();
+                services = ensureCapacity(services, index);
+                services[index] = serviceIndexes.computeIfAbsent(serviceId, unused -> {
+                    serviceIds.add(serviceId);
+                    return serviceIds.size() - 1;
+                });
+                break;
+            default:
+                // nothing needed
+        }
+    }
+
+    private void loadRelationship(Relationship relationship) {
+        int index = asIndex(relationship.getId());
+        Object cost = relationship.getProperty(COST, null);
+        if (cost != null && (int) cost <= Short.MAX_VALUE) {
+            costs = ensureCapacity(costs, index);
+            costs[index] = (short) (int) cost;
+        }
+        Object tripIndex = relationship.getProperty(TRIP_INDEX, null);
+        if (tripIndex != null) {
+            relationshipTrips = ensureCapacity(relationshipTrips, index);
+            relationshipTrips[index] = (int) tripIndex;
+        }
+    }
+
+    public int getCost(long relationshipId) {
+        return relationshipId < costs.length ? costs[(int) relationshipId] : MISSING;
+    }
+
+    public int getTripIndex(long relationshipId) {
+        return relationshipId < relationshipTrips.length ? relationshipTrips[(int) relationshipId] : MISSING;
+    }
+
+    public int getHour(long nodeId) {
+        return nodeId < hours.length ? hours[(int) nodeId] : MISSING;
+    }
+
+    public int getMinutesOfDay(long nodeId) {
+        return nodeId < minutesOfDay.length ? minutesOfDay[(int) nodeId] : MISSING;
+    }
+
+    public int getNodeTripIndex(long nodeId) {
+        return nodeId < nodeTrips.length ? nodeTrips[(int) nodeId] : MISSING;
+    }
+
+    // null if not loaded
+    public String getServiceId(long nodeId) {
+        int index = nodeId < services.length ? services[(int) nodeId] : MISSING;
+        return index == MISSING ? null : serviceIds.get(index);
+    }
+
+    public long getApproxBytes() {
+        return (costs.length * 2L) + (relationshipTrips.length * 4L) + hours.length + (minutesOfDay.length * 2L) +
+                (nodeTrips.length * 4L) + (services.length * 4L) + (serviceIds.size() * 64L);
+    }
+
+    private static int asIndex(long id) {
+        if (id < 0 || id >= Integer.MAX_VALUE) {
+            throw new RuntimeException("Id out of range for property tables " + id);
+        }
+        return (int) id;
+    }
+
+    private static int grownCapacity(int current, int index) {
+        return Math.max(index + 1, current + (current >> 1));
+    }
+
+    private static short[] ensureCapacity(short[] values, int index) {
+        if (index < values.length) {
+            return values;
+        }
+        short[] grown = Arrays.copyOf(values, grownCapacity(values.length, index));
+        Arrays.fill(grown, values.length, grown.length, (short) MISSING);
+        return grown;
+    }
+
+    private static int[] ensureCapacity(int[] values, int index) {
+        if (index < values.length) {
+            return values;
+        }
+        int[] grown = Arrays.copyOf(values, grownCapacity(values.length, index));
+        Arrays.fill(grown, values.length, grown.length, MISSING);
+        return grown;
+    }
+
+    private static byte[] ensureCapacity(byte[] values, int index) {
+        if (index < values.length) {
+            return values;
+        }
+        byte[] grown = Arrays.copyOf(values, grownCapacity(values.length, index));
+        Arrays.fill(grown, values.length, grown.length, (byte) MISSING);
+        return grown;
+    }
+}
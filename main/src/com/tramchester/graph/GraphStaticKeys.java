@@ -11,10 +11,12 @@ public class GraphStaticKeys {
     public static final String HOUR = "hour";
     public static final String TIME = "time";
 
-    public static final String TRIPS = "trips"; // list of trip ids
+    public static final String TRIPS = "trips"; // sorted array of trip indexes
     public static final String SERVICE_ID = "service_id";
+    public static final String SERVICE_HASH = "service_hash"; // fingerprint of the service's trips, see GraphUpdater
 
     public static final String TRIP_ID = "trip_id";
+    public static final String TRIP_INDEX = "trip_index"; // dense int id for the trip, assigned during the build
     public static final String ROUTE_ID = "route_id";
 
     // station properties
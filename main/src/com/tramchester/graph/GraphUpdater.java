@@ -0,0 +1,177 @@
+package com.tramchester.graph;
+
+import com.tramchester.domain.Service;
+import com.tramchester.domain.input.StopCall;
+import com.tramchester.domain.input.Trip;
+import com.tramchester.domain.time.DaysOfWeek;
+import com.tramchester.repository.TransportData;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static java.lang.String.format;
+
+// Removes services that have changed or gone from an existing graph, so only those need adding again
+public class GraphUpdater {
+    private static final Logger logger = LoggerFactory.getLogger(GraphUpdater.class);
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final GraphDatabase graphDatabase;
+    private final TransportData transportData;
+    private final GraphFilter graphFilter;
+    private final TransportGraphBuilder builder;
+
+    public GraphUpdater(GraphDatabase graphDatabase, TransportData transportData, GraphFilter graphFilter,
+                        TransportGraphBuilder builder) {
+        this.graphDatabase = graphDatabase;
+        this.transportData = transportData;
+        this.graphFilter = graphFilter;
+        this.builder = builder;
+    }
+
+    public void update() {
+        logger.info("Update graph from " + transportData.getFeedInfo());
+        long start = System.currentTimeMillis();
+
+        Map<String, Service> expected = transportData.getServices().stream().
+                filter(this::shouldInclude).
+                collect(Collectors.toMap(Service::getId, service -> service));
+        Map<String, List<ServiceNode>> inGraph = serviceNodesInGraph();
+
+        Set<String> removed = new HashSet<>();
+        Set<Service> added = new HashSet<>();
+        int unchanged = 0;
+        for (Map.Entry<String, List<ServiceNode>> entry : inGraph.entrySet()) {
+            Service service = expected.get(entry.getKey());
+            Set<Long> hashes = entry.getValue().stream().map(serviceNode -> serviceNode.hash).
+                    collect(Collectors.toSet());
+            if (service == null) {
+                removed.add(entry.getKey());
+            } else if (!hashes.equals(Collections.singleton(fingerprint(service, graphFilter)))) {
+                // changed, so replace
+                removed.add(entry.getKey());
+                added.add(service);
+            } else {
+                unchanged++;
+            }
+        }
+        expected.values().stream().filter(service -> !inGraph.containsKey(service.getId())).forEach(added::add);
+
+        if (removed.isEmpty() && added.isEmpty()) {
+            logger.info(format("Graph is up to date, %s services unchanged", unchanged));
+            return;
+        }
+
+        removed.forEach(serviceId -> removeService(inGraph.get(serviceId)));
+        builder.seedBuildCachesFromGraph();
+        for (Service service : added) {
+            try (Transaction tx = graphDatabase.beginTx()) {
+                builder.addService(service.getRoute(), service);
+                tx.success();
+            }
+        }
+        builder.clearBuildCaches();
+
+        logger.info(format("Updated graph, removed %s services, added %s, %s unchanged, took %s ms", removed.size(),
+                added.size(), unchanged, System.currentTimeMillis() - start));
+    }
+
+    // service id -> its service nodes, from a single scan of them
+    private Map<String, List<ServiceNode>> serviceNodesInGraph() {
+        Map<String, List<ServiceNode>> result = new HashMap<>();
+        try (Transaction tx = graphDatabase.beginTx()) {
+            graphDatabase.findNodes(TransportGraphBuilder.Labels.SERVICE).forEachRemaining(node ->
+                    result.computeIfAbsent(node.getProperty(GraphStaticKeys.SERVICE_ID).toString(),
+                            unused -> new ArrayList<>()).
+                            add(new ServiceNode(node.getId(),
+                                    (Long) node.getProperty(GraphStaticKeys.SERVICE_HASH, null))));
+            tx.success();
+        }
+        return result;
+    }
+
+    private void removeService(List<ServiceNode> serviceNodes) {
+        try (Transaction tx = graphDatabase.beginTx()) {
+            for (ServiceNode found : serviceNodes) {
+                Node serviceNode = graphDatabase.getNodeById(found.nodeId);
+                for (Relationship toHour : serviceNode.getRelationships(Direction.OUTGOING,
+                        TransportRelationshipTypes.TO_HOUR)) {
+                    Node hourNode = toHour.getEndNode();
+                    for (Relationship toMinute : hourNode.getRelationships(Direction.OUTGOING,
+                            TransportRelationshipTypes.TO_MINUTE)) {
+                        deleteWithRelationships(toMinute.getEndNode());
+                    }
+                    deleteWithRelationships(hourNode);
+                }
+                deleteWithRelationships(serviceNode);
+            }
+            tx.success();
+        }
+    }
+
+    private void deleteWithRelationships(Node node) {
+        node.getRelationships().forEach(Relationship::delete);
+        node.delete();
+    }
+
+    private boolean shouldInclude(Service service) {
+        if (graphFilter.isFiltered() && !(graphFilter.shouldInclude(service.getRoute()) &&
+                graphFilter.shouldInclude(service))) {
+            return false;
+        }
+        return service.getDays().containsValue(true) && !service.getTrips().isEmpty();
+    }
+
+    // FNV-1a over the days the service runs and the calls of each trip, trips in id order
+    public static long fingerprint(Service service, GraphFilter graphFilter) {
+        long hash = FNV_OFFSET;
+        hash = add(hash, service.getRouteId());
+        for (DaysOfWeek day : DaysOfWeek.values()) {
+            hash = add(hash, Boolean.TRUE.equals(service.getDays().get(day)) ? "Y" : "N");
+        }
+        List<Trip> trips = new ArrayList<>(service.getTrips());
+        trips.sort(Comparator.comparing(Trip::getId));
+        for (Trip trip : trips) {
+            hash = add(hash, trip.getId());
+            for (StopCall stop : graphFilter.filterStops(trip.getStops())) {
+                hash = add(hash, stop.getStation().getId());
+                hash = add(hash, String.valueOf(stop.getPlatformId()));
+                hash = add(hash, Byte.toString(stop.getGetSequenceNumber()));
+                hash = add(hash, stop.getArrivalTime().toPattern());
+                hash = add(hash, stop.getDepartureTime().toPattern());
+            }
+        }
+        return hash;
+    }
+
+    private static long add(long hash, String text) {
+        for (byte value : text.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= (value & 0xff);
+            hash *= FNV_PRIME;
+        }
+        // separator so that adjacent values cannot run together
+        hash ^= 0xff;
+        hash *= FNV_PRIME;
+        return hash;
+    }
+
+    private static class ServiceNode {
+        private final long nodeId;
+        // fingerprint of the service when added, a node without one never matches
+        private final Long hash;
+
+        private ServiceNode(long nodeId, Long hash) {
+            this.nodeId = nodeId;
+            this.hash = hash;
+        }
+    }
+}
@@ -4,6 +4,9 @@ import com.tramchester.domain.Route;
 import com.tramchester.domain.Service;
 import com.tramchester.domain.input.StopCalls;
 
+import java.util.Collections;
+import java.util.Set;
+
 public class IncludeAllFilter implements GraphFilter {
     @Override
     public boolean isFiltered() {
@@ -24,4 +27,19 @@ public class IncludeAllFilter implements GraphFilter {
     public StopCalls filterStops(StopCalls stops) {
         return stops;
     }
+
+    @Override
+    public Set<String> getRouteIds() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public Set<String> getServiceIds() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public Set<String> getStationIds() {
+        return Collections.emptySet();
+    }
 }
@@ -5,75 +5,85 @@ import org.picocontainer.Disposable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.Arrays;
+
+import static java.lang.String.format;
 
 public class NodeIdLabelMap implements Disposable {
     private static final Logger logger = LoggerFactory.getLogger(TransportGraphBuilder.class);
 
-    // map from the NodeId to the Label
-    private final Map<TransportGraphBuilder.Labels, Set<Long>> map;
-    private final ConcurrentMap<Long, Boolean> queryNodes;
+    private static final TransportGraphBuilder.Labels[] LABELS = TransportGraphBuilder.Labels.values();
+    private static final byte UNKNOWN = 0;
+
+    // approx. number of nodes in the tram graph
+    private static final int INITIAL_CAPACITY = 400000;
+
+    // label of each node indexed by node id, as 1 + the ordinal of the label, UNKNOWN if not added
+    private byte[] labels;
+    private long highestNodeId;
 
     public NodeIdLabelMap() {
-        map = new EnumMap<>(TransportGraphBuilder.Labels.class);
-        for (TransportGraphBuilder.Labels label: TransportGraphBuilder.Labels.values()) {
-            if (label != TransportGraphBuilder.Labels.QUERY_NODE) {
-                map.put(label, new HashSet<>(getCapacity(label), 1.0F));
-            }
-        }
-        queryNodes = new ConcurrentHashMap<>();
+        labels = new byte[INITIAL_CAPACITY];
+        highestNodeId = -1;
     }
 
     // called when loaded from disc, instead of rebuild
     public void populateNodeLabelMap(GraphDatabase graphDatabase) {
         logger.info("Rebuilding node->label index");
-        TransportGraphBuilder.Labels[] labels = TransportGraphBuilder.Labels.values();
         try (Transaction tx = graphDatabase.beginTx()) {
-            for (TransportGraphBuilder.Labels label : labels) {
-                graphDatabase.findNodes(label).stream().forEach(node -> put(node.getId(), label));
+            for (TransportGraphBuilder.Labels label : LABELS) {
+                if (label != TransportGraphBuilder.Labels.QUERY_NODE) {
+                    graphDatabase.findNodes(label).stream().forEach(node -> put(node.getId(), label));
+                }
             }
             tx.success();
         }
+        logger.info(format("Node->label index has %s entries, %s KB", highestNodeId + 1, labels.length / 1024));
     }
 
     @Override
     public void dispose() {
-        queryNodes.clear();
-        map.clear();
+        Arrays.fill(labels, UNKNOWN);
+        highestNodeId = -1;
     }
 
-    private int getCapacity(TransportGraphBuilder.Labels label) {
-        // approx. sizings
-        switch (label) {
-            case ROUTE_STATION: return 282;
-            case TRAM_STATION: return 93;
-            case PLATFORM: return 185;
-            case SERVICE: return 8680;
-            case HOUR: return 62525;
-            case MINUTE: return 314150;
-            default: return 0;
+    // graph nodes are added single threaded, during the build or populateNodeLabelMap
+    public void put(long id, TransportGraphBuilder.Labels label) {
+        int index = asIndex(id);
+        if (index >= labels.length) {
+            labels = Arrays.copyOf(labels, Math.max(index + 1, labels.length + (labels.length >> 1)));
+        }
+        labels[index] = (byte) (label.ordinal() + 1);
+        if (id > highestNodeId) {
+            highestNodeId = id;
         }
     }
 
-    public void put(long id, TransportGraphBuilder.Labels label) {
-        map.get(label).add(id);
+    public boolean has(final TransportGraphBuilder.Labels label, final long nodeId) {
+        return codeFor(nodeId) == label.ordinal() + 1;
     }
 
-    public boolean has(final TransportGraphBuilder.Labels label, final long nodeId) {
-        if (label == TransportGraphBuilder.Labels.QUERY_NODE) {
-            return queryNodes.containsKey(nodeId);
-        }
-        return map.get(label).contains(nodeId);
+    // null if the node was not added
+    public TransportGraphBuilder.Labels getLabel(final long nodeId) {
+        int code = codeFor(nodeId);
+        return code == UNKNOWN ? null : LABELS[code - 1];
     }
 
-    public void putQueryNode(long id) {
-        queryNodes.put(id,true);
+    private int codeFor(long nodeId) {
+        byte[] current = labels;
+        return (nodeId >= 0 && nodeId < current.length) ? current[(int) nodeId] : UNKNOWN;
     }
 
-    public void removeQueryNode(long id) {
-        queryNodes.remove(id);
+    // highest id of the labelled graph nodes
+    public long getHighestNodeId() {
+        return highestNodeId;
+    }
+
+    private int asIndex(long id) {
+        if (id < 0 || id >= Integer.MAX_VALUE) {
+            throw new RuntimeException("Node id out of range for label index " + id);
+        }
+        return (int) id;
     }
 
 }
@@ -35,17 +35,17 @@ import static org.neo4j.graphdb.Direction.INCOMING;
 public class TransportGraphBuilder implements Startable {
     private static final Logger logger = LoggerFactory.getLogger(TransportGraphBuilder.class);
 
-    private static final int INTERCHANGE_DEPART_COST = 1;
-    private static final int INTERCHANGE_BOARD_COST = 1;
+    public static final int INTERCHANGE_DEPART_COST = 1;
+    public static final int INTERCHANGE_BOARD_COST = 1;
 
-    private static final int DEPARTS_COST = 1;
-    private static final int BOARDING_COST = 2;
+    public static final int DEPARTS_COST = 1;
+    public static final int BOARDING_COST = 2;
 
     // TODO compute actual costs depend on physical configuration of platforms at the station? No data available yet.
-    private static final int ENTER_PLATFORM_COST = 0;
-    private static final int LEAVE_PLATFORM_COST = 0;
-    private static final int ENTER_INTER_PLATFORM_COST = 0;
-    private static final int LEAVE_INTER_PLATFORM_COST = 0;
+    static final int ENTER_PLATFORM_COST = 0;
+    static final int LEAVE_PLATFORM_COST = 0;
+    static final int ENTER_INTER_PLATFORM_COST = 0;
+    static final int LEAVE_INTER_PLATFORM_COST = 0;
 
     private int numberNodes = 0;
     private int numberRelationships = 0;
@@ -62,16 +62,21 @@ public class TransportGraphBuilder implements Startable {
     private final Map<String,TransportRelationshipTypes> departs;
     private final List<String> platforms;
     private final HashSet<String> timeNodeIds;
+    private final Map<String, Integer> tripIndexes;
+    private int nextTripIndex;
+    private final Map<String, Long> serviceHashes;
     private final Set<Long> nodesWithRouteRelationship;
     private final TransportData transportData;
     private final NodeIdLabelMap nodeIdLabelMap;
     private final NodeIdQuery nodeIdQuery;
     private final InterchangeRepository interchangeRepository;
     private final TramchesterConfig config;
+    private final GraphArtifacts graphArtifacts;
 
     public TransportGraphBuilder(GraphDatabase graphDatabase, GraphFilter graphFilter, TransportData transportData,
                                  NodeIdLabelMap nodeIdLabelMap, NodeIdQuery nodeIdQuery,
-                                 InterchangeRepository interchangeRepository, TramchesterConfig config) {
+                                 InterchangeRepository interchangeRepository, TramchesterConfig config,
+                                 GraphArtifacts graphArtifacts) {
         this.graphFilter = graphFilter;
         this.graphDatabase = graphDatabase;
         this.transportData = transportData;
@@ -79,28 +84,40 @@ public class TransportGraphBuilder implements Startable {
         this.nodeIdQuery = nodeIdQuery;
         this.interchangeRepository = interchangeRepository;
         this.config = config;
+        this.graphArtifacts = graphArtifacts;
 
         boardings = new HashMap<>();
         departs = new HashMap<>();
         platforms = new LinkedList<>();
         timeNodeIds = new HashSet<>();
+        tripIndexes = new HashMap<>();
+        nextTripIndex = 0;
+        serviceHashes = new HashMap<>();
         nodesWithRouteRelationship = new HashSet<>();
     }
 
     @Override
     public void start() {
         logger.info("start");
-        if (config.getRebuildGraph()) {
+        if (graphArtifacts.rebuildRequired()) {
             logger.info("Rebuild of graph DB for " + config.getGraphName());
+            boolean built;
             if (graphFilter.isFiltered()) {
-                buildGraphwithFilter(graphFilter, graphDatabase);
+                built = buildGraphwithFilter(graphFilter, graphDatabase);
             } else {
-                buildGraph(graphDatabase);
+                built = buildGraph(graphDatabase);
+            }
+            if (built) {
+                graphArtifacts.graphBuilt();
             }
             logger.info("Graph rebuild is finished for " + config.getGraphName());
         } else {
             logger.info("Load existing graph");
             nodeIdLabelMap.populateNodeLabelMap(graphDatabase);
+            if (graphArtifacts.updateRequired()) {
+                new GraphUpdater(graphDatabase, transportData, graphFilter, this).update();
+                graphArtifacts.graphBuilt();
+            }
         }
     }
 
@@ -109,7 +126,7 @@ public class TransportGraphBuilder implements Startable {
         // no op
     }
 
-    private void buildGraphwithFilter(GraphFilter filter, GraphDatabase graphDatabase) {
+    private boolean buildGraphwithFilter(GraphFilter filter, GraphDatabase graphDatabase) {
         logger.info("Building graph from " + transportData.getFeedInfo());
         long start = System.currentTimeMillis();
 
@@ -139,12 +156,17 @@ public class TransportGraphBuilder implements Startable {
 
         } catch (Exception except) {
             logger.error("Exception while rebuilding the graph", except);
+            return false;
         }
         reportStats();
         clearBuildCaches();
+        return true;
     }
 
-    private void clearBuildCaches() {
+    void clearBuildCaches() {
+        tripIndexes.clear();
+        nextTripIndex = 0;
+        serviceHashes.clear();
         nodesWithRouteRelationship.clear();
         timeNodeIds.clear();
         platforms.clear();
@@ -214,6 +236,52 @@ public class TransportGraphBuilder implements Startable {
     }
 
 
+    // add the trips for a service to an existing graph, see GraphUpdater
+    void addService(Route route, Service service) {
+        for (Trip trip : service.getTrips()) {
+            AddRouteServiceTrip(graphDatabase, route, service, trip, graphFilter);
+        }
+    }
+
+    // so that adding to an existing graph does not duplicate what is already there, trips get new indexes
+    void seedBuildCachesFromGraph() {
+        clearBuildCaches();
+        try (Transaction tx = graphDatabase.beginTx()) {
+            graphDatabase.findNodes(Labels.TRAM_STATION).forEachRemaining(station ->
+                    station.getRelationships(Direction.OUTGOING, TransportRelationshipTypes.ENTER_PLATFORM).forEach(enter ->
+                            platforms.add(station.getProperty(GraphStaticKeys.ID).toString() +
+                                    enter.getProperty(PLATFORM_ID).toString())));
+            for (Labels label : Arrays.asList(Labels.PLATFORM, Labels.BUS_STATION)) {
+                graphDatabase.findNodes(label).forEachRemaining(node -> node.getRelationships(Direction.OUTGOING,
+                        TransportRelationshipTypes.BOARD, TransportRelationshipTypes.INTERCHANGE_BOARD).forEach(board ->
+                        boardings.put(boardKey(board.getProperty(GraphStaticKeys.ID).toString(),
+                                node.getProperty(GraphStaticKeys.ID).toString()),
+                                TransportRelationshipTypes.valueOf(board.getType().name()))));
+            }
+            graphDatabase.findNodes(Labels.ROUTE_STATION).forEachRemaining(routeStation -> {
+                String routeStationId = routeStation.getProperty(GraphStaticKeys.ID).toString();
+                routeStation.getRelationships(Direction.OUTGOING, TransportRelationshipTypes.DEPART,
+                        TransportRelationshipTypes.INTERCHANGE_DEPART).forEach(depart ->
+                        departs.put(departKey(routeStationId, depart.getEndNode().getProperty(GraphStaticKeys.ID).toString()),
+                                TransportRelationshipTypes.valueOf(depart.getType().name())));
+                if (routeStation.hasRelationship(Direction.OUTGOING, TransportRelationshipTypes.ON_ROUTE)) {
+                    nodesWithRouteRelationship.add(routeStation.getId());
+                }
+            });
+            graphDatabase.findNodes(Labels.MINUTE).forEachRemaining(minute -> minute.getRelationships(Direction.OUTGOING,
+                    TransportRelationshipTypes.TRAM_GOES_TO, TransportRelationshipTypes.BUS_GOES_TO).forEach(goesTo -> {
+                int tripIndex = (int) goesTo.getProperty(TRIP_INDEX);
+                tripIndexes.put(goesTo.getProperty(TRIP_ID).toString(), tripIndex);
+                nextTripIndex = Math.max(nextTripIndex, tripIndex + 1);
+            }));
+            tx.success();
+        }
+        // may hold nodes that have since been deleted
+        nodeIdQuery.clearAfterGraphBuild();
+        logger.info(format("Seeded build caches with %s platforms %s boardings %s departs %s trips", platforms.size(),
+                boardings.size(), departs.size(), tripIndexes.size()));
+    }
+
     private void AddRouteServiceTrip(GraphDatabase graphBasebase, Route route, Service service, Trip trip, GraphFilter filter) {
         StopCalls stops = filter.filterStops(trip.getStops());
         byte lastStopNum = (byte) stops.size(); // sequence runs from 1
@@ -472,11 +540,14 @@ public class TransportGraphBuilder implements Startable {
 
         Node beginServiceNode = nodeIdQuery.getServiceNode(beginSvcNodeId);
         String tripId = trip.getId();
+        int tripIndex = tripIndexes.computeIfAbsent(tripId, unused -> nextTripIndex++);
 
         if (beginServiceNode==null) {
             beginServiceNode = createGraphNode(graphDatabase, Labels.SERVICE);
             beginServiceNode.setProperty(GraphStaticKeys.ID, beginSvcNodeId);
             beginServiceNode.setProperty(GraphStaticKeys.SERVICE_ID, service.getId());
+            beginServiceNode.setProperty(GraphStaticKeys.SERVICE_HASH, serviceHashes.computeIfAbsent(service.getId(),
+                    unused -> GraphUpdater.fingerprint(service, graphFilter)));
             beginServiceNode.setProperty(GraphStaticKeys.ROUTE_ID, route.getId());
 
             setLatLongFor(beginServiceNode, destinationLatLong);
@@ -485,22 +556,29 @@ public class TransportGraphBuilder implements Startable {
             Relationship svcRelationship = createRelationships(routeStationStart, beginServiceNode, TransportRelationshipTypes.TO_SERVICE);
             svcRelationship.setProperty(GraphStaticKeys.SERVICE_ID, service.getId());
             svcRelationship.setProperty(COST, 0);
-            svcRelationship.setProperty(GraphStaticKeys.TRIPS, tripId);
+            svcRelationship.setProperty(GraphStaticKeys.TRIPS, new int[]{tripIndex});
             svcRelationship.setProperty(GraphStaticKeys.ROUTE_ID, route.getId());
 
         } else {
             beginServiceNode.getRelationships(INCOMING, TransportRelationshipTypes.TO_SERVICE).forEach(
                     relationship -> {
-                        String tripIds = relationship.getProperty(GraphStaticKeys.TRIPS).toString();
-                        if (!tripIds.contains(tripId)) {
-                            relationship.setProperty(GraphStaticKeys.TRIPS, tripId + tripIds);
+                        int[] trips = (int[]) relationship.getProperty(GraphStaticKeys.TRIPS);
+                        int position = Arrays.binarySearch(trips, tripIndex);
+                        if (position<0) {
+                            // keep sorted so membership can be found with a binary search
+                            int insertAt = -(position + 1);
+                            int[] updated = new int[trips.length + 1];
+                            System.arraycopy(trips, 0, updated, 0, insertAt);
+                            updated[insertAt] = tripIndex;
+                            System.arraycopy(trips, insertAt, updated, insertAt + 1, trips.length - insertAt);
+                            relationship.setProperty(GraphStaticKeys.TRIPS, updated);
                         }
                     });
         }
 
         TramTime departureTime = beginStop.getDepartureTime();
         Node hourNode = getOrCreateHourNode(graphDatabase, beginServiceNode, beginSvcNodeId, departureTime);
-        Node timeNode = getOrCreateTimeNode(graphDatabase, hourNode, beginSvcNodeId, departureTime, tripId);
+        Node timeNode = getOrCreateTimeNode(graphDatabase, hourNode, beginSvcNodeId, departureTime, tripId, tripIndex);
 
         TransportRelationshipTypes transportRelationshipType =
                 route.isTram() ? TransportRelationshipTypes.TRAM_GOES_TO : TransportRelationshipTypes.BUS_GOES_TO;
@@ -508,6 +586,7 @@ public class TransportGraphBuilder implements Startable {
         // endSvcNode node -> end route station
         Relationship goesToRelationship = createRelationships(timeNode, routeStationEnd, transportRelationshipType);
         goesToRelationship.setProperty(GraphStaticKeys.TRIP_ID, tripId);
+        goesToRelationship.setProperty(GraphStaticKeys.TRIP_INDEX, tripIndex);
 
         // common properties
         int cost = TramTime.diffenceAsMinutes(endStop.getArrivalTime(), departureTime);
@@ -532,7 +611,8 @@ public class TransportGraphBuilder implements Startable {
         return hourNode;
     }
 
-    private Node getOrCreateTimeNode(GraphDatabase graphDatabase, Node previousNode, String baseId, TramTime departureTime, String tripId) {
+    private Node getOrCreateTimeNode(GraphDatabase graphDatabase, Node previousNode, String baseId, TramTime departureTime,
+                                     String tripId, int tripIndex) {
         // Node for the departure time
         String timeNodeId = baseId +"_"+ departureTime.toPattern();
         Node timeNode;
@@ -543,6 +623,7 @@ public class TransportGraphBuilder implements Startable {
             timeNode.setProperty(GraphStaticKeys.ID, timeNodeId);
             timeNode.setProperty(TIME, time);
             timeNode.setProperty(TRIP_ID, tripId);
+            timeNode.setProperty(TRIP_INDEX, tripIndex);
 
             // hour node -> time node
             Relationship fromPrevious = createRelationships(previousNode, timeNode, TransportRelationshipTypes.TO_MINUTE);
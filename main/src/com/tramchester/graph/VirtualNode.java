@@ -0,0 +1,246 @@
+package com.tramchester.graph;
+
+import org.neo4j.graphdb.*;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+// a node only held in memory, for the walks of a location journey, see WalkingOverlay
+class VirtualNode implements Node {
+    private final long id;
+    private final Label label;
+    private final Map<String, Object> properties;
+    private final List<Relationship> outgoing;
+    private final List<Relationship> incoming;
+
+    VirtualNode(long id, Label label) {
+        this.id = id;
+        this.label = label;
+        properties = new HashMap<>();
+        outgoing = new ArrayList<>();
+        incoming = new ArrayList<>();
+    }
+
+    void addOutgoing(Relationship relationship) {
+        outgoing.add(relationship);
+    }
+
+    void addIncoming(Relationship relationship) {
+        incoming.add(relationship);
+    }
+
+    @Override
+    public long getId() {
+        return id;
+    }
+
+    @Override
+    public void delete() {
+        throw new UnsupportedOperationException("Virtual node " + id);
+    }
+
+    @Override
+    public Iterable<Relationship> getRelationships() {
+        return getRelationships(Direction.BOTH);
+    }
+
+    @Override
+    public boolean hasRelationship() {
+        return getRelationships().iterator().hasNext();
+    }
+
+    @Override
+    public Iterable<Relationship> getRelationships(RelationshipType... types) {
+        return getRelationships(Direction.BOTH, types);
+    }
+
+    @Override
+    public Iterable<Relationship> getRelationships(Direction direction, RelationshipType... types) {
+        List<Relationship> result = new ArrayList<>();
+        if (direction != Direction.INCOMING) {
+            result.addAll(ofTypes(outgoing, types));
+        }
+        if (direction != Direction.OUTGOING) {
+            result.addAll(ofTypes(incoming, types));
+        }
+        return result;
+    }
+
+    @Override
+    public boolean hasRelationship(RelationshipType... types) {
+        return getRelationships(types).iterator().hasNext();
+    }
+
+    @Override
+    public boolean hasRelationship(Direction direction, RelationshipType... types) {
+        return getRelationships(direction, types).iterator().hasNext();
+    }
+
+    @Override
+    public Iterable<Relationship> getRelationships(Direction direction) {
+        return getRelationships(direction, new RelationshipType[0]);
+    }
+
+    @Override
+    public boolean hasRelationship(Direction direction) {
+        return getRelationships(direction).iterator().hasNext();
+    }
+
+    @Override
+    public Iterable<Relationship> getRelationships(RelationshipType type, Direction direction) {
+        return getRelationships(direction, type);
+    }
+
+    @Override
+    public boolean hasRelationship(RelationshipType type, Direction direction) {
+        return getRelationships(direction, type).iterator().hasNext();
+    }
+
+    @Override
+    public Relationship getSingleRelationship(RelationshipType type, Direction direction) {
+        Iterator<Relationship> relationships = getRelationships(direction, type).iterator();
+        if (!relationships.hasNext()) {
+            return null;
+        }
+        Relationship result = relationships.next();
+        if (relationships.hasNext()) {
+            throw new NotFoundException("More than one relationship " + type + " for virtual node " + id);
+        }
+        return result;
+    }
+
+    @Override
+    public Relationship createRelationshipTo(Node otherNode, RelationshipType type) {
+        throw new UnsupportedOperationException("Virtual node " + id + ", see WalkingOverlay");
+    }
+
+    @Override
+    public Iterable<RelationshipType> getRelationshipTypes() {
+        return ((List<Relationship>) getRelationships()).stream().map(Relationship::getType).
+                collect(Collectors.toSet());
+    }
+
+    @Override
+    public int getDegree() {
+        return outgoing.size() + incoming.size();
+    }
+
+    @Override
+    public int getDegree(RelationshipType type) {
+        return ((List<Relationship>) getRelationships(type)).size();
+    }
+
+    @Override
+    public int getDegree(Direction direction) {
+        return ((List<Relationship>) getRelationships(direction)).size();
+    }
+
+    @Override
+    public int getDegree(RelationshipType type, Direction direction) {
+        return ((List<Relationship>) getRelationships(direction, type)).size();
+    }
+
+    @Override
+    public void addLabel(Label label) {
+        throw new UnsupportedOperationException("Virtual node " + id);
+    }
+
+    @Override
+    public void removeLabel(Label label) {
+        throw new UnsupportedOperationException("Virtual node " + id);
+    }
+
+    @Override
+    public boolean hasLabel(Label label) {
+        return this.label.name().equals(label.name());
+    }
+
+    @Override
+    public Iterable<Label> getLabels() {
+        return Collections.singletonList(label);
+    }
+
+    @Override
+    public GraphDatabaseService getGraphDatabase() {
+        throw new UnsupportedOperationException("Virtual node " + id);
+    }
+
+    @Override
+    public boolean hasProperty(String key) {
+        return properties.containsKey(key);
+    }
+
+    @Override
+    public Object getProperty(String key) {
+        if (!properties.containsKey(key)) {
+            throw new NotFoundException(key + " not found for virtual node " + id);
+        }
+        return properties.get(key);
+    }
+
+    @Override
+    public Object getProperty(String key, Object defaultValue) {
+        return properties.getOrDefault(key, defaultValue);
+    }
+
+    @Override
+    public void setProperty(String key, Object value) {
+        properties.put(key, value);
+    }
+
+    @Override
+    public Object removeProperty(String key) {
+        return properties.remove(key);
+    }
+
+    @Override
+    public Iterable<String> getPropertyKeys() {
+        return properties.keySet();
+    }
+
+    @Override
+    public Map<String, Object> getProperties(String... keys) {
+        Map<String, Object> result = new HashMap<>();
+        for (String key : keys) {
+            if (properties.containsKey(key)) {
+                result.put(key, properties.get(key));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Object> getAllProperties() {
+        return new HashMap<>(properties);
+    }
+
+    private static List<Relationship> ofTypes(List<Relationship> relationships, RelationshipType[] types) {
+        if (types.length == 0) {
+            return relationships;
+        }
+        return relationships.stream().
+                filter(relationship -> Arrays.stream(types).anyMatch(relationship::isType)).
+                collect(Collectors.toList());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Node)) return false;
+        return id == ((Node) o).getId();
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(id);
+    }
+
+    @Override
+    public String toString() {
+        return "VirtualNode{" +
+                "id=" + id +
+                ", label=" + label +
+                ", properties=" + properties +
+                '}';
+    }
+}
@@ -0,0 +1,161 @@
+package com.tramchester.graph;
+
+import org.neo4j.graphdb.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// a relationship only held in memory, between a virtual node and a station node or another virtual node
+class VirtualRelationship implements Relationship {
+    private final long id;
+    private final Node startNode;
+    private final Node endNode;
+    private final RelationshipType type;
+    private final Map<String, Object> properties;
+
+    VirtualRelationship(long id, Node startNode, Node endNode, RelationshipType type) {
+        this.id = id;
+        this.startNode = startNode;
+        this.endNode = endNode;
+        this.type = type;
+        properties = new HashMap<>();
+    }
+
+    @Override
+    public long getId() {
+        return id;
+    }
+
+    @Override
+    public void delete() {
+        throw new UnsupportedOperationException("Virtual relationship " + id);
+    }
+
+    @Override
+    public Node getStartNode() {
+        return startNode;
+    }
+
+    @Override
+    public Node getEndNode() {
+        return endNode;
+    }
+
+    @Override
+    public long getStartNodeId() {
+        return startNode.getId();
+    }
+
+    @Override
+    public long getEndNodeId() {
+        return endNode.getId();
+    }
+
+    @Override
+    public Node getOtherNode(Node node) {
+        if (node.getId() == startNode.getId()) {
+            return endNode;
+        }
+        if (node.getId() == endNode.getId()) {
+            return startNode;
+        }
+        throw new NotFoundException(node + " is not on virtual relationship " + id);
+    }
+
+    @Override
+    public long getOtherNodeId(long nodeId) {
+        return getOtherNode(nodeId == startNode.getId() ? startNode : endNode).getId();
+    }
+
+    @Override
+    public Node[] getNodes() {
+        return new Node[]{startNode, endNode};
+    }
+
+    @Override
+    public RelationshipType getType() {
+        return type;
+    }
+
+    @Override
+    public boolean isType(RelationshipType type) {
+        return this.type.name().equals(type.name());
+    }
+
+    @Override
+    public GraphDatabaseService getGraphDatabase() {
+        throw new UnsupportedOperationException("Virtual relationship " + id);
+    }
+
+    @Override
+    public boolean hasProperty(String key) {
+        return properties.containsKey(key);
+    }
+
+    @Override
+    public Object getProperty(String key) {
+        if (!properties.containsKey(key)) {
+            throw new NotFoundException(key + " not found for virtual relationship " + id);
+        }
+        return properties.get(key);
+    }
+
+    @Override
+    public Object getProperty(String key, Object defaultValue) {
+        return properties.getOrDefault(key, defaultValue);
+    }
+
+    @Override
+    public void setProperty(String key, Object value) {
+        properties.put(key, value);
+    }
+
+    @Override
+    public Object removeProperty(String key) {
+        return properties.remove(key);
+    }
+
+    @Override
+    public Iterable<String> getPropertyKeys() {
+        return properties.keySet();
+    }
+
+    @Override
+    public Map<String, Object> getProperties(String... keys) {
+        Map<String, Object> result = new HashMap<>();
+        for (String key : keys) {
+            if (properties.containsKey(key)) {
+                result.put(key, properties.get(key));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Object> getAllProperties() {
+        return new HashMap<>(properties);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Relationship)) return false;
+        return id == ((Relationship) o).getId();
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(id);
+    }
+
+    @Override
+    public String toString() {
+        return "VirtualRelationship{" +
+                "id=" + id +
+                ", type=" + type +
+                ", start=" + startNode.getId() +
+                ", end=" + endNode.getId() +
+                ", properties=" + properties +
+                '}';
+    }
+}
@@ -0,0 +1,87 @@
+package com.tramchester.graph;
+
+import com.tramchester.domain.presentation.LatLong;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+
+import java.util.*;
+
+import static com.tramchester.graph.GraphStaticKeys.COST;
+import static com.tramchester.graph.TransportRelationshipTypes.*;
+import static java.lang.String.format;
+
+// Walks for a location journey held in memory, with negative ids, rather than added to the graph
+public class WalkingOverlay {
+    private long nextNodeId;
+    private long nextRelationshipId;
+
+    public WalkingOverlay() {
+        nextNodeId = -1;
+        nextRelationshipId = -1;
+    }
+
+    public static boolean isVirtual(long id) {
+        return id < 0;
+    }
+
+    public Node createWalkingNode(LatLong origin) {
+        VirtualNode node = new VirtualNode(nextNodeId--, TransportGraphBuilder.Labels.QUERY_NODE);
+        node.setProperty(GraphStaticKeys.Station.LAT, origin.getLat());
+        node.setProperty(GraphStaticKeys.Station.LONG, origin.getLon());
+        return node;
+    }
+
+    // walkNode -WALKS_TO-> station
+    public Relationship addWalkTo(Node walkNode, Node stationNode, String stationId, int cost) {
+        Relationship walk = createWalk(walkNode, stationNode, WALKS_TO, stationId, cost);
+        asVirtual(walkNode).addOutgoing(walk);
+        return walk;
+    }
+
+    // station -WALKS_FROM-> walkNode
+    public Relationship addWalkFrom(Node stationNode, Node walkNode, String stationId, int cost) {
+        Relationship walk = createWalk(stationNode, walkNode, WALKS_FROM, stationId, cost);
+        asVirtual(walkNode).addIncoming(walk);
+        return walk;
+    }
+
+    // midWalk -FINISH_WALK-> endWalk
+    public Relationship addFinishWalk(Node midWalk, Node endWalk) {
+        VirtualRelationship finish = new VirtualRelationship(nextRelationshipId--, midWalk, endWalk, FINISH_WALK);
+        finish.setProperty(COST, 0);
+        asVirtual(midWalk).addOutgoing(finish);
+        asVirtual(endWalk).addIncoming(finish);
+        return finish;
+    }
+
+    // endOfWalk <-FINISH_WALK- midWalk <-WALKS_FROM- stations, by station node id, empty unless endOfWalk is virtual
+    public static Map<Long, List<Relationship>> walksFromStations(Node endOfWalk) {
+        if (!isVirtual(endOfWalk.getId())) {
+            return Collections.emptyMap();
+        }
+        Map<Long, List<Relationship>> result = new HashMap<>();
+        for (Relationship finishWalk : endOfWalk.getRelationships(Direction.INCOMING, FINISH_WALK)) {
+            Node midWalk = finishWalk.getStartNode();
+            for (Relationship walk : midWalk.getRelationships(Direction.INCOMING, WALKS_FROM)) {
+                result.computeIfAbsent(walk.getStartNodeId(), unused -> new ArrayList<>()).add(walk);
+            }
+        }
+        return result;
+    }
+
+    private Relationship createWalk(Node start, Node end, RelationshipType type, String stationId, int cost) {
+        VirtualRelationship walk = new VirtualRelationship(nextRelationshipId--, start, end, type);
+        walk.setProperty(COST, cost);
+        walk.setProperty(GraphStaticKeys.STATION_ID, stationId);
+        return walk;
+    }
+
+    private VirtualNode asVirtual(Node node) {
+        if (!(node instanceof VirtualNode)) {
+            throw new RuntimeException(format("Walks can only be added to walking nodes, got %s", node));
+        }
+        return (VirtualNode) node;
+    }
+}
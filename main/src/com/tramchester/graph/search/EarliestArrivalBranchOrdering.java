@@ -0,0 +1,123 @@
+package com.tramchester.graph.search;
+
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.CachedNodeOperations;
+import com.tramchester.graph.GraphStaticKeys;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.PathExpander;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.traversal.BranchOrderingPolicy;
+import org.neo4j.graphdb.traversal.BranchSelector;
+import org.neo4j.graphdb.traversal.TraversalBranch;
+import org.neo4j.graphdb.traversal.TraversalContext;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+// Expands branches in order of journey clock plus a lower bound on the time left to the destination
+public class EarliestArrivalBranchOrdering implements BranchOrderingPolicy {
+
+    // for stations that cannot reach the destination, still expanded but only after everything else
+    private static final int UNREACHABLE = 24 * 60;
+
+    private final CachedNodeOperations nodeOperations;
+    private final TramTime queryTime;
+    private final Map<String, Integer> lowerBounds;
+
+    public EarliestArrivalBranchOrdering(CachedNodeOperations nodeOperations, TramTime queryTime,
+                                         Map<String, Integer> lowerBounds) {
+        this.nodeOperations = nodeOperations;
+        this.queryTime = queryTime;
+        this.lowerBounds = lowerBounds;
+    }
+
+    @Override
+    public BranchSelector create(TraversalBranch startBranch, PathExpander expander) {
+        return new Selector(startBranch, expander);
+    }
+
+    private class Selector implements BranchSelector {
+        private final PathExpander expander;
+        private final PriorityQueue<Entry> queue;
+        private final Map<Long, Integer> nodeBounds;
+        // the branch last returned, expanded on the next call
+        private Entry toExpand;
+        private long sequence;
+
+        private Selector(TraversalBranch startBranch, PathExpander expander) {
+            this.expander = expander;
+            queue = new PriorityQueue<>(Comparator.comparingInt((Entry entry) -> entry.estimate).
+                    thenComparingLong(entry -> entry.sequence));
+            nodeBounds = new HashMap<>();
+            sequence = 0;
+            toExpand = new Entry(startBranch, 0, 0, sequence++);
+        }
+
+        @Override
+        public TraversalBranch next(TraversalContext metadata) {
+            if (toExpand != null) {
+                TraversalBranch child = toExpand.branch.next(expander, metadata);
+                while (child != null) {
+                    // pruned by the evaluator, nothing to return or expand
+                    if (child.continues() || child.includes()) {
+                        queue.add(entryFor(child, toExpand));
+                    }
+                    child = toExpand.branch.next(expander, metadata);
+                }
+                toExpand = null;
+            }
+
+            Entry polled = queue.poll();
+            if (polled == null) {
+                return null;
+            }
+            if (polled.branch.continues()) {
+                toExpand = polled;
+            }
+            return polled.branch;
+        }
+
+        private Entry entryFor(TraversalBranch child, Entry parent) {
+            // state for a new branch is the one its parent passed on, so add the cost of the last step
+            int cost = 0;
+            Relationship lastRelationship = child.lastRelationship();
+            if (lastRelationship != null) {
+                cost = nodeOperations.getCost(lastRelationship);
+            }
+            ImmutableJourneyState state = (ImmutableJourneyState) child.state();
+            int elapsed = TramTime.diffenceAsMinutes(queryTime, state.getJourneyClock()) + cost;
+
+            // earliest arrival via the last route station passed through
+            int earliest = parent.earliest;
+            Node node = child.endNode();
+            if (nodeOperations.isRouteStation(node.getId())) {
+                earliest = elapsed + boundFor(node);
+            }
+
+            return new Entry(child, Math.max(elapsed, earliest), earliest, sequence++);
+        }
+
+        private int boundFor(Node routeStationNode) {
+            return nodeBounds.computeIfAbsent(routeStationNode.getId(), unused -> {
+                String stationId = routeStationNode.getProperty(GraphStaticKeys.STATION_ID).toString();
+                return lowerBounds.getOrDefault(stationId, UNREACHABLE);
+            });
+        }
+    }
+
+    private static class Entry {
+        private final TraversalBranch branch;
+        private final int estimate;
+        private final int earliest;
+        private final long sequence;
+
+        private Entry(TraversalBranch branch, int estimate, int earliest, long sequence) {
+            this.branch = branch;
+            this.estimate = estimate;
+            this.earliest = earliest;
+            this.sequence = sequence;
+        }
+    }
+}
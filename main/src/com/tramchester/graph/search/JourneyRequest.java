@@ -4,22 +4,43 @@ import com.tramchester.domain.time.TramServiceDate;
 import com.tramchester.domain.time.TramTime;
 
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class JourneyRequest {
     private final TramServiceDate date;
     private final TramTime time;
     private final boolean arriveBy;
     private final int maxChanges;
+    // also want journeys that take longer but with fewer changes, i.e. all those not beaten on both
+    private final boolean pareto;
+    // set when the search used up its budget, so journeys found may not be the best, not part of equality
+    private final AtomicBoolean budgetExhausted;
 
     public JourneyRequest(TramServiceDate date, TramTime time, boolean arriveBy) {
         this(date, time, arriveBy, Integer.MAX_VALUE);
     }
 
     public JourneyRequest(TramServiceDate date, TramTime time, boolean arriveBy, int maxChanges) {
+        this(date, time, arriveBy, maxChanges, false);
+    }
+
+    public JourneyRequest(TramServiceDate date, TramTime time, boolean arriveBy, int maxChanges, boolean pareto) {
         this.date = date;
         this.time = time;
         this.arriveBy = arriveBy;
         this.maxChanges = maxChanges;
+        this.pareto = pareto;
+        budgetExhausted = new AtomicBoolean(false);
+    }
+
+    // the same request departing at the given time, for arrive by, shares whether the budget was used up
+    JourneyRequest(JourneyRequest original, TramTime departTime) {
+        this.date = original.date;
+        this.time = departTime;
+        this.arriveBy = true;
+        this.maxChanges = original.maxChanges;
+        this.pareto = original.pareto;
+        this.budgetExhausted = original.budgetExhausted;
     }
 
     public TramServiceDate getDate() {
@@ -38,6 +59,18 @@ public class JourneyRequest {
         return maxChanges;
     }
 
+    public boolean getPareto() {
+        return pareto;
+    }
+
+    public void markBudgetExhausted() {
+        budgetExhausted.set(true);
+    }
+
+    public boolean isBudgetExhausted() {
+        return budgetExhausted.get();
+    }
+
     @Override
     public String toString() {
         return "JourneyRequest{" +
@@ -45,6 +78,7 @@ public class JourneyRequest {
                 ", time=" + time +
                 ", arriveBy=" + arriveBy +
                 ", maxChanges=" + maxChanges +
+                ", pareto=" + pareto +
                 '}';
     }
 
@@ -55,12 +89,13 @@ public class JourneyRequest {
         JourneyRequest that = (JourneyRequest) o;
         return arriveBy == that.arriveBy &&
                 maxChanges == that.maxChanges &&
+                pareto == that.pareto &&
                 date.equals(that.date) &&
                 time.equals(that.time);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(date, time, arriveBy, maxChanges);
+        return Objects.hash(date, time, arriveBy, maxChanges, pareto);
     }
 }
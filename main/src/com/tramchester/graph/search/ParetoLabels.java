@@ -0,0 +1,42 @@
+package com.tramchester.graph.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Non-dominated (cost, changes) pairs found so far for the destination
+public class ParetoLabels {
+    private final List<int[]> labels;
+
+    public ParetoLabels() {
+        labels = new ArrayList<>();
+    }
+
+    public boolean dominated(int cost, int changes) {
+        for (int[] label : labels) {
+            int labelCost = label[0];
+            int labelChanges = label[1];
+            if ((labelCost < cost && labelChanges <= changes) || (labelCost <= cost && labelChanges < changes)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // false, and not added, if dominated
+    public boolean add(int cost, int changes) {
+        if (dominated(cost, changes)) {
+            return false;
+        }
+        labels.removeIf(label -> (cost < label[0] && changes <= label[1]) || (cost <= label[0] && changes < label[1]));
+        labels.add(new int[]{cost, changes});
+        return true;
+    }
+
+    public boolean isEmpty() {
+        return labels.isEmpty();
+    }
+
+    public int size() {
+        return labels.size();
+    }
+}
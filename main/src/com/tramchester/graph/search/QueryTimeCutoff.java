@@ -0,0 +1,74 @@
+package com.tramchester.graph.search;
+
+import com.tramchester.domain.Journey;
+import com.tramchester.domain.presentation.TransportStage;
+import com.tramchester.domain.time.TramTime;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// Earliest arrivals found so far over the query times of a request, to stop before query times that cannot
+// improve on them
+public class QueryTimeCutoff {
+    private static final int LATE_NIGHT_MINUTES = 22 * 60;
+
+    private final int wanted;
+    private final int lowerBound;
+    private final boolean enabled;
+    // latest of the best arrivals is at the head
+    private final PriorityQueue<TramTime> bestArrivals;
+
+    // lowerBound of zero, i.e. start is a destination or not known, disables the cutoff
+    public QueryTimeCutoff(int wanted, int lowerBound, List<TramTime> queryTimes, int maxJourneyDuration) {
+        this.wanted = wanted;
+        this.lowerBound = lowerBound;
+        this.enabled = wanted > 0 && lowerBound > 0 && withinSameDay(queryTimes, maxJourneyDuration);
+        bestArrivals = new PriorityQueue<>(Math.max(wanted, 1), Collections.reverseOrder());
+    }
+
+    private static boolean withinSameDay(List<TramTime> queryTimes, int maxJourneyDuration) {
+        if (queryTimes.isEmpty()) {
+            return false;
+        }
+        int previous = -1;
+        for (TramTime queryTime : queryTimes) {
+            int minutes = minutesOfDay(queryTime);
+            if (minutes < previous) {
+                return false; // wrapped over midnight
+            }
+            previous = minutes;
+        }
+        return previous + maxJourneyDuration < LATE_NIGHT_MINUTES;
+    }
+
+    public synchronized void add(Journey journey) {
+        if (!enabled) {
+            return;
+        }
+        List<TransportStage> stages = journey.getStages();
+        if (stages.isEmpty()) {
+            return;
+        }
+        TramTime arrival = stages.get(stages.size() - 1).getExpectedArrivalTime();
+        if (bestArrivals.size() < wanted) {
+            bestArrivals.add(arrival);
+        } else if (arrival.compareTo(bestArrivals.peek()) < 0) {
+            bestArrivals.poll();
+            bestArrivals.add(arrival);
+        }
+    }
+
+    // true if no journey found for this, or any later, query time could be one of the wanted journeys
+    public synchronized boolean canSkip(TramTime queryTime) {
+        if (!enabled || bestArrivals.size() < wanted) {
+            return false;
+        }
+        TramTime earliestPossible = queryTime.plusMinutes(lowerBound);
+        return bestArrivals.peek().compareTo(earliestPossible) < 0;
+    }
+
+    private static int minutesOfDay(TramTime time) {
+        return (time.getHourOfDay() * 60) + time.getMinuteOfHour();
+    }
+}
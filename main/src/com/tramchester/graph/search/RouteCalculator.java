@@ -8,25 +8,38 @@ import com.tramchester.domain.time.CreateQueryTimes;
 import com.tramchester.domain.time.ProvidesLocalNow;
 import com.tramchester.domain.time.TramTime;
 import com.tramchester.graph.CachedNodeOperations;
+import com.tramchester.graph.GraphAdjacency;
 import com.tramchester.graph.GraphDatabase;
+import com.tramchester.graph.GraphStaticKeys;
 import com.tramchester.graph.NodeIdQuery;
+import com.tramchester.graph.WalkingOverlay;
+import com.tramchester.repository.BusReachabilityRepository;
 import com.tramchester.repository.RunningServices;
 import com.tramchester.repository.TramReachabilityRepository;
 import com.tramchester.repository.TransportData;
+import com.tramchester.repository.TravelTimeLowerBounds;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Path;
+import org.neo4j.graphdb.Transaction;
+import org.picocontainer.Disposable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static java.lang.String.format;
 
-public class RouteCalculator implements TramRouteCalculator {
+public class RouteCalculator implements TramRouteCalculator, Disposable {
     private static final Logger logger = LoggerFactory.getLogger(RouteCalculator.class);
 
     private static final int BUSES_MAX_PATH_LENGTH = 1000;
@@ -35,26 +48,49 @@ public class RouteCalculator implements TramRouteCalculator {
     private final MapPathToStages pathToStages;
     private final TramchesterConfig config;
     private final CachedNodeOperations nodeOperations;
+    private final GraphAdjacency adjacency;
     private final TransportData transportData;
     private final TramReachabilityRepository tramReachabilityRepository;
+    private final BusReachabilityRepository busReachabilityRepository;
     private final CreateQueryTimes createQueryTimes;
     private final NodeIdQuery nodeIdQuery;
     private final GraphDatabase graphDatabaseService;
     private final ProvidesLocalNow providesLocalNow;
+    private final TravelTimeLowerBounds travelTimeLowerBounds;
+    private final SearchBudgets searchBudgets;
+    private final SearchContexts searchContexts;
+    private final ExecutorService queryExecutor;
 
     public RouteCalculator(TransportData transportData, CachedNodeOperations nodeOperations, MapPathToStages pathToStages,
                            TramchesterConfig config, TramReachabilityRepository tramReachabilityRepository,
                            CreateQueryTimes createQueryTimes, NodeIdQuery nodeIdQuery, GraphDatabase graphDatabaseService,
-                           ProvidesLocalNow providesLocalNow) {
+                           ProvidesLocalNow providesLocalNow, TravelTimeLowerBounds travelTimeLowerBounds,
+                           GraphAdjacency adjacency, SearchBudgets searchBudgets,
+                           BusReachabilityRepository busReachabilityRepository, SearchContexts searchContexts) {
         this.transportData = transportData;
         this.nodeOperations = nodeOperations;
         this.pathToStages = pathToStages;
         this.config = config;
         this.tramReachabilityRepository = tramReachabilityRepository;
+        this.busReachabilityRepository = busReachabilityRepository;
         this.createQueryTimes = createQueryTimes;
         this.nodeIdQuery = nodeIdQuery;
         this.graphDatabaseService = graphDatabaseService;
         this.providesLocalNow = providesLocalNow;
+        this.travelTimeLowerBounds = travelTimeLowerBounds;
+        this.adjacency = adjacency;
+        this.searchBudgets = searchBudgets;
+        this.searchContexts = searchContexts;
+
+        int numberQueryThreads = config.getNumberQueryThreads();
+        queryExecutor = numberQueryThreads > 1 ? Executors.newFixedThreadPool(numberQueryThreads) : null;
+    }
+
+    @Override
+    public void dispose() {
+        if (queryExecutor!=null) {
+            queryExecutor.shutdownNow();
+        }
     }
 
     @Override
@@ -67,7 +103,7 @@ public class RouteCalculator implements TramRouteCalculator {
 
         List<Station> destinations = Collections.singletonList(destination);
 
-        return getJourneyStream(startNode, endNode, journeyRequest, destinations, false);
+        return getJourneys(startNode, endNode, journeyRequest, destinations, false);
     }
 
     private Node getStationNodeSafe(String startStationId) {
@@ -82,7 +118,7 @@ public class RouteCalculator implements TramRouteCalculator {
                                                    JourneyRequest journeyRequest)
     {
         Node startNode = getStationNodeSafe(start.getId());
-        return getJourneyStream(startNode, endOfWalk, journeyRequest, desinationStations, false);
+        return getJourneys(startNode, endOfWalk, journeyRequest, desinationStations, false);
     }
 
     @Override
@@ -90,12 +126,20 @@ public class RouteCalculator implements TramRouteCalculator {
                                                      JourneyRequest journeyRequest) {
         Node endNode = getStationNodeSafe(destination.getId());
         List<Station> destinationIds = Collections.singletonList(destination);
-        return getJourneyStream(startOfWalkNode, endNode, journeyRequest, destinationIds, true);
+        return getJourneys(startOfWalkNode, endNode, journeyRequest, destinationIds, true);
     }
 
     public Stream<Journey> calculateRouteWalkAtStartAndEnd(Node startNode, Node endNode,
                                                            List<Station> destinationStations, JourneyRequest journeyRequest) {
-        return getJourneyStream(startNode, endNode, journeyRequest, destinationStations, true);
+        return getJourneys(startNode, endNode, journeyRequest, destinationStations, true);
+    }
+
+    private Stream<Journey> getJourneys(Node startNode, Node endNode, JourneyRequest journeyRequest,
+                                        List<Station> destinations, boolean walkAtStart) {
+        if (queryExecutor!=null) {
+            return getJourneyStreamConcurrent(startNode, endNode, journeyRequest, destinations, walkAtStart);
+        }
+        return getJourneyStream(startNode, endNode, journeyRequest, destinations, walkAtStart);
     }
 
     private Stream<Journey> getJourneyStream(Node startNode, Node endNode, JourneyRequest journeyRequest,
@@ -106,26 +150,132 @@ public class RouteCalculator implements TramRouteCalculator {
         List<TramTime> queryTimes = createQueryTimes.generate(journeyRequest.getTime(), walkAtStart);
 
         int maxPathLength = config.getBus() ? BUSES_MAX_PATH_LENGTH : TRAMS_MAX_PATH_LENGTH;
+        Map<String, Integer> lowerBounds = getLowerBounds(destinations);
+        QueryTimeCutoff cutoff = createCutoff(startNode, queryTimes, lowerBounds, walkAtStart || journeyRequest.getPareto());
+        SearchBudget budget = searchBudgets.create(journeyRequest::markBudgetExhausted);
 
+        // query times are ascending, stop before starting traversals that cannot improve on what is already found
         return queryTimes.stream().
-                map(time -> new ServiceHeuristics(transportData, nodeOperations, tramReachabilityRepository, config,
-                        time, runningServicesIds, destinations, serviceReasons, maxPathLength, journeyRequest.getMaxChanges())).
-                map(serviceHeuristics -> findShortestPath(startNode, endNode, serviceHeuristics, serviceReasons, destinations)).
+                takeWhile(time -> !budget.isExhausted() && !cutoff.canSkip(time)).
+                map(time -> new ServiceHeuristics(transportData, nodeOperations, tramReachabilityRepository,
+                        busReachabilityRepository, config, time, runningServicesIds, destinations, serviceReasons,
+                        maxPathLength, journeyRequest.getMaxChanges())).
+                map(serviceHeuristics -> findShortestPath(startNode, endNode, serviceHeuristics, serviceReasons,
+                        destinations, lowerBounds, budget, journeyRequest.getPareto())).
                 flatMap(Function.identity()).
                 map(path -> {
                     List<TransportStage> stages = pathToStages.mapDirect(path.getPath(), path.getQueryTime());
                     return new Journey(stages, path.getQueryTime());
-                });
+                }).
+                peek(cutoff::add);
+    }
+
+    // each query time is searched on its own thread, walking nodes are not in the graph (see WalkingOverlay) so can be
+    // shared by the transactions of the query threads
+    private Stream<Journey> getJourneyStreamConcurrent(Node startNode, Node endNode, JourneyRequest journeyRequest,
+                                                       List<Station> destinations, boolean walkAtStart) {
+        RunningServices runningServicesIds = new RunningServices(transportData.getServicesOnDate(journeyRequest.getDate()));
+
+        List<TramTime> queryTimes = createQueryTimes.generate(journeyRequest.getTime(), walkAtStart);
+
+        int maxPathLength = config.getBus() ? BUSES_MAX_PATH_LENGTH : TRAMS_MAX_PATH_LENGTH;
+        Map<String, Integer> lowerBounds = getLowerBounds(destinations);
+        QueryTimeCutoff cutoff = createCutoff(startNode, queryTimes, lowerBounds, walkAtStart || journeyRequest.getPareto());
+        SearchBudget budget = searchBudgets.create(journeyRequest::markBudgetExhausted);
+
+        List<Future<List<Journey>>> futures = queryTimes.stream().
+                map(time -> queryExecutor.submit(() -> {
+                    // ServiceReasons is not thread safe
+                    ServiceReasons serviceReasons = new ServiceReasons(providesLocalNow);
+                    ServiceHeuristics serviceHeuristics = new ServiceHeuristics(transportData, nodeOperations,
+                            tramReachabilityRepository, busReachabilityRepository, config, time, runningServicesIds,
+                            destinations, serviceReasons, maxPathLength, journeyRequest.getMaxChanges());
+                    return findJourneysInTransaction(startNode, endNode, serviceHeuristics, serviceReasons,
+                            destinations, lowerBounds, budget, journeyRequest.getPareto());
+                })).
+                collect(Collectors.toList());
+
+        // results are taken in query time order, once the rest cannot contribute cancel any not yet started
+        Stream<Journey> journeys = IntStream.range(0, futures.size()).boxed().
+                takeWhile(index -> {
+                    // once the budget is used up the remaining searches prune at once, so still collect them
+                    if (cutoff.canSkip(queryTimes.get(index))) {
+                        futures.subList(index, futures.size()).forEach(future -> future.cancel(false));
+                        return false;
+                    }
+                    return true;
+                }).
+                flatMap(index -> getResults(futures.get(index), queryTimes.get(index)).stream()).
+                peek(cutoff::add);
+        //noinspection ResultOfMethodCallIgnored
+        journeys.onClose(() -> futures.forEach(future -> future.cancel(false)));
+        return journeys;
+    }
+
+    private List<Journey> findJourneysInTransaction(Node start, Node end, ServiceHeuristics serviceHeuristics,
+                                                    ServiceReasons reasons, List<Station> destinations,
+                                                    Map<String, Integer> lowerBounds, SearchBudget budget,
+                                                    boolean pareto) {
+        try (Transaction tx = graphDatabaseService.beginTx()) {
+            Node startNode = inTransaction(start);
+            Node endNode = inTransaction(end);
+            try (Stream<TimedPath> paths = findShortestPath(startNode, endNode, serviceHeuristics, reasons, destinations,
+                    lowerBounds, budget, pareto)) {
+                // map inside the transaction as stages are created from the relationships on the path
+                return paths.map(path -> {
+                    List<TransportStage> stages = pathToStages.mapDirect(path.getPath(), path.getQueryTime());
+                    return new Journey(stages, path.getQueryTime());
+                }).collect(Collectors.toList());
+            }
+        }
+    }
+
+    // graph nodes are bound to the transaction they were found in, walking nodes are not in the graph
+    private Node inTransaction(Node node) {
+        if (WalkingOverlay.isVirtual(node.getId())) {
+            return node;
+        }
+        return graphDatabaseService.getNodeById(node.getId());
+    }
+
+    private List<Journey> getResults(Future<List<Journey>> future, TramTime queryTime) {
+        try {
+            return future.get();
+        } catch (InterruptedException | ExecutionException exception) {
+            String message = "Unable to get journeys for query time " + queryTime;
+            logger.error(message, exception);
+            throw new RuntimeException(message, exception);
+        }
+    }
+
+    // no cut off if walking from the start, or wanting journeys with fewer changes as well as the quickest
+    private QueryTimeCutoff createCutoff(Node startNode, List<TramTime> queryTimes, Map<String, Integer> lowerBounds,
+                                         boolean disabled) {
+        int lowerBound = 0;
+        if (!disabled) {
+            String startStationId = startNode.getProperty(GraphStaticKeys.ID).toString();
+            lowerBound = lowerBounds.getOrDefault(startStationId, 0);
+        }
+        return new QueryTimeCutoff(config.getMaxNumResults(), lowerBound, queryTimes, config.getMaxJourneyDuration());
+    }
+
+    // lower bound on travel time from each station to the destinations, used to order the traversal
+    private Map<String, Integer> getLowerBounds(List<Station> destinations) {
+        List<String> endStationIds = destinations.stream().map(Station::getId).collect(Collectors.toList());
+        return travelTimeLowerBounds.lowerBoundsTo(endStationIds);
     }
 
     private Stream<TimedPath> findShortestPath(Node startNode, Node endNode,
                                                ServiceHeuristics serviceHeuristics,
-                                               ServiceReasons reasons, List<Station> destinations) {
+                                               ServiceReasons reasons, List<Station> destinations,
+                                               Map<String, Integer> lowerBounds, SearchBudget budget,
+                                               boolean pareto) {
 
         List<String> endStationIds = destinations.stream().map(Station::getId).collect(Collectors.toList());
 
         TramNetworkTraverser tramNetworkTraverser = new TramNetworkTraverser(graphDatabaseService, serviceHeuristics,
-                reasons, nodeOperations, endNode, endStationIds, config);
+                reasons, nodeOperations, adjacency, searchContexts, endNode, endStationIds, lowerBounds, budget, pareto,
+                config);
 
         return tramNetworkTraverser.findPaths(startNode).map(path -> new TimedPath(path, serviceHeuristics.getQueryTime()));
     }
@@ -65,7 +65,6 @@ public class RouteCalculatorArriveBy implements TramRouteCalculator {
         int buffer = config.getBus() ? config.getMaxWait() : config.getMaxWait() / 2;
         TramTime queryTime = originalRequest.getTime();
         TramTime computedDepartTime = queryTime.minusMinutes(costToDest).minusMinutes(buffer);
-        return new JourneyRequest(originalRequest.getDate(), computedDepartTime, true,
-                originalRequest.getMaxChanges());
+        return new JourneyRequest(originalRequest, computedDepartTime);
     }
 }
@@ -0,0 +1,59 @@
+package com.tramchester.graph.search;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Deadline and evaluation limit shared by the traversals of one journey search
+public class SearchBudget {
+    // reading the clock for every evaluation is wasted effort
+    private static final int CHECK_DEADLINE_EVERY = 256;
+
+    private final long deadline;
+    private final long maxExpansions;
+    private final Runnable onExhausted;
+    private final AtomicLong expansions;
+    private final AtomicBoolean exhausted;
+
+    // 0 for no deadline or no limit on expansions
+    SearchBudget(long deadline, long maxExpansions, Runnable onExhausted) {
+        this.deadline = deadline;
+        this.maxExpansions = maxExpansions;
+        this.onExhausted = onExhausted;
+        expansions = new AtomicLong(0);
+        exhausted = new AtomicBoolean(false);
+    }
+
+    public static SearchBudget unlimited() {
+        return new SearchBudget(0, 0, () -> {});
+    }
+
+    // use one expansion, false if the budget is used up
+    public boolean spend() {
+        if (exhausted.get()) {
+            return false;
+        }
+        long count = expansions.incrementAndGet();
+        if (maxExpansions > 0 && count > maxExpansions) {
+            return markExhausted();
+        }
+        if (deadline > 0 && (count % CHECK_DEADLINE_EVERY) == 0 && System.currentTimeMillis() > deadline) {
+            return markExhausted();
+        }
+        return true;
+    }
+
+    public boolean isExhausted() {
+        return exhausted.get();
+    }
+
+    public long getExpansions() {
+        return expansions.get();
+    }
+
+    private boolean markExhausted() {
+        if (exhausted.compareAndSet(false, true)) {
+            onExhausted.run();
+        }
+        return false;
+    }
+}
@@ -0,0 +1,52 @@
+package com.tramchester.graph.search;
+
+import com.tramchester.config.TramchesterConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.String.format;
+
+// Creates the budget for each journey search from the tram or bus limits in the config, and counts those used up
+public class SearchBudgets {
+    private static final Logger logger = LoggerFactory.getLogger(SearchBudgets.class);
+
+    private final long deadlineMillis;
+    private final long maxExpansions;
+    private final AtomicLong numberExhausted;
+
+    public SearchBudgets(TramchesterConfig config) {
+        if (config.getBus()) {
+            deadlineMillis = config.getBusSearchDeadlineMillis();
+            maxExpansions = config.getBusSearchExpansionBudget();
+        } else {
+            deadlineMillis = config.getTramSearchDeadlineMillis();
+            maxExpansions = config.getTramSearchExpansionBudget();
+        }
+        numberExhausted = new AtomicLong(0);
+    }
+
+    public SearchBudget create() {
+        return create(() -> {});
+    }
+
+    // onExhausted is also run if this search uses up the budget
+    public SearchBudget create(Runnable onExhausted) {
+        long deadline = deadlineMillis > 0 ? System.currentTimeMillis() + deadlineMillis : 0;
+        return new SearchBudget(deadline, maxExpansions, () -> {
+            exhausted();
+            onExhausted.run();
+        });
+    }
+
+    private void exhausted() {
+        long count = numberExhausted.incrementAndGet();
+        logger.warn(format("Journey search budget used up (deadline %s ms, expansions %s), returning journeys found " +
+                "so far. Total %s", deadlineMillis, maxExpansions, count));
+    }
+
+    public long getNumberExhausted() {
+        return numberExhausted.get();
+    }
+}
@@ -0,0 +1,118 @@
+package com.tramchester.graph.search;
+
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.WalkingOverlay;
+
+import java.util.Arrays;
+
+// Visits and bus stations seen during one search, indexed by node id, see SearchContexts for reuse
+public class SearchContext {
+    // null if not to be reused
+    private final SearchContexts pool;
+
+    private int epoch;
+    private boolean inUse;
+
+    private int[] visitEpochs;
+    private int[] visitTimes;
+    private int[] visitChanges;
+    private int[] busStationEpochs;
+
+    // expectedNodes is a sizing hint, nodes created later grow the arrays as needed
+    public SearchContext(int expectedNodes) {
+        this(expectedNodes, null);
+    }
+
+    SearchContext(int expectedNodes, SearchContexts pool) {
+        this.pool = pool;
+        int capacity = Math.max(expectedNodes, 16);
+        visitEpochs = new int[capacity];
+        visitTimes = new int[capacity];
+        visitChanges = new int[capacity];
+        busStationEpochs = new int[capacity];
+        epoch = 0;
+        begin();
+    }
+
+    public void release() {
+        if (!inUse) {
+            return;
+        }
+        inUse = false;
+        if (pool != null) {
+            pool.released(this);
+        }
+    }
+
+    long approxBytes() {
+        return visitEpochs.length * 16L;
+    }
+
+    // start of a new search when reused
+    void begin() {
+        inUse = true;
+        epoch++;
+        if (epoch == Integer.MAX_VALUE) {
+            // wrapped, only now pay to clear
+            Arrays.fill(visitEpochs, 0);
+            Arrays.fill(busStationEpochs, 0);
+            epoch = 1;
+        }
+    }
+
+    public boolean hasVisit(long nodeId) {
+        if (WalkingOverlay.isVirtual(nodeId)) {
+            // walking nodes for location journeys, see WalkingOverlay
+            return false;
+        }
+        int index = asIndex(nodeId);
+        return index < visitEpochs.length && visitEpochs[index] == epoch;
+    }
+
+    // only valid if hasVisit
+    public TramTime getVisit(long nodeId) {
+        int minutes = visitTimes[asIndex(nodeId)];
+        return TramTime.of(minutes / 60, minutes % 60);
+    }
+
+    // only valid if hasVisit
+    public int getVisitChanges(long nodeId) {
+        return visitChanges[asIndex(nodeId)];
+    }
+
+    public void putVisit(long nodeId, TramTime time, int changes) {
+        int index = ensureCapacity(nodeId);
+        visitEpochs[index] = epoch;
+        visitTimes[index] = (time.getHourOfDay() * 60) + time.getMinuteOfHour();
+        visitChanges[index] = changes;
+    }
+
+    // true the first time a bus station is seen in this search
+    public boolean firstVisitToBusStation(long nodeId) {
+        int index = ensureCapacity(nodeId);
+        if (busStationEpochs[index] == epoch) {
+            return false;
+        }
+        busStationEpochs[index] = epoch;
+        return true;
+    }
+
+    private int ensureCapacity(long nodeId) {
+        int index = asIndex(nodeId);
+        if (index >= visitEpochs.length) {
+            int capacity = Math.max(index + 1, visitEpochs.length + (visitEpochs.length >> 1));
+            visitEpochs = Arrays.copyOf(visitEpochs, capacity);
+            visitTimes = Arrays.copyOf(visitTimes, capacity);
+            visitChanges = Arrays.copyOf(visitChanges, capacity);
+            busStationEpochs = Arrays.copyOf(busStationEpochs, capacity);
+        }
+        return index;
+    }
+
+    private int asIndex(long nodeId) {
+        if (nodeId < 0 || nodeId >= Integer.MAX_VALUE) {
+            throw new RuntimeException("Node id out of range for search context " + nodeId);
+        }
+        return (int) nodeId;
+    }
+}
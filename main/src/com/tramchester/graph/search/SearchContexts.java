@@ -0,0 +1,58 @@
+package com.tramchester.graph.search;
+
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.graph.CachedNodeOperations;
+import org.picocontainer.Disposable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import static java.lang.String.format;
+
+// Search contexts kept for reuse, at most one per query thread, any more needed at once are left for the GC
+public class SearchContexts implements Disposable {
+    private static final Logger logger = LoggerFactory.getLogger(SearchContexts.class);
+
+    private final CachedNodeOperations nodeOperations;
+    private final int maxKept;
+    private final BlockingQueue<SearchContext> available;
+
+    public SearchContexts(TramchesterConfig config, CachedNodeOperations nodeOperations) {
+        this.nodeOperations = nodeOperations;
+        // searches run on the request threads when there are no query threads
+        maxKept = Math.max(1, config.getNumberQueryThreads());
+        available = new ArrayBlockingQueue<>(maxKept);
+    }
+
+    @Override
+    public void dispose() {
+        // sized for the graph, which may be rebuilt
+        available.clear();
+    }
+
+    public SearchContext acquire() {
+        SearchContext context = available.poll();
+        if (context == null) {
+            context = new SearchContext(nodeOperations.getNodeCapacity(), this);
+            logger.info(format("Created search context of %s KB, %s KB held by %s kept of at most %s",
+                    context.approxBytes() / 1024, getKeptBytes() / 1024, available.size(), maxKept));
+            return context;
+        }
+        context.begin();
+        return context;
+    }
+
+    void released(SearchContext context) {
+        if (!available.offer(context)) {
+            logger.debug(format("More than %s concurrent searches, not keeping search context of %s KB", maxKept,
+                    context.approxBytes() / 1024));
+        }
+    }
+
+    // memory held by the contexts kept for reuse
+    public long getKeptBytes() {
+        return available.stream().mapToLong(SearchContext::approxBytes).sum();
+    }
+}
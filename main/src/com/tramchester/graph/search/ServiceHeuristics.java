@@ -5,6 +5,7 @@ import com.tramchester.domain.places.RouteStation;
 import com.tramchester.domain.places.Station;
 import com.tramchester.domain.time.TramTime;
 import com.tramchester.graph.CachedNodeOperations;
+import com.tramchester.repository.BusReachabilityRepository;
 import com.tramchester.repository.StationRepository;
 import com.tramchester.repository.TramReachabilityRepository;
 import com.tramchester.repository.RunningServices;
@@ -24,9 +25,11 @@ public class ServiceHeuristics {
 
     private final RunningServices runningServices;
     private final List<Station> endTramStations;
+    private final List<Station> endStations;
     private final TramTime queryTime;
     private final ServiceReasons reasons;
     private final TramReachabilityRepository tramReachabilityRepository;
+    private final BusReachabilityRepository busReachabilityRepository;
     private final int maxPathLength;
 //    private final List<Route> busRoutesSeen;
 
@@ -38,12 +41,14 @@ public class ServiceHeuristics {
     private final int changesLimit;
 
     public ServiceHeuristics(StationRepository stationRepository, CachedNodeOperations nodeOperations,
-                             TramReachabilityRepository tramReachabilityRepository, TramchesterConfig config,
+                             TramReachabilityRepository tramReachabilityRepository,
+                             BusReachabilityRepository busReachabilityRepository, TramchesterConfig config,
                              TramTime queryTime, RunningServices runningServices, List<Station> endStations,
                              ServiceReasons reasons, int maxPathLength, int maxChanges) {
         this.stationRepository = stationRepository;
         this.nodeOperations = nodeOperations;
         this.tramReachabilityRepository = tramReachabilityRepository;
+        this.busReachabilityRepository = busReachabilityRepository;
 
         this.maxWaitMinutes = config.getMaxWait();
         this.maxJourneyDuration = config.getMaxJourneyDuration();
@@ -52,6 +57,7 @@ public class ServiceHeuristics {
         this.runningServices = runningServices;
         this.reasons = reasons;
 
+        this.endStations = endStations;
         endTramStations = endStations.stream().filter(Station::isTram).collect(Collectors.toList());
         this.maxPathLength = maxPathLength;
 
@@ -141,7 +147,7 @@ public class ServiceHeuristics {
     }
 
     // TODO will need re-working once interchange between tram/bus is defined
-    public ServiceReason canReachDestination(Node endNode, Path path) {
+    public ServiceReason canReachDestination(Node endNode, int currentNumChanges, Path path) {
 
         String routeStationId = endNode.getProperty(ID).toString();
         RouteStation routeStation = stationRepository.getRouteStation(routeStationId);
@@ -166,8 +172,14 @@ public class ServiceHeuristics {
 //        }
 //        busRoutesSeen.add(route);
 
-        // TODO can't exclude unless we know for sure not reachable, so include all for buses
-        return valid(path);
+        // only excludes if known for sure not reachable within the changes left
+        int changesLeft = changesLimit - currentNumChanges;
+        for(Station endStation : endStations) {
+            if (busReachabilityRepository.stationReachable(routeStationId, changesLeft, endStation)) {
+                return valid(path);
+            }
+        }
+        return reasons.recordReason(ServiceReason.StationNotReachable(path));
     }
 
     public ServiceReason journeyDurationUnderLimit(final int totalCost, final Path path) {
@@ -36,7 +36,8 @@ public abstract class ServiceReason {
         OnBus,
         RouteAlreadySeen,
         TooManyChanges,
-        SeenBefore
+        SeenBefore,
+        SearchBudgetExhausted
     }
 
     private final Set<PathToGraphViz.RenderLater> pathToRenderAsString;
@@ -342,4 +343,8 @@ public abstract class ServiceReason {
         return new SeenBefore(ReasonCode.SeenBefore, path);
     }
 
+    public static ServiceReason SearchBudgetExhausted(Path path) {
+        return new Unreachable(ReasonCode.SearchBudgetExhausted, path);
+    }
+
 }
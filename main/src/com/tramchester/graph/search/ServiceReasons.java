@@ -39,7 +39,9 @@ public class ServiceReasons {
     }
 
     public void reportReasons(TramTime queryTime) {
-        if (success && !debugEnabled) {
+        // always report when the search was cut short
+        boolean cutShort = statistics.get(ServiceReason.ReasonCode.SearchBudgetExhausted).get() > 0;
+        if (success && !debugEnabled && !cutShort) {
             reset();
             return;
         }
@@ -7,17 +7,19 @@ import com.tramchester.graph.states.ImmuatableTraversalState;
 import com.tramchester.graph.states.NotStartedState;
 import com.tramchester.graph.states.TraversalState;
 import org.neo4j.graphdb.*;
-import org.neo4j.graphdb.traversal.BranchOrderingPolicies;
 import org.neo4j.graphdb.traversal.BranchState;
 import org.neo4j.graphdb.traversal.InitialBranchState;
 import org.neo4j.graphdb.traversal.TraversalDescription;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static com.tramchester.graph.TransportRelationshipTypes.*;
+import static java.lang.String.format;
 import static org.neo4j.graphdb.traversal.Uniqueness.NONE;
 
 public class TramNetworkTraverser implements PathExpander<JourneyState> {
@@ -26,30 +28,49 @@ public class TramNetworkTraverser implements PathExpander<JourneyState> {
     private final GraphDatabase graphDatabaseService;
     private final ServiceHeuristics serviceHeuristics;
     private final CachedNodeOperations nodeOperations;
+    private final GraphAdjacency adjacency;
+    private final SearchContexts searchContexts;
     private final TramTime queryTime;
     private final long destinationNodeId;
+    private final Map<Long, List<Relationship>> walksFrom;
     private final List<String> endStationIds;
     private final TramchesterConfig config;
     private final ServiceReasons reasons;
+    private final Map<String, Integer> lowerBounds;
+    private final SearchBudget budget;
+    private final boolean pareto;
+    private long numberExpanded;
 
     public TramNetworkTraverser(GraphDatabase graphDatabaseService, ServiceHeuristics serviceHeuristics,
-                                ServiceReasons reasons, CachedNodeOperations nodeOperations, Node destinationNode,
-                                List<String> endStationIds, TramchesterConfig config) {
+                                ServiceReasons reasons, CachedNodeOperations nodeOperations, GraphAdjacency adjacency,
+                                SearchContexts searchContexts, Node destinationNode, List<String> endStationIds,
+                                Map<String, Integer> lowerBounds, SearchBudget budget, boolean pareto,
+                                TramchesterConfig config) {
         this.graphDatabaseService = graphDatabaseService;
         this.serviceHeuristics = serviceHeuristics;
         this.reasons = reasons;
         this.nodeOperations = nodeOperations;
+        this.adjacency = adjacency;
+        this.searchContexts = searchContexts;
         this.queryTime = serviceHeuristics.getQueryTime();
         this.destinationNodeId = destinationNode.getId();
+        // walks to the destination are not in the graph for location journeys, see WalkingOverlay
+        this.walksFrom = WalkingOverlay.walksFromStations(destinationNode);
         this.endStationIds = endStationIds;
+        this.lowerBounds = lowerBounds;
+        this.budget = budget;
+        this.pareto = pareto;
         this.config = config;
+        numberExpanded = 0;
     }
 
     public Stream<Path> findPaths(Node startNode) {
 
+        SearchContext context = searchContexts.acquire();
         TramRouteEvaluator tramRouteEvaluator = new TramRouteEvaluator(serviceHeuristics, nodeOperations,
-                destinationNodeId, reasons, config);
-        final NotStartedState traversalState = new NotStartedState(nodeOperations, destinationNodeId, endStationIds, config);
+                destinationNodeId, reasons, context, budget, pareto, config);
+        final NotStartedState traversalState = new NotStartedState(nodeOperations, adjacency, destinationNodeId,
+                endStationIds, walksFrom, config);
         final InitialBranchState<JourneyState> initialJourneyState = JourneyState.initialState(queryTime, traversalState);
 
         logger.info("Begin traversal");
@@ -72,27 +93,59 @@ public class TramNetworkTraverser implements PathExpander<JourneyState> {
                 expand(this, initialJourneyState).
                 evaluator(tramRouteEvaluator).
                 uniqueness(NONE).
-                order(BranchOrderingPolicies.PREORDER_BREADTH_FIRST); // Breadth first hits shortest trips sooner
+                order(new EarliestArrivalBranchOrdering(nodeOperations, queryTime, lowerBounds)); // earliest arrival first
 
         ResourceIterator<Path> iterator =  traverser.traverse(startNode).iterator();
 
+        AtomicBoolean finished = new AtomicBoolean(false);
+        Runnable finish = () -> {
+            if (finished.compareAndSet(false, true)) {
+                iterator.close();
+                logger.info(format("Expanded %s nodes for query time %s", numberExpanded, queryTime));
+                reasons.reportReasons(queryTime);
+                tramRouteEvaluator.dispose();
+                traversalState.dispose();
+            }
+        };
+
         logger.info("Return traversal stream");
-        Stream<Path> stream = iterator.stream();
+        Stream<Path> stream = StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                finishWhenDone(iterator, finish), Spliterator.ORDERED), false);
+        // also finished on close, for streams not read to the end
         //noinspection ResultOfMethodCallIgnored
-        stream.onClose(() -> {
-            iterator.close();
-            reasons.reportReasons(queryTime);
-            tramRouteEvaluator.dispose();
-            traversalState.dispose();
-        });
+        stream.onClose(finish);
 
         return stream.filter(path -> path.endNode().getId()==destinationNodeId);
     }
 
+    // the search context is released once the traversal runs out or fails, even if the stream is never closed
+    private Iterator<Path> finishWhenDone(Iterator<Path> iterator, Runnable finish) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                boolean more = false;
+                try {
+                    more = iterator.hasNext();
+                    return more;
+                } finally {
+                    if (!more) {
+                        finish.run();
+                    }
+                }
+            }
+
+            @Override
+            public Path next() {
+                return iterator.next();
+            }
+        };
+    }
+
     @Override
     public Iterable<Relationship> expand(Path path, BranchState<JourneyState> graphState) {
         ImmutableJourneyState currentState = graphState.getState();
         ImmuatableTraversalState traversalState = currentState.getTraversalState();
+        numberExpanded++;
 
         Node endNode = path.endNode();
         JourneyState journeyStateForChildren = JourneyState.fromPrevious(currentState);
@@ -106,8 +159,11 @@ public class TramNetworkTraverser implements PathExpander<JourneyState> {
             }
         }
 
-        Label firstLabel = endNode.getLabels().iterator().next();
-        TransportGraphBuilder.Labels nodeLabel = TransportGraphBuilder.Labels.valueOf(firstLabel.toString());
+        TransportGraphBuilder.Labels nodeLabel = nodeOperations.getLabel(endNode.getId());
+        if (nodeLabel == null) {
+            Label firstLabel = endNode.getLabels().iterator().next();
+            nodeLabel = TransportGraphBuilder.Labels.valueOf(firstLabel.name());
+        }
 
         TraversalState traversalStateForChildren = traversalState.nextState(path, nodeLabel, endNode,
                 journeyStateForChildren, cost);
@@ -118,6 +174,10 @@ public class TramNetworkTraverser implements PathExpander<JourneyState> {
         return traversalStateForChildren.getOutbounds();
     }
 
+    public long getNumberExpanded() {
+        return numberExpanded;
+    }
+
     @Override
     public PathExpander<JourneyState> reverse() {
         return null;
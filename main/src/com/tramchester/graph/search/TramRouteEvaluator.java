@@ -13,11 +13,6 @@ import org.neo4j.graphdb.traversal.PathEvaluator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
-
 import static com.tramchester.graph.TransportRelationshipTypes.WALKS_TO;
 
 public class TramRouteEvaluator implements PathEvaluator<JourneyState> {
@@ -29,12 +24,17 @@ public class TramRouteEvaluator implements PathEvaluator<JourneyState> {
     private final ServiceReasons reasons;
     private int success;
     private int currentLowestCost;
-    private final Map<Long, TramTime> previousSuccessfulVisit;
-    private final Set<Long> busStationNodes;
+    // previous successful visits and bus stations seen
+    private final SearchContext context;
+    private final SearchBudget budget;
     private final boolean bus;
+    // if set keep every journey not beaten on both cost and number of changes, rather than only the quickest
+    private final boolean pareto;
+    private final ParetoLabels arrivals;
 
     public TramRouteEvaluator(ServiceHeuristics serviceHeuristics, CachedNodeOperations nodeOperations, long destinationNodeId,
-                              ServiceReasons reasons, TramchesterConfig config) {
+                              ServiceReasons reasons, SearchContext context, SearchBudget budget, boolean pareto,
+                              TramchesterConfig config) {
         this.serviceHeuristics = serviceHeuristics;
         this.nodeOperations = nodeOperations;
         this.destinationNodeId = destinationNodeId;
@@ -42,12 +42,14 @@ public class TramRouteEvaluator implements PathEvaluator<JourneyState> {
         bus = config.getBus();
         success = 0;
         currentLowestCost = Integer.MAX_VALUE;
-        previousSuccessfulVisit = new HashMap<>();
-        busStationNodes = new HashSet<>();
+        this.context = context;
+        this.budget = budget;
+        this.pareto = pareto;
+        arrivals = new ParetoLabels();
     }
 
     public void dispose() {
-        previousSuccessfulVisit.clear();
+        context.release();
     }
 
     @Override
@@ -57,17 +59,25 @@ public class TramRouteEvaluator implements PathEvaluator<JourneyState> {
 
     @Override
     public Evaluation evaluate(Path path, BranchState<JourneyState> state) {
+        if (!budget.spend()) {
+            // out of time or expansions, prune everything left so the journeys found so far are returned
+            reasons.recordReason(ServiceReason.SearchBudgetExhausted(path));
+            return Evaluation.EXCLUDE_AND_PRUNE;
+        }
+
         ImmutableJourneyState journeyState = state.getState();
         TramTime journeyClock = journeyState.getJourneyClock();
 
         Node endNode = path.endNode();
         long nodeId = endNode.getId();
 
-        if (previousSuccessfulVisit.containsKey(nodeId)) {
+        if (context.hasVisit(nodeId)) {
             // can *only* safely exclude previous nodes if there is only one outbound path
 
-            TramTime previousVisitTime = previousSuccessfulVisit.get(nodeId);
-            if (nodeOperations.isTime(nodeId)) {
+            TramTime previousVisitTime = context.getVisit(nodeId);
+            // when searching on changes as well a visit with fewer changes can still lead somewhere new
+            boolean noFewerChanges = !pareto || context.getVisitChanges(nodeId) <= journeyState.getNumberChanges();
+            if (nodeOperations.isTime(nodeId) && noFewerChanges) {
                 // no way to get different response for same service/minute - boarding time has to be same
                 // since time nodes encode a specific time, so the previous time *must* match for this node id
                 reasons.recordReason(ServiceReason.Cached(previousVisitTime, path));
@@ -75,7 +85,7 @@ public class TramRouteEvaluator implements PathEvaluator<JourneyState> {
             }
 
             // NOTE: We only cache previous for certian node types
-            if (nodeOperations.isHour(nodeId) && previousVisitTime.equals(journeyClock)) {
+            if (nodeOperations.isHour(nodeId) && previousVisitTime.equals(journeyClock) && noFewerChanges) {
                 reasons.recordReason(ServiceReason.Cached(previousVisitTime, path));
                 return Evaluation.EXCLUDE_AND_PRUNE; // been here before at exact same time, so no need to continue
             }
@@ -84,12 +94,15 @@ public class TramRouteEvaluator implements PathEvaluator<JourneyState> {
         Evaluation result = doEvaluate(path, journeyState, endNode, nodeId);
 
         if (result.continues() && (nodeOperations.isTime(nodeId) || nodeOperations.isHour(nodeId))) {
-                previousSuccessfulVisit.put(nodeId, journeyClock);
+                context.putVisit(nodeId, journeyClock, journeyState.getNumberChanges());
         }
         return result;
     }
 
     private Evaluation doEvaluate(Path path, ImmutableJourneyState journeyState, Node endNode, long endNodeId) {
+        if (pareto) {
+            return doEvaluatePareto(path, journeyState, endNode, endNodeId);
+        }
 
         TraversalState traversalState = journeyState.getTraversalState();
         if (endNodeId==destinationNodeId) {
@@ -119,15 +132,42 @@ public class TramRouteEvaluator implements PathEvaluator<JourneyState> {
             }
         }
 
+        return continueEvaluation(path, journeyState, endNode, endNodeId);
+    }
+
+    private Evaluation doEvaluatePareto(Path path, ImmutableJourneyState journeyState, Node endNode, long endNodeId) {
+        int totalCost = journeyState.getTraversalState().getTotalCost();
+        int changes = journeyState.getNumberChanges();
+        if (endNodeId==destinationNodeId) {
+            if (arrivals.add(totalCost, changes)) {
+                // quicker, or fewer changes, than any seen so far
+                success = success + 1;
+                reasons.recordSuccess();
+                return Evaluation.INCLUDE_AND_PRUNE;
+            } else {
+                reasons.recordReason(ServiceReason.Longer(path));
+                return Evaluation.EXCLUDE_AND_PRUNE;
+            }
+        } else if (arrivals.dominated(totalCost, changes)) {
+            // cost and changes only go up from here
+            reasons.recordReason(ServiceReason.Longer(path));
+            return Evaluation.EXCLUDE_AND_PRUNE;
+        }
+
+        return continueEvaluation(path, journeyState, endNode, endNodeId);
+    }
+
+    private Evaluation continueEvaluation(Path path, ImmutableJourneyState journeyState, Node endNode, long endNodeId) {
+        TraversalState traversalState = journeyState.getTraversalState();
+
         reasons.record(journeyState);
 
         if (bus) {
             if (nodeOperations.isBusStation(endNodeId)) {
-                if (busStationNodes.contains(endNodeId)) {
+                if (!context.firstVisitToBusStation(endNodeId)) {
                     reasons.recordReason(ServiceReason.SeenBefore(path));
                     return Evaluation.EXCLUDE_AND_PRUNE;
                 }
-                busStationNodes.add(endNodeId);
             }
         }
 
@@ -145,7 +185,7 @@ public class TramRouteEvaluator implements PathEvaluator<JourneyState> {
         // is even reachable from here?
         if (nodeOperations.isRouteStation(endNodeId)) {
             // Note: journeyState.onTram() not true for all tram journeys as we might just be boarding....
-            if (!serviceHeuristics.canReachDestination(endNode, path).isValid()) {
+            if (!serviceHeuristics.canReachDestination(endNode, journeyState.getNumberChanges(), path).isValid()) {
                 return Evaluation.EXCLUDE_AND_PRUNE;
             }
         }
@@ -7,8 +7,6 @@ import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Path;
 import org.neo4j.graphdb.Relationship;
 
-import java.util.List;
-
 import static com.tramchester.graph.TransportRelationshipTypes.*;
 import static org.neo4j.graphdb.Direction.OUTGOING;
 
@@ -23,7 +21,7 @@ public class BusStationState extends TraversalState {
     @Override
     public TraversalState createNextState(Path path, TransportGraphBuilder.Labels nodeLabel, Node node, JourneyState journeyState, int cost) {
         long nodeId = node.getId();
-        if (nodeId == destinationNodeId) {
+        if (nodeId == ops.destinationNodeId) {
             // TODO Cost of bus depart?
             return new DestinationState(this, cost);
         }
@@ -37,9 +35,8 @@ public class BusStationState extends TraversalState {
             } catch (TramchesterException e) {
                 throw new RuntimeException("unable to board tram", e);
             }
-            List<Relationship> outbounds = filterExcludingEndNode(node.getRelationships(OUTGOING,
-                    DEPART, INTERCHANGE_DEPART), stationNodeId);
-            node.getRelationships(OUTGOING, TO_SERVICE).forEach(outbounds::add);
+            Iterable<Relationship> outbounds = concat(filterExcludingEndNode(node.getRelationships(OUTGOING,
+                    DEPART, INTERCHANGE_DEPART), stationNodeId), node.getRelationships(OUTGOING, TO_SERVICE));
             return new RouteStationState(this, outbounds, nodeId, cost, true);
         }
         throw new RuntimeException("Unexpected node type: "+nodeLabel);
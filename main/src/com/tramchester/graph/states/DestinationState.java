@@ -5,12 +5,12 @@ import com.tramchester.graph.TransportGraphBuilder;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Path;
 
-import java.util.LinkedList;
+import java.util.Collections;
 
 public class DestinationState extends TraversalState
 {
     public DestinationState(TraversalState parent, int cost) {
-        super(parent, new LinkedList<>(), cost);
+        super(parent, Collections.emptyList(), cost);
     }
 
     @Override
@@ -18,18 +18,18 @@ public class DestinationState extends TraversalState
         if (this == o) return true;
         if (!(o instanceof DestinationState)) return false;
         TraversalState that = (TraversalState) o;
-        return that.destinationNodeId == this.destinationNodeId;
+        return that.ops.destinationNodeId == this.ops.destinationNodeId;
     }
 
     @Override
     public TraversalState createNextState(Path path, TransportGraphBuilder.Labels nodeLabel, Node node, JourneyState journeyState, int cost) {
-        throw new RuntimeException("Already at destination, id is " + destinationNodeId);
+        throw new RuntimeException("Already at destination, id is " + ops.destinationNodeId);
     }
 
     @Override
     public String toString() {
         return "DestinationState{" +
-                "destinationNodeId=" + destinationNodeId +
+                "destinationNodeId=" + ops.destinationNodeId +
                 ", parent=" + parent +
                 '}';
     }
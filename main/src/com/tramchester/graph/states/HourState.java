@@ -8,9 +8,7 @@ import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Path;
 import org.neo4j.graphdb.Relationship;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
+import java.util.Collections;
 
 import static com.tramchester.graph.TransportRelationshipTypes.BUS_GOES_TO;
 import static com.tramchester.graph.TransportRelationshipTypes.TRAM_GOES_TO;
@@ -19,12 +17,13 @@ import static org.neo4j.graphdb.Direction.OUTGOING;
 public class HourState extends TraversalState {
 //    private static final Logger logger = LoggerFactory.getLogger(HourState.class);
 
-    private Optional<String> maybeExistingTrip;
+    // NO_TRIP unless continuing on a trip
+    private final int existingTrip;
 
     public HourState(TraversalState parent, Iterable<Relationship> relationships,
-                     Optional<String> maybeExistingTrip, int cost) {
+                     int existingTrip, int cost) {
         super(parent, relationships, cost);
-        this.maybeExistingTrip = maybeExistingTrip;
+        this.existingTrip = existingTrip;
     }
 
     @Override
@@ -40,39 +39,27 @@ public class HourState extends TraversalState {
     }
 
     private TraversalState toMinute(Node node, JourneyState journeyState, int cost) throws TramchesterException {
-        TramTime time = nodeOperations.getTime(node);
+        TramTime time = ops.nodeOperations.getTime(node);
 
-        if (maybeExistingTrip.isPresent()) {
+        if (existingTrip!=NO_TRIP) {
             // continuing an existing trip
-            String existingTripId = maybeExistingTrip.get();
             journeyState.recordTramDetails(time, getTotalCost());
-            Iterable<Relationship> relationships = filterBySingleTripId(node.getRelationships(OUTGOING, TRAM_GOES_TO, BUS_GOES_TO),
-                    existingTripId);
-            return new MinuteState(this, relationships, existingTripId, cost);
+            Relationship goesTo = findByTrip(node.getRelationships(OUTGOING, TRAM_GOES_TO, BUS_GOES_TO), existingTrip);
+            Iterable<Relationship> relationships = goesTo==null ? Collections.emptyList() : Collections.singleton(goesTo);
+            return new MinuteState(this, relationships, existingTrip, cost);
         } else {
             // starting a brand new journey
             Iterable<Relationship> relationships = node.getRelationships(OUTGOING, TRAM_GOES_TO, BUS_GOES_TO);
-            String tripId = nodeOperations.getTrip(node);
+            int tripIndex = ops.nodeOperations.getTripIndex(node);
             journeyState.recordTramDetails(time, getTotalCost());
-            return new MinuteState(this, relationships, tripId, cost);
+            return new MinuteState(this, relationships, tripIndex, cost);
         }
     }
 
-    private List<Relationship> filterBySingleTripId(Iterable<Relationship> relationships, String tripId) {
-        List<Relationship> results = new ArrayList<>();
-        relationships.forEach(relationship -> {
-            String trip = nodeOperations.getTrip(relationship);
-            if (trip.equals(tripId)) {
-                results.add(relationship);
-            }
-        });
-        return results;
-    }
-
     @Override
     public String toString() {
         return "HourState{" +
-                "maybeExistingTrip=" + maybeExistingTrip +
+                "existingTrip=" + existingTrip +
                 ", parent=" + parent +
                 '}';
     }
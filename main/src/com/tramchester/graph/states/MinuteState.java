@@ -1,15 +1,12 @@
 package com.tramchester.graph.states;
 
-import com.tramchester.graph.GraphStaticKeys;
 import com.tramchester.graph.search.JourneyState;
 import com.tramchester.graph.TransportGraphBuilder;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Path;
 import org.neo4j.graphdb.Relationship;
 
-import java.util.ArrayList;
 import java.util.Collections;
-import java.util.List;
 
 import static com.tramchester.graph.TransportRelationshipTypes.*;
 import static org.neo4j.graphdb.Direction.OUTGOING;
@@ -17,19 +14,19 @@ import static org.neo4j.graphdb.Direction.OUTGOING;
 public class MinuteState extends TraversalState {
 //    private static final Logger logger = LoggerFactory.getLogger(MinuteState.class);
 
-    private final String tripId;
+    private final int tripIndex;
 
     @Override
     public String toString() {
         return "MinuteState{" +
-                "tripId='" + tripId + '\'' +
+                "tripIndex=" + tripIndex +
                 ", parent=" + parent +
                 '}';
     }
 
-    public MinuteState(TraversalState parent, Iterable<Relationship> relationships, String tripId, int cost) {
+    public MinuteState(TraversalState parent, Iterable<Relationship> relationships, int tripIndex, int cost) {
         super(parent, relationships, cost);
-        this.tripId = tripId;
+        this.tripIndex = tripIndex;
     }
 
     @Override
@@ -41,44 +38,30 @@ public class MinuteState extends TraversalState {
     }
 
     private TraversalState toRouteStation(Node node, int cost) {
-        Iterable<Relationship> allDeparts = node.getRelationships(OUTGOING, DEPART, INTERCHANGE_DEPART);
-
         // towards final destination, just follow this one
-        for (Relationship depart : allDeparts) {
-            if (destinationStationIds.contains(depart.getProperty(GraphStaticKeys.STATION_ID).toString())) {
-                // we've arrived
-                return new RouteStationState(this, Collections.singleton(depart), node.getId(), tripId, cost);
-            }
+        Relationship towardsDestination = findTowardsDestination(node);
+        if (towardsDestination!=null) {
+            // we've arrived
+            return new RouteStationState(this, Collections.singleton(towardsDestination), node.getId(), tripIndex, cost);
         }
 
-        List<Relationship> routeStationOutbound = filterByTripId(node.getRelationships(OUTGOING, TO_SERVICE), tripId);
-        boolean tripFinishedHere = routeStationOutbound.isEmpty();
+        Iterable<Relationship> allDeparts = node.getRelationships(OUTGOING, DEPART, INTERCHANGE_DEPART);
+
+        Relationship toService = findByTripsContaining(node.getRelationships(OUTGOING, TO_SERVICE), tripIndex);
+        boolean tripFinishedHere = toService==null;
 
         // add outgoing to platforms
-        if (config.getChangeAtInterchangeOnly()) {
-            Iterable<Relationship> interchanges = node.getRelationships(OUTGOING, INTERCHANGE_DEPART);
-            interchanges.forEach(routeStationOutbound::add);
-        } else {
-            allDeparts.forEach(routeStationOutbound::add);
-        }
+        Iterable<Relationship> departs = ops.config.getChangeAtInterchangeOnly() ?
+                node.getRelationships(OUTGOING, INTERCHANGE_DEPART) : allDeparts;
+        Iterable<Relationship> routeStationOutbound = tripFinishedHere ? departs :
+                concat(Collections.singleton(toService), departs);
 
         if (tripFinishedHere) {
             // service finished here so don't pass in trip ID
             return new RouteStationState(this, routeStationOutbound, node.getId(), cost, false);
         } else {
-            return new RouteStationState(this, routeStationOutbound, node.getId(), tripId, cost);
+            return new RouteStationState(this, routeStationOutbound, node.getId(), tripIndex, cost);
         }
     }
 
-    private List<Relationship> filterByTripId(Iterable<Relationship> relationships, String tripId) {
-        List<Relationship> results = new ArrayList<>();
-        relationships.forEach(relationship -> {
-            String trips = nodeOperations.getTrips(relationship);
-            if (trips.contains(tripId)) {
-                results.add(relationship);
-            }
-        });
-        return results;
-    }
-
 }
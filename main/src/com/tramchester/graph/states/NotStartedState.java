@@ -2,13 +2,16 @@ package com.tramchester.graph.states;
 
 import com.tramchester.config.TramchesterConfig;
 import com.tramchester.graph.CachedNodeOperations;
+import com.tramchester.graph.GraphAdjacency;
 import com.tramchester.graph.search.JourneyState;
 import com.tramchester.graph.TransportGraphBuilder;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Path;
+import org.neo4j.graphdb.Relationship;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static com.tramchester.graph.TransportRelationshipTypes.*;
 import static org.neo4j.graphdb.Direction.OUTGOING;
@@ -16,9 +19,17 @@ import static org.neo4j.graphdb.Direction.OUTGOING;
 // TODO seperate class for Bus?
 public class NotStartedState extends TraversalState {
 
-    public NotStartedState(CachedNodeOperations nodeOperations, long destinationNodeId, List<String> destinationStationIds,
+    public NotStartedState(CachedNodeOperations nodeOperations, GraphAdjacency adjacency, long destinationNodeId,
+                           List<String> destinationStationIds, TramchesterConfig config) {
+        this(nodeOperations, adjacency, destinationNodeId, destinationStationIds, Collections.<Long, List<Relationship>>emptyMap(), config);
+    }
+
+    // walksFrom are the walks to a destination that is not in the graph, by station node id, see WalkingOverlay
+    public NotStartedState(CachedNodeOperations nodeOperations, GraphAdjacency adjacency, long destinationNodeId,
+                           List<String> destinationStationIds, Map<Long, List<Relationship>> walksFrom,
                            TramchesterConfig config) {
-        super(null, nodeOperations, new ArrayList<>(), destinationNodeId, destinationStationIds, 0, config);
+        super(new TraversalOps(nodeOperations, adjacency, destinationNodeId, destinationStationIds, walksFrom, config),
+                Collections.emptyList(), 0);
     }
 
     @Override
@@ -36,11 +47,11 @@ public class NotStartedState extends TraversalState {
             case QUERY_NODE:
                 return new WalkingState(this, firstNode.getRelationships(OUTGOING, WALKS_TO), cost);
             case TRAM_STATION:
-                return new TramStationState(this, firstNode.getRelationships(OUTGOING, ENTER_PLATFORM, WALKS_FROM), cost,
-                        firstNode.getId());
+                return new TramStationState(this, withWalksFrom(firstNode,
+                        firstNode.getRelationships(OUTGOING, ENTER_PLATFORM)), cost, firstNode.getId());
             case BUS_STATION:
-                return new BusStationState(this, firstNode.getRelationships(OUTGOING, INTERCHANGE_BOARD, BOARD, WALKS_FROM), cost,
-                        firstNode.getId());
+                return new BusStationState(this, withWalksFrom(firstNode,
+                        firstNode.getRelationships(OUTGOING, INTERCHANGE_BOARD, BOARD)), cost, firstNode.getId());
         }
         throw new RuntimeException("Unexpected node type: " + nodeLabel);
     }
@@ -7,8 +7,6 @@ import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Path;
 import org.neo4j.graphdb.Relationship;
 
-import java.util.List;
-
 import static com.tramchester.graph.TransportRelationshipTypes.*;
 import static java.lang.String.format;
 import static org.neo4j.graphdb.Direction.OUTGOING;
@@ -36,11 +34,11 @@ public class PlatformState extends TraversalState {
         long nodeId = node.getId();
 
         if (nodeLabel == TransportGraphBuilder.Labels.TRAM_STATION) {
-            if (nodeId ==destinationNodeId) {
+            if (nodeId == ops.destinationNodeId) {
                 return new DestinationState(this, cost);
             }
             return new TramStationState(this,
-                    filterExcludingEndNode(node.getRelationships(OUTGOING, ENTER_PLATFORM, WALKS_FROM), platformNodeId),
+                    withWalksFrom(node, filterExcludingEndNode(node.getRelationships(OUTGOING, ENTER_PLATFORM), platformNodeId)),
                     cost, nodeId);
         }
 
@@ -50,8 +48,8 @@ public class PlatformState extends TraversalState {
             } catch (TramchesterException e) {
                 throw new RuntimeException("unable to board tram", e);
             }
-            List<Relationship> outbounds = filterExcludingEndNode(node.getRelationships(OUTGOING, ENTER_PLATFORM), platformNodeId);
-            node.getRelationships(OUTGOING, TO_SERVICE).forEach(outbounds::add);
+            Iterable<Relationship> outbounds = concat(filterExcludingEndNode(node.getRelationships(OUTGOING, ENTER_PLATFORM),
+                    platformNodeId), node.getRelationships(OUTGOING, TO_SERVICE));
             return new RouteStationState(this, outbounds, nodeId, cost, true);
         }
 
@@ -1,7 +1,6 @@
 package com.tramchester.graph.states;
 
 import com.tramchester.domain.exceptions.TramchesterException;
-import com.tramchester.graph.GraphStaticKeys;
 import com.tramchester.graph.search.JourneyState;
 import com.tramchester.graph.TransportGraphBuilder;
 import org.neo4j.graphdb.Node;
@@ -9,8 +8,6 @@ import org.neo4j.graphdb.Path;
 import org.neo4j.graphdb.Relationship;
 
 import java.util.Collections;
-import java.util.List;
-import java.util.Optional;
 
 import static com.tramchester.graph.TransportRelationshipTypes.*;
 import static java.lang.String.format;
@@ -19,22 +16,23 @@ import static org.neo4j.graphdb.Direction.OUTGOING;
 public class RouteStationState extends TraversalState {
     private final long routeStationNodeId;
     private final boolean justBoarded;
-    private Optional<String> maybeExistingTrip;
+    // NO_TRIP unless continuing on a trip
+    private final int existingTrip;
 
     public RouteStationState(TraversalState parent, Iterable<Relationship> relationships, long routeStationNodeId,
                              int cost, boolean justBoarded) {
         super(parent, relationships, cost);
         this.routeStationNodeId = routeStationNodeId;
         this.justBoarded = justBoarded;
-        maybeExistingTrip = Optional.empty();
+        existingTrip = NO_TRIP;
     }
 
     public RouteStationState(TraversalState parent, Iterable<Relationship> relationships,
-                             long routeStationNodeId, String tripId, int cost) {
+                             long routeStationNodeId, int tripIndex, int cost) {
         super(parent, relationships, cost);
         this.routeStationNodeId = routeStationNodeId;
         this.justBoarded = false;
-        maybeExistingTrip = Optional.of(tripId);
+        existingTrip = tripIndex;
     }
 
     @Override
@@ -43,7 +41,7 @@ public class RouteStationState extends TraversalState {
                 "routeStationNodeId=" + routeStationNodeId +
                 ", cost=" + super.getCurrentCost() +
                 ", justBoarded=" + justBoarded +
-                ", maybeExistingTrip='" + maybeExistingTrip + '\'' +
+                ", existingTrip=" + existingTrip +
                 ", parent=" + parent +
                 '}';
     }
@@ -58,7 +56,7 @@ public class RouteStationState extends TraversalState {
         if (nodeLabel == TransportGraphBuilder.Labels.SERVICE) {
             return toService(nextNode, cost);
         }
-        if (config.getBus() && (nodeLabel == TransportGraphBuilder.Labels.BUS_STATION)) {
+        if (ops.config.getBus() && (nodeLabel == TransportGraphBuilder.Labels.BUS_STATION)) {
             return toBusStation(nextNode, journeyState, cost);
         }
 
@@ -75,17 +73,16 @@ public class RouteStationState extends TraversalState {
 
         // if bus station then may have arrived
         long busStationNodeId = busStationNode.getId();
-        if (busStationNodeId == destinationNodeId) {
+        if (busStationNodeId == ops.destinationNodeId) {
             return new DestinationState(this, cost);
         }
 
-        List<Relationship> stationRelationships = filterExcludingEndNode(busStationNode.getRelationships(OUTGOING, BOARD,
-                INTERCHANGE_BOARD, WALKS_FROM), routeStationNodeId);
-        if (maybeExistingTrip.isPresent() || justBoarded) {
+        Iterable<Relationship> stationRelationships = withWalksFrom(busStationNode,
+                filterExcludingEndNode(busStationNode.getRelationships(OUTGOING, BOARD, INTERCHANGE_BOARD), routeStationNodeId));
+        if (existingTrip!=NO_TRIP || justBoarded) {
             // filter so we don't just get straight back on tram if just boarded, or if we are on an existing trip
-            List<Relationship> filterExcludingEndNode = filterExcludingEndNode(stationRelationships, routeStationNodeId);
             //return new PlatformState(this, filterExcludingEndNode, platformNode.getId(), cost);
-            return new BusStationState(this, filterExcludingEndNode, cost, busStationNodeId);
+            return new BusStationState(this, stationRelationships, cost, busStationNodeId);
         } else {
             // end of a trip, may need to go back to this route station to catch new service
             return new BusStationState(this, stationRelationships, cost, busStationNodeId);
@@ -94,7 +91,7 @@ public class RouteStationState extends TraversalState {
 
     private TraversalState toService(Node serviceNode, int cost) {
         Iterable<Relationship> serviceRelationships = serviceNode.getRelationships(OUTGOING, TO_HOUR);
-        return new ServiceState(this, serviceRelationships, maybeExistingTrip, cost);
+        return new ServiceState(this, serviceRelationships, existingTrip, cost);
     }
 
     private TraversalState toPlatform(Node platformNode, JourneyState journeyState, int cost) {
@@ -102,19 +99,18 @@ public class RouteStationState extends TraversalState {
             journeyState.leaveTram(getTotalCost());
 
             // if towards ONE destination just return that one relationship
-            if (destinationStationIds.size()==1) {
-                for (Relationship relationship : platformNode.getRelationships(OUTGOING, LEAVE_PLATFORM)) {
-                    if (destinationStationIds.contains(relationship.getProperty(GraphStaticKeys.STATION_ID).toString())) {
-                        return new PlatformState(this, Collections.singleton(relationship), routeStationNodeId, cost);
-                    }
+            if (ops.destinationStationIds.size()==1) {
+                Relationship leavePlatform = findTowardsDestination(platformNode);
+                if (leavePlatform!=null) {
+                    return new PlatformState(this, Collections.singleton(leavePlatform), routeStationNodeId, cost);
                 }
             }
             Iterable<Relationship> platformRelationships = platformNode.getRelationships(OUTGOING,
                     BOARD, INTERCHANGE_BOARD, LEAVE_PLATFORM);
 
-            if (maybeExistingTrip.isPresent() || justBoarded) {
+            if (existingTrip!=NO_TRIP || justBoarded) {
                 // filter so we don't just get straight back on tram if just boarded, or if we are on an existing trip
-                List<Relationship> filterExcludingEndNode = filterExcludingEndNode(platformRelationships, routeStationNodeId);
+                Iterable<Relationship> filterExcludingEndNode = filterExcludingEndNode(platformRelationships, routeStationNodeId);
                 return new PlatformState(this, filterExcludingEndNode, platformNode.getId(), cost);
             } else {
                 // end of a trip, may need to go back to this route station to catch new service
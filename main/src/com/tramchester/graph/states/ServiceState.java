@@ -6,25 +6,24 @@ import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Path;
 import org.neo4j.graphdb.Relationship;
 
-import java.util.Optional;
-
 import static com.tramchester.graph.TransportRelationshipTypes.TO_MINUTE;
 import static org.neo4j.graphdb.Direction.OUTGOING;
 
 public class ServiceState extends TraversalState {
 
-    private Optional<String> maybeExistingTrip;
+    // NO_TRIP unless continuing on a trip
+    private final int existingTrip;
 
-    public ServiceState(TraversalState parent, Iterable<Relationship> relationships, Optional<String> maybeExistingTrip,
+    public ServiceState(TraversalState parent, Iterable<Relationship> relationships, int existingTrip,
                         int cost) {
         super(parent, relationships, cost);
-        this.maybeExistingTrip = maybeExistingTrip;
+        this.existingTrip = existingTrip;
     }
 
     @Override
     public String toString() {
         return "ServiceState{" +
-                "maybeExistingTrip=" + maybeExistingTrip +
+                "existingTrip=" + existingTrip +
                 ", parent=" + parent +
                 '}';
     }
@@ -33,7 +32,7 @@ public class ServiceState extends TraversalState {
     public TraversalState createNextState(Path path, TransportGraphBuilder.Labels nodeLabel, Node node, JourneyState journeyState, int cost) {
         if (nodeLabel == TransportGraphBuilder.Labels.HOUR) {
             Iterable<Relationship> relationships = node.getRelationships(OUTGOING, TO_MINUTE);
-            return new HourState(this, relationships, maybeExistingTrip, cost);
+            return new HourState(this, relationships, existingTrip, cost);
         }
 
         throw new RuntimeException("Unexpected node type: "+nodeLabel);
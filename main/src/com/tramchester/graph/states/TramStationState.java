@@ -31,7 +31,7 @@ public class TramStationState extends TraversalState {
     public TraversalState createNextState(Path path, TransportGraphBuilder.Labels nodeLabel, Node node,
                                           JourneyState journeyState, int cost) {
         long nodeId = node.getId();
-        if (nodeId == destinationNodeId) {
+        if (nodeId == ops.destinationNodeId) {
             // TODO Cost of platform depart?
             return new DestinationState(this, cost);
         }
@@ -0,0 +1,33 @@
+package com.tramchester.graph.states;
+
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.graph.CachedNodeOperations;
+import com.tramchester.graph.GraphAdjacency;
+import org.neo4j.graphdb.Relationship;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+// The same for every state of one search, held once and shared so each state only holds its own branch
+class TraversalOps {
+    final TramchesterConfig config;
+    final CachedNodeOperations nodeOperations;
+    final GraphAdjacency adjacency;
+    final long destinationNodeId;
+    final List<String> destinationStationIds;
+    final BitSet destinationStations;
+    final Map<Long, List<Relationship>> walksFrom;
+
+    TraversalOps(CachedNodeOperations nodeOperations, GraphAdjacency adjacency, long destinationNodeId,
+                 List<String> destinationStationIds, Map<Long, List<Relationship>> walksFrom,
+                 TramchesterConfig config) {
+        this.config = config;
+        this.nodeOperations = nodeOperations;
+        this.adjacency = adjacency;
+        this.destinationNodeId = destinationNodeId;
+        this.destinationStationIds = destinationStationIds;
+        this.destinationStations = adjacency.stationIndexes(destinationStationIds);
+        this.walksFrom = walksFrom;
+    }
+}
@@ -1,30 +1,28 @@
 package com.tramchester.graph.states;
 
-import com.tramchester.config.TramchesterConfig;
-import com.tramchester.graph.CachedNodeOperations;
+import com.tramchester.graph.GraphAdjacency;
 import com.tramchester.graph.search.JourneyState;
 import com.tramchester.graph.TransportGraphBuilder;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Path;
 import org.neo4j.graphdb.Relationship;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Objects;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
+// One per branch of the search, so only what differs between branches is held here, see TraversalOps
 public abstract class TraversalState implements ImmuatableTraversalState {
+    protected static final int NO_TRIP = -1;
 
     private final Iterable<Relationship> outbounds;
     private final int costForLastEdge;
     private final int parentCost;
     private TraversalState child;
 
-    protected final TramchesterConfig config;
-    protected final CachedNodeOperations nodeOperations;
-    protected final long destinationNodeId;
+    final TraversalOps ops;
     protected final TraversalState parent;
-    protected final List<String> destinationStationIds;
 
     @Override
     public int hashCode() {
@@ -32,25 +30,16 @@ public abstract class TraversalState implements ImmuatableTraversalState {
     }
 
     // initial only
-    protected TraversalState(TraversalState parent, CachedNodeOperations nodeOperations, Iterable<Relationship> outbounds,
-                             long destinationNodeId, List<String> destinationStationdId, int costForLastEdge,
-                             TramchesterConfig config) {
-        this.parent = parent;
-        this.nodeOperations = nodeOperations;
+    TraversalState(TraversalOps ops, Iterable<Relationship> outbounds, int costForLastEdge) {
+        this.ops = ops;
+        this.parent = null;
         this.outbounds = outbounds;
-        this.destinationNodeId = destinationNodeId;
-        this.destinationStationIds = destinationStationdId;
         this.costForLastEdge = costForLastEdge;
-        this.config = config;
         parentCost = 0;
     }
 
     protected TraversalState(TraversalState parent, Iterable<Relationship> outbounds, int costForLastEdge) {
-        this.nodeOperations = parent.nodeOperations;
-        this.destinationNodeId = parent.destinationNodeId;
-        this.destinationStationIds = parent.destinationStationIds;
-        this.config = parent.config;
-
+        this.ops = parent.ops;
         this.parent = parent;
         this.outbounds = outbounds;
         this.costForLastEdge = costForLastEdge;
@@ -77,11 +66,45 @@ public abstract class TraversalState implements ImmuatableTraversalState {
         return outbounds;
     }
 
-    protected List<Relationship> filterExcludingEndNode(Iterable<Relationship> relationships, long nodeIdToSkip) {
+    // filtered lazily as the traversal consumes the outbounds, so no list is built for every state
+    protected Iterable<Relationship> filterExcludingEndNode(Iterable<Relationship> relationships, long nodeIdToSkip) {
+        return new ExcludingEndNode(relationships, nodeIdToSkip);
+    }
+
+    protected Iterable<Relationship> concat(Iterable<Relationship> first, Iterable<Relationship> second) {
+        return new Concat(first, second);
+    }
+
+    // the station outbounds plus any walks from the station to a walking destination, see WalkingOverlay
+    protected Iterable<Relationship> withWalksFrom(Node stationNode, Iterable<Relationship> relationships) {
+        List<Relationship> walks = ops.walksFrom.get(stationNode.getId());
+        return walks==null ? relationships : concat(relationships, walks);
+    }
 
-        return  StreamSupport.stream(relationships.spliterator(), false).
-                filter(relationship -> relationship.getEndNode().getId()!= nodeIdToSkip).
-                collect(Collectors.toList());
+    // outbound from the node towards one of the destination stations, via the adjacency snapshot, or null if none
+    protected Relationship findTowardsDestination(Node node) {
+        long relationshipId = ops.adjacency.findTowards(node.getId(), ops.destinationStations);
+        return relationshipId == GraphAdjacency.NOT_FOUND ? null : ops.adjacency.getRelationship(relationshipId);
+    }
+
+    // the single relationship with the given trip, or null if none, a trip only passes once through a node
+    protected Relationship findByTrip(Iterable<Relationship> relationships, int tripIndex) {
+        for (Relationship relationship : relationships) {
+            if (ops.nodeOperations.getTripIndex(relationship)==tripIndex) {
+                return relationship;
+            }
+        }
+        return null;
+    }
+
+    // the single relationship whose trips include the given trip, or null if none
+    protected Relationship findByTripsContaining(Iterable<Relationship> relationships, int tripIndex) {
+        for (Relationship relationship : relationships) {
+            if (ops.nodeOperations.hasTrip(relationship, tripIndex)) {
+                return relationship;
+            }
+        }
+        return null;
     }
 
     public int getTotalCost() {
@@ -92,4 +115,103 @@ public abstract class TraversalState implements ImmuatableTraversalState {
         return costForLastEdge;
     }
 
+    // the traversal iterates the outbounds of a state once, so the first iteration uses the iterable itself
+    // rather than allocating an iterator as well
+    private static abstract class IterateOnce implements Iterable<Relationship>, Iterator<Relationship> {
+        private boolean iterated = false;
+
+        @Override
+        public Iterator<Relationship> iterator() {
+            if (iterated) {
+                return copy();
+            }
+            iterated = true;
+            return this;
+        }
+
+        protected abstract IterateOnce copy();
+    }
+
+    private static class ExcludingEndNode extends IterateOnce {
+        private final Iterable<Relationship> source;
+        private final long nodeIdToSkip;
+        private Iterator<Relationship> relationships;
+        private Relationship next;
+
+        private ExcludingEndNode(Iterable<Relationship> source, long nodeIdToSkip) {
+            this.source = source;
+            this.nodeIdToSkip = nodeIdToSkip;
+        }
+
+        @Override
+        protected IterateOnce copy() {
+            return new ExcludingEndNode(source, nodeIdToSkip);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (relationships == null) {
+                relationships = source.iterator();
+            }
+            while (next == null && relationships.hasNext()) {
+                Relationship candidate = relationships.next();
+                if (candidate.getEndNodeId() != nodeIdToSkip) {
+                    next = candidate;
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Relationship next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Relationship result = next;
+            next = null;
+            return result;
+        }
+    }
+
+    private static class Concat extends IterateOnce {
+        private final Iterable<Relationship> first;
+        private final Iterable<Relationship> second;
+        private Iterator<Relationship> current;
+        private Iterable<Relationship> remaining;
+
+        private Concat(Iterable<Relationship> first, Iterable<Relationship> second) {
+            this.first = first;
+            this.second = second;
+            this.remaining = second;
+        }
+
+        @Override
+        protected IterateOnce copy() {
+            return new Concat(first, second);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (current == null) {
+                current = first.iterator();
+            }
+            if (current.hasNext()) {
+                return true;
+            }
+            if (remaining != null) {
+                current = remaining.iterator();
+                remaining = null;
+            }
+            return current.hasNext();
+        }
+
+        @Override
+        public Relationship next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+    }
+
 }
@@ -25,7 +25,7 @@ public class WalkingState extends TraversalState {
     @Override
     public TraversalState createNextState(Path path, TransportGraphBuilder.Labels nodeLabel, Node node, JourneyState journeyState, int cost) {
         // could be we've walked to our destination
-        if (node.getId()==destinationNodeId) {
+        if (node.getId()== ops.destinationNodeId) {
             return new DestinationState(this, cost);
         }
 
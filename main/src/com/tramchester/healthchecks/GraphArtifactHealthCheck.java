@@ -0,0 +1,32 @@
+package com.tramchester.healthchecks;
+
+import com.tramchester.graph.GraphArtifacts;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// unhealthy if the graph in use was not built from the loaded timetable, i.e. a rebuild failed
+public class GraphArtifactHealthCheck extends TramchesterHealthCheck {
+    private static final Logger logger = LoggerFactory.getLogger(GraphArtifactHealthCheck.class);
+
+    private final GraphArtifacts graphArtifacts;
+
+    public GraphArtifactHealthCheck(GraphArtifacts graphArtifacts) {
+        this.graphArtifacts = graphArtifacts;
+    }
+
+    @Override
+    protected Result check() {
+        String status = graphArtifacts.getStatus();
+        if (graphArtifacts.matches()) {
+            return Result.healthy(status);
+        }
+        String message = "Graph does not match the timetable: " + status;
+        logger.error(message);
+        return Result.unhealthy(message);
+    }
+
+    @Override
+    public String getName() {
+        return "graphArtifact";
+    }
+}
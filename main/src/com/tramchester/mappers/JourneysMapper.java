@@ -7,6 +7,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static java.lang.String.format;
@@ -22,15 +23,48 @@ public class JourneysMapper {
 
     public SortedSet<JourneyDTO> createJourneyDTOs(Stream<Journey> rawJourneys, TramServiceDate tramServiceDate, long limit) {
         logger.info("Creating journey DTOs");
-        SortedSet<JourneyDTO> journeys = new TreeSet<>();
+        // bounded, the worst of the best so far is at the head, same outcome as sorting everything then limiting
+        int capacity = (int) Math.min(limit, Integer.MAX_VALUE);
+        PriorityQueue<JourneyDTO> best = new PriorityQueue<>(Math.max(capacity, 1), Collections.reverseOrder());
 
-        // note: sort, then limit
         rawJourneys.map(rawJourney -> mapper.createJourneyDTO(rawJourney, tramServiceDate)).
-                sorted(JourneyDTO::compareTo).
-                limit(limit).
-                forEachOrdered(journeys::add);
+                forEach(journey -> {
+                    if (best.size() < capacity) {
+                        best.add(journey);
+                    } else if (capacity > 0 && journey.compareTo(best.peek()) < 0) {
+                        best.poll();
+                        best.add(journey);
+                    }
+                });
+
+        return new TreeSet<>(best);
+    }
+
+    // every journey not beaten on both arrival time and number of changes, quickest first
+    public SortedSet<JourneyDTO> createParetoJourneyDTOs(Stream<Journey> rawJourneys, TramServiceDate tramServiceDate) {
+        logger.info("Creating journey DTOs for arrival and changes");
+        List<JourneyDTO> byArrival = rawJourneys.map(rawJourney -> mapper.createJourneyDTO(rawJourney, tramServiceDate)).
+                sorted(Comparator.comparing(JourneyDTO::getExpectedArrivalTime).
+                        thenComparingInt(JourneysMapper::numberOfChanges).
+                        thenComparing(Comparator.naturalOrder())).
+                collect(Collectors.toList());
 
+        SortedSet<JourneyDTO> journeys = new TreeSet<>();
+        int fewestChanges = Integer.MAX_VALUE;
+        for (JourneyDTO journey : byArrival) {
+            int changes = numberOfChanges(journey);
+            if (changes < fewestChanges) {
+                journeys.add(journey);
+                fewestChanges = changes;
+            }
+        }
+        logger.info(format("Kept %s of %s journeys", journeys.size(), byArrival.size()));
         return journeys;
     }
 
+    private static int numberOfChanges(JourneyDTO journey) {
+        long vehicles = journey.getStages().stream().filter(stage -> stage.getMode().isVehicle()).count();
+        return (int) Math.max(0, vehicles - 1);
+    }
+
 }
@@ -0,0 +1,259 @@
+package com.tramchester.repository;
+
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.domain.Route;
+import com.tramchester.domain.input.StopCalls;
+import com.tramchester.domain.places.RouteStation;
+import com.tramchester.domain.places.Station;
+import org.picocontainer.Startable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static java.lang.String.format;
+
+// Stations reachable from each bus route station with up to N changes, built from the trips
+public class BusReachabilityRepository implements Startable {
+    private static final Logger logger = LoggerFactory.getLogger(BusReachabilityRepository.class);
+
+    private static final String FILE_NAME = "bus_reachability.bin";
+    private static final int FORMAT_VERSION = 1;
+
+    private final TransportData transportData;
+    private final TramchesterConfig config;
+
+    private final Map<String, Integer> stationIndexes;
+    // route station id -> reachable stations for each number of changes
+    private final Map<String, BitSet[]> reachable;
+    // true if the last level already held everything reachable with any number of changes
+    private boolean complete;
+
+    public BusReachabilityRepository(TransportData transportData, TramchesterConfig config) {
+        this.transportData = transportData;
+        this.config = config;
+        stationIndexes = new HashMap<>();
+        reachable = new HashMap<>();
+        complete = false;
+    }
+
+    @Override
+    public void start() {
+        if (!config.getBus()) {
+            return;
+        }
+        Path file = config.getDataPath().resolve(FILE_NAME);
+        String fingerprint = fingerprint();
+        int maxChanges = Math.max(0, config.getBusReachabilityMaxChanges());
+
+        if (!config.getRebuildGraph() && Files.exists(file) && load(file, fingerprint, maxChanges)) {
+            logger.info(format("Loaded bus reachability for %s route stations from %s", reachable.size(), file));
+            return;
+        }
+
+        long started = System.currentTimeMillis();
+        build(maxChanges);
+        logger.info(format("Built bus reachability for %s route stations, %s levels, complete %s, took %s ms",
+                reachable.size(), maxChanges + 1, complete, System.currentTimeMillis() - started));
+        save(file, fingerprint, maxChanges);
+    }
+
+    @Override
+    public void stop() {
+        stationIndexes.clear();
+        reachable.clear();
+    }
+
+    // false only if known to be unreachable with at most changesAllowed more changes after the route station's route
+    public boolean stationReachable(String routeStationId, int changesAllowed, Station destination) {
+        BitSet[] levels = reachable.get(routeStationId);
+        Integer destinationIndex = stationIndexes.get(destination.getId());
+        if (levels == null || destinationIndex == null || changesAllowed < 0) {
+            return true;
+        }
+        int level = changesAllowed;
+        if (level >= levels.length) {
+            if (!complete) {
+                return true;
+            }
+            level = levels.length - 1;
+        }
+        return levels[level].get(destinationIndex);
+    }
+
+    private void build(int maxChanges) {
+        stationIndexes.clear();
+        reachable.clear();
+        transportData.getStations().forEach(station -> stationIndexes.put(station.getId(), stationIndexes.size()));
+
+        // stops later on the same route, including the stop itself
+        Map<String, BitSet> direct = new HashMap<>();
+        Map<Integer, Set<String>> routeStationsAt = new HashMap<>();
+        transportData.getTrips().forEach(trip -> {
+            Route route = trip.getRoute();
+            StopCalls stops = trip.getStops();
+            BitSet later = new BitSet(stationIndexes.size());
+            for (int i = stops.size() - 1; i >= 0; i--) {
+                Station station = stops.get(i).getStation();
+                int index = stationIndexes.get(station.getId());
+                later.set(index);
+                String routeStationId = RouteStation.formId(station, route);
+                direct.computeIfAbsent(routeStationId, unused -> new BitSet(stationIndexes.size())).or(later);
+                routeStationsAt.computeIfAbsent(index, unused -> new HashSet<>()).add(routeStationId);
+            }
+        });
+
+        Map<BitSet, BitSet> distinct = new HashMap<>();
+        Map<String, BitSet> previous = new HashMap<>();
+        direct.forEach((routeStationId, stations) -> previous.put(routeStationId, intern(distinct, stations)));
+        List<Map<String, BitSet>> levels = new ArrayList<>();
+        levels.add(previous);
+
+        complete = false;
+        for (int changes = 1; changes <= maxChanges && !complete; changes++) {
+            Map<String, BitSet> current = nextLevel(direct, routeStationsAt, levels.get(levels.size() - 1), distinct);
+            if (current.equals(levels.get(levels.size() - 1))) {
+                complete = true;
+            } else {
+                levels.add(current);
+            }
+        }
+
+        direct.keySet().forEach(routeStationId -> {
+            BitSet[] forRouteStation = new BitSet[levels.size()];
+            for (int level = 0; level < levels.size(); level++) {
+                forRouteStation[level] = levels.get(level).get(routeStationId);
+            }
+            reachable.put(routeStationId, forRouteStation);
+        });
+        logger.info(format("%s distinct sets of reachable stations", distinct.size()));
+    }
+
+    // whatever is reachable from a stop later on the route, with one fewer change
+    private Map<String, BitSet> nextLevel(Map<String, BitSet> direct, Map<Integer, Set<String>> routeStationsAt,
+                                          Map<String, BitSet> previous, Map<BitSet, BitSet> distinct) {
+        Map<Integer, BitSet> fromStation = new HashMap<>();
+        routeStationsAt.forEach((stationIndex, routeStationIds) -> {
+            BitSet union = new BitSet(stationIndexes.size());
+            routeStationIds.forEach(routeStationId -> union.or(previous.get(routeStationId)));
+            fromStation.put(stationIndex, union);
+        });
+
+        Map<String, BitSet> result = new HashMap<>();
+        direct.forEach((routeStationId, stops) -> {
+            BitSet reached = (BitSet) previous.get(routeStationId).clone();
+            stops.stream().forEach(stationIndex -> reached.or(fromStation.get(stationIndex)));
+            result.put(routeStationId, intern(distinct, reached));
+        });
+        return result;
+    }
+
+    private static BitSet intern(Map<BitSet, BitSet> distinct, BitSet bitSet) {
+        return distinct.computeIfAbsent(bitSet, unused -> bitSet);
+    }
+
+    // changes if the timetable does
+    private String fingerprint() {
+        String version = transportData.getFeedInfo() == null ? "none" : transportData.getFeedInfo().getVersion();
+        return format("%s:%s:%s:%s", version, transportData.getStations().size(), transportData.getTrips().size(),
+                transportData.getRouteStations().size());
+    }
+
+    private void save(Path file, String fingerprint, int maxChanges) {
+        Map<BitSet, Integer> distinctIndexes = new LinkedHashMap<>();
+        reachable.values().forEach(levels -> Arrays.stream(levels).
+                forEach(bitSet -> distinctIndexes.putIfAbsent(bitSet, distinctIndexes.size())));
+
+        List<String> stationIds = new ArrayList<>(Collections.nCopies(stationIndexes.size(), ""));
+        stationIndexes.forEach((stationId, index) -> stationIds.set(index, stationId));
+
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(file))))) {
+            output.writeInt(FORMAT_VERSION);
+            output.writeUTF(fingerprint);
+            output.writeInt(maxChanges);
+            output.writeBoolean(complete);
+
+            output.writeInt(stationIds.size());
+            for (String stationId : stationIds) {
+                output.writeUTF(stationId);
+            }
+
+            output.writeInt(distinctIndexes.size());
+            for (BitSet bitSet : distinctIndexes.keySet()) {
+                long[] words = bitSet.toLongArray();
+                output.writeInt(words.length);
+                for (long word : words) {
+                    output.writeLong(word);
+                }
+            }
+
+            output.writeInt(reachable.size());
+            for (Map.Entry<String, BitSet[]> entry : reachable.entrySet()) {
+                output.writeUTF(entry.getKey());
+                output.writeInt(entry.getValue().length);
+                for (BitSet bitSet : entry.getValue()) {
+                    output.writeInt(distinctIndexes.get(bitSet));
+                }
+            }
+            logger.info(format("Saved bus reachability to %s", file));
+        } catch (IOException exception) {
+            // can be rebuilt next time
+            logger.warn("Unable to save bus reachability to " + file, exception);
+        }
+    }
+
+    private boolean load(Path file, String fingerprint, int maxChanges) {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(file))))) {
+            if (input.readInt() != FORMAT_VERSION || !fingerprint.equals(input.readUTF()) ||
+                    input.readInt() != maxChanges) {
+                logger.info(format("Bus reachability in %s is out of date", file));
+                return false;
+            }
+            boolean loadedComplete = input.readBoolean();
+
+            Map<String, Integer> loadedIndexes = new HashMap<>();
+            int numberOfStations = input.readInt();
+            for (int i = 0; i < numberOfStations; i++) {
+                loadedIndexes.put(input.readUTF(), i);
+            }
+
+            int numberDistinct = input.readInt();
+            List<BitSet> distinct = new ArrayList<>(numberDistinct);
+            for (int i = 0; i < numberDistinct; i++) {
+                long[] words = new long[input.readInt()];
+                for (int j = 0; j < words.length; j++) {
+                    words[j] = input.readLong();
+                }
+                distinct.add(BitSet.valueOf(words));
+            }
+
+            Map<String, BitSet[]> loaded = new HashMap<>();
+            int numberRouteStations = input.readInt();
+            for (int i = 0; i < numberRouteStations; i++) {
+                String routeStationId = input.readUTF();
+                BitSet[] levels = new BitSet[input.readInt()];
+                for (int level = 0; level < levels.length; level++) {
+                    levels[level] = distinct.get(input.readInt());
+                }
+                loaded.put(routeStationId, levels);
+            }
+
+            stationIndexes.clear();
+            stationIndexes.putAll(loadedIndexes);
+            reachable.clear();
+            reachable.putAll(loaded);
+            complete = loadedComplete;
+            return true;
+        } catch (IOException exception) {
+            logger.warn("Unable to load bus reachability from " + file + ", will rebuild", exception);
+            return false;
+        }
+    }
+}
@@ -1,63 +1,125 @@
 package com.tramchester.repository;
 
+import com.tramchester.config.TramchesterConfig;
 import com.tramchester.domain.Route;
+import com.tramchester.domain.input.StopCalls;
 import com.tramchester.domain.places.RouteStation;
 import com.tramchester.domain.places.Station;
-import com.tramchester.graph.RouteReachable;
+import org.picocontainer.Startable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static java.lang.String.format;
 
-public class TramReachabilityRepository {
-    private static final Logger logger = LoggerFactory.getLogger(RoutesRepository.class);
+// Tram stations reachable from each tram route station, built from the trips
+public class TramReachabilityRepository implements Startable {
+    private static final Logger logger = LoggerFactory.getLogger(TramReachabilityRepository.class);
 
-    private final RouteReachable routeReachable;
     private final TransportData transportData;
+    private final InterchangeRepository interchangeRepository;
+    private final TramchesterConfig config;
 
-    private List<String> tramStationIndexing; // a list as we need ordering and IndexOf
-    private Map<String, boolean[]> matrix; // stationId -> boolean[]
+    private final Map<String, Integer> tramStationIndexes; // stationId -> index
+    private final Map<String, BitSet> matrix; // routeStationId -> reachable stations
 
-    public TramReachabilityRepository(RouteReachable routeReachable, TransportData transportData) {
-        this.routeReachable = routeReachable;
+    public TramReachabilityRepository(TransportData transportData, InterchangeRepository interchangeRepository,
+                                      TramchesterConfig config) {
         this.transportData = transportData;
-        tramStationIndexing = new ArrayList<>();
-        matrix = new HashMap<>();
+        this.interchangeRepository = interchangeRepository;
+        this.config = config;
+        tramStationIndexes = new HashMap<>();
+        matrix = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void start() {
+        buildRepository();
+    }
+
+    @Override
+    public void stop() {
+        tramStationIndexes.clear();
+        matrix.clear();
     }
 
     public void buildRepository() {
         logger.info("Build repository");
+        long started = System.currentTimeMillis();
+        tramStationIndexes.clear();
+        matrix.clear();
 
-        Set<RouteStation> routeStations = transportData.getRouteStations().stream().
-                filter(RouteStation::isTram).
-                collect(Collectors.toSet());
-        Set<Station> tramStations = transportData.getStations().stream().
+        transportData.getStations().stream().
                 filter(Station::isTram).
-                collect(Collectors.toSet());
-
-        tramStations.forEach(uniqueStation -> tramStationIndexing.add(uniqueStation.getId()));
-
-        int size = tramStations.size();
-        routeStations.forEach(routeStation -> {
-            boolean[] flags = new boolean[size];
-            String startStationId = routeStation.getStationId();
-            tramStations.forEach(destinationStation -> {
-                String destinationStationId = destinationStation.getId();
-                boolean result;
-                if (destinationStationId.equals(startStationId)) {
-                    result = true;
-                } else {
-                    result = routeReachable.getRouteReachableWithInterchange(startStationId,
-                            destinationStationId, routeStation.getRoute());
+                forEach(station -> tramStationIndexes.put(station.getId(), tramStationIndexes.size()));
+        int size = tramStationIndexes.size();
+
+        // stops later on the same route, including the stop itself
+        Map<String, BitSet> direct = new HashMap<>();
+        transportData.getRouteStations().stream().
+                filter(RouteStation::isTram).
+                forEach(routeStation -> {
+                    BitSet self = new BitSet(size);
+                    self.set(tramStationIndexes.get(routeStation.getStationId()));
+                    direct.put(routeStation.getId(), self);
+                });
+        transportData.getTrips().stream().
+                filter(trip -> trip.getRoute().isTram()).
+                forEach(trip -> {
+                    Route route = trip.getRoute();
+                    StopCalls stops = trip.getStops();
+                    BitSet later = new BitSet(size);
+                    for (int i = stops.size() - 1; i >= 0; i--) {
+                        Station station = stops.get(i).getStation();
+                        later.set(tramStationIndexes.get(station.getId()));
+                        direct.computeIfAbsent(RouteStation.formId(station, route), unused -> new BitSet(size)).or(later);
+                    }
+                });
+
+        // route stations that can be boarded, after a change, at each station
+        Map<Integer, List<String>> changeTo = new HashMap<>();
+        direct.keySet().forEach(routeStationId -> {
+            RouteStation routeStation = transportData.getRouteStation(routeStationId);
+            Station station = routeStation == null ? null : transportData.getStation(routeStation.getStationId());
+            if (station != null && canChangeAt(station)) {
+                changeTo.computeIfAbsent(tramStationIndexes.get(station.getId()), unused -> new ArrayList<>()).
+                        add(routeStationId);
+            }
+        });
+
+        direct.keySet().parallelStream().
+                forEach(routeStationId -> matrix.put(routeStationId, closure(routeStationId, direct, changeTo)));
+
+        logger.info(format("Added %s route stations for %s stations, took %s ms", matrix.size(), size,
+                System.currentTimeMillis() - started));
+    }
+
+    private boolean canChangeAt(Station station) {
+        return !config.getChangeAtInterchangeOnly() || interchangeRepository.isInterchange(station);
+    }
+
+    // everything reachable from the route station, following changes until nothing new is found
+    private BitSet closure(String startId, Map<String, BitSet> direct, Map<Integer, List<String>> changeTo) {
+        BitSet reached = new BitSet(tramStationIndexes.size());
+        Set<String> visited = new HashSet<>();
+        Deque<String> pending = new ArrayDeque<>();
+        pending.add(startId);
+        visited.add(startId);
+
+        while (!pending.isEmpty()) {
+            BitSet stops = direct.get(pending.poll());
+            stops.stream().forEach(stationIndex -> {
+                if (!reached.get(stationIndex)) {
+                    reached.set(stationIndex);
+                    changeTo.getOrDefault(stationIndex, Collections.emptyList()).stream().
+                            filter(visited::add).
+                            forEach(pending::add);
                 }
-                flags[tramStationIndexing.indexOf(destinationStationId)] = result;
             });
-            matrix.put(routeStation.getId(), flags);
-        });
-        logger.info(format("Added %s entries", size));
+        }
+        return reached;
     }
 
     public boolean stationReachable(Station startStation, Route route, Station destinationStation) {
@@ -68,12 +130,12 @@ public class TramReachabilityRepository {
     public boolean stationReachable(RouteStation routeStation, Station destinationStation) {
         if (routeStation.isTram() && destinationStation.isTram()) {
             // route station is a tram station
-            int index = tramStationIndexing.indexOf(destinationStation.getId());
-            if (index<0) {
+            Integer index = tramStationIndexes.get(destinationStation.getId());
+            if (index==null) {
                 throw new RuntimeException(format("Failed to find index for %s routeStation was %s", destinationStation,
                         routeStation));
             }
-            return matrix.get(routeStation.getId())[index];
+            return matrix.get(routeStation.getId()).get(index);
         }
         throw new RuntimeException("Call for trams only");
     }
@@ -0,0 +1,84 @@
+package com.tramchester.repository;
+
+import com.tramchester.domain.input.StopCall;
+import com.tramchester.domain.input.StopCalls;
+import com.tramchester.domain.time.TramTime;
+import org.picocontainer.Disposable;
+import org.picocontainer.Startable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+import static java.lang.String.format;
+
+// Lower bound on the travel time from each station to a destination
+public class TravelTimeLowerBounds implements Startable, Disposable {
+    private static final Logger logger = LoggerFactory.getLogger(TravelTimeLowerBounds.class);
+
+    private final TransportDataSource transportDataSource;
+
+    // station id -> (previous station id -> lowest cost)
+    private final Map<String, Map<String, Integer>> inbound;
+
+    public TravelTimeLowerBounds(TransportDataSource transportDataSource) {
+        this.transportDataSource = transportDataSource;
+        inbound = new HashMap<>();
+    }
+
+    @Override
+    public void start() {
+        logger.info("Build travel time lower bounds");
+        transportDataSource.getTrips().forEach(trip -> {
+            StopCalls stops = trip.getStops();
+            for (int i = 0; i < stops.size() - 1; i++) {
+                StopCall currentStop = stops.get(i);
+                StopCall nextStop = stops.get(i + 1);
+                int cost = TramTime.diffenceAsMinutes(currentStop.getDepartureTime(), nextStop.getArrivalTime());
+                inbound.computeIfAbsent(nextStop.getStation().getId(), unused -> new HashMap<>()).
+                        merge(currentStop.getStation().getId(), cost, Math::min);
+            }
+        });
+        logger.info(format("Finished building travel time lower bounds for %s stations", inbound.size()));
+    }
+
+    @Override
+    public void stop() {
+
+    }
+
+    @Override
+    public void dispose() {
+        inbound.clear();
+    }
+
+    // station id -> lowest possible travel time to reach any of the destinations, missing if cannot reach them
+    public Map<String, Integer> lowerBoundsTo(Collection<String> destinationStationIds) {
+        Map<String, Integer> bounds = new HashMap<>();
+        PriorityQueue<Map.Entry<String, Integer>> queue = new PriorityQueue<>(Map.Entry.comparingByValue());
+
+        destinationStationIds.forEach(stationId -> {
+            bounds.put(stationId, 0);
+            queue.add(new AbstractMap.SimpleImmutableEntry<>(stationId, 0));
+        });
+
+        while (!queue.isEmpty()) {
+            Map.Entry<String, Integer> current = queue.poll();
+            String stationId = current.getKey();
+            int cost = current.getValue();
+            if (cost > bounds.get(stationId)) {
+                continue; // already seen with a lower cost
+            }
+            Map<String, Integer> previousStations = inbound.getOrDefault(stationId, Collections.emptyMap());
+            previousStations.forEach((previousId, edgeCost) -> {
+                int total = cost + edgeCost;
+                Integer existing = bounds.get(previousId);
+                if (existing == null || total < existing) {
+                    bounds.put(previousId, total);
+                    queue.add(new AbstractMap.SimpleImmutableEntry<>(previousId, total));
+                }
+            });
+        }
+        return bounds;
+    }
+}
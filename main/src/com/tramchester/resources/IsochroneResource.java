@@ -0,0 +1,99 @@
+package com.tramchester.resources;
+
+import com.codahale.metrics.annotation.Timed;
+import com.tramchester.domain.places.MyLocationFactory;
+import com.tramchester.domain.places.StationWalk;
+import com.tramchester.domain.presentation.DTO.StationArrivalDTO;
+import com.tramchester.domain.presentation.LatLong;
+import com.tramchester.domain.time.TramServiceDate;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.repository.TransportData;
+import com.tramchester.router.raptor.RaptorIsochrone;
+import com.tramchester.router.raptor.RaptorTimetable;
+import io.dropwizard.jersey.caching.CacheControl;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.*;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+
+@Api
+@Path("/isochrone")
+@Produces(MediaType.APPLICATION_JSON)
+public class IsochroneResource implements APIResource {
+    private static final Logger logger = LoggerFactory.getLogger(IsochroneResource.class);
+
+    private final RaptorIsochrone isochrone;
+    private final LocationJourneyPlanner locationJourneyPlanner;
+    private final TransportData transportData;
+
+    public IsochroneResource(RaptorIsochrone isochrone, LocationJourneyPlanner locationJourneyPlanner,
+                             TransportData transportData) {
+        this.isochrone = isochrone;
+        this.locationJourneyPlanner = locationJourneyPlanner;
+        this.transportData = transportData;
+    }
+
+    @GET
+    @Timed
+    @ApiOperation(value = "Earliest arrival at every station from a start station or location",
+            response = StationArrivalDTO.class, responseContainer = "List")
+    @CacheControl(maxAge = 1, maxAgeUnit = TimeUnit.MINUTES)
+    public Response reachable(@QueryParam("start") String startId,
+                              @QueryParam("departureTime") String departureTimeRaw,
+                              @QueryParam("departureDate") String departureDateRaw,
+                              @QueryParam("lat") @DefaultValue("0") String lat,
+                              @QueryParam("lon") @DefaultValue("0") String lon,
+                              @QueryParam("maxChanges") @DefaultValue("9999") String maxChangesRaw) {
+        logger.info(format("Isochrone from %s at %s on %s maxChanges=%s", startId, departureTimeRaw,
+                departureDateRaw, maxChangesRaw));
+
+        try {
+            TramServiceDate queryDate = new TramServiceDate(LocalDate.parse(departureDateRaw));
+            int maxChanges = Integer.parseInt(maxChangesRaw);
+            if (maxChanges < 0) {
+                logger.warn("Invalid max changes " + maxChangesRaw);
+                return Response.status(Response.Status.BAD_REQUEST).build();
+            }
+            // scans allocate per change, so not left to the caller
+            maxChanges = Math.min(maxChanges, RaptorTimetable.MAX_CHANGES);
+            Optional<TramTime> maybeDepartureTime = TramTime.parse(departureTimeRaw);
+            if (!maybeDepartureTime.isPresent()) {
+                logger.warn("Unable to parse departure time " + departureTimeRaw);
+                return Response.status(Response.Status.BAD_REQUEST).build();
+            }
+
+            Map<String, Integer> walks = new HashMap<>();
+            if (MyLocationFactory.MY_LOCATION_PLACEHOLDER_ID.equals(startId)) {
+                LatLong latLong = new LatLong(Double.parseDouble(lat), Double.parseDouble(lon));
+                List<StationWalk> stationWalks = locationJourneyPlanner.getStationWalks(latLong);
+                stationWalks.forEach(walk -> walks.put(walk.getStation().getId(), walk.getCost()));
+            } else if (transportData.hasStationId(startId)) {
+                walks.put(startId, 0);
+            } else {
+                logger.warn("Unable to find start station " + startId);
+                return Response.status(Response.Status.NOT_FOUND).build();
+            }
+
+            List<StationArrivalDTO> arrivals = isochrone.reachableFrom(walks, queryDate, maybeDepartureTime.get(),
+                    maxChanges);
+            return Response.ok(arrivals).build();
+        } catch (DateTimeParseException | NumberFormatException parseException) {
+            logger.warn("Unable to parse isochrone request", parseException);
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        } catch (Exception exception) {
+            logger.error("Problem processing isochrone", exception);
+        }
+
+        return Response.serverError().build();
+    }
+}
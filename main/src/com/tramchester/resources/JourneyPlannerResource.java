@@ -62,9 +62,10 @@ public class JourneyPlannerResource extends UsesRecentCookie implements APIResou
                                   @QueryParam("lon") @DefaultValue("0") String lon,
                                   @QueryParam("arriveby") @DefaultValue("false") String arriveByRaw,
                                   @QueryParam("maxChanges") @DefaultValue("9999") String maxChangesRaw,
+                                  @QueryParam("pareto") @DefaultValue("false") String paretoRaw,
                                   @CookieParam(StationResource.TRAMCHESTER_RECENT) Cookie cookie){
-        logger.info(format("Plan journey from %s to %s at %s on %s arriveBy=%s maxChanges=%s",
-                startId, endId, departureTimeRaw, departureDateRaw, arriveByRaw, maxChangesRaw));
+        logger.info(format("Plan journey from %s to %s at %s on %s arriveBy=%s maxChanges=%s pareto=%s",
+                startId, endId, departureTimeRaw, departureDateRaw, arriveByRaw, maxChangesRaw, paretoRaw));
 
         LocalDate date = LocalDate.parse(departureDateRaw);
         TramServiceDate queryDate = new TramServiceDate(date);
@@ -77,7 +78,8 @@ public class JourneyPlannerResource extends UsesRecentCookie implements APIResou
                 TramTime queryTime = maybeDepartureTime.get();
 
                 boolean arriveBy = Boolean.parseBoolean(arriveByRaw);
-                JourneyRequest journeyRequest = new JourneyRequest(queryDate, queryTime, arriveBy, maxChanges);
+                boolean pareto = Boolean.parseBoolean(paretoRaw);
+                JourneyRequest journeyRequest = new JourneyRequest(queryDate, queryTime, arriveBy, maxChanges, pareto);
 
                 JourneyPlanRepresentation planRepresentation;
                 try (Transaction tx = graphDatabaseService.beginTx() ) {
@@ -10,6 +10,8 @@ import com.tramchester.graph.*;
 import com.tramchester.graph.search.JourneyRequest;
 import com.tramchester.graph.search.RouteCalculator;
 import com.tramchester.graph.search.RouteCalculatorArriveBy;
+import com.tramchester.graph.search.TramRouteCalculator;
+import com.tramchester.router.raptor.RaptorRouteCalculator;
 import com.tramchester.services.SpatialService;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
@@ -17,12 +19,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import static com.tramchester.graph.GraphStaticKeys.COST;
 import static java.lang.String.format;
 
 public class LocationJourneyPlanner {
@@ -32,157 +32,116 @@ public class LocationJourneyPlanner {
 
     private final SpatialService spatialService;
     private final TramchesterConfig config;
-    private final RouteCalculator routeCalculator;
-    private final RouteCalculatorArriveBy routeCalculatorArriveBy;
-    private final CachedNodeOperations nodeOperations;
+    private final TramRouteCalculator routeCalculator;
+    private final TramRouteCalculator routeCalculatorArriveBy;
     private final NodeIdQuery stationIndexs;
-    private final GraphDatabase graphDatabase;
 
+    // walks are added to a WalkingOverlay for each request rather than to the graph, so nothing to clean up after
     public LocationJourneyPlanner(SpatialService spatialService, TramchesterConfig config, RouteCalculator routeCalculator,
-                                  RouteCalculatorArriveBy routeCalculatorArriveBy, CachedNodeOperations nodeOperations,
-                                  NodeIdQuery nodeIdQuery, GraphDatabase graphDatabase) {
+                                  RouteCalculatorArriveBy routeCalculatorArriveBy, RaptorRouteCalculator raptorRouteCalculator,
+                                  NodeIdQuery nodeIdQuery) {
         this.spatialService = spatialService;
         this.config = config;
-        this.routeCalculator = routeCalculator;
-        this.routeCalculatorArriveBy = routeCalculatorArriveBy;
-        this.nodeOperations = nodeOperations;
+        this.routeCalculator = config.getInMemoryRouting() ? raptorRouteCalculator : routeCalculator;
+        // in-memory routing searches backwards from the destination, the graph search shifts the query time
+        this.routeCalculatorArriveBy = config.getInMemoryRouting() ? raptorRouteCalculator : routeCalculatorArriveBy;
         this.stationIndexs = nodeIdQuery;
-        this.graphDatabase = graphDatabase;
     }
 
     public Stream<Journey> quickestRouteForLocation(LatLong latLong, Station destination, JourneyRequest journeyRequest) {
         logger.info(format("Finding shortest path for %s --> %s on %s", latLong, destination, journeyRequest));
 
-        List<Relationship> addedRelationships = new LinkedList<>();
+        WalkingOverlay overlay = new WalkingOverlay();
 
         List<StationWalk> walksToStart = getStationWalks(latLong,  config.getNearestStopRangeKM());
 
-        Node startOfWalkNode = createWalkingNode(latLong);
+        Node startOfWalkNode = createWalkingNode(overlay, latLong);
 
-        walksToStart.forEach(stationWalk -> addedRelationships.add(createWalkRelationship(startOfWalkNode, stationWalk,
-                TransportRelationshipTypes.WALKS_TO)));
+        walksToStart.forEach(stationWalk -> createWalkRelationship(overlay, startOfWalkNode, stationWalk,
+                TransportRelationshipTypes.WALKS_TO));
 
-        Stream<Journey> journeys;
         if (journeyRequest.getArriveBy()) {
-            journeys = routeCalculatorArriveBy.calculateRouteWalkAtStart(startOfWalkNode, destination, journeyRequest);
-        } else {
-            journeys = routeCalculator.calculateRouteWalkAtStart(startOfWalkNode, destination, journeyRequest);
+            return routeCalculatorArriveBy.calculateRouteWalkAtStart(startOfWalkNode, destination, journeyRequest);
         }
-
-        //noinspection ResultOfMethodCallIgnored
-        journeys.onClose(() -> removeWalkNodeAndRelationships(addedRelationships, startOfWalkNode));
-
-        return journeys;
+        return routeCalculator.calculateRouteWalkAtStart(startOfWalkNode, destination, journeyRequest);
     }
 
     public Stream<Journey> quickestRouteForLocation(Station start, LatLong destination, JourneyRequest journeyRequest) {
         logger.info(format("Finding shortest path for %s --> %s on %s", start, destination, journeyRequest));
 
+        WalkingOverlay overlay = new WalkingOverlay();
         List<Station> destinationStations = new ArrayList<>();
-        List<Relationship> addedRelationships = new LinkedList<>();
 
         List<StationWalk> walksToDest = getStationWalks(destination,  config.getNearestStopRangeKM());
-        Node midWalkNode = createWalkingNode(destination);
+        Node midWalkNode = createWalkingNode(overlay, destination);
 
         walksToDest.forEach(stationWalk -> {
             destinationStations.add(stationWalk.getStation());
-            addedRelationships.add(createWalkRelationship(midWalkNode, stationWalk, TransportRelationshipTypes.WALKS_FROM));
+            createWalkRelationship(overlay, midWalkNode, stationWalk, TransportRelationshipTypes.WALKS_FROM);
         });
-        Node endWalk = createWalkingNode(destination);
-        Relationship relationshipTo = midWalkNode.createRelationshipTo(endWalk, TransportRelationshipTypes.FINISH_WALK);
-        relationshipTo.setProperty(COST,0);
-        addedRelationships.add(relationshipTo);
+        Node endWalk = createWalkingNode(overlay, destination);
+        overlay.addFinishWalk(midWalkNode, endWalk);
 
-        Stream<Journey> journeys;
         if (journeyRequest.getArriveBy()) {
-            journeys = routeCalculatorArriveBy.calculateRouteWalkAtEnd(start, endWalk, destinationStations, journeyRequest);
-        } else {
-            journeys = routeCalculator.calculateRouteWalkAtEnd(start, endWalk, destinationStations, journeyRequest);
+            return routeCalculatorArriveBy.calculateRouteWalkAtEnd(start, endWalk, destinationStations, journeyRequest);
         }
-
-        //noinspection ResultOfMethodCallIgnored
-        journeys.onClose(() -> removeWalkNodeAndRelationships(addedRelationships, midWalkNode, endWalk));
-
-        return journeys;
+        return routeCalculator.calculateRouteWalkAtEnd(start, endWalk, destinationStations, journeyRequest);
     }
 
 
     public Stream<Journey> quickestRouteForLocation(LatLong startLatLong, LatLong destLatLong, JourneyRequest journeyRequest) {
         logger.info(format("Finding shortest path for %s --> %s on %s", startLatLong, destLatLong, journeyRequest));
 
-        List<Relationship> addedRelationships = new LinkedList<>();
+        WalkingOverlay overlay = new WalkingOverlay();
 
         // Add Walk at the Start
         List<StationWalk> walksAtStart = getStationWalks(startLatLong,  config.getNearestStopRangeKM());
-        Node startNode = createWalkingNode(startLatLong);
-        walksAtStart.forEach(stationWalk -> addedRelationships.add(createWalkRelationship(startNode, stationWalk,
-                TransportRelationshipTypes.WALKS_TO)));
+        Node startNode = createWalkingNode(overlay, startLatLong);
+        walksAtStart.forEach(stationWalk -> createWalkRelationship(overlay, startNode, stationWalk,
+                TransportRelationshipTypes.WALKS_TO));
 
         // Add Walks at the end
         List<Station> destinationStations = new ArrayList<>();
         List<StationWalk> walksToDest = getStationWalks(destLatLong,  config.getNearestStopRangeKM());
-        Node midWalkNode = createWalkingNode(destLatLong);
+        Node midWalkNode = createWalkingNode(overlay, destLatLong);
         walksToDest.forEach(stationWalk -> {
             destinationStations.add(stationWalk.getStation());
-            addedRelationships.add(createWalkRelationship(midWalkNode, stationWalk, TransportRelationshipTypes.WALKS_FROM));
+            createWalkRelationship(overlay, midWalkNode, stationWalk, TransportRelationshipTypes.WALKS_FROM);
         });
-        Node endWalk = createWalkingNode(destLatLong);
-        Relationship relationshipTo = midWalkNode.createRelationshipTo(endWalk, TransportRelationshipTypes.FINISH_WALK);
-        relationshipTo.setProperty(COST,0);
-        addedRelationships.add(relationshipTo);
+        Node endWalk = createWalkingNode(overlay, destLatLong);
+        overlay.addFinishWalk(midWalkNode, endWalk);
 
         /// CALC
-        Stream<Journey> journeys;
         if (journeyRequest.getArriveBy()) {
-            journeys = routeCalculatorArriveBy.calculateRouteWalkAtStartAndEnd(startNode,  endWalk, destinationStations,
+            return routeCalculatorArriveBy.calculateRouteWalkAtStartAndEnd(startNode,  endWalk, destinationStations,
                     journeyRequest);
-        } else {
-            journeys = routeCalculator.calculateRouteWalkAtStartAndEnd(startNode, endWalk, destinationStations, journeyRequest);
         }
-
-        //noinspection ResultOfMethodCallIgnored
-        journeys.onClose(() -> removeWalkNodeAndRelationships(addedRelationships, startNode, midWalkNode, endWalk));
-
-        return journeys;
+        return routeCalculator.calculateRouteWalkAtStartAndEnd(startNode, endWalk, destinationStations, journeyRequest);
 
     }
 
-    private Relationship createWalkRelationship(Node walkNode, StationWalk stationWalk, TransportRelationshipTypes direction) {
+    private Relationship createWalkRelationship(WalkingOverlay overlay, Node walkNode, StationWalk stationWalk,
+                                                TransportRelationshipTypes direction) {
         Station walkStation = stationWalk.getStation();
         int cost = stationWalk.getCost();
         logger.info(format("Add walking %s relationship between %s to %s cost %s direction",
                 direction, walkStation, walkNode,  cost));
 
-        Relationship walkingRelationship;
         Node stationNode = stationIndexs.getStationNode(walkStation.getId());
         if (direction==TransportRelationshipTypes.WALKS_FROM) {
-            walkingRelationship = stationNode.createRelationshipTo(walkNode, direction);
-        } else {
-            walkingRelationship = walkNode.createRelationshipTo(stationNode, direction);
+            return overlay.addWalkFrom(stationNode, walkNode, walkStation.getId(), cost);
         }
-
-        walkingRelationship.setProperty(COST, cost);
-        walkingRelationship.setProperty(GraphStaticKeys.STATION_ID, walkStation.getId());
-        return walkingRelationship;
+        return overlay.addWalkTo(walkNode, stationNode, walkStation.getId(), cost);
     }
 
-    private Node createWalkingNode(LatLong origin) {
-        Node startOfWalkNode = nodeOperations.createQueryNode(graphDatabase);
-        startOfWalkNode.setProperty(GraphStaticKeys.Station.LAT, origin.getLat());
-        startOfWalkNode.setProperty(GraphStaticKeys.Station.LONG, origin.getLon());
+    private Node createWalkingNode(WalkingOverlay overlay, LatLong origin) {
+        Node startOfWalkNode = overlay.createWalkingNode(origin);
         logger.info(format("Added walking node at %s as node %s", origin, startOfWalkNode));
         return startOfWalkNode;
     }
 
-    private void removeWalkNodeAndRelationships(List<Relationship> relationshipsToDelete, Node... nodesToDelete) {
-        logger.info("Removed added walks and walk node(s)");
-        relationshipsToDelete.forEach(relationship -> {
-            nodeOperations.deleteFromCache(relationship);
-            relationship.delete();
-        });
-        for (Node node : nodesToDelete) {
-            nodeOperations.deleteNode(node);
-        }
+    public List<StationWalk> getStationWalks(LatLong latLong) {
+        return getStationWalks(latLong, config.getNearestStopRangeKM());
     }
 
     private List<StationWalk> getStationWalks(LatLong latLong, double rangeInKM) {
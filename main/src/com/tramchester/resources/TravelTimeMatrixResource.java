@@ -0,0 +1,109 @@
+package com.tramchester.resources;
+
+import com.codahale.metrics.annotation.Timed;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tramchester.domain.presentation.DTO.TravelTimeRowDTO;
+import com.tramchester.domain.time.TramServiceDate;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.router.raptor.RaptorTimetable;
+import com.tramchester.router.raptor.TravelTimeMatrix;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.*;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static java.lang.String.format;
+
+// Newline delimited JSON, the station ids then a row per origin and departure time
+@Api
+@Path("/matrix")
+@Produces(TravelTimeMatrixResource.NDJSON)
+public class TravelTimeMatrixResource implements APIResource {
+    private static final Logger logger = LoggerFactory.getLogger(TravelTimeMatrixResource.class);
+
+    static final String NDJSON = "application/x-ndjson";
+
+    private final TravelTimeMatrix travelTimeMatrix;
+    private final ObjectMapper objectMapper;
+
+    public TravelTimeMatrixResource(TravelTimeMatrix travelTimeMatrix, ObjectMapper objectMapper) {
+        this.travelTimeMatrix = travelTimeMatrix;
+        this.objectMapper = objectMapper;
+    }
+
+    @GET
+    @Timed
+    @ApiOperation(value = "Travel times between all stations, streamed a row per origin", response = TravelTimeRowDTO.class)
+    public Response matrix(@QueryParam("departureTime") List<String> departureTimesRaw,
+                           @QueryParam("departureDate") String departureDateRaw,
+                           @QueryParam("maxChanges") @DefaultValue("9999") String maxChangesRaw) {
+        logger.info(format("Travel time matrix at %s on %s maxChanges=%s", departureTimesRaw, departureDateRaw,
+                maxChangesRaw));
+
+        TramServiceDate queryDate;
+        int maxChanges;
+        List<TramTime> departureTimes = new ArrayList<>();
+        try {
+            queryDate = new TramServiceDate(LocalDate.parse(departureDateRaw));
+            maxChanges = Integer.parseInt(maxChangesRaw);
+            if (maxChanges < 0) {
+                logger.warn("Invalid max changes " + maxChangesRaw);
+                return Response.status(Response.Status.BAD_REQUEST).build();
+            }
+            // scans allocate per change, so not left to the caller
+            maxChanges = Math.min(maxChanges, RaptorTimetable.MAX_CHANGES);
+            for (String departureTimeRaw : departureTimesRaw) {
+                Optional<TramTime> maybeDepartureTime = TramTime.parse(departureTimeRaw);
+                if (!maybeDepartureTime.isPresent()) {
+                    logger.warn("Unable to parse departure time " + departureTimeRaw);
+                    return Response.status(Response.Status.BAD_REQUEST).build();
+                }
+                departureTimes.add(maybeDepartureTime.get());
+            }
+        } catch (Exception exception) {
+            logger.warn("Unable to parse matrix request", exception);
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+        if (departureTimes.isEmpty()) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+        if (!travelTimeMatrix.tryReserve()) {
+            logger.warn("Travel time matrix already being calculated");
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE).build();
+        }
+
+        final int limitedMaxChanges = maxChanges;
+        StreamingOutput rows = output -> {
+            try {
+                writeLine(output, travelTimeMatrix.getStationIds());
+                travelTimeMatrix.calculate(queryDate, departureTimes, limitedMaxChanges, row -> writeLine(output, row));
+            } catch (UncheckedIOException exception) {
+                throw exception.getCause();
+            } finally {
+                travelTimeMatrix.release();
+            }
+        };
+        return Response.ok(rows).build();
+    }
+
+    private void writeLine(OutputStream output, Object value) {
+        try {
+            output.write(objectMapper.writeValueAsBytes(value));
+            output.write('\n');
+            output.flush();
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.tramchester.router;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.tramchester.domain.Journey;
+import com.tramchester.domain.Service;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.time.TramServiceDate;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.TransportGraphBuilder;
+import com.tramchester.graph.search.JourneyRequest;
+import com.tramchester.repository.ReportsCacheStats;
+import com.tramchester.repository.TransportData;
+import org.apache.commons.lang3.tuple.Pair;
+import org.picocontainer.Startable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static java.lang.String.format;
+
+// Station to station journeys keyed on the services running rather than the date
+public class JourneyResultsCache implements ReportsCacheStats, Startable {
+    private static final Logger logger = LoggerFactory.getLogger(JourneyResultsCache.class);
+
+    // tuned via stats
+    private static final long MAXIMUM_SIZE = 5000;
+
+    private final TransportData transportData;
+    private final Cache<Key, List<Journey>> journeys;
+    // each distinct set of running services is given a small id, found once per date, which is what keys use
+    private final Map<Set<String>, Integer> timetableIds;
+    private final Map<LocalDate, Integer> timetableForDate;
+    private final AtomicInteger nextTimetableId;
+
+    // graph builder is a dependency so this is started, and so cleared, after any rebuild of the graph
+    public JourneyResultsCache(TransportData transportData, TransportGraphBuilder transportGraphBuilder) {
+        this.transportData = transportData;
+        journeys = Caffeine.newBuilder().maximumSize(MAXIMUM_SIZE).
+                expireAfterAccess(30, TimeUnit.MINUTES).recordStats().build();
+        timetableIds = new ConcurrentHashMap<>();
+        timetableForDate = new ConcurrentHashMap<>();
+        nextTimetableId = new AtomicInteger(0);
+    }
+
+    @Override
+    public void start() {
+        invalidate();
+    }
+
+    @Override
+    public void stop() {
+        invalidate();
+    }
+
+    public void invalidate() {
+        logger.info(format("Invalidate %s cached journeys", journeys.estimatedSize()));
+        journeys.invalidateAll();
+        timetableForDate.clear();
+        timetableIds.clear();
+    }
+
+    public List<Journey> getJourneys(Station start, Station dest, JourneyRequest journeyRequest,
+                                     Supplier<List<Journey>> findJourneys) {
+        Key key = new Key(start.getId(), dest.getId(), timetableFor(journeyRequest.getDate()), journeyRequest);
+
+        List<Journey> cached = journeys.getIfPresent(key);
+        if (cached!=null) {
+            logger.info(format("Found %s cached journeys for %s to %s", cached.size(), start.getId(), dest.getId()));
+            return cached;
+        }
+
+        // not computed inside the cache as searches can be slow, a concurrent identical request may also search
+        List<Journey> found = Collections.unmodifiableList(findJourneys.get());
+        if (journeyRequest.isBudgetExhausted()) {
+            // cut short so may be missing better journeys, a later search may do better
+            logger.info(format("Not caching journeys for %s to %s as search budget used up", start.getId(), dest.getId()));
+            return found;
+        }
+        journeys.put(key, found);
+        return found;
+    }
+
+    private int timetableFor(TramServiceDate date) {
+        return timetableForDate.computeIfAbsent(date.getDate(), unused -> {
+            Set<String> runningServices = transportData.getServicesOnDate(date).stream().
+                    map(Service::getId).collect(Collectors.toSet());
+            return timetableIds.computeIfAbsent(runningServices, alsoUnused -> nextTimetableId.getAndIncrement());
+        });
+    }
+
+    @Override
+    public List<Pair<String, CacheStats>> stats() {
+        return Collections.singletonList(Pair.of("journeys", journeys.stats()));
+    }
+
+    private static class Key {
+        private final String startId;
+        private final String destId;
+        private final int timetableId;
+        private final TramTime time;
+        private final boolean arriveBy;
+        private final int maxChanges;
+        private final boolean pareto;
+
+        private Key(String startId, String destId, int timetableId, JourneyRequest journeyRequest) {
+            this.startId = startId;
+            this.destId = destId;
+            this.timetableId = timetableId;
+            this.time = journeyRequest.getTime();
+            this.arriveBy = journeyRequest.getArriveBy();
+            this.maxChanges = journeyRequest.getMaxChanges();
+            this.pareto = journeyRequest.getPareto();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return timetableId == key.timetableId &&
+                    arriveBy == key.arriveBy &&
+                    maxChanges == key.maxChanges &&
+                    pareto == key.pareto &&
+                    startId.equals(key.startId) &&
+                    destId.equals(key.destId) &&
+                    time.equals(key.time);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(startId, destId, timetableId, time, arriveBy, maxChanges, pareto);
+        }
+    }
+}
@@ -15,16 +15,21 @@ import com.tramchester.domain.time.TramServiceDate;
 import com.tramchester.graph.search.JourneyRequest;
 import com.tramchester.graph.search.RouteCalculator;
 import com.tramchester.graph.search.RouteCalculatorArriveBy;
+import com.tramchester.graph.search.TramRouteCalculator;
 import com.tramchester.mappers.JourneysMapper;
 import com.tramchester.repository.PostcodeRepository;
 import com.tramchester.repository.TransportData;
 import com.tramchester.resources.LocationJourneyPlanner;
+import com.tramchester.router.raptor.RaptorRouteCalculator;
+import com.tramchester.router.raptor.TransferPatternRouteCalculator;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.SortedSet;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static java.lang.String.format;
@@ -34,25 +39,32 @@ public class ProcessPlanRequest {
 
     private final TramchesterConfig config;
     private final LocationJourneyPlanner locToLocPlanner;
-    private final RouteCalculator routeCalculator;
-    private final RouteCalculatorArriveBy routeCalculatorArriveBy;
+    private final TramRouteCalculator routeCalculator;
+    private final TramRouteCalculator routeCalculatorArriveBy;
     private final JourneysMapper journeysMapper;
     private final ProvidesNotes providesNotes;
     private final TransportData transportData;
     private final PostcodeRepository postcodeRepository;
+    private final JourneyResultsCache journeyResultsCache;
+    private final TransferPatternRouteCalculator transferPatternRouteCalculator;
 
     public ProcessPlanRequest(TramchesterConfig config, LocationJourneyPlanner locToLocPlanner, RouteCalculator routeCalculator,
-                              RouteCalculatorArriveBy routeCalculatorArriveBy, JourneysMapper journeysMapper,
-                              ProvidesNotes providesNotes, TransportData transportData, PostcodeRepository postcodeRepository) {
+                              RouteCalculatorArriveBy routeCalculatorArriveBy, RaptorRouteCalculator raptorRouteCalculator,
+                              JourneysMapper journeysMapper, ProvidesNotes providesNotes, TransportData transportData,
+                              PostcodeRepository postcodeRepository, JourneyResultsCache journeyResultsCache,
+                              TransferPatternRouteCalculator transferPatternRouteCalculator) {
         this.config = config;
         this.locToLocPlanner = locToLocPlanner;
 
-        this.routeCalculator = routeCalculator;
-        this.routeCalculatorArriveBy = routeCalculatorArriveBy;
+        this.routeCalculator = config.getInMemoryRouting() ? raptorRouteCalculator : routeCalculator;
+        // in-memory routing searches backwards from the destination, the graph search shifts the query time
+        this.routeCalculatorArriveBy = config.getInMemoryRouting() ? raptorRouteCalculator : routeCalculatorArriveBy;
         this.journeysMapper = journeysMapper;
         this.providesNotes = providesNotes;
         this.transportData = transportData;
         this.postcodeRepository = postcodeRepository;
+        this.journeyResultsCache = journeyResultsCache;
+        this.transferPatternRouteCalculator = transferPatternRouteCalculator;
     }
 
     public JourneyPlanRepresentation directRequest(String startId, String endId, JourneyRequest journeyRequest,
@@ -102,7 +114,7 @@ public class ProcessPlanRequest {
         Location start = getPostcode(startId, "start");
         Location dest = getPostcode(endId, "end");
         Stream<Journey> journeys =  locToLocPlanner.quickestRouteForLocation(start.getLatLong(), dest.getLatLong(), journeyRequest);
-        JourneyPlanRepresentation plan = createPlan(journeyRequest.getDate(), journeys);
+        JourneyPlanRepresentation plan = createPlan(journeyRequest, journeys);
         journeys.close();
         return plan;
     }
@@ -114,7 +126,7 @@ public class ProcessPlanRequest {
         Station dest = getStation(destId, "end");
 
         Stream<Journey> journeys = locToLocPlanner.quickestRouteForLocation(latLong, dest, journeyRequest);
-        JourneyPlanRepresentation plan = createPlan(journeyRequest.getDate(), journeys);
+        JourneyPlanRepresentation plan = createPlan(journeyRequest, journeys);
         journeys.close();
         return plan;
     }
@@ -125,23 +137,43 @@ public class ProcessPlanRequest {
         Station start = getStation(startId, "start");
 
         Stream<Journey> journeys = locToLocPlanner.quickestRouteForLocation(start, latLong, journeyRequest);
-        JourneyPlanRepresentation plan = createPlan(journeyRequest.getDate(), journeys);
+        JourneyPlanRepresentation plan = createPlan(journeyRequest, journeys);
         journeys.close();
         return plan;
     }
 
     private JourneyPlanRepresentation stationToStation(Station start, Station dest, JourneyRequest journeyRequest) {
+        List<Journey> journeys = journeyResultsCache.getJourneys(start, dest, journeyRequest,
+                () -> findJourneys(start, dest, journeyRequest));
+        // notes depend on live data so are not cached
+        return createPlan(journeyRequest, journeys.stream());
+    }
+
+    private List<Journey> findJourneys(Station start, Station dest, JourneyRequest journeyRequest) {
+        // falls back to a full search when there are no transfer patterns for the stations
+        Optional<List<Journey>> fromPatterns = transferPatternRouteCalculator.calculateRoute(start, dest, journeyRequest);
+        if (fromPatterns.isPresent()) {
+            return limit(fromPatterns.get().stream(), journeyRequest).collect(Collectors.toList());
+        }
+
         Stream<Journey> journeys;
         if (journeyRequest.getArriveBy()) {
             journeys = routeCalculatorArriveBy.calculateRoute(start, dest, journeyRequest);
         } else {
             journeys = routeCalculator.calculateRoute(start, dest, journeyRequest);
         }
-        // ASSUME: Limit here rely's on search giving lowest cost routes first
-        JourneyPlanRepresentation journeyPlanRepresentation = createPlan(journeyRequest.getDate(),
-                journeys.limit(config.getMaxNumResults()));
+        List<Journey> found = limit(journeys, journeyRequest).collect(Collectors.toList());
         journeys.close();
-        return journeyPlanRepresentation;
+        return found;
+    }
+
+    // pareto keeps slower journeys with fewer changes, so needs all of them, see createParetoJourneyDTOs
+    private Stream<Journey> limit(Stream<Journey> journeys, JourneyRequest journeyRequest) {
+        if (journeyRequest.getPareto()) {
+            return journeys;
+        }
+        // ASSUME: Limit here rely's on search giving lowest cost routes first
+        return journeys.limit(config.getMaxNumResults());
     }
 
     private PostcodeLocation getPostcode(String locationId, String diagnostic) {
@@ -166,8 +198,11 @@ public class ProcessPlanRequest {
         return Character.isDigit(startId.charAt(0));
     }
 
-    private JourneyPlanRepresentation createPlan(TramServiceDate queryDate, Stream<Journey> journeys) {
-        SortedSet<JourneyDTO> journeyDTOs = journeysMapper.createJourneyDTOs(journeys, queryDate, config.getMaxNumResults());
+    private JourneyPlanRepresentation createPlan(JourneyRequest journeyRequest, Stream<Journey> journeys) {
+        TramServiceDate queryDate = journeyRequest.getDate();
+        SortedSet<JourneyDTO> journeyDTOs = journeyRequest.getPareto() ?
+                journeysMapper.createParetoJourneyDTOs(journeys, queryDate) :
+                journeysMapper.createJourneyDTOs(journeys, queryDate, config.getMaxNumResults());
         List<Note> notes = providesNotes.createNotesForJourneys(journeyDTOs, queryDate);
         return new JourneyPlanRepresentation(journeyDTOs, notes);
     }
@@ -0,0 +1,270 @@
+package com.tramchester.router.raptor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Round based scan backwards from the destinations for arrive by requests, see RaptorScan
+class RaptorArriveByScan {
+    private static final int NONE = -1;
+    private static final int NOT_REACHED = Integer.MIN_VALUE;
+
+    private final RaptorTimetable timetable;
+    private final boolean[] runningServices;
+    private final int arriveBy;
+    private final int maxWait;
+    private final int maxJourneyDuration;
+    private final boolean changeAtInterchangeOnly;
+    private final int numberOfRounds;
+
+    // [round][station]
+    private final int[][] readyToBoard;
+    private final int[][] boardTrips;
+    private final int[][] boardPositions;
+    private final int[][] alightPositions;
+    private final int[] bestReadyToBoard;
+
+    // latest arrival at a station at the end of the journey, or NOT_REACHED if not a destination
+    private final int[] deadlines;
+    // cost of getting from the start to the station, or NONE if not a start
+    private final int[] walkCosts;
+    private final List<Integer> starts;
+    private int latestLeave;
+
+    private final boolean[] marked;
+
+    RaptorArriveByScan(RaptorTimetable timetable, boolean[] runningServices, int arriveBy, int maxChanges, int maxWait,
+                       int maxJourneyDuration, boolean changeAtInterchangeOnly) {
+        this.timetable = timetable;
+        this.runningServices = runningServices;
+        this.arriveBy = arriveBy;
+        this.maxWait = maxWait;
+        this.maxJourneyDuration = maxJourneyDuration;
+        this.changeAtInterchangeOnly = changeAtInterchangeOnly;
+        // round 0 is unused so rounds line up with RaptorScan, then one round per vehicle
+        this.numberOfRounds = maxChanges + 2;
+
+        int numberOfStations = timetable.numberOfStations();
+        readyToBoard = new int[numberOfRounds][numberOfStations];
+        boardTrips = new int[numberOfRounds][numberOfStations];
+        boardPositions = new int[numberOfRounds][numberOfStations];
+        alightPositions = new int[numberOfRounds][numberOfStations];
+        for (int round = 0; round < numberOfRounds; round++) {
+            Arrays.fill(readyToBoard[round], NOT_REACHED);
+            Arrays.fill(boardTrips[round], NONE);
+        }
+        bestReadyToBoard = new int[numberOfStations];
+        Arrays.fill(bestReadyToBoard, NOT_REACHED);
+        deadlines = new int[numberOfStations];
+        Arrays.fill(deadlines, NOT_REACHED);
+        walkCosts = new int[numberOfStations];
+        Arrays.fill(walkCosts, NONE);
+        starts = new ArrayList<>();
+        marked = new boolean[numberOfStations];
+        latestLeave = NOT_REACHED;
+    }
+
+    void addStart(int station, int walkCost) {
+        walkCosts[station] = walkCost;
+        starts.add(station);
+    }
+
+    void addDestination(int station, int egressCost) {
+        int deadline = arriveBy - egressCost;
+        if (deadline > deadlines[station]) {
+            deadlines[station] = deadline;
+            marked[station] = true;
+        }
+    }
+
+    void scan() {
+        int numberOfPatterns = timetable.numberOfPatterns();
+        int[] lastPositions = new int[numberOfPatterns];
+
+        for (int round = 1; round < numberOfRounds; round++) {
+            Arrays.fill(lastPositions, NONE);
+            List<Integer> patterns = queuePatterns(lastPositions);
+            if (patterns.isEmpty()) {
+                return;
+            }
+            if (round > 1) {
+                System.arraycopy(readyToBoard[round - 1], 0, readyToBoard[round], 0, readyToBoard[round].length);
+            }
+            Arrays.fill(marked, false);
+
+            for (int pattern : patterns) {
+                scanPattern(round, pattern, lastPositions[pattern]);
+            }
+        }
+    }
+
+    private List<Integer> queuePatterns(int[] lastPositions) {
+        List<Integer> patterns = new ArrayList<>();
+        for (int station = 0; station < marked.length; station++) {
+            if (!marked[station]) {
+                continue;
+            }
+            int end = timetable.patternsEnd(station);
+            for (int index = timetable.patternsBegin(station); index < end; index++) {
+                int pattern = timetable.patternAt(index);
+                int position = timetable.positionAt(index);
+                if (lastPositions[pattern] == NONE) {
+                    patterns.add(pattern);
+                }
+                if (position > lastPositions[pattern]) {
+                    lastPositions[pattern] = position;
+                }
+            }
+        }
+        return patterns;
+    }
+
+    // walk the pattern from the last marked stop towards its start, alight from the latest trip that still makes the
+    // connection and then board it at each earlier stop
+    private void scanPattern(int round, int pattern, int lastPosition) {
+        int trip = NONE;
+        int alightedAt = NONE;
+        for (int position = lastPosition; position >= 0; position--) {
+            int station = timetable.stopAt(pattern, position);
+
+            if (trip != NONE) {
+                int ready = timetable.departure(trip, position) - timetable.boardCost(station);
+                if (improves(station, ready)) {
+                    readyToBoard[round][station] = ready;
+                    bestReadyToBoard[station] = ready;
+                    boardTrips[round][station] = trip;
+                    boardPositions[round][station] = position;
+                    alightPositions[round][station] = alightedAt;
+                    marked[station] = true;
+                    updateStart(station, ready);
+                }
+            }
+
+            if (position == 0) {
+                continue;
+            }
+            int latestArrival = latestArrival(round, station);
+            if (latestArrival == NOT_REACHED) {
+                continue;
+            }
+            if (trip != NONE && timetable.arrival(trip, position) > latestArrival) {
+                continue;
+            }
+            int earliestArrival = round == 1 ? Integer.MIN_VALUE : latestArrival - maxWait;
+            int laterTrip = findTrip(pattern, position, latestArrival, earliestArrival);
+            if (laterTrip != NONE && (trip == NONE ||
+                    timetable.arrival(laterTrip, position) > timetable.arrival(trip, position))) {
+                trip = laterTrip;
+                alightedAt = position;
+            }
+        }
+    }
+
+    // latest a vehicle can arrive at the station and still continue the journey, or NOT_REACHED
+    private int latestArrival(int round, int station) {
+        if (round == 1) {
+            return deadlines[station];
+        }
+        int ready = readyToBoard[round - 1][station];
+        if (ready == NOT_REACHED || (changeAtInterchangeOnly && !timetable.isInterchange(station))) {
+            return NOT_REACHED;
+        }
+        // changing, so depart the vehicle first
+        return ready - timetable.departCost(station);
+    }
+
+    private boolean improves(int station, int ready) {
+        if (ready <= bestReadyToBoard[station] || ready <= latestLeave) {
+            return false;
+        }
+        return (arriveBy - ready) <= maxJourneyDuration;
+    }
+
+    private void updateStart(int station, int ready) {
+        int walkCost = walkCosts[station];
+        if (walkCost != NONE && (ready - walkCost) > latestLeave) {
+            latestLeave = ready - walkCost;
+        }
+    }
+
+    // latest running trip arriving by the latest time but not before the earliest, trips are ordered by departure
+    private int findTrip(int pattern, int position, int latest, int earliest) {
+        int begin = timetable.tripsBegin(pattern);
+        for (int trip = lastArrivingBy(pattern, position, latest) - 1; trip >= begin; trip--) {
+            int arrival = timetable.arrival(trip, position);
+            if (arrival < earliest) {
+                return NONE;
+            }
+            if (arrival <= latest && runningServices[timetable.serviceOf(trip)]) {
+                return trip;
+            }
+        }
+        return NONE;
+    }
+
+    // index after the last trip arriving at the position by the latest time
+    private int lastArrivingBy(int pattern, int position, int latest) {
+        int low = timetable.tripsBegin(pattern);
+        int high = timetable.tripsEnd(pattern);
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (timetable.arrival(middle, position) <= latest) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // latest departure from a start for each number of vehicles used, only where it improves on using fewer vehicles
+    List<RaptorScan.RaptorLeg[]> results() {
+        List<RaptorScan.RaptorLeg[]> results = new ArrayList<>();
+        int bestSoFar = NOT_REACHED;
+        for (int round = 1; round < numberOfRounds; round++) {
+            int bestStation = NONE;
+            int bestLeave = NOT_REACHED;
+            for (int station : starts) {
+                if (boardTrips[round][station] == NONE) {
+                    continue;
+                }
+                int leave = readyToBoard[round][station] - walkCosts[station];
+                if (leave > bestLeave && (arriveBy - leave) <= maxJourneyDuration) {
+                    bestLeave = leave;
+                    bestStation = station;
+                }
+            }
+            if (bestStation != NONE && bestLeave > bestSoFar) {
+                bestSoFar = bestLeave;
+                results.add(legsFrom(round, bestStation));
+            }
+        }
+        return results;
+    }
+
+    // time to leave the start for a journey, as returned from results()
+    int leaveTime(RaptorScan.RaptorLeg[] legs) {
+        RaptorScan.RaptorLeg first = legs[0];
+        int station = timetable.stopAt(timetable.patternOf(first.trip), first.boardPosition);
+        return timetable.departure(first.trip, first.boardPosition) - timetable.boardCost(station) - walkCosts[station];
+    }
+
+    private RaptorScan.RaptorLeg[] legsFrom(int firstRound, int start) {
+        List<RaptorScan.RaptorLeg> legs = new ArrayList<>();
+        int station = start;
+        int round = firstRound;
+        while (round > 0) {
+            if (boardTrips[round][station] == NONE) {
+                round--;
+                continue;
+            }
+            int trip = boardTrips[round][station];
+            int boardPosition = boardPositions[round][station];
+            int alightPosition = alightPositions[round][station];
+            legs.add(new RaptorScan.RaptorLeg(trip, boardPosition, alightPosition));
+            station = timetable.stopAt(timetable.patternOf(trip), alightPosition);
+            round--;
+        }
+        return legs.toArray(new RaptorScan.RaptorLeg[0]);
+    }
+}
@@ -0,0 +1,66 @@
+package com.tramchester.router.raptor;
+
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.presentation.DTO.LocationDTO;
+import com.tramchester.domain.presentation.DTO.StationArrivalDTO;
+import com.tramchester.domain.time.TramServiceDate;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.repository.TransportData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static java.lang.String.format;
+
+// Earliest arrival at every station from a start station or location
+public class RaptorIsochrone {
+    private static final Logger logger = LoggerFactory.getLogger(RaptorIsochrone.class);
+
+    private final RaptorTimetable timetable;
+    private final TransportData transportData;
+    private final TramchesterConfig config;
+
+    public RaptorIsochrone(RaptorTimetable timetable, TransportData transportData, TramchesterConfig config) {
+        this.timetable = timetable;
+        this.transportData = transportData;
+        this.config = config;
+    }
+
+    // walks are station id to the cost of getting there, zero for a start station
+    public List<StationArrivalDTO> reachableFrom(Map<String, Integer> walks, TramServiceDate date, TramTime departs,
+                                                 int maxChanges) {
+        long started = System.currentTimeMillis();
+        timetable.ensureBuilt();
+
+        boolean[] runningServices = timetable.runningServices(transportData.getServicesOnDate(date));
+        int queryTime = RaptorTimetable.queryMinutes(departs);
+        RaptorScan scan = new RaptorScan(timetable, runningServices, queryTime, maxChanges, config.getMaxWait(),
+                config.getMaxJourneyDuration(), config.getChangeAtInterchangeOnly());
+        walks.forEach((stationId, cost) -> {
+            if (timetable.hasStation(stationId)) {
+                scan.addStart(timetable.stationIndex(stationId), cost);
+            }
+        });
+        scan.scan();
+
+        List<StationArrivalDTO> arrivals = new ArrayList<>();
+        for (int station = 0; station < timetable.numberOfStations(); station++) {
+            int vehicles = scan.vehiclesTo(station);
+            if (vehicles < 0) {
+                continue;
+            }
+            int arrival = scan.bestArrival(station);
+            Station reached = timetable.getStation(station);
+            arrivals.add(new StationArrivalDTO(new LocationDTO(reached), RaptorTimetable.asTramTime(arrival),
+                    arrival - queryTime, Math.max(0, vehicles - 1)));
+        }
+
+        logger.info(format("Reached %s stations from %s at %s on %s in %s ms", arrivals.size(), walks.keySet(),
+                departs, date, System.currentTimeMillis() - started));
+        return arrivals;
+    }
+}
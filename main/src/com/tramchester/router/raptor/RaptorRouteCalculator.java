@@ -0,0 +1,331 @@
+package com.tramchester.router.raptor;
+
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.domain.Journey;
+import com.tramchester.domain.Route;
+import com.tramchester.domain.VehicleStage;
+import com.tramchester.domain.WalkingStage;
+import com.tramchester.domain.input.Trip;
+import com.tramchester.domain.places.Location;
+import com.tramchester.domain.places.MyLocationFactory;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.presentation.LatLong;
+import com.tramchester.domain.presentation.TransportStage;
+import com.tramchester.domain.time.CreateQueryTimes;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.GraphStaticKeys;
+import com.tramchester.graph.TransportRelationshipTypes;
+import com.tramchester.graph.search.JourneyRequest;
+import com.tramchester.graph.search.TramRouteCalculator;
+import com.tramchester.repository.PlatformRepository;
+import com.tramchester.repository.TransportData;
+import com.tramchester.resources.RouteCodeToClassMapper;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static com.tramchester.graph.GraphStaticKeys.COST;
+import static com.tramchester.graph.GraphStaticKeys.STATION_ID;
+import static java.lang.String.format;
+
+// Journeys from the in-memory timetable rather than the graph, see RaptorTimetable
+public class RaptorRouteCalculator implements TramRouteCalculator {
+    private static final Logger logger = LoggerFactory.getLogger(RaptorRouteCalculator.class);
+
+    private final RaptorTimetable timetable;
+    private final TransportData transportData;
+    private final TramchesterConfig config;
+    private final CreateQueryTimes createQueryTimes;
+    private final RouteCodeToClassMapper routeIdToClass;
+    private final MyLocationFactory myLocationFactory;
+    private final PlatformRepository platformRepository;
+    private final AtomicLong numberRelaxed;
+
+    public RaptorRouteCalculator(RaptorTimetable timetable, TransportData transportData, TramchesterConfig config,
+                                 CreateQueryTimes createQueryTimes, RouteCodeToClassMapper routeIdToClass,
+                                 MyLocationFactory myLocationFactory, PlatformRepository platformRepository) {
+        this.timetable = timetable;
+        this.transportData = transportData;
+        this.config = config;
+        this.createQueryTimes = createQueryTimes;
+        this.routeIdToClass = routeIdToClass;
+        this.myLocationFactory = myLocationFactory;
+        this.platformRepository = platformRepository;
+        numberRelaxed = new AtomicLong(0);
+    }
+
+    // labels improved by the scans so far, to see the work the range scans save
+    public long getNumberRelaxed() {
+        return numberRelaxed.get();
+    }
+
+    @Override
+    public Stream<Journey> calculateRoute(Station start, Station destination, JourneyRequest journeyRequest) {
+        logger.info(format("Finding in-memory journeys for %s --> %s on %s", start, destination, journeyRequest));
+
+        Ends begin = Ends.station(start);
+        Ends end = Ends.station(destination);
+        return getJourneyStream(begin, end, journeyRequest, false);
+    }
+
+    @Override
+    public Stream<Journey> calculateRouteWalkAtEnd(Station start, Node endOfWalk, List<Station> destStations,
+                                                   JourneyRequest journeyRequest) {
+        Ends begin = Ends.station(start);
+        Ends end = walksAtEnd(endOfWalk);
+        return getJourneyStream(begin, end, journeyRequest, false);
+    }
+
+    @Override
+    public Stream<Journey> calculateRouteWalkAtStart(Node startOfWalkNode, Station destination,
+                                                     JourneyRequest journeyRequest) {
+        Ends begin = walksAtStart(startOfWalkNode);
+        Ends end = Ends.station(destination);
+        return getJourneyStream(begin, end, journeyRequest, true);
+    }
+
+    @Override
+    public Stream<Journey> calculateRouteWalkAtStartAndEnd(Node startNode, Node endNode, List<Station> destinationStations,
+                                                           JourneyRequest journeyRequest) {
+        Ends begin = walksAtStart(startNode);
+        Ends end = walksAtEnd(endNode);
+        return getJourneyStream(begin, end, journeyRequest, true);
+    }
+
+    private Stream<Journey> getJourneyStream(Ends begin, Ends end, JourneyRequest journeyRequest, boolean walkAtStart) {
+        timetable.ensureBuilt();
+
+        boolean[] runningServices = timetable.runningServices(transportData.getServicesOnDate(journeyRequest.getDate()));
+        // scans have a round per change, requests default to no limit
+        int maxChanges = Math.min(journeyRequest.getMaxChanges(), RaptorTimetable.MAX_CHANGES);
+        if (journeyRequest.getArriveBy()) {
+            return findJourneysArrivingBy(begin, end, journeyRequest.getTime(), runningServices, maxChanges).stream();
+        }
+        List<TramTime> queryTimes = createQueryTimes.generate(journeyRequest.getTime(), walkAtStart);
+
+        return findJourneys(begin, end, queryTimes, runningServices, maxChanges).stream();
+    }
+
+    // all the query times are answered by one range scan, starting from the latest, so only journeys that arrive
+    // sooner than those leaving later are found for each earlier time, and each earlier time only rescans from
+    // the labels it improves
+    private List<Journey> findJourneys(Ends begin, Ends end, List<TramTime> queryTimes, boolean[] runningServices,
+                                       int maxChanges) {
+        List<Journey> journeys = new ArrayList<>();
+
+        List<TramTime> latestFirst = new ArrayList<>(queryTimes);
+        latestFirst.sort(Comparator.comparingInt(RaptorTimetable::queryMinutes).reversed());
+
+        Optional<Journey> directWalk = directWalk(begin, end, latestFirst.get(latestFirst.size() - 1), false);
+        if (directWalk.isPresent()) {
+            journeys.add(directWalk.get());
+            return journeys;
+        }
+
+        RaptorScan scan = new RaptorScan(timetable, runningServices, RaptorTimetable.queryMinutes(latestFirst.get(0)),
+                maxChanges, config.getMaxWait(), config.getMaxJourneyDuration(), config.getChangeAtInterchangeOnly());
+
+        begin.walks.forEach((stationId, cost) -> {
+            if (timetable.hasStation(stationId)) {
+                scan.addStart(timetable.stationIndex(stationId), cost);
+            }
+        });
+        end.walks.forEach((stationId, cost) -> {
+            if (timetable.hasStation(stationId)) {
+                int station = timetable.stationIndex(stationId);
+                int egressCost = end.isWalk() ? timetable.departCost(station) + cost : 0;
+                scan.addDestination(station, egressCost);
+            }
+        });
+
+        for (int index = 0; index < latestFirst.size(); index++) {
+            TramTime queryTime = latestFirst.get(index);
+            if (index > 0) {
+                scan.startAt(RaptorTimetable.queryMinutes(queryTime));
+            }
+            scan.scan();
+            // earlier departures go first, as for the graph search
+            List<Journey> found = new ArrayList<>();
+            scan.results().forEach(legs -> found.add(createJourney(legs, begin, end, queryTime)));
+            journeys.addAll(0, found);
+        }
+        numberRelaxed.addAndGet(scan.relaxed());
+        logger.info(format("Found %s journeys for %s query times, %s labels improved", journeys.size(),
+                queryTimes.size(), scan.relaxed()));
+        return journeys;
+    }
+
+    // searches backwards from the destinations for the latest departures that arrive by the given time, earlier
+    // departures first as for the forward search
+    private List<Journey> findJourneysArrivingBy(Ends begin, Ends end, TramTime arriveBy, boolean[] runningServices,
+                                                 int maxChanges) {
+        List<Journey> journeys = new ArrayList<>();
+
+        Optional<Journey> directWalk = directWalk(begin, end, arriveBy, true);
+        if (directWalk.isPresent()) {
+            journeys.add(directWalk.get());
+            return journeys;
+        }
+
+        RaptorArriveByScan scan = new RaptorArriveByScan(timetable, runningServices, RaptorTimetable.queryMinutes(arriveBy),
+                maxChanges, config.getMaxWait(), config.getMaxJourneyDuration(), config.getChangeAtInterchangeOnly());
+
+        begin.walks.forEach((stationId, cost) -> {
+            if (timetable.hasStation(stationId)) {
+                scan.addStart(timetable.stationIndex(stationId), cost);
+            }
+        });
+        end.walks.forEach((stationId, cost) -> {
+            if (timetable.hasStation(stationId)) {
+                int station = timetable.stationIndex(stationId);
+                int egressCost = end.isWalk() ? timetable.departCost(station) + cost : 0;
+                scan.addDestination(station, egressCost);
+            }
+        });
+
+        scan.scan();
+        scan.results().forEach(legs -> {
+            TramTime leaveTime = RaptorTimetable.asTramTime(scan.leaveTime(legs));
+            journeys.add(createJourney(legs, begin, end, leaveTime));
+        });
+        logger.info(format("Found %s journeys arriving by %s", journeys.size(), arriveBy));
+        return journeys;
+    }
+
+    // start is within walking distance of the destination, mirrors the single walk found by the graph search
+    private Optional<Journey> directWalk(Ends begin, Ends end, TramTime time, boolean arriveBy) {
+        if (begin.isWalk() && !end.isWalk()) {
+            String destinationId = end.walks.keySet().iterator().next();
+            if (begin.walks.containsKey(destinationId)) {
+                int cost = begin.walks.get(destinationId);
+                TramTime walkStarts = arriveBy ? time.minusMinutes(cost) : time;
+                WalkingStage walk = new WalkingStage(begin.location, transportData.getStation(destinationId),
+                        cost, walkStarts, false);
+                return Optional.of(new Journey(Collections.singletonList(walk), walkStarts));
+            }
+        }
+        if (!begin.isWalk() && end.isWalk()) {
+            String startId = begin.walks.keySet().iterator().next();
+            if (end.walks.containsKey(startId)) {
+                int cost = end.walks.get(startId);
+                TramTime walkStarts = arriveBy ? time.minusMinutes(cost) : time;
+                WalkingStage walk = new WalkingStage(transportData.getStation(startId), end.location,
+                        cost, walkStarts, true);
+                return Optional.of(new Journey(Collections.singletonList(walk), walkStarts));
+            }
+        }
+        return Optional.empty();
+    }
+
+    private Journey createJourney(RaptorScan.RaptorLeg[] legs, Ends begin, Ends end, TramTime queryTime) {
+        List<TransportStage> stages = new ArrayList<>();
+
+        VehicleStage firstStage = createVehicleStage(legs[0]);
+        if (begin.isWalk()) {
+            Station boardingStation = (Station) firstStage.getFirstStation();
+            int walkCost = begin.walks.get(boardingStation.getId());
+            int boardCost = timetable.boardCost(timetable.stationIndex(boardingStation.getId()));
+            TramTime walkStarted = firstStage.getFirstDepartureTime().minusMinutes(walkCost + boardCost);
+            stages.add(new WalkingStage(begin.location, boardingStation, walkCost, walkStarted, false));
+        }
+
+        stages.add(firstStage);
+        for (int index = 1; index < legs.length; index++) {
+            stages.add(createVehicleStage(legs[index]));
+        }
+
+        if (end.isWalk()) {
+            VehicleStage lastStage = (VehicleStage) stages.get(stages.size() - 1);
+            Station alightStation = (Station) lastStage.getLastStation();
+            int departCost = timetable.departCost(timetable.stationIndex(alightStation.getId()));
+            TramTime walkStarted = lastStage.getExpectedArrivalTime().plusMinutes(departCost);
+            stages.add(new WalkingStage(alightStation, end.location, end.walks.get(alightStation.getId()),
+                    walkStarted, true));
+        }
+
+        return new Journey(stages, queryTime);
+    }
+
+    // also used for journeys from transfer patterns
+    VehicleStage createVehicleStage(RaptorScan.RaptorLeg leg) {
+        int pattern = timetable.patternOf(leg.trip);
+        Route route = timetable.getRoute(pattern);
+        Trip trip = timetable.getTrip(leg.trip);
+
+        Station boardingStation = timetable.getStation(timetable.stopAt(pattern, leg.boardPosition));
+        Station alightStation = timetable.getStation(timetable.stopAt(pattern, leg.alightPosition));
+        int departs = timetable.departure(leg.trip, leg.boardPosition);
+        int arrives = timetable.arrival(leg.trip, leg.alightPosition);
+        int passedStops = leg.alightPosition - leg.boardPosition - 1;
+
+        VehicleStage stage = new VehicleStage(boardingStation, route, route.getMode(), routeIdToClass.map(route.getId()),
+                trip, RaptorTimetable.asTramTime(departs), alightStation, passedStops);
+        stage.setCost(arrives - departs);
+
+        String platformId = timetable.platformId(leg.trip, leg.boardPosition);
+        if (route.isTram() && platformId != null) {
+            platformRepository.getPlatformById(platformId).ifPresent(stage::setPlatform);
+        }
+        return stage;
+    }
+
+    private Ends walksAtStart(Node startOfWalkNode) {
+        Map<String, Integer> walks = new HashMap<>();
+        startOfWalkNode.getRelationships(Direction.OUTGOING, TransportRelationshipTypes.WALKS_TO).
+                forEach(relationship -> addWalk(walks, relationship));
+        return new Ends(walks, locationOf(startOfWalkNode));
+    }
+
+    // endOfWalk <-FINISH_WALK- midWalk <-WALKS_FROM- stations
+    private Ends walksAtEnd(Node endOfWalk) {
+        Map<String, Integer> walks = new HashMap<>();
+        Location location = null;
+        for (Relationship finishWalk : endOfWalk.getRelationships(Direction.INCOMING, TransportRelationshipTypes.FINISH_WALK)) {
+            Node midWalk = finishWalk.getStartNode();
+            location = locationOf(midWalk);
+            midWalk.getRelationships(Direction.INCOMING, TransportRelationshipTypes.WALKS_FROM).
+                    forEach(relationship -> addWalk(walks, relationship));
+        }
+        if (location == null) {
+            throw new RuntimeException("Unable to find walks to end of walk node " + endOfWalk);
+        }
+        return new Ends(walks, location);
+    }
+
+    private void addWalk(Map<String, Integer> walks, Relationship relationship) {
+        String stationId = relationship.getProperty(STATION_ID).toString();
+        int cost = (int) relationship.getProperty(COST);
+        walks.put(stationId, cost);
+    }
+
+    private Location locationOf(Node node) {
+        double lat = (double) node.getProperty(GraphStaticKeys.Station.LAT);
+        double lon = (double) node.getProperty(GraphStaticKeys.Station.LONG);
+        return myLocationFactory.create(new LatLong(lat, lon));
+    }
+
+    // either a station or a location with walks to/from nearby stations
+    private static class Ends {
+        private final Map<String, Integer> walks;
+        private final Location location;
+
+        private Ends(Map<String, Integer> walks, Location location) {
+            this.walks = walks;
+            this.location = location;
+        }
+
+        private static Ends station(Station station) {
+            return new Ends(Collections.singletonMap(station.getId(), 0), null);
+        }
+
+        private boolean isWalk() {
+            return location != null;
+        }
+    }
+}
@@ -0,0 +1,411 @@
+package com.tramchester.router.raptor;
+
+import java.util.*;
+
+import static com.tramchester.router.raptor.RaptorTimetable.NOT_REACHED;
+import static java.lang.String.format;
+
+// Round based scan of the timetable, round k holds the earliest arrival at each station using k vehicles.
+// For a range of departures the labels are kept from one departure to the next earlier one, see startAt
+class RaptorScan {
+    private static final int NONE = -1;
+
+    private final RaptorTimetable timetable;
+    private final boolean[] runningServices;
+    private int queryTime;
+    private final int maxWait;
+    private final int maxJourneyDuration;
+    private final boolean changeAtInterchangeOnly;
+    private final int numberOfRounds;
+
+    // [round][station], rounds allocated as the scan reaches them, see ensureRound
+    private final int[][] arrivals;
+    private final int[][] boardTrips;
+    private final int[][] boardPositions;
+    private final int[][] alightPositions;
+    private final int[] bestArrivals;
+    private int allocatedRounds;
+
+    // cost of getting to the station at the end of the journey, or NONE if not a destination
+    private final int[] egressCosts;
+    private final List<Integer> destinations;
+    // best arrival at a destination using at most that many vehicles, indexed by round
+    private final int[] bestAtDestination;
+
+    // start stations and the cost of getting to them, re-applied for each departure time
+    private final Map<Integer, Integer> starts;
+    // best arrival at a destination already returned from results(), for each round
+    private final int[] reported;
+
+    private final boolean[] marked;
+    // number of labels improved, over all departures scanned
+    private long relaxed;
+
+    RaptorScan(RaptorTimetable timetable, boolean[] runningServices, int queryTime, int maxChanges, int maxWait,
+               int maxJourneyDuration, boolean changeAtInterchangeOnly) {
+        this.timetable = timetable;
+        this.runningServices = runningServices;
+        this.queryTime = queryTime;
+        this.maxWait = maxWait;
+        this.maxJourneyDuration = maxJourneyDuration;
+        this.changeAtInterchangeOnly = changeAtInterchangeOnly;
+        // round 0 is getting to the start stations, then one round per vehicle
+        this.numberOfRounds = maxChanges + 2;
+
+        int numberOfStations = timetable.numberOfStations();
+        // a large max changes only costs the rounds that are actually reached
+        arrivals = new int[numberOfRounds][];
+        boardTrips = new int[numberOfRounds][];
+        boardPositions = new int[numberOfRounds][];
+        alightPositions = new int[numberOfRounds][];
+        allocatedRounds = 0;
+        ensureRound(0);
+        bestArrivals = new int[numberOfStations];
+        Arrays.fill(bestArrivals, NOT_REACHED);
+        egressCosts = new int[numberOfStations];
+        Arrays.fill(egressCosts, NONE);
+        destinations = new ArrayList<>();
+        marked = new boolean[numberOfStations];
+        bestAtDestination = new int[numberOfRounds];
+        Arrays.fill(bestAtDestination, NOT_REACHED);
+        starts = new HashMap<>();
+        reported = new int[numberOfRounds];
+        Arrays.fill(reported, NOT_REACHED);
+        relaxed = 0;
+    }
+
+    private void ensureRound(int round) {
+        int numberOfStations = timetable.numberOfStations();
+        while (allocatedRounds <= round) {
+            arrivals[allocatedRounds] = new int[numberOfStations];
+            boardTrips[allocatedRounds] = new int[numberOfStations];
+            boardPositions[allocatedRounds] = new int[numberOfStations];
+            alightPositions[allocatedRounds] = new int[numberOfStations];
+            Arrays.fill(arrivals[allocatedRounds], NOT_REACHED);
+            Arrays.fill(boardTrips[allocatedRounds], NONE);
+            allocatedRounds++;
+        }
+    }
+
+    void addStart(int station, int walkCost) {
+        starts.merge(station, walkCost, Math::min);
+        markStart(station, walkCost);
+    }
+
+    // repeat the scan for an earlier departure, must be called with decreasing times. Labels from the later
+    // departures are kept, a journey leaving later is at least as good for the same arrival, so only labels this
+    // departure improves on are rescanned. Kept labels may need longer waits or journeys than allowed from the
+    // earlier time, that is checked as journeys are rebuilt, see validFromQueryTime
+    void startAt(int earlierQueryTime) {
+        if (earlierQueryTime > queryTime) {
+            throw new RuntimeException(format("Range scan must go back in time, was %s now %s",
+                    queryTime, earlierQueryTime));
+        }
+        queryTime = earlierQueryTime;
+        Arrays.fill(marked, false);
+        starts.forEach(this::markStart);
+    }
+
+    private void markStart(int station, int walkCost) {
+        int time = queryTime + walkCost;
+        if (time < arrivals[0][station]) {
+            arrivals[0][station] = time;
+            bestArrivals[station] = time;
+            marked[station] = true;
+        }
+    }
+
+    void addDestination(int station, int egressCost) {
+        egressCosts[station] = egressCost;
+        destinations.add(station);
+    }
+
+    void scan() {
+        int numberOfPatterns = timetable.numberOfPatterns();
+        int[] firstPositions = new int[numberOfPatterns];
+
+        for (int round = 1; round < numberOfRounds; round++) {
+            Arrays.fill(firstPositions, Integer.MAX_VALUE);
+            List<Integer> patterns = queuePatterns(firstPositions);
+            if (patterns.isEmpty()) {
+                return;
+            }
+            ensureRound(round);
+            carryForward(round);
+            Arrays.fill(marked, false);
+
+            for (int pattern : patterns) {
+                scanPattern(round, pattern, firstPositions[pattern]);
+            }
+        }
+    }
+
+    // can always arrive at least as early using more vehicles
+    private void carryForward(int round) {
+        int[] previous = arrivals[round - 1];
+        int[] current = arrivals[round];
+        for (int station = 0; station < current.length; station++) {
+            if (previous[station] < current[station]) {
+                current[station] = previous[station];
+                boardTrips[round][station] = NONE;
+            }
+        }
+    }
+
+    private List<Integer> queuePatterns(int[] firstPositions) {
+        List<Integer> patterns = new ArrayList<>();
+        for (int station = 0; station < marked.length; station++) {
+            if (!marked[station]) {
+                continue;
+            }
+            int end = timetable.patternsEnd(station);
+            for (int index = timetable.patternsBegin(station); index < end; index++) {
+                int pattern = timetable.patternAt(index);
+                int position = timetable.positionAt(index);
+                if (firstPositions[pattern] == Integer.MAX_VALUE) {
+                    patterns.add(pattern);
+                }
+                if (position < firstPositions[pattern]) {
+                    firstPositions[pattern] = position;
+                }
+            }
+        }
+        return patterns;
+    }
+
+    private void scanPattern(int round, int pattern, int firstPosition) {
+        int numberOfStops = timetable.numberOfStops(pattern);
+
+        int trip = NONE;
+        int boardedAt = NONE;
+        for (int position = firstPosition; position < numberOfStops; position++) {
+            int station = timetable.stopAt(pattern, position);
+
+            if (trip != NONE) {
+                int arrival = timetable.arrival(trip, position);
+                if (improves(round, station, arrival)) {
+                    relaxed++;
+                    arrivals[round][station] = arrival;
+                    bestArrivals[station] = arrival;
+                    boardTrips[round][station] = trip;
+                    boardPositions[round][station] = boardedAt;
+                    alightPositions[round][station] = position;
+                    marked[station] = true;
+                    updateDestination(round, station, arrival);
+                }
+            }
+
+            int previousArrival = arrivals[round - 1][station];
+            if (previousArrival == NOT_REACHED || position == numberOfStops - 1 || !canBoardAt(round, station)) {
+                continue;
+            }
+            int readyToBoard = previousArrival + boardingCost(round, station);
+            if (trip != NONE && timetable.departure(trip, position) < readyToBoard) {
+                continue;
+            }
+            int earlierTrip = findTrip(pattern, position, readyToBoard);
+            if (earlierTrip != NONE && (trip == NONE ||
+                    timetable.departure(earlierTrip, position) < timetable.departure(trip, position))) {
+                trip = earlierTrip;
+                boardedAt = position;
+            }
+        }
+    }
+
+    // compare with the label for this round rather than the best over all rounds, once labels are kept from a
+    // later departure that best may use more vehicles. The same as the best for a single departure, as the
+    // current round carries forward the earlier ones and later rounds are not reached yet
+    private boolean improves(int round, int station, int arrival) {
+        if (arrival >= arrivals[round][station] || arrival >= bestAtDestination[round]) {
+            return false;
+        }
+        return (arrival - queryTime) <= maxJourneyDuration;
+    }
+
+    private void updateDestination(int round, int station, int arrival) {
+        int egressCost = egressCosts[station];
+        if (egressCost == NONE) {
+            return;
+        }
+        for (int upTo = round; upTo < numberOfRounds && (arrival + egressCost) < bestAtDestination[upTo]; upTo++) {
+            bestAtDestination[upTo] = arrival + egressCost;
+        }
+    }
+
+    private boolean canBoardAt(int round, int station) {
+        if (round == 1 || !changeAtInterchangeOnly) {
+            return true;
+        }
+        return timetable.isInterchange(station);
+    }
+
+    private int boardingCost(int round, int station) {
+        int boardCost = timetable.boardCost(station);
+        if (round == 1) {
+            return boardCost;
+        }
+        // changing, so depart the previous vehicle first
+        return timetable.departCost(station) + boardCost;
+    }
+
+    // earliest running trip departing after ready but within the max wait, trips are ordered by departure
+    private int findTrip(int pattern, int position, int readyToBoard) {
+        int latest = readyToBoard + maxWait;
+        int end = timetable.tripsEnd(pattern);
+        for (int trip = firstDepartingAfter(pattern, position, readyToBoard); trip < end; trip++) {
+            int departure = timetable.departure(trip, position);
+            if (departure > latest) {
+                return NONE;
+            }
+            if (departure >= readyToBoard && runningServices[timetable.serviceOf(trip)]) {
+                return trip;
+            }
+        }
+        return NONE;
+    }
+
+    private int firstDepartingAfter(int pattern, int position, int readyToBoard) {
+        int low = timetable.tripsBegin(pattern);
+        int high = timetable.tripsEnd(pattern);
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (timetable.departure(middle, position) < readyToBoard) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // earliest arrival at the station from any of the starts, or NOT_REACHED
+    int bestArrival(int station) {
+        return bestArrivals[station];
+    }
+
+    // fewest vehicles used to get to the station by its earliest arrival, or NONE if not reached
+    int vehiclesTo(int station) {
+        int best = bestArrivals[station];
+        if (best == NOT_REACHED) {
+            return NONE;
+        }
+        for (int round = 0; round < allocatedRounds; round++) {
+            if (arrivals[round][station] == best) {
+                return round;
+            }
+        }
+        return NONE;
+    }
+
+    // best arrival at a destination for each number of vehicles used, only where it improves on using fewer
+    // vehicles and on what was returned for a later departure time
+    List<RaptorLeg[]> results() {
+        List<RaptorLeg[]> results = new ArrayList<>();
+        int bestSoFar = NOT_REACHED;
+        for (int round = 1; round < allocatedRounds; round++) {
+            int bestStation = NONE;
+            int bestTime = NOT_REACHED;
+            for (int station : destinations) {
+                if (boardTrips[round][station] == NONE) {
+                    continue;
+                }
+                int time = arrivals[round][station] + egressCosts[station];
+                if (time < bestTime && (time - queryTime) <= maxJourneyDuration) {
+                    bestTime = time;
+                    bestStation = station;
+                }
+            }
+            if (bestStation != NONE && bestTime < bestSoFar) {
+                bestSoFar = bestTime;
+                if (bestTime < reported[round]) {
+                    RaptorLeg[] legs = legsTo(round, bestStation);
+                    if (validFromQueryTime(legs)) {
+                        reported[round] = bestTime;
+                        results.add(legs);
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    // journeys to any one station, for each number of vehicles where it arrives sooner than using fewer
+    List<RaptorLeg[]> resultsTo(int station) {
+        List<RaptorLeg[]> results = new ArrayList<>();
+        int bestSoFar = NOT_REACHED;
+        for (int round = 1; round < allocatedRounds; round++) {
+            if (boardTrips[round][station] != NONE && arrivals[round][station] < bestSoFar) {
+                bestSoFar = arrivals[round][station];
+                RaptorLeg[] legs = legsTo(round, station);
+                if (validFromQueryTime(legs)) {
+                    results.add(legs);
+                }
+            }
+        }
+        return results;
+    }
+
+    // labels kept from a later departure can be rebuilt into a journey that waits too long to board from the
+    // current query time, or takes too long overall, so check the journey as it would be taken now
+    private boolean validFromQueryTime(RaptorLeg[] legs) {
+        RaptorLeg first = legs[0];
+        int station = timetable.stopAt(timetable.patternOf(first.trip), first.boardPosition);
+        Integer walkCost = starts.get(station);
+        if (walkCost == null) {
+            return false;
+        }
+        int readyToBoard = queryTime + walkCost + boardingCost(1, station);
+        int arrival = NOT_REACHED;
+        for (int index = 0; index < legs.length; index++) {
+            RaptorLeg leg = legs[index];
+            if (index > 0) {
+                station = timetable.stopAt(timetable.patternOf(leg.trip), leg.boardPosition);
+                readyToBoard = arrival + boardingCost(index + 1, station);
+            }
+            int departure = timetable.departure(leg.trip, leg.boardPosition);
+            if (departure < readyToBoard || departure > readyToBoard + maxWait) {
+                return false;
+            }
+            arrival = timetable.arrival(leg.trip, leg.alightPosition);
+        }
+        return (arrival - queryTime) <= maxJourneyDuration;
+    }
+
+    // labels improved over all the departures scanned, a range scan keeps labels so improves fewer
+    long relaxed() {
+        return relaxed;
+    }
+
+    private RaptorLeg[] legsTo(int lastRound, int destination) {
+        RaptorLeg[] legs = new RaptorLeg[lastRound];
+        int station = destination;
+        int round = lastRound;
+        int leg = lastRound;
+        while (round > 0) {
+            if (boardTrips[round][station] == NONE) {
+                round--;
+                continue;
+            }
+            int trip = boardTrips[round][station];
+            int boardPosition = boardPositions[round][station];
+            int alightPosition = alightPositions[round][station];
+            leg--;
+            legs[leg] = new RaptorLeg(trip, boardPosition, alightPosition);
+            station = timetable.stopAt(timetable.patternOf(trip), boardPosition);
+            round--;
+        }
+        return leg == 0 ? legs : Arrays.copyOfRange(legs, leg, lastRound);
+    }
+
+    static class RaptorLeg {
+        final int trip;
+        final int boardPosition;
+        final int alightPosition;
+
+        RaptorLeg(int trip, int boardPosition, int alightPosition) {
+            this.trip = trip;
+            this.boardPosition = boardPosition;
+            this.alightPosition = alightPosition;
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package com.tramchester.router.raptor;
+
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.domain.Route;
+import com.tramchester.domain.Service;
+import com.tramchester.domain.input.StopCall;
+import com.tramchester.domain.input.StopCalls;
+import com.tramchester.domain.input.Trip;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.TransportGraphBuilder;
+import com.tramchester.repository.InterchangeRepository;
+import com.tramchester.repository.TransportData;
+import org.picocontainer.Disposable;
+import org.picocontainer.Startable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+import static java.lang.String.format;
+
+// Timetable as flat arrays for the in-memory planner, trips grouped into patterns by route and stops
+public class RaptorTimetable implements Startable, Disposable {
+    private static final Logger logger = LoggerFactory.getLogger(RaptorTimetable.class);
+
+    static final int MINS_IN_DAY = 24 * 60;
+    static final int NOT_REACHED = Integer.MAX_VALUE;
+    // most changes for scans, far more than any useful journey
+    public static final int MAX_CHANGES = 10;
+
+    private final TransportData transportData;
+    private final InterchangeRepository interchangeRepository;
+    private final TramchesterConfig config;
+
+    // stations
+    private Station[] stations;
+    private Map<String, Integer> stationIndex;
+    private int[] boardCosts;
+    private int[] departCosts;
+    private boolean[] interchanges;
+
+    // patterns -> stops, patterns -> trips
+    private Route[] patternRoutes;
+    private int[] patternStopOffsets;
+    private int[] patternStops;
+    private int[] patternTripOffsets;
+
+    // trips, stop times for a trip are at timesOffset[trip] + position in pattern
+    private Trip[] trips;
+    private int[] tripServices;
+    private int[] tripPatterns;
+    private int[] timesOffsets;
+    private int[] arrivals;
+    private int[] departures;
+    private String[] platformIds;
+
+    // services
+    private Map<String, Integer> serviceIndex;
+
+    // stations -> (pattern, position in pattern)
+    private int[] stationPatternOffsets;
+    private int[] stationPatterns;
+    private int[] stationPatternPositions;
+
+    private boolean built;
+
+    public RaptorTimetable(TransportData transportData, InterchangeRepository interchangeRepository,
+                           TramchesterConfig config) {
+        this.transportData = transportData;
+        this.interchangeRepository = interchangeRepository;
+        this.config = config;
+        built = false;
+    }
+
+    @Override
+    public void start() {
+        // otherwise built on first use
+        if (config.getInMemoryRouting()) {
+            ensureBuilt();
+        }
+    }
+
+    @Override
+    public void stop() {
+
+    }
+
+    @Override
+    public void dispose() {
+        built = false;
+        stationIndex = null;
+        serviceIndex = null;
+        trips = null;
+        stations = null;
+    }
+
+    public synchronized void ensureBuilt() {
+        if (built) {
+            return;
+        }
+        long begin = System.currentTimeMillis();
+        logger.info("Build in-memory timetable");
+        buildStations();
+        buildPatterns();
+        buildStationPatterns();
+        built = true;
+        logger.info(format("Built in-memory timetable with %s stations %s patterns %s trips in %s ms", stations.length,
+                patternRoutes.length, trips.length, System.currentTimeMillis() - begin));
+    }
+
+    private void buildStations() {
+        Set<Station> allStations = transportData.getStations();
+        int size = allStations.size();
+
+        stations = new Station[size];
+        stationIndex = new HashMap<>(size);
+        boardCosts = new int[size];
+        departCosts = new int[size];
+        interchanges = new boolean[size];
+
+        int index = 0;
+        for (Station station : allStations) {
+            stations[index] = station;
+            stationIndex.put(station.getId(), index);
+            boolean interchange = interchangeRepository.isInterchange(station);
+            interchanges[index] = interchange;
+            boardCosts[index] = interchange ? TransportGraphBuilder.INTERCHANGE_BOARD_COST : TransportGraphBuilder.BOARDING_COST;
+            departCosts[index] = interchange ? TransportGraphBuilder.INTERCHANGE_DEPART_COST : TransportGraphBuilder.DEPARTS_COST;
+            index++;
+        }
+    }
+
+    private void buildPatterns() {
+        Map<String, List<Trip>> byPattern = new LinkedHashMap<>();
+        for (Trip trip : transportData.getTrips()) {
+            StopCalls stops = trip.getStops();
+            if (stops.size() < 2) {
+                continue;
+            }
+            StringBuilder key = new StringBuilder(trip.getRoute().getId());
+            stops.forEach(stop -> key.append('|').append(stop.getStation().getId()));
+            byPattern.computeIfAbsent(key.toString(), unused -> new ArrayList<>()).add(trip);
+        }
+
+        int numberPatterns = byPattern.size();
+        int numberTrips = 0;
+        int numberStops = 0;
+        int numberTimes = 0;
+        for (List<Trip> patternTrips : byPattern.values()) {
+            int stopsInPattern = patternTrips.get(0).getStops().size();
+            numberTrips = numberTrips + patternTrips.size();
+            numberStops = numberStops + stopsInPattern;
+            numberTimes = numberTimes + (patternTrips.size() * stopsInPattern);
+        }
+
+        patternRoutes = new Route[numberPatterns];
+        patternStopOffsets = new int[numberPatterns + 1];
+        patternStops = new int[numberStops];
+        patternTripOffsets = new int[numberPatterns + 1];
+
+        trips = new Trip[numberTrips];
+        tripServices = new int[numberTrips];
+        tripPatterns = new int[numberTrips];
+        timesOffsets = new int[numberTrips];
+        arrivals = new int[numberTimes];
+        departures = new int[numberTimes];
+        platformIds = new String[numberTimes];
+        serviceIndex = new HashMap<>();
+
+        int pattern = 0;
+        int stopIndex = 0;
+        int tripIndex = 0;
+        int timesIndex = 0;
+        for (List<Trip> patternTrips : byPattern.values()) {
+            patternTrips.sort(Comparator.comparingInt(trip -> firstDeparture(trip.getStops())));
+
+            Trip firstTrip = patternTrips.get(0);
+            patternRoutes[pattern] = firstTrip.getRoute();
+            patternStopOffsets[pattern] = stopIndex;
+            for (StopCall stop : firstTrip.getStops()) {
+                patternStops[stopIndex++] = stationIndex.get(stop.getStation().getId());
+            }
+
+            patternTripOffsets[pattern] = tripIndex;
+            for (Trip trip : patternTrips) {
+                trips[tripIndex] = trip;
+                tripServices[tripIndex] = serviceIndexFor(trip.getService());
+                tripPatterns[tripIndex] = pattern;
+                timesOffsets[tripIndex] = timesIndex;
+                timesIndex = addTimes(trip, timesIndex);
+                tripIndex++;
+            }
+            pattern++;
+        }
+        patternStopOffsets[numberPatterns] = stopIndex;
+        patternTripOffsets[numberPatterns] = tripIndex;
+    }
+
+    private int serviceIndexFor(Service service) {
+        return serviceIndex.computeIfAbsent(service.getId(), unused -> serviceIndex.size());
+    }
+
+    private int addTimes(Trip trip, int timesIndex) {
+        StopCalls stops = trip.getStops();
+        int dayOffset = isEarlyMorning(stops.get(0).getDepartureTime()) ? MINS_IN_DAY : 0;
+        int previous = 0;
+        for (StopCall stop : stops) {
+            int arrival = minutes(stop.getArrivalTime()) + dayOffset;
+            while (arrival < previous) {
+                arrival = arrival + MINS_IN_DAY;
+            }
+            int departure = minutes(stop.getDepartureTime()) + dayOffset;
+            while (departure < arrival) {
+                departure = departure + MINS_IN_DAY;
+            }
+            arrivals[timesIndex] = arrival;
+            departures[timesIndex] = departure;
+            platformIds[timesIndex] = stop.getStation().isTram() ? stop.getPlatformId() : null;
+            previous = departure;
+            timesIndex++;
+        }
+        return timesIndex;
+    }
+
+    private int firstDeparture(StopCalls stops) {
+        TramTime departureTime = stops.get(0).getDepartureTime();
+        int offset = isEarlyMorning(departureTime) ? MINS_IN_DAY : 0;
+        return minutes(departureTime) + offset;
+    }
+
+    private void buildStationPatterns() {
+        int[] counts = new int[stations.length];
+        for (int stop = 0; stop < patternStops.length; stop++) {
+            counts[patternStops[stop]]++;
+        }
+
+        stationPatternOffsets = new int[stations.length + 1];
+        for (int station = 0; station < stations.length; station++) {
+            stationPatternOffsets[station + 1] = stationPatternOffsets[station] + counts[station];
+        }
+
+        stationPatterns = new int[patternStops.length];
+        stationPatternPositions = new int[patternStops.length];
+        int[] next = Arrays.copyOf(stationPatternOffsets, stations.length);
+        for (int pattern = 0; pattern < patternRoutes.length; pattern++) {
+            int begin = patternStopOffsets[pattern];
+            int end = patternStopOffsets[pattern + 1];
+            for (int stop = begin; stop < end; stop++) {
+                int station = patternStops[stop];
+                stationPatterns[next[station]] = pattern;
+                stationPatternPositions[next[station]] = stop - begin;
+                next[station]++;
+            }
+        }
+    }
+
+    // running services on a date as flags indexed by service
+    boolean[] runningServices(Set<Service> servicesOnDate) {
+        boolean[] running = new boolean[serviceIndex.size()];
+        servicesOnDate.forEach(service -> {
+            Integer index = serviceIndex.get(service.getId());
+            if (index != null) {
+                running[index] = true;
+            }
+        });
+        return running;
+    }
+
+    static int minutes(TramTime time) {
+        return (time.getHourOfDay() * 60) + time.getMinuteOfHour();
+    }
+
+    // query times just after midnight are on the end of the previous service day
+    static int queryMinutes(TramTime time) {
+        int minutes = minutes(time);
+        return isEarlyMorning(time) ? minutes + MINS_IN_DAY : minutes;
+    }
+
+    static TramTime asTramTime(int minutes) {
+        return TramTime.of((minutes / 60) % 24, minutes % 60);
+    }
+
+    private static boolean isEarlyMorning(TramTime time) {
+        int hour = time.getHourOfDay();
+        return hour == 0 || hour == 1;
+    }
+
+    int numberOfStations() {
+        return stations.length;
+    }
+
+    int numberOfPatterns() {
+        return patternRoutes.length;
+    }
+
+    boolean hasStation(String stationId) {
+        return stationIndex.containsKey(stationId);
+    }
+
+    int stationIndex(String stationId) {
+        return stationIndex.get(stationId);
+    }
+
+    Station getStation(int station) {
+        return stations[station];
+    }
+
+    boolean isInterchange(int station) {
+        return interchanges[station];
+    }
+
+    int boardCost(int station) {
+        return boardCosts[station];
+    }
+
+    int departCost(int station) {
+        return departCosts[station];
+    }
+
+    int patternsBegin(int station) {
+        return stationPatternOffsets[station];
+    }
+
+    int patternsEnd(int station) {
+        return stationPatternOffsets[station + 1];
+    }
+
+    int patternAt(int index) {
+        return stationPatterns[index];
+    }
+
+    int positionAt(int index) {
+        return stationPatternPositions[index];
+    }
+
+    Route getRoute(int pattern) {
+        return patternRoutes[pattern];
+    }
+
+    int numberOfStops(int pattern) {
+        return patternStopOffsets[pattern + 1] - patternStopOffsets[pattern];
+    }
+
+    int stopAt(int pattern, int position) {
+        return patternStops[patternStopOffsets[pattern] + position];
+    }
+
+    int tripsBegin(int pattern) {
+        return patternTripOffsets[pattern];
+    }
+
+    int tripsEnd(int pattern) {
+        return patternTripOffsets[pattern + 1];
+    }
+
+    Trip getTrip(int trip) {
+        return trips[trip];
+    }
+
+    int patternOf(int trip) {
+        return tripPatterns[trip];
+    }
+
+    int serviceOf(int trip) {
+        return tripServices[trip];
+    }
+
+    int arrival(int trip, int position) {
+        return arrivals[timesOffsets[trip] + position];
+    }
+
+    int departure(int trip, int position) {
+        return departures[timesOffsets[trip] + position];
+    }
+
+    String platformId(int trip, int position) {
+        return platformIds[timesOffsets[trip] + position];
+    }
+}
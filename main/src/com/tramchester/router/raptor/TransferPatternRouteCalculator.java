@@ -0,0 +1,190 @@
+package com.tramchester.router.raptor;
+
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.domain.Journey;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.presentation.TransportStage;
+import com.tramchester.domain.time.CreateQueryTimes;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.search.JourneyRequest;
+import com.tramchester.repository.TransportData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+import static com.tramchester.router.raptor.RaptorTimetable.NOT_REACHED;
+import static java.lang.String.format;
+
+// Station to station journeys from the precomputed transfer patterns, see TransferPatterns
+public class TransferPatternRouteCalculator {
+    private static final Logger logger = LoggerFactory.getLogger(TransferPatternRouteCalculator.class);
+
+    private final TransferPatterns transferPatterns;
+    private final RaptorTimetable timetable;
+    private final RaptorRouteCalculator raptorRouteCalculator;
+    private final TransportData transportData;
+    private final TramchesterConfig config;
+    private final CreateQueryTimes createQueryTimes;
+
+    public TransferPatternRouteCalculator(TransferPatterns transferPatterns, RaptorTimetable timetable,
+                                          RaptorRouteCalculator raptorRouteCalculator, TransportData transportData,
+                                          TramchesterConfig config, CreateQueryTimes createQueryTimes) {
+        this.transferPatterns = transferPatterns;
+        this.timetable = timetable;
+        this.raptorRouteCalculator = raptorRouteCalculator;
+        this.transportData = transportData;
+        this.config = config;
+        this.createQueryTimes = createQueryTimes;
+    }
+
+    public Optional<List<Journey>> calculateRoute(Station start, Station destination, JourneyRequest journeyRequest) {
+        if (journeyRequest.getArriveBy() || journeyRequest.getPareto()) {
+            return Optional.empty();
+        }
+        int[][] patterns = transferPatterns.getPatterns(start, destination);
+        if (patterns.length == 0) {
+            return Optional.empty();
+        }
+
+        boolean[] runningServices = timetable.runningServices(transportData.getServicesOnDate(journeyRequest.getDate()));
+        int origin = timetable.stationIndex(start.getId());
+        int target = timetable.stationIndex(destination.getId());
+
+        List<Journey> journeys = new ArrayList<>();
+        Set<String> found = new HashSet<>();
+        for (TramTime queryTime : createQueryTimes.generate(journeyRequest.getTime(), false)) {
+            List<RaptorScan.RaptorLeg[]> best = bestForQueryTime(origin, target, patterns, queryTime, runningServices,
+                    journeyRequest.getMaxChanges());
+            best.stream().filter(legs -> found.add(signature(legs))).
+                    forEach(legs -> journeys.add(createJourney(legs, queryTime)));
+        }
+
+        if (journeys.isEmpty()) {
+            logger.info(format("No journeys from %s transfer patterns for %s --> %s", patterns.length, start,
+                    destination));
+            return Optional.empty();
+        }
+        logger.info(format("Found %s journeys from %s transfer patterns for %s --> %s", journeys.size(),
+                patterns.length, start, destination));
+        return Optional.of(journeys);
+    }
+
+    // soonest arrival for each number of vehicles, where it improves on using fewer, as for the in-memory search
+    private List<RaptorScan.RaptorLeg[]> bestForQueryTime(int origin, int target, int[][] patterns, TramTime queryTime,
+                                                          boolean[] runningServices, int maxChanges) {
+        int startTime = RaptorTimetable.queryMinutes(queryTime);
+        Map<Integer, RaptorScan.RaptorLeg[]> byVehicles = new TreeMap<>();
+        Map<Integer, Integer> arrivals = new HashMap<>();
+
+        for (int[] changes : patterns) {
+            if (changes.length > maxChanges) {
+                continue;
+            }
+            RaptorScan.RaptorLeg[] legs = evaluate(origin, target, changes, startTime, runningServices);
+            if (legs == null) {
+                continue;
+            }
+            RaptorScan.RaptorLeg last = legs[legs.length - 1];
+            int arrival = timetable.arrival(last.trip, last.alightPosition);
+            if (arrival < arrivals.getOrDefault(legs.length, NOT_REACHED)) {
+                arrivals.put(legs.length, arrival);
+                byVehicles.put(legs.length, legs);
+            }
+        }
+
+        List<RaptorScan.RaptorLeg[]> results = new ArrayList<>();
+        int bestSoFar = NOT_REACHED;
+        for (Map.Entry<Integer, RaptorScan.RaptorLeg[]> entry : byVehicles.entrySet()) {
+            int arrival = arrivals.get(entry.getKey());
+            if (arrival < bestSoFar) {
+                bestSoFar = arrival;
+                results.add(entry.getValue());
+            }
+        }
+        return results;
+    }
+
+    // earliest vehicle for each leg in turn, null if any leg cannot be made or the journey takes too long
+    private RaptorScan.RaptorLeg[] evaluate(int origin, int target, int[] changes, int startTime,
+                                            boolean[] runningServices) {
+        RaptorScan.RaptorLeg[] legs = new RaptorScan.RaptorLeg[changes.length + 1];
+        int from = origin;
+        int ready = startTime + timetable.boardCost(origin);
+        for (int index = 0; index < legs.length; index++) {
+            int to = index < changes.length ? changes[index] : target;
+            RaptorScan.RaptorLeg leg = earliestLeg(from, to, ready, runningServices);
+            if (leg == null) {
+                return null;
+            }
+            legs[index] = leg;
+            int arrival = timetable.arrival(leg.trip, leg.alightPosition);
+            if ((arrival - startTime) > config.getMaxJourneyDuration()) {
+                return null;
+            }
+            // changing, so depart the vehicle and then board the next
+            ready = arrival + timetable.departCost(to) + timetable.boardCost(to);
+            from = to;
+        }
+        return legs;
+    }
+
+    private RaptorScan.RaptorLeg earliestLeg(int from, int to, int readyToBoard, boolean[] runningServices) {
+        RaptorScan.RaptorLeg best = null;
+        int bestArrival = NOT_REACHED;
+        int latest = readyToBoard + config.getMaxWait();
+
+        int end = timetable.patternsEnd(from);
+        for (int index = timetable.patternsBegin(from); index < end; index++) {
+            int pattern = timetable.patternAt(index);
+            int boardPosition = timetable.positionAt(index);
+            int alightPosition = positionAfter(pattern, boardPosition, to);
+            if (alightPosition < 0) {
+                continue;
+            }
+            // trips are ordered by departure
+            for (int trip = timetable.tripsBegin(pattern); trip < timetable.tripsEnd(pattern); trip++) {
+                int departure = timetable.departure(trip, boardPosition);
+                if (departure > latest) {
+                    break;
+                }
+                if (departure >= readyToBoard && runningServices[timetable.serviceOf(trip)]) {
+                    int arrival = timetable.arrival(trip, alightPosition);
+                    if (arrival < bestArrival) {
+                        bestArrival = arrival;
+                        best = new RaptorScan.RaptorLeg(trip, boardPosition, alightPosition);
+                    }
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+
+    private int positionAfter(int pattern, int position, int station) {
+        int numberOfStops = timetable.numberOfStops(pattern);
+        for (int next = position + 1; next < numberOfStops; next++) {
+            if (timetable.stopAt(pattern, next) == station) {
+                return next;
+            }
+        }
+        return -1;
+    }
+
+    private String signature(RaptorScan.RaptorLeg[] legs) {
+        StringBuilder signature = new StringBuilder();
+        for (RaptorScan.RaptorLeg leg : legs) {
+            signature.append(leg.trip).append(':').append(leg.boardPosition).append(':').
+                    append(leg.alightPosition).append('|');
+        }
+        return signature.toString();
+    }
+
+    private Journey createJourney(RaptorScan.RaptorLeg[] legs, TramTime queryTime) {
+        List<TransportStage> stages = new ArrayList<>(legs.length);
+        for (RaptorScan.RaptorLeg leg : legs) {
+            stages.add(raptorRouteCalculator.createVehicleStage(leg));
+        }
+        return new Journey(stages, queryTime);
+    }
+}
@@ -0,0 +1,188 @@
+package com.tramchester.router.raptor;
+
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.domain.Service;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.time.DaysOfWeek;
+import com.tramchester.repository.TransportData;
+import org.picocontainer.Disposable;
+import org.picocontainer.Startable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static java.lang.String.format;
+
+// Stations changed at by the optimal journeys between each pair of tram stations, see transferPatterns
+public class TransferPatterns implements Startable, Disposable {
+    private static final Logger logger = LoggerFactory.getLogger(TransferPatterns.class);
+
+    // trams never need more changes than this, queries allowing more still only use these patterns
+    static final int MAX_CHANGES = 4;
+
+    private final RaptorTimetable timetable;
+    private final TransportData transportData;
+    private final TramchesterConfig config;
+    private final ExecutorService executor;
+
+    // origin * number of stations + destination -> stations changed at, in order, for each pattern
+    private final Map<Long, int[][]> patterns;
+    private volatile boolean ready;
+
+    public TransferPatterns(RaptorTimetable timetable, TransportData transportData, TramchesterConfig config) {
+        this.timetable = timetable;
+        this.transportData = transportData;
+        this.config = config;
+        executor = Executors.newSingleThreadExecutor();
+        patterns = new ConcurrentHashMap<>();
+        ready = false;
+    }
+
+    @Override
+    public void start() {
+        if (config.getTransferPatterns()) {
+            executor.submit(this::build);
+        }
+    }
+
+    @Override
+    public void stop() {
+
+    }
+
+    @Override
+    public void dispose() {
+        executor.shutdownNow();
+        ready = false;
+        patterns.clear();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    void build() {
+        try {
+            long started = System.currentTimeMillis();
+            logger.info("Build transfer patterns");
+            timetable.ensureBuilt();
+
+            List<boolean[]> servicesForDays = runningServicesByDay();
+            List<Integer> tramStations = IntStream.range(0, timetable.numberOfStations()).
+                    filter(station -> timetable.getStation(station).isTram()).
+                    boxed().collect(Collectors.toList());
+
+            Map<List<Integer>, int[]> distinct = new ConcurrentHashMap<>();
+            tramStations.parallelStream().forEach(origin -> {
+                Map<Integer, Set<List<Integer>>> fromOrigin = new HashMap<>();
+                servicesForDays.forEach(runningServices ->
+                        scanFrom(origin, runningServices, tramStations, fromOrigin));
+                fromOrigin.forEach((destination, changes) -> patterns.put(key(origin, destination),
+                        changes.stream().map(stations -> intern(distinct, stations)).toArray(int[][]::new)));
+            });
+
+            ready = true;
+            logger.info(format("Built transfer patterns for %s station pairs, %s distinct, %s days, took %s ms",
+                    patterns.size(), distinct.size(), servicesForDays.size(), System.currentTimeMillis() - started));
+        }
+        catch (RuntimeException exception) {
+            logger.error("Unable to build transfer patterns", exception);
+        }
+    }
+
+    // services running on each day of the week, ignoring date ranges, with any repeats removed
+    private List<boolean[]> runningServicesByDay() {
+        List<boolean[]> result = new ArrayList<>();
+        for (DaysOfWeek day : DaysOfWeek.values()) {
+            Set<Service> running = transportData.getServices().stream().
+                    filter(service -> Boolean.TRUE.equals(service.getDays().get(day))).
+                    collect(Collectors.toSet());
+            boolean[] flags = timetable.runningServices(running);
+            if (!running.isEmpty() && result.stream().noneMatch(existing -> Arrays.equals(existing, flags))) {
+                result.add(flags);
+            }
+        }
+        return result;
+    }
+
+    private void scanFrom(int origin, boolean[] runningServices, List<Integer> destinations,
+                          Map<Integer, Set<List<Integer>>> fromOrigin) {
+        List<Integer> queryTimes = departuresFrom(origin, runningServices);
+        if (queryTimes.isEmpty()) {
+            return;
+        }
+        RaptorScan scan = new RaptorScan(timetable, runningServices, queryTimes.get(0), MAX_CHANGES,
+                config.getMaxWait(), config.getMaxJourneyDuration(), config.getChangeAtInterchangeOnly());
+        scan.addStart(origin, 0);
+
+        for (int index = 0; index < queryTimes.size(); index++) {
+            if (index > 0) {
+                scan.startAt(queryTimes.get(index));
+            }
+            scan.scan();
+            for (int destination : destinations) {
+                if (destination == origin) {
+                    continue;
+                }
+                scan.resultsTo(destination).forEach(legs -> fromOrigin.
+                        computeIfAbsent(destination, unused -> new HashSet<>()).
+                        add(changesFor(legs)));
+            }
+        }
+    }
+
+    // latest first, as needed for the range scan, leaving just enough time to board each departure
+    private List<Integer> departuresFrom(int origin, boolean[] runningServices) {
+        Set<Integer> times = new HashSet<>();
+        int boardCost = timetable.boardCost(origin);
+        int end = timetable.patternsEnd(origin);
+        for (int index = timetable.patternsBegin(origin); index < end; index++) {
+            int pattern = timetable.patternAt(index);
+            int position = timetable.positionAt(index);
+            if (position == timetable.numberOfStops(pattern) - 1) {
+                continue;
+            }
+            for (int trip = timetable.tripsBegin(pattern); trip < timetable.tripsEnd(pattern); trip++) {
+                if (runningServices[timetable.serviceOf(trip)]) {
+                    times.add(timetable.departure(trip, position) - boardCost);
+                }
+            }
+        }
+        List<Integer> result = new ArrayList<>(times);
+        result.sort(Comparator.reverseOrder());
+        return result;
+    }
+
+    private List<Integer> changesFor(RaptorScan.RaptorLeg[] legs) {
+        List<Integer> changes = new ArrayList<>(legs.length - 1);
+        for (int index = 1; index < legs.length; index++) {
+            RaptorScan.RaptorLeg leg = legs[index];
+            changes.add(timetable.stopAt(timetable.patternOf(leg.trip), leg.boardPosition));
+        }
+        return changes;
+    }
+
+    private static int[] intern(Map<List<Integer>, int[]> distinct, List<Integer> stations) {
+        return distinct.computeIfAbsent(stations, unused -> stations.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    private long key(int origin, int destination) {
+        return ((long) origin * timetable.numberOfStations()) + destination;
+    }
+
+    // stations changed at for each pattern, empty if there are none or they are not ready yet
+    int[][] getPatterns(Station origin, Station destination) {
+        if (!ready || !timetable.hasStation(origin.getId()) || !timetable.hasStation(destination.getId())) {
+            return new int[0][];
+        }
+        int[][] found = patterns.get(key(timetable.stationIndex(origin.getId()),
+                timetable.stationIndex(destination.getId())));
+        return found == null ? new int[0][] : found;
+    }
+}
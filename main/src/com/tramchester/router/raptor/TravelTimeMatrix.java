@@ -0,0 +1,159 @@
+package com.tramchester.router.raptor;
+
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.domain.presentation.DTO.TravelTimeRowDTO;
+import com.tramchester.domain.time.TramServiceDate;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.repository.TransportData;
+import org.picocontainer.Disposable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+import static java.lang.String.format;
+
+// Travel time between every pair of stations, one scan per origin
+public class TravelTimeMatrix implements Disposable {
+    private static final Logger logger = LoggerFactory.getLogger(TravelTimeMatrix.class);
+
+    public static final int NOT_REACHABLE = -1;
+
+    // origins scanned by a single task before it stops splitting
+    private static final int ORIGINS_PER_TASK = 8;
+    private static final int MAX_CONCURRENT = 1;
+
+    private final RaptorTimetable timetable;
+    private final TransportData transportData;
+    private final TramchesterConfig config;
+    private final ForkJoinPool pool;
+    private final Semaphore inProgress;
+
+    public TravelTimeMatrix(RaptorTimetable timetable, TransportData transportData, TramchesterConfig config) {
+        this.timetable = timetable;
+        this.transportData = transportData;
+        this.config = config;
+        pool = config.getInMemoryRouting() ? new ForkJoinPool(Runtime.getRuntime().availableProcessors()) : null;
+        inProgress = new Semaphore(MAX_CONCURRENT);
+    }
+
+    @Override
+    public void dispose() {
+        if (pool!=null) {
+            pool.shutdownNow();
+        }
+    }
+
+    // false if too many matrices are already being calculated, otherwise release once calculated
+    public boolean tryReserve() {
+        return inProgress.tryAcquire();
+    }
+
+    public void release() {
+        inProgress.release();
+    }
+
+    // column order for the durations and changes in each row
+    public List<String> getStationIds() {
+        timetable.ensureBuilt();
+        List<String> stationIds = new ArrayList<>(timetable.numberOfStations());
+        for (int station = 0; station < timetable.numberOfStations(); station++) {
+            stationIds.add(timetable.getStation(station).getId());
+        }
+        return stationIds;
+    }
+
+    // rows are passed to the consumer from the pool threads, one at a time, max changes is limited to
+    // RaptorTimetable.MAX_CHANGES
+    public void calculate(TramServiceDate date, List<TramTime> departureTimes, int requestedMaxChanges,
+                          Consumer<TravelTimeRowDTO> rowConsumer) {
+        long started = System.currentTimeMillis();
+        int maxChanges = Math.min(requestedMaxChanges, RaptorTimetable.MAX_CHANGES);
+        timetable.ensureBuilt();
+        boolean[] runningServices = timetable.runningServices(transportData.getServicesOnDate(date));
+
+        Consumer<TravelTimeRowDTO> serialised = row -> {
+            synchronized (rowConsumer) {
+                rowConsumer.accept(row);
+            }
+        };
+
+        int numberOfStations = timetable.numberOfStations();
+        for (TramTime departureTime : departureTimes) {
+            Origins origins = new Origins(0, numberOfStations, runningServices, departureTime, maxChanges, serialised);
+            if (pool==null) {
+                origins.calculateRows();
+            } else {
+                pool.invoke(origins);
+            }
+        }
+
+        logger.info(format("Calculated %s rows for %s departure times on %s in %s ms", numberOfStations,
+                departureTimes.size(), date, System.currentTimeMillis() - started));
+    }
+
+    private TravelTimeRowDTO calculateRow(int origin, boolean[] runningServices, TramTime departureTime,
+                                          int maxChanges) {
+        int queryTime = RaptorTimetable.queryMinutes(departureTime);
+        RaptorScan scan = new RaptorScan(timetable, runningServices, queryTime, maxChanges, config.getMaxWait(),
+                config.getMaxJourneyDuration(), config.getChangeAtInterchangeOnly());
+        scan.addStart(origin, 0);
+        scan.scan();
+
+        int numberOfStations = timetable.numberOfStations();
+        int[] durations = new int[numberOfStations];
+        int[] changes = new int[numberOfStations];
+        for (int station = 0; station < numberOfStations; station++) {
+            int vehicles = scan.vehiclesTo(station);
+            if (vehicles < 0) {
+                durations[station] = NOT_REACHABLE;
+                changes[station] = NOT_REACHABLE;
+            } else {
+                durations[station] = scan.bestArrival(station) - queryTime;
+                changes[station] = Math.max(0, vehicles - 1);
+            }
+        }
+        return new TravelTimeRowDTO(timetable.getStation(origin).getId(), departureTime, durations, changes);
+    }
+
+    private class Origins extends RecursiveAction {
+        private final int begin;
+        private final int end;
+        private final boolean[] runningServices;
+        private final TramTime departureTime;
+        private final int maxChanges;
+        private final Consumer<TravelTimeRowDTO> rowConsumer;
+
+        private Origins(int begin, int end, boolean[] runningServices, TramTime departureTime, int maxChanges,
+                        Consumer<TravelTimeRowDTO> rowConsumer) {
+            this.begin = begin;
+            this.end = end;
+            this.runningServices = runningServices;
+            this.departureTime = departureTime;
+            this.maxChanges = maxChanges;
+            this.rowConsumer = rowConsumer;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - begin <= ORIGINS_PER_TASK) {
+                calculateRows();
+                return;
+            }
+            int middle = (begin + end) >>> 1;
+            invokeAll(new Origins(begin, middle, runningServices, departureTime, maxChanges, rowConsumer),
+                    new Origins(middle, end, runningServices, departureTime, maxChanges, rowConsumer));
+        }
+
+        private void calculateRows() {
+            for (int origin = begin; origin < end; origin++) {
+                rowConsumer.accept(calculateRow(origin, runningServices, departureTime, maxChanges));
+            }
+        }
+    }
+}
@@ -58,6 +58,11 @@ public class IntegrationBusTestConfig extends TestConfig {
     @Override
     public int getNumberQueries() { return 3; }
 
+    @Override
+    public int getBusReachabilityMaxChanges() {
+        return 3;
+    }
+
     @Override
     public int getQueryInterval() {
         return 12;
@@ -51,6 +51,11 @@ public class IntegrationTramTestConfig extends TestConfig {
     @Override
     public int getNumberQueries() { return 1; }
 
+    @Override
+    public boolean getPreloadGraphProperties() {
+        return true;
+    }
+
     @Override
     public int getQueryInterval() {
         return 6;
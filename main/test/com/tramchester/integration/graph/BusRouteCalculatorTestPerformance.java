@@ -0,0 +1,75 @@
+package com.tramchester.integration.graph;
+
+import com.tramchester.Dependencies;
+import com.tramchester.domain.Journey;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.time.TramServiceDate;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.GraphDatabase;
+import com.tramchester.graph.search.JourneyRequest;
+import com.tramchester.graph.search.RouteCalculator;
+import com.tramchester.integration.IntegrationBusTestConfig;
+import com.tramchester.testSupport.TestEnv;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.neo4j.graphdb.Transaction;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.tramchester.testSupport.BusStations.*;
+
+@Ignore("for performance testing")
+public class BusRouteCalculatorTestPerformance {
+    private static final int TXN_TIMEOUT = 5*60;
+    private static final int REPEATS = 10;
+
+    private static Dependencies dependencies;
+    private static GraphDatabase database;
+
+    @BeforeClass
+    public static void onceBeforeAnyTestsRun() throws Exception {
+        dependencies = new Dependencies();
+        dependencies.initialise(new IntegrationBusTestConfig());
+        database = dependencies.get(GraphDatabase.class);
+    }
+
+    @AfterClass
+    public static void OnceAfterAllTestsAreFinished() {
+        dependencies.close();
+    }
+
+    // per search bookkeeping grows largest on the bus network, see SearchContext
+    @Test
+    public void shouldTestTimeForRepeatedBusJourneys() {
+        RouteCalculator calculator = dependencies.get(RouteCalculator.class);
+        JourneyRequest journeyRequest = new JourneyRequest(new TramServiceDate(TestEnv.nextTuesday(0)),
+                TramTime.of(8, 0), false, 2);
+
+        // warm up caches and the jit
+        timeJourneys(calculator, AltrinchamInterchange, StockportBusStation, journeyRequest);
+
+        long total = 0;
+        for (int i = 0; i < REPEATS; i++) {
+            total += timeJourneys(calculator, AltrinchamInterchange, StockportBusStation, journeyRequest);
+            total += timeJourneys(calculator, ShudehillInterchange, ManchesterAirportStation, journeyRequest);
+        }
+
+        System.out.println("Average bus journey search took: " + (total / (REPEATS * 2)) + "ms");
+    }
+
+    private long timeJourneys(RouteCalculator calculator, Station start, Station dest, JourneyRequest journeyRequest) {
+        try (Transaction tx = database.beginTx(TXN_TIMEOUT, TimeUnit.SECONDS)) {
+            long begin = System.currentTimeMillis();
+            List<Journey> journeys = calculator.calculateRoute(start, dest, journeyRequest).collect(Collectors.toList());
+            long duration = System.currentTimeMillis() - begin;
+            System.out.println(String.format("%s to %s found %s journeys in %sms", start.getName(), dest.getName(),
+                    journeys.size(), duration));
+            tx.success();
+            return duration;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.tramchester.integration.graph;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tramchester.config.TramchesterConfig;
 import com.tramchester.dataimport.*;
 import com.tramchester.dataimport.datacleanse.DataCleanser;
@@ -47,14 +48,17 @@ public class GraphBuildAndStartTest {
         TransportDataSource transportData = dataImporter.createSource();
         InterchangeRepository interchangeRepository = new InterchangeRepository(transportData, config);
 
-        GraphDatabase graphDatabase = new GraphDatabase(config);
+        GraphArtifacts graphArtifacts = new GraphArtifacts(config, transportData, new IncludeAllFilter(),
+                new ObjectMapper());
+        GraphDatabase graphDatabase = new GraphDatabase(config, graphArtifacts);
         GraphQuery graphQuery = new GraphQuery(graphDatabase);
         NodeIdQuery nodeIdQuery = new NodeIdQuery(graphQuery, config);
 
         TransportGraphBuilder transportGraphBuilder = new TransportGraphBuilder(graphDatabase, new IncludeAllFilter(), transportData,
-                nodeIdLabelMap, nodeIdQuery, interchangeRepository, config);
+                nodeIdLabelMap, nodeIdQuery, interchangeRepository, config, graphArtifacts);
 
         transportData.start();
+        graphArtifacts.start();
         graphDatabase.start();
         assertTrue(graphDatabase.isAvailable(2000));
         transportGraphBuilder.start();
@@ -11,12 +11,16 @@ import com.tramchester.domain.presentation.TransportStage;
 import com.tramchester.domain.time.TramServiceDate;
 import com.tramchester.domain.time.TramTime;
 import com.tramchester.graph.GraphDatabase;
+import com.tramchester.graph.TransportGraphBuilder;
 import com.tramchester.graph.search.JourneyRequest;
 import com.tramchester.integration.IntegrationTramTestConfig;
 import com.tramchester.resources.LocationJourneyPlanner;
 import com.tramchester.testSupport.Stations;
 import com.tramchester.testSupport.TestEnv;
+import org.apache.commons.lang3.tuple.Pair;
 import org.junit.*;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Transaction;
 
 import java.time.LocalDate;
@@ -210,6 +214,33 @@ public class LocationJourneyPlannerTest {
         });
     }
 
+    @Test
+    public void shouldNotChangeGraphForLocationJourneys() {
+        TramServiceDate date = new TramServiceDate(nextTuesday);
+        Pair<Long, Long> before = countNodesAndRelationships();
+
+        getJourneysForWalkThenTram(nearAltrincham, Stations.Deansgate, TramTime.of(9, 0), false, 2);
+        getSortedJourneysForTramThenWalk(Stations.Deansgate, nearAltrincham, TramTime.of(9, 0), false);
+        Stream<Journey> journeyStream = planner.quickestRouteForLocation(nearAltrincham, nearPiccGardens,
+                new JourneyRequest(date, TramTime.of(9, 0), false, 2));
+        assertFalse(journeyStream.collect(Collectors.toSet()).isEmpty());
+        journeyStream.close();
+
+        assertEquals(before, countNodesAndRelationships());
+    }
+
+    // relationships counted once each, via their start nodes
+    private Pair<Long, Long> countNodesAndRelationships() {
+        long nodes = 0;
+        long relationships = 0;
+        for (TransportGraphBuilder.Labels label : TransportGraphBuilder.Labels.values()) {
+            List<Node> found = database.findNodes(label).stream().collect(Collectors.toList());
+            nodes = nodes + found.size();
+            relationships = relationships + found.stream().mapToLong(node -> node.getDegree(Direction.OUTGOING)).sum();
+        }
+        return Pair.of(nodes, relationships);
+    }
+
     private Set<Journey> getJourneysForWalkThenTram(LatLong latLong, Station destination, TramTime queryTime, boolean arriveBy, int maxChanges) {
         TramServiceDate date = new TramServiceDate(nextTuesday);
 
@@ -0,0 +1,81 @@
+package com.tramchester.integration.graph;
+
+import com.tramchester.Dependencies;
+import com.tramchester.domain.Journey;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.time.TramServiceDate;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.GraphDatabase;
+import com.tramchester.graph.search.JourneyRequest;
+import com.tramchester.graph.search.RouteCalculator;
+import com.tramchester.integration.IntegrationTramTestConfig;
+import com.tramchester.testSupport.TestEnv;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.neo4j.graphdb.Transaction;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.tramchester.testSupport.Stations.*;
+
+@Ignore("for performance testing")
+public class RouteCalculatorAllocationTestPerformance {
+    private static final int TXN_TIMEOUT = 5*60;
+    private static final int REPEATS = 10;
+
+    private static Dependencies dependencies;
+    private static GraphDatabase database;
+    private static com.sun.management.ThreadMXBean threadMXBean;
+
+    @BeforeClass
+    public static void onceBeforeAnyTestsRun() throws Exception {
+        dependencies = new Dependencies();
+        dependencies.initialise(new IntegrationTramTestConfig());
+        database = dependencies.get(GraphDatabase.class);
+        threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    }
+
+    @AfterClass
+    public static void OnceAfterAllTestsAreFinished() {
+        dependencies.close();
+    }
+
+    // bytes allocated by the searching thread, run before and after changes to the traversal states to compare,
+    // the test config has no query threads so the search runs on this one
+    @Test
+    public void shouldReportAllocationForRepeatedTramJourneys() {
+        RouteCalculator calculator = dependencies.get(RouteCalculator.class);
+        JourneyRequest journeyRequest = new JourneyRequest(new TramServiceDate(TestEnv.nextTuesday(0)),
+                TramTime.of(8, 0), false, 3);
+
+        // warm up caches and the jit
+        allocatedFor(calculator, Altrincham, Bury, journeyRequest);
+
+        long total = 0;
+        for (int i = 0; i < REPEATS; i++) {
+            total += allocatedFor(calculator, Altrincham, Bury, journeyRequest);
+            total += allocatedFor(calculator, ManAirport, Rochdale, journeyRequest);
+            total += allocatedFor(calculator, Eccles, Ashton, journeyRequest);
+        }
+
+        System.out.println("Average tram journey search allocated: " + (total / (REPEATS * 3 * 1024)) + "KB");
+    }
+
+    private long allocatedFor(RouteCalculator calculator, Station start, Station dest, JourneyRequest journeyRequest) {
+        try (Transaction tx = database.beginTx(TXN_TIMEOUT, TimeUnit.SECONDS)) {
+            long threadId = Thread.currentThread().getId();
+            long before = threadMXBean.getThreadAllocatedBytes(threadId);
+            List<Journey> journeys = calculator.calculateRoute(start, dest, journeyRequest).collect(Collectors.toList());
+            long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - before;
+            System.out.println(String.format("%s to %s found %s journeys allocating %sKB", start.getName(),
+                    dest.getName(), journeys.size(), allocated / 1024));
+            tx.success();
+            return allocated;
+        }
+    }
+}
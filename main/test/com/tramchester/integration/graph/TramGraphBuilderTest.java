@@ -7,6 +7,7 @@ import com.tramchester.domain.Service;
 import com.tramchester.domain.places.Station;
 import com.tramchester.domain.input.Trip;
 import com.tramchester.graph.GraphDatabase;
+import com.tramchester.graph.GraphPropertyTables;
 import com.tramchester.graph.GraphQuery;
 import com.tramchester.graph.GraphStaticKeys;
 import com.tramchester.graph.TransportRelationshipTypes;
@@ -16,9 +17,11 @@ import com.tramchester.testSupport.RoutesForTesting;
 import com.tramchester.testSupport.Stations;
 import org.junit.*;
 import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.Transaction;
 
+import java.time.LocalTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -85,6 +88,56 @@ public class TramGraphBuilderTest {
         return graphQuery.getRouteStationRelationships(routeStationId, Direction.OUTGOING);
     }
 
+    @Test
+    public void shouldHaveSortedTripIndexesOnServiceRelationships() {
+        List<Relationship> outbounds = getOutboundRouteStationRelationships(RouteStation.formId(Stations.Cornbrook,
+                RoutesForTesting.ALTY_TO_PICC));
+
+        List<Relationship> toServices = outbounds.stream().
+                filter(relationship -> relationship.isType(TransportRelationshipTypes.TO_SERVICE)).
+                collect(Collectors.toList());
+        assertTrue(toServices.size()>0);
+
+        toServices.forEach(relationship -> {
+            int[] trips = (int[]) relationship.getProperty(GraphStaticKeys.TRIPS);
+            assertTrue(trips.length>0);
+            for (int i = 1; i < trips.length; i++) {
+                assertTrue(trips[i-1] < trips[i]);
+            }
+        });
+    }
+
+    @Test
+    public void shouldHavePreloadedPropertiesMatchingGraph() {
+        GraphPropertyTables tables = dependencies.get(GraphPropertyTables.class);
+        assertTrue(tables.getApproxBytes()>0);
+
+        List<Relationship> toServices = getOutboundRouteStationRelationships(RouteStation.formId(Stations.Cornbrook,
+                RoutesForTesting.ALTY_TO_PICC)).stream().
+                filter(relationship -> relationship.isType(TransportRelationshipTypes.TO_SERVICE)).
+                collect(Collectors.toList());
+        assertTrue(toServices.size()>0);
+
+        toServices.forEach(toService -> {
+            assertEquals(toService.getProperty(GraphStaticKeys.COST), tables.getCost(toService.getId()));
+            Node serviceNode = toService.getEndNode();
+            assertEquals(serviceNode.getProperty(GraphStaticKeys.SERVICE_ID), tables.getServiceId(serviceNode.getId()));
+
+            serviceNode.getRelationships(Direction.OUTGOING, TransportRelationshipTypes.TO_HOUR).forEach(toHour -> {
+                Node hourNode = toHour.getEndNode();
+                assertEquals(hourNode.getProperty(GraphStaticKeys.HOUR), tables.getHour(hourNode.getId()));
+
+                hourNode.getRelationships(Direction.OUTGOING, TransportRelationshipTypes.TO_MINUTE).forEach(toMinute -> {
+                    Node minuteNode = toMinute.getEndNode();
+                    LocalTime time = (LocalTime) minuteNode.getProperty(GraphStaticKeys.TIME);
+                    assertEquals((time.getHour()*60) + time.getMinute(), tables.getMinutesOfDay(minuteNode.getId()));
+                    assertEquals(minuteNode.getProperty(GraphStaticKeys.TRIP_INDEX),
+                            tables.getNodeTripIndex(minuteNode.getId()));
+                });
+            });
+        });
+    }
+
     @Test
     public void shouldHaveCorrectRelationshipsAtCornbrook() {
 
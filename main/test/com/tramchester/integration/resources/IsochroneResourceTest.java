@@ -0,0 +1,110 @@
+package com.tramchester.integration.resources;
+
+import com.tramchester.App;
+import com.tramchester.domain.places.MyLocationFactory;
+import com.tramchester.domain.presentation.DTO.StationArrivalDTO;
+import com.tramchester.domain.presentation.LatLong;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.integration.IntegrationClient;
+import com.tramchester.integration.IntegrationTestRun;
+import com.tramchester.integration.IntegrationTramTestConfig;
+import com.tramchester.testSupport.Stations;
+import com.tramchester.testSupport.TestEnv;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.Response;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.tramchester.testSupport.TestEnv.dateFormatDashes;
+import static org.junit.Assert.*;
+
+public class IsochroneResourceTest {
+
+    @ClassRule
+    public static IntegrationTestRun testRule = new IntegrationTestRun(App.class, new IntegrationTramTestConfig());
+
+    private String date;
+
+    @Before
+    public void beforeEachTestRuns() {
+        LocalDate when = TestEnv.nextTuesday(0);
+        date = when.format(dateFormatDashes);
+    }
+
+    @Test
+    public void shouldReachStationsFromAltrincham() {
+        Response result = IntegrationClient.getResponse(testRule,
+                String.format("isochrone?start=%s&departureTime=%s&departureDate=%s",
+                        Stations.Altrincham.getId(), "08:15", date), Optional.empty(), 200);
+        Map<String, StationArrivalDTO> arrivals = byStation(result.readEntity(new GenericType<>() {}));
+
+        assertTrue(arrivals.size() > 50);
+
+        StationArrivalDTO start = arrivals.get(Stations.Altrincham.getId());
+        assertEquals(0, start.getDuration());
+        assertEquals(TramTime.of(8, 15), start.getArrivalTime());
+
+        StationArrivalDTO cornbrook = arrivals.get(Stations.Cornbrook.getId());
+        assertEquals(0, cornbrook.getChanges());
+        assertTrue(cornbrook.getDuration() > 0);
+
+        StationArrivalDTO deansgate = arrivals.get(Stations.Deansgate.getId());
+        assertTrue(deansgate.getDuration() > cornbrook.getDuration());
+    }
+
+    @Test
+    public void shouldReachStationsFromLocation() {
+        LatLong nearAltrincham = TestEnv.nearAltrincham;
+        Response result = IntegrationClient.getResponse(testRule,
+                String.format("isochrone?start=%s&departureTime=%s&departureDate=%s&lat=%s&lon=%s",
+                        MyLocationFactory.MY_LOCATION_PLACEHOLDER_ID, "08:15", date,
+                        nearAltrincham.getLat(), nearAltrincham.getLon()), Optional.empty(), 200);
+        Map<String, StationArrivalDTO> arrivals = byStation(result.readEntity(new GenericType<>() {}));
+
+        StationArrivalDTO altrincham = arrivals.get(Stations.Altrincham.getId());
+        assertTrue(altrincham.getDuration() > 0);
+        assertTrue(arrivals.containsKey(Stations.Cornbrook.getId()));
+    }
+
+    @Test
+    public void shouldNotFindUnknownStation() {
+        IntegrationClient.getResponse(testRule,
+                String.format("isochrone?start=%s&departureTime=%s&departureDate=%s", "9400ZZNOTASTATION", "08:15", date),
+                Optional.empty(), 404);
+    }
+
+    @Test
+    public void shouldLimitMaxChanges() {
+        Response limited = IntegrationClient.getResponse(testRule,
+                String.format("isochrone?start=%s&departureTime=%s&departureDate=%s&maxChanges=%s",
+                        Stations.Altrincham.getId(), "08:15", date, Integer.MAX_VALUE - 1), Optional.empty(), 200);
+        Response unlimited = IntegrationClient.getResponse(testRule,
+                String.format("isochrone?start=%s&departureTime=%s&departureDate=%s",
+                        Stations.Altrincham.getId(), "08:15", date), Optional.empty(), 200);
+
+        assertEquals(byStation(unlimited.readEntity(new GenericType<>() {})).keySet(),
+                byStation(limited.readEntity(new GenericType<>() {})).keySet());
+    }
+
+    @Test
+    public void shouldRejectInvalidMaxChanges() {
+        IntegrationClient.getResponse(testRule,
+                String.format("isochrone?start=%s&departureTime=%s&departureDate=%s&maxChanges=%s",
+                        Stations.Altrincham.getId(), "08:15", date, "-1"), Optional.empty(), 400);
+        IntegrationClient.getResponse(testRule,
+                String.format("isochrone?start=%s&departureTime=%s&departureDate=%s&maxChanges=%s",
+                        Stations.Altrincham.getId(), "08:15", date, "lots"), Optional.empty(), 400);
+    }
+
+    private Map<String, StationArrivalDTO> byStation(List<StationArrivalDTO> arrivals) {
+        return arrivals.stream().collect(Collectors.toMap(arrival -> arrival.getStation().getId(), Function.identity()));
+    }
+}
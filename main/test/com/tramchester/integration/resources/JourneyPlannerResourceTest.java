@@ -93,6 +93,26 @@ public class JourneyPlannerResourceTest extends JourneyPlannerHelper {
         assertEquals(Stations.Altrincham.getId() + "1", platform.getId());
     }
 
+    @Test
+    public void shouldPlanJourneysWithFewerChangesAsWellAsQuickestWhenPareto() {
+        String date = when.format(dateFormatDashes);
+        String queryString = String.format("journey?start=%s&end=%s&departureTime=%s&departureDate=%s&pareto=true",
+                Stations.Altrincham.getId(), Stations.Rochdale.getId(), "10:15", date);
+        Response response = IntegrationClient.getResponse(testRule, queryString, Optional.empty(), 200);
+        JourneyPlanRepresentation plan = response.readEntity(JourneyPlanRepresentation.class);
+
+        SortedSet<JourneyDTO> journeys = plan.getJourneys();
+        assertFalse(journeys.isEmpty());
+
+        // each later arrival should be for fewer changes, otherwise it is beaten on both
+        long previousVehicles = Long.MAX_VALUE;
+        for (JourneyDTO journey : journeys) {
+            long vehicles = journey.getStages().stream().filter(stage -> stage.getMode().isVehicle()).count();
+            assertTrue(vehicles < previousVehicles);
+            previousVehicles = vehicles;
+        }
+    }
+
     @Test
     public void shouldPlanSimpleJourneyArriveByHasAtLeastOneDepartByRequiredTime() {
         TramTime queryTime = TramTime.of(11,45);
@@ -0,0 +1,113 @@
+package com.tramchester.unit.graph;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tramchester.Dependencies;
+import com.tramchester.domain.places.RouteStation;
+import com.tramchester.geo.CoordinateTransforms;
+import com.tramchester.geo.StationLocations;
+import com.tramchester.graph.*;
+import com.tramchester.integration.IntegrationTramTestConfig;
+import com.tramchester.repository.InterchangeRepository;
+import com.tramchester.testSupport.RoutesForTesting;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Transaction;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static junit.framework.TestCase.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+
+public class BatchGraphBuilderTest {
+
+    private IntegrationTramTestConfig transactionalConfig;
+    private IntegrationTramTestConfig batchConfig;
+    private Dependencies dependencies;
+    private TransportDataForTest batchTransportData;
+
+    @Before
+    public void beforeEachTestRuns() throws IOException {
+        transactionalConfig = new IntegrationTramTestConfig("tmp_transactional.db") {
+            @Override
+            public boolean getRebuildGraph() {
+                return true;
+            }
+        };
+        batchConfig = new IntegrationTramTestConfig("tmp_batch.db") {
+            @Override
+            public boolean getRebuildGraph() {
+                return false;
+            }
+        };
+        FileUtils.deleteDirectory(transactionalConfig.getDBPath().toFile());
+        FileUtils.deleteDirectory(batchConfig.getDBPath().toFile());
+
+        StationLocations stationLocations = new StationLocations(new CoordinateTransforms());
+        batchTransportData = new TransportDataForTest(stationLocations);
+        batchTransportData.start();
+
+        dependencies = new Dependencies();
+        dependencies.initialise(transactionalConfig, new TransportDataForTest(stationLocations));
+    }
+
+    @After
+    public void afterEachTestRuns() throws IOException {
+        dependencies.close();
+        batchTransportData.dispose();
+        FileUtils.deleteDirectory(transactionalConfig.getDBPath().toFile());
+        FileUtils.deleteDirectory(batchConfig.getDBPath().toFile());
+    }
+
+    @Test
+    public void shouldBuildSameGraphAsTransactionalBuild() throws IOException {
+        BatchGraphBuilder builder = new BatchGraphBuilder(batchTransportData,
+                new InterchangeRepository(batchTransportData, batchConfig), new IncludeAllFilter(), batchConfig);
+        builder.buildGraph();
+        GraphArtifacts graphArtifacts = new GraphArtifacts(batchConfig, batchTransportData, new IncludeAllFilter(),
+                new ObjectMapper());
+        graphArtifacts.graphBuilt();
+
+        Map<String, Long> expected = countGraph(dependencies.get(GraphDatabase.class));
+
+        // manifest matches, so opened as is
+        graphArtifacts.start();
+        assertFalse(graphArtifacts.rebuildRequired());
+        GraphDatabase batchDatabase = new GraphDatabase(batchConfig, graphArtifacts);
+        batchDatabase.start();
+        try {
+            assertEquals(expected, countGraph(batchDatabase));
+
+            try (Transaction tx = batchDatabase.beginTx()) {
+                batchDatabase.waitForIndexesReady();
+                String routeStationId = RouteStation.formId(batchTransportData.getFirst(), RoutesForTesting.ALTY_TO_BURY);
+                assertNotNull(batchDatabase.findNode(TransportGraphBuilder.Labels.ROUTE_STATION, GraphStaticKeys.ID,
+                        routeStationId));
+                tx.success();
+            }
+        } finally {
+            batchDatabase.stop();
+        }
+    }
+
+    // nodes for each label and relationships for each type
+    private Map<String, Long> countGraph(GraphDatabase graphDatabase) {
+        Map<String, Long> counts = new HashMap<>();
+        try (Transaction tx = graphDatabase.beginTx()) {
+            for (TransportGraphBuilder.Labels label : TransportGraphBuilder.Labels.values()) {
+                graphDatabase.findNodes(label).forEachRemaining(node -> {
+                    counts.merge(label.name(), 1L, Long::sum);
+                    node.getRelationships(Direction.OUTGOING).forEach(relationship ->
+                            counts.merge(relationship.getType().name(), 1L, Long::sum));
+                });
+            }
+            tx.success();
+        }
+        return counts;
+    }
+}
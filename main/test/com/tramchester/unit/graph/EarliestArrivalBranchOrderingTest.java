@@ -0,0 +1,173 @@
+package com.tramchester.unit.graph;
+
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.CachedNodeOperations;
+import com.tramchester.graph.GraphStaticKeys;
+import com.tramchester.graph.search.EarliestArrivalBranchOrdering;
+import com.tramchester.graph.search.JourneyState;
+import org.easymock.EasyMock;
+import org.easymock.EasyMockSupport;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.PathExpander;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.traversal.BranchSelector;
+import org.neo4j.graphdb.traversal.TraversalBranch;
+import org.neo4j.graphdb.traversal.TraversalContext;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class EarliestArrivalBranchOrderingTest extends EasyMockSupport {
+
+    private final TramTime queryTime = TramTime.of(8, 0);
+
+    private CachedNodeOperations nodeOperations;
+    private PathExpander<?> expander;
+    private TraversalContext context;
+    private Map<String, Integer> lowerBounds;
+    private long nextId;
+
+    @Before
+    public void beforeEachTestRuns() {
+        nodeOperations = createMock(CachedNodeOperations.class);
+        expander = createMock(PathExpander.class);
+        context = createMock(TraversalContext.class);
+        lowerBounds = new HashMap<>();
+        nextId = 1;
+    }
+
+    @Test
+    public void shouldReturnBranchesInOrderOfClockPlusBound() {
+        lowerBounds.put("A", 20);
+        lowerBounds.put("B", 5);
+
+        // estimate 5 + 20
+        TraversalBranch routeStationA = routeStation("A", 0, 5, true);
+        // estimate 10 + 5
+        TraversalBranch routeStationB = routeStation("B", 0, 10, true);
+        TraversalBranch start = node(0, 0, true, false, routeStationA, routeStationB);
+
+        BranchSelector selector = createSelector(start);
+
+        assertEquals(start, selector.next(context));
+        assertEquals(routeStationB, selector.next(context));
+        assertEquals(routeStationA, selector.next(context));
+        assertNull(selector.next(context));
+    }
+
+    @Test
+    public void shouldReduceBoundByTimeTravelledSinceRouteStation() {
+        lowerBounds.put("R", 20);
+        lowerBounds.put("Q", 0);
+
+        // 15 minutes into the 20 from the route station, so arrival still no earlier than 20
+        TraversalBranch afterRouteStation = node(0, 15, true, false);
+        TraversalBranch routeStationR = routeStation("R", 0, 0, true, afterRouteStation);
+        TraversalBranch routeStationQ = routeStation("Q", 0, 25, true);
+        TraversalBranch start = node(0, 0, true, false, routeStationR, routeStationQ);
+
+        BranchSelector selector = createSelector(start);
+
+        assertEquals(start, selector.next(context));
+        assertEquals(routeStationR, selector.next(context));
+        assertEquals(afterRouteStation, selector.next(context));
+        assertEquals(routeStationQ, selector.next(context));
+        assertNull(selector.next(context));
+    }
+
+    @Test
+    public void shouldReturnEarliestArrivalAsFirstDestinationFound() {
+        lowerBounds.put("X", 10);
+        lowerBounds.put("Y", 5);
+
+        // created first but arrives at 8:32
+        TraversalBranch slowArrival = node(2, 30, false, true);
+        TraversalBranch routeStationX = routeStation("X", 0, 2, true, slowArrival);
+        // arrives at 8:15
+        TraversalBranch fastArrival = node(10, 5, false, true);
+        TraversalBranch routeStationY = routeStation("Y", 0, 10, true, fastArrival);
+        TraversalBranch start = node(0, 0, true, false, routeStationX, routeStationY);
+
+        BranchSelector selector = createSelector(start);
+
+        List<TraversalBranch> found = new ArrayList<>();
+        TraversalBranch branch = selector.next(context);
+        while (branch != null) {
+            if (branch.includes()) {
+                found.add(branch);
+            }
+            branch = selector.next(context);
+        }
+
+        assertEquals(Arrays.asList(fastArrival, slowArrival), found);
+    }
+
+    @Test
+    public void shouldNotReturnPrunedBranches() {
+        TraversalBranch pruned = node(0, 5, false, false);
+        TraversalBranch start = node(0, 0, true, false, pruned);
+
+        BranchSelector selector = createSelector(start);
+
+        assertEquals(start, selector.next(context));
+        assertNull(selector.next(context));
+    }
+
+    private BranchSelector createSelector(TraversalBranch start) {
+        // as neo4j does, start node is the child of a branch for all of the starting nodes
+        TraversalBranch startBranch = createMock(TraversalBranch.class);
+        expectChildren(startBranch, start);
+        replayAll();
+        return new EarliestArrivalBranchOrdering(nodeOperations, queryTime, lowerBounds).create(startBranch, expander);
+    }
+
+    private TraversalBranch routeStation(String stationId, int clock, int cost, boolean continues,
+                                         TraversalBranch... children) {
+        long id = nextId++;
+        Node node = createNode(id);
+        EasyMock.expect(nodeOperations.isRouteStation(id)).andStubReturn(true);
+        EasyMock.expect(node.getProperty(GraphStaticKeys.STATION_ID)).andStubReturn(stationId);
+        return createBranch(node, clock, cost, continues, false, children);
+    }
+
+    private TraversalBranch node(int clock, int cost, boolean continues, boolean includes,
+                                 TraversalBranch... children) {
+        long id = nextId++;
+        Node node = createNode(id);
+        EasyMock.expect(nodeOperations.isRouteStation(id)).andStubReturn(false);
+        return createBranch(node, clock, cost, continues, includes, children);
+    }
+
+    // clock is minutes after the query time in the state passed on from the parent, cost that of the last step
+    private TraversalBranch createBranch(Node node, int clock, int cost, boolean continues, boolean includes,
+                                         TraversalBranch... children) {
+        Relationship relationship = createMock(Relationship.class);
+        EasyMock.expect(nodeOperations.getCost(relationship)).andStubReturn(cost);
+
+        TraversalBranch branch = createMock(TraversalBranch.class);
+        EasyMock.expect(branch.endNode()).andStubReturn(node);
+        EasyMock.expect(branch.lastRelationship()).andStubReturn(relationship);
+        EasyMock.expect(branch.state()).andStubReturn(new JourneyState(queryTime.plusMinutes(clock), null));
+        EasyMock.expect(branch.continues()).andStubReturn(continues);
+        EasyMock.expect(branch.includes()).andStubReturn(includes);
+        expectChildren(branch, children);
+        return branch;
+    }
+
+    private Node createNode(long id) {
+        Node node = createMock(Node.class);
+        EasyMock.expect(node.getId()).andStubReturn(id);
+        return node;
+    }
+
+    private void expectChildren(TraversalBranch branch, TraversalBranch... children) {
+        for (TraversalBranch child : children) {
+            EasyMock.expect(branch.next(expander, context)).andReturn(child);
+        }
+        EasyMock.expect(branch.next(expander, context)).andStubReturn(null);
+    }
+}
@@ -0,0 +1,148 @@
+package com.tramchester.unit.graph;
+
+import com.tramchester.Dependencies;
+import com.tramchester.domain.places.Station;
+import com.tramchester.geo.StationLocations;
+import com.tramchester.graph.GraphAdjacency;
+import com.tramchester.graph.GraphDatabase;
+import com.tramchester.graph.GraphStaticKeys;
+import com.tramchester.graph.TransportGraphBuilder;
+import com.tramchester.graph.TransportRelationshipTypes;
+import com.tramchester.integration.IntegrationTramTestConfig;
+import org.apache.commons.io.FileUtils;
+import org.junit.*;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static com.tramchester.graph.TransportRelationshipTypes.*;
+import static org.junit.Assert.*;
+
+public class GraphAdjacencyTest {
+
+    private static final String TMP_DB = "tmp_graph_adjacency.db";
+
+    private static TransportDataForTest transportData;
+    private static Dependencies dependencies;
+    private static GraphDatabase database;
+    private static GraphAdjacency adjacency;
+    private static IntegrationTramTestConfig config;
+
+    private Transaction tx;
+
+    @BeforeClass
+    public static void onceBeforeAllTestRuns() throws IOException {
+        dependencies = new Dependencies();
+
+        StationLocations stationLocations = dependencies.get(StationLocations.class);
+        transportData = new TransportDataForTest(stationLocations);
+
+        config = new IntegrationTramTestConfig(TMP_DB);
+        FileUtils.deleteDirectory(config.getDBPath().toFile());
+
+        dependencies.initialise(config, transportData);
+
+        database = dependencies.get(GraphDatabase.class);
+        adjacency = dependencies.get(GraphAdjacency.class);
+    }
+
+    @AfterClass
+    public static void onceAfterAllTestsRun() throws IOException {
+        dependencies.close();
+        FileUtils.deleteDirectory(config.getDBPath().toFile());
+    }
+
+    @Before
+    public void beforeEachTestRuns() {
+        tx = database.beginTx();
+    }
+
+    @After
+    public void afterEachTestRuns() {
+        tx.close();
+    }
+
+    @Test
+    public void shouldFindEachOutboundRelationshipTowardsItsStation() {
+        int checked = 0;
+        for (Node node : nodesWithOutbounds()) {
+            TransportRelationshipTypes[] types = typesFrom(node);
+            for (Relationship relationship : node.getRelationships(Direction.OUTGOING, types)) {
+                String stationId = stationIdOf(relationship);
+
+                long found = adjacency.findTowards(node.getId(),
+                        adjacency.stationIndexes(Collections.singletonList(stationId)));
+
+                assertNotEquals(GraphAdjacency.NOT_FOUND, found);
+                Relationship foundRelationship = adjacency.getRelationship(found);
+                assertEquals(node.getId(), foundRelationship.getStartNode().getId());
+                assertTrue(Arrays.stream(types).anyMatch(foundRelationship::isType));
+                assertEquals(stationId, stationIdOf(foundRelationship));
+                checked++;
+            }
+        }
+        assertTrue(checked > 0);
+    }
+
+    @Test
+    public void shouldNotFindStationsThatDoNotLeadFromNode() {
+        Set<String> allStationIds = transportData.getStations().stream().map(Station::getId).collect(Collectors.toSet());
+
+        for (Node node : nodesWithOutbounds()) {
+            Set<String> outboundStationIds = new HashSet<>();
+            node.getRelationships(Direction.OUTGOING, typesFrom(node)).
+                    forEach(relationship -> outboundStationIds.add(stationIdOf(relationship)));
+
+            Set<String> others = new HashSet<>(allStationIds);
+            others.removeAll(outboundStationIds);
+
+            assertEquals(GraphAdjacency.NOT_FOUND, adjacency.findTowards(node.getId(), adjacency.stationIndexes(others)));
+        }
+
+        // only route stations and platforms are in the snapshot
+        database.findNodes(TransportGraphBuilder.Labels.TRAM_STATION).forEachRemaining(node ->
+                assertEquals(GraphAdjacency.NOT_FOUND, adjacency.findTowards(node.getId(),
+                        adjacency.stationIndexes(allStationIds))));
+
+        // walking nodes, see WalkingOverlay
+        assertEquals(GraphAdjacency.NOT_FOUND, adjacency.findTowards(-2, adjacency.stationIndexes(allStationIds)));
+    }
+
+    @Test
+    public void shouldHaveIndexForEachStationLedToInGraph() {
+        Set<String> ledTo = new HashSet<>();
+        for (Node node : nodesWithOutbounds()) {
+            node.getRelationships(Direction.OUTGOING, typesFrom(node)).
+                    forEach(relationship -> ledTo.add(stationIdOf(relationship)));
+        }
+        assertFalse(ledTo.isEmpty());
+
+        BitSet indexes = adjacency.stationIndexes(ledTo);
+        assertEquals(ledTo.size(), indexes.cardinality());
+
+        assertTrue(adjacency.stationIndexes(Collections.singletonList("notAStation")).isEmpty());
+    }
+
+    private List<Node> nodesWithOutbounds() {
+        List<Node> nodes = new ArrayList<>();
+        database.findNodes(TransportGraphBuilder.Labels.ROUTE_STATION).forEachRemaining(nodes::add);
+        database.findNodes(TransportGraphBuilder.Labels.PLATFORM).forEachRemaining(nodes::add);
+        return nodes;
+    }
+
+    private TransportRelationshipTypes[] typesFrom(Node node) {
+        if (node.hasLabel(TransportGraphBuilder.Labels.PLATFORM)) {
+            return new TransportRelationshipTypes[]{LEAVE_PLATFORM};
+        }
+        return new TransportRelationshipTypes[]{DEPART, INTERCHANGE_DEPART};
+    }
+
+    private String stationIdOf(Relationship relationship) {
+        return relationship.getProperty(GraphStaticKeys.STATION_ID).toString();
+    }
+}
@@ -0,0 +1,204 @@
+package com.tramchester.unit.graph;
+
+import com.tramchester.Dependencies;
+import com.tramchester.geo.CoordinateTransforms;
+import com.tramchester.geo.StationLocations;
+import com.tramchester.graph.ActiveGraphFilter;
+import com.tramchester.graph.GraphArtifacts;
+import com.tramchester.graph.GraphDatabase;
+import com.tramchester.graph.GraphManifest;
+import com.tramchester.graph.TransportGraphBuilder;
+import com.tramchester.healthchecks.GraphArtifactHealthCheck;
+import com.tramchester.integration.IntegrationTramTestConfig;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.Transaction;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static junit.framework.TestCase.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GraphArtifactsTest {
+    private static final String TMP_DB = "tmp_graph_artifacts.db";
+    private static final Path CACHE = Paths.get("tmp_graph_cache");
+
+    private StationLocations stationLocations;
+    private Dependencies dependencies;
+    private IntegrationTramTestConfig config;
+
+    @Before
+    public void beforeEachTestRuns() throws IOException {
+        config = createConfig(true);
+        FileUtils.deleteDirectory(config.getDBPath().toFile());
+        FileUtils.deleteDirectory(CACHE.toFile());
+        stationLocations = new StationLocations(new CoordinateTransforms());
+
+        // builds the graph, added to the cache on close
+        dependencies = new Dependencies();
+        dependencies.initialise(config, new TransportDataForTest(stationLocations));
+    }
+
+    @After
+    public void afterEachTestRuns() throws IOException {
+        dependencies.close();
+        FileUtils.deleteDirectory(config.getDBPath().toFile());
+        FileUtils.deleteDirectory(CACHE.toFile());
+    }
+
+    @Test
+    public void shouldWriteManifestForBuiltGraph() {
+        GraphArtifacts graphArtifacts = dependencies.get(GraphArtifacts.class);
+        assertTrue(graphArtifacts.matches());
+        assertTrue(Files.exists(config.getDBPath().resolve(GraphManifest.FILENAME)));
+        assertTrue(new GraphArtifactHealthCheck(graphArtifacts).execute().isHealthy());
+    }
+
+    @Test
+    public void shouldUseMatchingGraphFromCache() throws IOException {
+        long expectedStations = countStations();
+        dependencies.close();
+        FileUtils.deleteDirectory(config.getDBPath().toFile());
+
+        dependencies = new Dependencies();
+        dependencies.initialise(createConfig(false), new TransportDataForTest(stationLocations));
+
+        GraphArtifacts graphArtifacts = dependencies.get(GraphArtifacts.class);
+        assertFalse(graphArtifacts.rebuildRequired());
+        assertTrue(graphArtifacts.getStatus(), graphArtifacts.getStatus().startsWith("Using graph from cache"));
+        assertTrue(graphArtifacts.matches());
+        assertEquals(expectedStations, countStations());
+        assertFalse(Files.exists(Paths.get(config.getDBPath() + ".tmp")));
+    }
+
+    @Test
+    public void shouldReplaceArtifactInCacheThatDoesNotMatch() throws IOException {
+        dependencies.close();
+        Path artifact = findArtifact();
+        Path manifest = artifact.resolve(GraphManifest.FILENAME);
+        Files.write(manifest, new String(Files.readAllBytes(manifest)).
+                replace("\"graphVersion\":\"1\"", "\"graphVersion\":\"0\"").getBytes());
+
+        // rebuilt and added to the cache again on close
+        dependencies = new Dependencies();
+        dependencies.initialise(createConfig(true), new TransportDataForTest(stationLocations));
+        dependencies.close();
+
+        assertEquals(artifact, findArtifact());
+        assertTrue(new String(Files.readAllBytes(manifest)).contains("\"graphVersion\":\"1\""));
+
+        // closed after the test
+        dependencies = new Dependencies();
+        dependencies.initialise(createConfig(false), new TransportDataForTest(stationLocations));
+    }
+
+    @Test
+    public void shouldRebuildWhenManifestDoesNotMatch() throws IOException {
+        dependencies.close();
+        FileUtils.deleteDirectory(CACHE.toFile());
+        Path manifest = config.getDBPath().resolve(GraphManifest.FILENAME);
+        Files.write(manifest, new String(Files.readAllBytes(manifest)).
+                replace("\"graphVersion\":\"1\"", "\"graphVersion\":\"0\"").getBytes());
+
+        dependencies = new Dependencies();
+        dependencies.initialise(createConfig(false), new TransportDataForTest(stationLocations));
+
+        GraphArtifacts graphArtifacts = dependencies.get(GraphArtifacts.class);
+        assertTrue(graphArtifacts.rebuildRequired());
+        assertTrue(graphArtifacts.getStatus(), graphArtifacts.getStatus().contains("build parameters"));
+        assertTrue(graphArtifacts.matches());
+    }
+
+    @Test
+    public void shouldRebuildRatherThanUpdateGraphWithoutManifest() throws IOException {
+        dependencies.close();
+        FileUtils.deleteDirectory(CACHE.toFile());
+        // as for a graph built before manifests, which has an older layout
+        Files.delete(config.getDBPath().resolve(GraphManifest.FILENAME));
+
+        dependencies = new Dependencies();
+        dependencies.initialise(createConfig(false, true), new TransportDataForTest(stationLocations));
+
+        GraphArtifacts graphArtifacts = dependencies.get(GraphArtifacts.class);
+        assertTrue(graphArtifacts.rebuildRequired());
+        assertFalse(graphArtifacts.updateRequired());
+        assertTrue(graphArtifacts.matches());
+    }
+
+    @Test
+    public void shouldNotReuseGraphBuiltWithAnotherFilter() {
+        dependencies.close();
+
+        ActiveGraphFilter firstAndSecond = new ActiveGraphFilter();
+        firstAndSecond.addStation(TransportDataForTest.FIRST_STATION);
+        firstAndSecond.addStation(TransportDataForTest.SECOND_STATION);
+        dependencies = new Dependencies(firstAndSecond);
+        dependencies.initialise(createConfig(true), new TransportDataForTest(stationLocations));
+        dependencies.close();
+
+        ActiveGraphFilter firstAndInterchange = new ActiveGraphFilter();
+        firstAndInterchange.addStation(TransportDataForTest.FIRST_STATION);
+        firstAndInterchange.addStation(TransportDataForTest.INTERCHANGE);
+        dependencies = new Dependencies(firstAndInterchange);
+        dependencies.initialise(createConfig(false), new TransportDataForTest(stationLocations));
+
+        GraphArtifacts graphArtifacts = dependencies.get(GraphArtifacts.class);
+        assertTrue(graphArtifacts.rebuildRequired());
+        assertTrue(graphArtifacts.getStatus(), graphArtifacts.getStatus().contains("build parameters"));
+    }
+
+    private Path findArtifact() throws IOException {
+        try (Stream<Path> artifacts = Files.list(CACHE)) {
+            List<Path> found = artifacts.collect(Collectors.toList());
+            assertEquals(1, found.size());
+            return found.get(0);
+        }
+    }
+
+    private long countStations() {
+        GraphDatabase graphDatabase = dependencies.get(GraphDatabase.class);
+        try (Transaction tx = graphDatabase.beginTx()) {
+            long count = graphDatabase.findNodes(TransportGraphBuilder.Labels.TRAM_STATION).stream().count();
+            tx.success();
+            return count;
+        }
+    }
+
+    private IntegrationTramTestConfig createConfig(boolean rebuild) {
+        return createConfig(rebuild, false);
+    }
+
+    private IntegrationTramTestConfig createConfig(boolean rebuild, boolean incrementalUpdate) {
+        return new IntegrationTramTestConfig(TMP_DB) {
+            @Override
+            public boolean getRebuildGraph() {
+                return rebuild;
+            }
+
+            @Override
+            public boolean getIncrementalGraphUpdate() {
+                return incrementalUpdate;
+            }
+
+            @Override
+            public Path getGraphCacheDirectory() {
+                return CACHE;
+            }
+
+            @Override
+            public Path getDataPath() {
+                // no source zip, so the timetable is identified by its services
+                return Paths.get("tmp_graph_artifacts_data");
+            }
+        };
+    }
+}
@@ -0,0 +1,93 @@
+package com.tramchester.unit.graph;
+
+import com.tramchester.Dependencies;
+import com.tramchester.geo.CoordinateTransforms;
+import com.tramchester.geo.StationLocations;
+import com.tramchester.graph.GraphDatabase;
+import com.tramchester.graph.TransportGraphBuilder;
+import com.tramchester.integration.IntegrationTramTestConfig;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.Transaction;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.Assert.*;
+
+public class GraphDatabaseReadOnlyTest {
+    private static final String TMP_DB = "tmp_graph_read_only.db";
+
+    private StationLocations stationLocations;
+    private Dependencies dependencies;
+
+    @Before
+    public void beforeEachTestRuns() throws IOException {
+        FileUtils.deleteDirectory(new IntegrationTramTestConfig(TMP_DB).getDBPath().toFile());
+        stationLocations = new StationLocations(new CoordinateTransforms());
+
+        // builds the graph, so read write
+        dependencies = new Dependencies();
+        dependencies.initialise(createConfig(), new TransportDataForTest(stationLocations));
+    }
+
+    @After
+    public void afterEachTestRuns() throws IOException {
+        dependencies.close();
+        FileUtils.deleteDirectory(new IntegrationTramTestConfig(TMP_DB).getDBPath().toFile());
+    }
+
+    @Test
+    public void shouldServeFromWarmedReadOnlyGraph() throws IOException {
+        GraphDatabase graphDatabase = dependencies.get(GraphDatabase.class);
+        long stations = countStations(graphDatabase);
+        assertTrue(stations > 0);
+
+        dependencies.close();
+        dependencies = new Dependencies();
+        // graph now exists and matches, so opened read only
+        dependencies.initialise(createConfig(), new TransportDataForTest(stationLocations));
+
+        graphDatabase = dependencies.get(GraphDatabase.class);
+        // store paged in before ready
+        long faults = graphDatabase.getPageCacheFaults();
+        assertTrue(faults > 0);
+        assertEquals(stations, countStations(graphDatabase));
+        assertEquals(faults, graphDatabase.getPageCacheFaults());
+        assertTrue(graphDatabase.getPageCacheHitRatio() > 0D);
+
+        try (Transaction tx = graphDatabase.beginTx()) {
+            graphDatabase.createNode(TransportGraphBuilder.Labels.QUERY_NODE);
+            tx.success();
+            fail("graph should be read only");
+        } catch (RuntimeException expected) {
+            // writes rejected
+        }
+    }
+
+    private long countStations(GraphDatabase graphDatabase) {
+        try (Transaction tx = graphDatabase.beginTx()) {
+            long count = graphDatabase.findNodes(TransportGraphBuilder.Labels.TRAM_STATION).stream().count();
+            tx.success();
+            return count;
+        }
+    }
+
+    private IntegrationTramTestConfig createConfig() {
+        return new IntegrationTramTestConfig(TMP_DB) {
+            @Override
+            public boolean getReadOnlyGraph() {
+                return true;
+            }
+
+            @Override
+            public Path getDataPath() {
+                // no source zip, so the timetable is identified by its services
+                return Paths.get("tmp_graph_read_only_data");
+            }
+        };
+    }
+}
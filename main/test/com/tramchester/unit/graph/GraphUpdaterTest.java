@@ -0,0 +1,165 @@
+package com.tramchester.unit.graph;
+
+import com.tramchester.Dependencies;
+import com.tramchester.domain.Service;
+import com.tramchester.geo.CoordinateTransforms;
+import com.tramchester.geo.StationLocations;
+import com.tramchester.graph.*;
+import com.tramchester.integration.IntegrationTramTestConfig;
+import com.tramchester.testSupport.RoutesForTesting;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static junit.framework.TestCase.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GraphUpdaterTest {
+    private static final String TMP_DB = "tmp_graph_updater.db";
+
+    private StationLocations stationLocations;
+    private Dependencies dependencies;
+    private Map<String, Long> original;
+
+    @Before
+    public void beforeEachTestRuns() throws IOException {
+        FileUtils.deleteDirectory(new IntegrationTramTestConfig(TMP_DB).getDBPath().toFile());
+        stationLocations = new StationLocations(new CoordinateTransforms());
+
+        // builds the graph
+        dependencies = new Dependencies();
+        dependencies.initialise(createConfig(), new TransportDataForTest(stationLocations));
+        original = countGraph(dependencies.get(GraphDatabase.class));
+    }
+
+    @After
+    public void afterEachTestRuns() throws IOException {
+        dependencies.close();
+        FileUtils.deleteDirectory(new IntegrationTramTestConfig(TMP_DB).getDBPath().toFile());
+    }
+
+    @Test
+    public void shouldLeaveUnchangedGraph() throws IOException {
+        reopen(new TransportDataForTest(stationLocations));
+
+        assertFalse(dependencies.get(GraphArtifacts.class).updateRequired());
+        assertEquals(original, countGraph(dependencies.get(GraphDatabase.class)));
+    }
+
+    @Test
+    public void shouldReplaceServiceWithoutMatchingFingerprint() throws IOException {
+        GraphDatabase graphDatabase = dependencies.get(GraphDatabase.class);
+        try (Transaction tx = graphDatabase.beginTx()) {
+            serviceNodes(graphDatabase, RoutesForTesting.ALTY_TO_BURY.getId()).
+                    forEach(node -> node.removeProperty(GraphStaticKeys.SERVICE_HASH));
+            tx.success();
+        }
+        // as for a graph of an earlier timetable
+        Path manifest = createConfig().getDBPath().resolve(GraphManifest.FILENAME);
+        Files.write(manifest, new String(Files.readAllBytes(manifest)).
+                replaceAll("\"sourceChecksum\":\"[^\"]*\"", "\"sourceChecksum\":\"earlier\"").getBytes());
+
+        TransportDataForTest transportData = new TransportDataForTest(stationLocations);
+        reopen(transportData);
+
+        graphDatabase = dependencies.get(GraphDatabase.class);
+        assertEquals(original, countGraph(graphDatabase));
+        try (Transaction tx = graphDatabase.beginTx()) {
+            Service service = transportData.getServices().stream().
+                    filter(candidate -> candidate.getRouteId().equals(RoutesForTesting.ALTY_TO_BURY.getId())).
+                    findFirst().get();
+            long expected = GraphUpdater.fingerprint(service, new IncludeAllFilter());
+            List<Node> nodes = serviceNodes(graphDatabase, RoutesForTesting.ALTY_TO_BURY.getId());
+            assertFalse(nodes.isEmpty());
+            nodes.forEach(node -> assertEquals(expected, node.getProperty(GraphStaticKeys.SERVICE_HASH)));
+            tx.success();
+        }
+    }
+
+    @Test
+    public void shouldRemoveServiceNoLongerRunning() throws IOException {
+        String routeId = RoutesForTesting.ROCH_TO_DIDS.getId();
+        reopen(new TransportDataForTest(stationLocations) {
+            @Override
+            public void start() {
+                super.start();
+                getServices().stream().filter(service -> service.getRouteId().equals(routeId)).
+                        forEach(service -> service.setDays(false, false, false, false, false, false, false));
+            }
+        });
+
+        assertTrue(dependencies.get(GraphArtifacts.class).updateRequired());
+        assertTrue(dependencies.get(GraphArtifacts.class).matches());
+        GraphDatabase graphDatabase = dependencies.get(GraphDatabase.class);
+        Map<String, Long> counts = countGraph(graphDatabase);
+        assertTrue(counts.get(TransportGraphBuilder.Labels.SERVICE.name()) <
+                original.get(TransportGraphBuilder.Labels.SERVICE.name()));
+        try (Transaction tx = graphDatabase.beginTx()) {
+            assertTrue(serviceNodes(graphDatabase, routeId).isEmpty());
+            assertFalse(serviceNodes(graphDatabase, RoutesForTesting.ALTY_TO_BURY.getId()).isEmpty());
+            tx.success();
+        }
+    }
+
+    private void reopen(TransportDataForTest transportData) throws IOException {
+        dependencies.close();
+        dependencies = new Dependencies();
+        // graph now exists, so not rebuilt
+        dependencies.initialise(createConfig(), transportData);
+    }
+
+    private IntegrationTramTestConfig createConfig() {
+        return new IntegrationTramTestConfig(TMP_DB) {
+            @Override
+            public boolean getIncrementalGraphUpdate() {
+                return true;
+            }
+
+            @Override
+            public Path getDataPath() {
+                // no source zip, so the timetable is identified by its services
+                return Paths.get("tmp_graph_updater_data");
+            }
+        };
+    }
+
+    private List<Node> serviceNodes(GraphDatabase graphDatabase, String routeId) {
+        List<Node> nodes = new ArrayList<>();
+        graphDatabase.findNodes(TransportGraphBuilder.Labels.SERVICE).forEachRemaining(node -> {
+            if (routeId.equals(node.getProperty(GraphStaticKeys.ROUTE_ID))) {
+                nodes.add(node);
+            }
+        });
+        return nodes;
+    }
+
+    // nodes for each label and relationships for each type
+    private Map<String, Long> countGraph(GraphDatabase graphDatabase) {
+        Map<String, Long> counts = new HashMap<>();
+        try (Transaction tx = graphDatabase.beginTx()) {
+            for (TransportGraphBuilder.Labels label : TransportGraphBuilder.Labels.values()) {
+                graphDatabase.findNodes(label).forEachRemaining(node -> {
+                    counts.merge(label.name(), 1L, Long::sum);
+                    node.getRelationships(Direction.OUTGOING).forEach(relationship ->
+                            counts.merge(relationship.getType().name(), 1L, Long::sum));
+                });
+            }
+            tx.success();
+        }
+        return counts;
+    }
+}
@@ -3,6 +3,7 @@ package com.tramchester.unit.graph;
 import com.tramchester.domain.time.TramTime;
 import com.tramchester.domain.exceptions.TramchesterException;
 import com.tramchester.graph.CachedNodeOperations;
+import com.tramchester.graph.GraphAdjacency;
 import com.tramchester.graph.search.JourneyState;
 import com.tramchester.graph.NodeIdLabelMap;
 import com.tramchester.graph.states.NotStartedState;
@@ -29,7 +30,7 @@ public class JourneyStateTest {
     public void onceBeforeEachTestRuns() {
         List<String> destinationStationIds = Arrays.asList("destinationStationId");
         traversalState = new NotStartedState(new CachedNodeOperations(new NodeIdLabelMap()),
-                42, destinationStationIds, TestEnv.GET());
+                new GraphAdjacency(null, null), 42, destinationStationIds, TestEnv.GET());
         queryTime = TramTime.of(9, 15);
     }
 
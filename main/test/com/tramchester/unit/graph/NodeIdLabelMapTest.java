@@ -0,0 +1,52 @@
+package com.tramchester.unit.graph;
+
+import com.tramchester.graph.NodeIdLabelMap;
+import com.tramchester.graph.TransportGraphBuilder;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class NodeIdLabelMapTest {
+
+    private NodeIdLabelMap nodeIdLabelMap;
+
+    @Before
+    public void beforeEachTestRuns() {
+        nodeIdLabelMap = new NodeIdLabelMap();
+    }
+
+    @Test
+    public void shouldHaveLabelsForNodes() {
+        nodeIdLabelMap.put(42, TransportGraphBuilder.Labels.MINUTE);
+        nodeIdLabelMap.put(43, TransportGraphBuilder.Labels.ROUTE_STATION);
+
+        assertTrue(nodeIdLabelMap.has(TransportGraphBuilder.Labels.MINUTE, 42));
+        assertFalse(nodeIdLabelMap.has(TransportGraphBuilder.Labels.HOUR, 42));
+        assertTrue(nodeIdLabelMap.has(TransportGraphBuilder.Labels.ROUTE_STATION, 43));
+
+        assertEquals(TransportGraphBuilder.Labels.MINUTE, nodeIdLabelMap.getLabel(42));
+        assertEquals(TransportGraphBuilder.Labels.ROUTE_STATION, nodeIdLabelMap.getLabel(43));
+        assertNull(nodeIdLabelMap.getLabel(44));
+        assertEquals(43, nodeIdLabelMap.getHighestNodeId());
+    }
+
+    @Test
+    public void shouldGrowForHighNodeIds() {
+        long nodeId = 5_000_000L;
+        assertFalse(nodeIdLabelMap.has(TransportGraphBuilder.Labels.SERVICE, nodeId));
+
+        nodeIdLabelMap.put(nodeId, TransportGraphBuilder.Labels.SERVICE);
+        assertTrue(nodeIdLabelMap.has(TransportGraphBuilder.Labels.SERVICE, nodeId));
+        assertEquals(TransportGraphBuilder.Labels.SERVICE, nodeIdLabelMap.getLabel(nodeId));
+    }
+
+    @Test
+    public void shouldForgetNodesOnDispose() {
+        nodeIdLabelMap.put(7, TransportGraphBuilder.Labels.HOUR);
+        nodeIdLabelMap.dispose();
+
+        assertFalse(nodeIdLabelMap.has(TransportGraphBuilder.Labels.HOUR, 7));
+        assertEquals(-1, nodeIdLabelMap.getHighestNodeId());
+    }
+}
@@ -0,0 +1,46 @@
+package com.tramchester.unit.graph;
+
+import com.tramchester.graph.search.ParetoLabels;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ParetoLabelsTest {
+
+    @Test
+    public void shouldKeepLabelsNotBeatenOnBothCostAndChanges() {
+        ParetoLabels labels = new ParetoLabels();
+        assertTrue(labels.isEmpty());
+
+        assertTrue(labels.add(30, 2));
+        // slower but fewer changes
+        assertTrue(labels.add(40, 0));
+        // same as existing is kept, alternative with same cost
+        assertTrue(labels.add(30, 2));
+        // slower and more changes
+        assertFalse(labels.add(45, 1));
+        assertEquals(3, labels.size());
+    }
+
+    @Test
+    public void shouldDropLabelsBeatenByNewOne() {
+        ParetoLabels labels = new ParetoLabels();
+        labels.add(30, 2);
+        labels.add(40, 1);
+
+        assertTrue(labels.add(30, 1));
+        assertEquals(1, labels.size());
+    }
+
+    @Test
+    public void shouldDominatePartialPathsThatCannotImprove() {
+        ParetoLabels labels = new ParetoLabels();
+        labels.add(30, 1);
+
+        assertTrue(labels.dominated(31, 1));
+        assertTrue(labels.dominated(30, 2));
+        assertFalse(labels.dominated(30, 1));
+        assertFalse(labels.dominated(35, 0));
+        assertFalse(labels.dominated(20, 3));
+    }
+}
@@ -0,0 +1,68 @@
+package com.tramchester.unit.graph;
+
+import com.tramchester.domain.Journey;
+import com.tramchester.domain.WalkingStage;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.search.QueryTimeCutoff;
+import com.tramchester.testSupport.Stations;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class QueryTimeCutoffTest {
+
+    private final List<TramTime> queryTimes = Arrays.asList(TramTime.of(8, 0), TramTime.of(8, 6), TramTime.of(8, 12));
+
+    @Test
+    public void shouldSkipOnceWantedJourneysArriveBeforeAnyLaterJourneyCould() {
+        QueryTimeCutoff cutoff = new QueryTimeCutoff(2, 20, queryTimes, 112);
+
+        cutoff.add(journeyArriving(TramTime.of(8, 0), 22));
+        assertFalse(cutoff.canSkip(TramTime.of(8, 6)));
+
+        cutoff.add(journeyArriving(TramTime.of(8, 0), 30));
+        // 8:30 is not before 8:06 plus 20
+        assertFalse(cutoff.canSkip(TramTime.of(8, 6)));
+        // but is before 8:12 plus 20
+        assertTrue(cutoff.canSkip(TramTime.of(8, 12)));
+
+        cutoff.add(journeyArriving(TramTime.of(8, 0), 24));
+        assertTrue(cutoff.canSkip(TramTime.of(8, 6)));
+    }
+
+    @Test
+    public void shouldNotSkipWhenNoLowerBound() {
+        QueryTimeCutoff cutoff = new QueryTimeCutoff(1, 0, queryTimes, 112);
+
+        cutoff.add(journeyArriving(TramTime.of(8, 0), 5));
+        assertFalse(cutoff.canSkip(TramTime.of(8, 12)));
+    }
+
+    @Test
+    public void shouldNotSkipWhenArrivalsCouldBeAfterLateNight() {
+        List<TramTime> lateQueryTimes = Arrays.asList(TramTime.of(21, 0), TramTime.of(21, 6));
+        QueryTimeCutoff cutoff = new QueryTimeCutoff(1, 20, lateQueryTimes, 112);
+
+        cutoff.add(journeyArriving(TramTime.of(21, 0), 5));
+        assertFalse(cutoff.canSkip(TramTime.of(21, 6)));
+    }
+
+    @Test
+    public void shouldNotSkipWhenQueryTimesPassMidnight() {
+        List<TramTime> overMidnight = Arrays.asList(TramTime.of(23, 55), TramTime.of(0, 1));
+        QueryTimeCutoff cutoff = new QueryTimeCutoff(1, 5, overMidnight, 20);
+
+        cutoff.add(journeyArriving(TramTime.of(23, 55), 6));
+        assertFalse(cutoff.canSkip(TramTime.of(0, 1)));
+    }
+
+    private Journey journeyArriving(TramTime queryTime, int minutes) {
+        WalkingStage stage = new WalkingStage(Stations.Altrincham, Stations.NavigationRoad, minutes, queryTime, false);
+        return new Journey(Collections.singletonList(stage), queryTime);
+    }
+}
@@ -0,0 +1,347 @@
+package com.tramchester.unit.graph;
+
+import com.tramchester.Dependencies;
+import com.tramchester.domain.Journey;
+import com.tramchester.domain.places.MyLocationFactory;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.presentation.DTO.TravelTimeRowDTO;
+import com.tramchester.domain.presentation.LatLong;
+import com.tramchester.domain.presentation.TransportStage;
+import com.tramchester.domain.time.CreateQueryTimes;
+import com.tramchester.domain.time.TramServiceDate;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.geo.StationLocations;
+import com.tramchester.graph.GraphDatabase;
+import com.tramchester.graph.search.JourneyRequest;
+import com.tramchester.integration.IntegrationTramTestConfig;
+import com.tramchester.repository.PlatformRepository;
+import com.tramchester.resources.LocationJourneyPlanner;
+import com.tramchester.resources.RouteCodeToClassMapper;
+import com.tramchester.router.raptor.RaptorRouteCalculator;
+import com.tramchester.router.raptor.RaptorTimetable;
+import com.tramchester.router.raptor.TravelTimeMatrix;
+import com.tramchester.testSupport.TestEnv;
+import org.apache.commons.io.FileUtils;
+import org.junit.*;
+import org.neo4j.graphdb.Transaction;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static junit.framework.TestCase.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RaptorRouteCalculatorTest {
+
+    private static final String TMP_DB = "tmp_raptor.db";
+
+    private static TransportDataForTest transportData;
+    private static RaptorRouteCalculator calculator;
+    private static Dependencies dependencies;
+    private static GraphDatabase database;
+    private static LocationJourneyPlanner locationJourneyPlanner;
+    private static IntegrationTramTestConfig config;
+
+    private TramServiceDate queryDate;
+    private TramTime queryTime;
+    private Transaction tx;
+    private JourneyRequest journeyRequest;
+
+    @BeforeClass
+    public static void onceBeforeAllTestRuns() throws IOException {
+        dependencies = new Dependencies();
+
+        StationLocations stationLocations = dependencies.get(StationLocations.class);
+        transportData = new TransportDataForTest(stationLocations);
+
+        config = new IntegrationTramTestConfig(TMP_DB) {
+            @Override
+            public boolean getInMemoryRouting() {
+                return true;
+            }
+        };
+        FileUtils.deleteDirectory(config.getDBPath().toFile());
+
+        dependencies.initialise(config, transportData);
+
+        database = dependencies.get(GraphDatabase.class);
+        calculator = dependencies.get(RaptorRouteCalculator.class);
+        locationJourneyPlanner = dependencies.get(LocationJourneyPlanner.class);
+    }
+
+    @AfterClass
+    public static void onceAfterAllTestsRun() throws IOException {
+        dependencies.close();
+        FileUtils.deleteDirectory(config.getDBPath().toFile());
+    }
+
+    @Before
+    public void beforeEachTestRuns() {
+        queryDate = new TramServiceDate(LocalDate.of(2014,6,30));
+        queryTime = TramTime.of(7, 57);
+        journeyRequest = new JourneyRequest(queryDate, queryTime, false);
+        tx = database.beginTx();
+    }
+
+    @After
+    public void afterEachTestRuns() {
+        tx.close();
+    }
+
+    @Test
+    public void shouldTestSimpleJourneyIsPossible() {
+        Set<Journey> journeys = calculator.calculateRoute(transportData.getFirst(),
+                transportData.getSecondStation(), journeyRequest).collect(Collectors.toSet());
+        assertEquals(1, journeys.size());
+        assertFirstAndLast(journeys, TransportDataForTest.FIRST_STATION, TransportDataForTest.SECOND_STATION, 0);
+
+        Journey journey = journeys.iterator().next();
+        TransportStage stage = journey.getStages().get(0);
+        assertEquals(TramTime.of(8,0), stage.getFirstDepartureTime());
+        assertEquals(TramTime.of(8,11), stage.getExpectedArrivalTime());
+    }
+
+    @Test
+    public void shouldTestSimpleJourneyArrivingBy() {
+        Set<Journey> journeys = calculator.calculateRoute(transportData.getFirst(), transportData.getSecondStation(),
+                new JourneyRequest(queryDate, TramTime.of(8, 11), true)).collect(Collectors.toSet());
+        assertEquals(1, journeys.size());
+        assertFirstAndLast(journeys, TransportDataForTest.FIRST_STATION, TransportDataForTest.SECOND_STATION, 0);
+
+        TransportStage stage = journeys.iterator().next().getStages().get(0);
+        assertEquals(TramTime.of(8,0), stage.getFirstDepartureTime());
+
+        journeys = calculator.calculateRoute(transportData.getFirst(), transportData.getSecondStation(),
+                new JourneyRequest(queryDate, TramTime.of(8, 10), true)).collect(Collectors.toSet());
+        assertEquals(0, journeys.size());
+    }
+
+    @Test
+    public void shouldTestJourneyViaInterchangeArrivingBy() {
+        Set<Journey> journeys = calculator.calculateRoute(transportData.getFirst(), transportData.getFourthStation(),
+                new JourneyRequest(queryDate, TramTime.of(8, 40), true)).collect(Collectors.toSet());
+        assertEquals(1, journeys.size());
+        journeys.forEach(journey -> {
+            List<TransportStage> stages = journey.getStages();
+            assertEquals(2, stages.size());
+            assertEquals(TransportDataForTest.INTERCHANGE, stages.get(1).getFirstStation().getId());
+            assertTrue(stages.get(1).getExpectedArrivalTime().isBefore(TramTime.of(8, 41)));
+        });
+    }
+
+    @Test
+    public void shouldTestSimpleJourneyIsPossibleToInterchange() {
+        Set<Journey> journeys = calculator.calculateRoute(transportData.getFirst(),
+                transportData.getInterchange(), journeyRequest).collect(Collectors.toSet());
+        assertEquals(1, journeys.size());
+        assertFirstAndLast(journeys, TransportDataForTest.FIRST_STATION, TransportDataForTest.INTERCHANGE, 1);
+        journeys.forEach(journey -> assertEquals(1, journey.getStages().size()));
+    }
+
+    @Test
+    public void shouldTestSimpleJourneyIsNotPossible() {
+        Set<Journey> journeys = calculator.calculateRoute(transportData.getFirst(),
+                transportData.getInterchange(), new JourneyRequest(queryDate, TramTime.of(9, 0),
+                        false)).collect(Collectors.toSet());
+        assertEquals(0, journeys.size());
+    }
+
+    @Test
+    public void shouldTestNoJourneySecondToStart() {
+        Set<Journey> journeys = calculator.calculateRoute(transportData.getSecondStation(),
+                transportData.getFirst(), journeyRequest).collect(Collectors.toSet());
+        assertEquals(0, journeys.size());
+    }
+
+    @Test
+    public void shouldTestJourneyEndOverWaitLimitIsPossible() {
+        Set<Journey> journeys = calculator.calculateRoute(transportData.getFirst(),
+                transportData.getLast(), journeyRequest).collect(Collectors.toSet());
+        assertEquals(1, journeys.size());
+        assertFirstAndLast(journeys, TransportDataForTest.FIRST_STATION, TransportDataForTest.LAST_STATION, 2);
+    }
+
+    @Test
+    public void shouldTestJourneyInterchangeToFiveRespectsMaxWait() {
+        Set<Journey> journeys = calculator.calculateRoute(transportData.getInterchange(),
+                transportData.getFifthStation(), journeyRequest).collect(Collectors.toSet());
+        assertEquals(0, journeys.size());
+
+        journeys = calculator.calculateRoute(transportData.getInterchange(), transportData.getFifthStation(),
+                new JourneyRequest(queryDate, TramTime.of(8, 10), false)).collect(Collectors.toSet());
+        assertEquals(1, journeys.size());
+    }
+
+    @Test
+    public void shouldTestJourneyViaInterchange() {
+        Set<Journey> journeys = calculator.calculateRoute(transportData.getFirst(),
+                transportData.getFourthStation(), journeyRequest).collect(Collectors.toSet());
+        assertEquals(1, journeys.size());
+        journeys.forEach(journey -> {
+            List<TransportStage> stages = journey.getStages();
+            assertEquals(2, stages.size());
+            assertEquals(TransportDataForTest.INTERCHANGE, stages.get(1).getFirstStation().getId());
+            assertTrue(stages.get(1).getFirstDepartureTime().isAfter(stages.get(0).getExpectedArrivalTime()));
+            stages.forEach(stage -> assertTrue(stage.getBoardingPlatform().isPresent()));
+        });
+    }
+
+    @Test
+    public void shouldHaveJourneyWithLocationBasedStart() {
+        LatLong origin = TestEnv.nearAltrincham;
+
+        Set<Journey> journeys = locationJourneyPlanner.quickestRouteForLocation(origin, transportData.getSecondStation(),
+                new JourneyRequest(queryDate, TramTime.of(7,55), false)).collect(Collectors.toSet());
+
+        assertEquals(1, journeys.size());
+        journeys.forEach(journey -> {
+            List<TransportStage> stages = journey.getStages();
+            assertEquals(2, stages.size());
+            assertTrue(stages.get(0).getMode().isWalk());
+        });
+    }
+
+    @Test
+    public void shouldHaveJourneyWithLocationBasedEnd() {
+        LatLong destination = TestEnv.nearShudehill;
+
+        Set<Journey> journeys = locationJourneyPlanner.quickestRouteForLocation(transportData.getSecond(), destination,
+                new JourneyRequest(queryDate, TramTime.of(7,55), false)).collect(Collectors.toSet());
+
+        assertEquals(1, journeys.size());
+        journeys.forEach(journey -> {
+            List<TransportStage> stages = journey.getStages();
+            assertEquals(1, stages.size());
+            assertTrue(stages.get(0).getMode().isWalk());
+        });
+    }
+
+    @Test
+    public void shouldFindSameJourneysFromRangeScanAsFromScanForEachTime() {
+        // interchange to five is only within the max wait from 8:10
+        List<TramTime> queryTimes = Arrays.asList(TramTime.of(7, 45), TramTime.of(7, 57), TramTime.of(8, 10),
+                TramTime.of(8, 21));
+        RaptorRouteCalculator rangeCalculator = createCalculator(queryTimes);
+
+        List<Station[]> pairs = Arrays.asList(
+                new Station[]{transportData.getFirst(), transportData.getLast()},
+                new Station[]{transportData.getFirst(), transportData.getFourthStation()},
+                new Station[]{transportData.getInterchange(), transportData.getFourthStation()},
+                new Station[]{transportData.getInterchange(), transportData.getFifthStation()});
+
+        for (Station[] pair : pairs) {
+            List<String> expected = journeysFromEachTime(pair[0], pair[1], queryTimes);
+            assertFalse(expected.isEmpty());
+            List<String> found = rangeCalculator.calculateRoute(pair[0], pair[1], journeyRequest).
+                    map(Journey::toString).collect(Collectors.toList());
+            assertEquals(expected, found);
+        }
+    }
+
+    @Test
+    public void shouldImproveFewerLabelsFromRangeScanThanFromScanForEachTime() {
+        // each time catches the same 8:00 tram from first, so the earlier times have no labels to improve
+        List<TramTime> queryTimes = Arrays.asList(TramTime.of(7, 45), TramTime.of(7, 50), TramTime.of(7, 57));
+        Station start = transportData.getFirst();
+        Station dest = transportData.getLast();
+
+        RaptorRouteCalculator rangeCalculator = createCalculator(queryTimes);
+        assertEquals(1, rangeCalculator.calculateRoute(start, dest, journeyRequest).count());
+        long rangeRelaxed = rangeCalculator.getNumberRelaxed();
+
+        long eachRelaxed = 0;
+        for (TramTime queryTime : queryTimes) {
+            RaptorRouteCalculator single = createCalculator(Collections.singletonList(queryTime));
+            assertEquals(1, single.calculateRoute(start, dest, journeyRequest).count());
+            eachRelaxed = eachRelaxed + single.getNumberRelaxed();
+        }
+
+        assertTrue(rangeRelaxed > 0);
+        assertTrue(rangeRelaxed < eachRelaxed);
+        assertEquals(eachRelaxed, rangeRelaxed * queryTimes.size());
+    }
+
+    // as the range scan, latest time first and only those arriving sooner than journeys with as many or fewer
+    // vehicles leaving later, earlier times go first
+    private List<String> journeysFromEachTime(Station start, Station dest, List<TramTime> queryTimes) {
+        List<String> journeys = new ArrayList<>();
+        Map<Integer, TramTime> reported = new HashMap<>();
+        for (int index = queryTimes.size() - 1; index >= 0; index--) {
+            RaptorRouteCalculator single = createCalculator(Collections.singletonList(queryTimes.get(index)));
+            List<String> found = new ArrayList<>();
+            single.calculateRoute(start, dest, journeyRequest).forEach(journey -> {
+                List<TransportStage> stages = journey.getStages();
+                TramTime arrival = stages.get(stages.size() - 1).getExpectedArrivalTime();
+                boolean dominated = reported.entrySet().stream().anyMatch(entry ->
+                        entry.getKey() <= stages.size() && !arrival.isBefore(entry.getValue()));
+                if (!dominated) {
+                    reported.put(stages.size(), arrival);
+                    found.add(journey.toString());
+                }
+            });
+            journeys.addAll(0, found);
+        }
+        return journeys;
+    }
+
+    private RaptorRouteCalculator createCalculator(List<TramTime> queryTimes) {
+        CreateQueryTimes createQueryTimes = new CreateQueryTimes(config) {
+            @Override
+            public List<TramTime> generate(TramTime initialQueryTime, boolean walkAtStart) {
+                return queryTimes;
+            }
+        };
+        return new RaptorRouteCalculator(dependencies.get(RaptorTimetable.class), transportData, config,
+                createQueryTimes, dependencies.get(RouteCodeToClassMapper.class),
+                dependencies.get(MyLocationFactory.class), dependencies.get(PlatformRepository.class));
+    }
+
+    @Test
+    public void shouldHaveTravelTimeMatrixMatchingJourneys() {
+        TravelTimeMatrix matrix = dependencies.get(TravelTimeMatrix.class);
+        List<String> stationIds = matrix.getStationIds();
+
+        Map<String, TravelTimeRowDTO> rows = new HashMap<>();
+        matrix.calculate(queryDate, Collections.singletonList(queryTime), RaptorTimetable.MAX_CHANGES,
+                row -> rows.put(row.getOrigin(), row));
+        assertEquals(stationIds.size(), rows.size());
+
+        TravelTimeRowDTO fromFirst = rows.get(TransportDataForTest.FIRST_STATION);
+        int second = stationIds.indexOf(TransportDataForTest.SECOND_STATION);
+        assertEquals(14, fromFirst.getDurations()[second]);
+        assertEquals(0, fromFirst.getChanges()[second]);
+        int fourth = stationIds.indexOf(transportData.getFourthStation().getId());
+        assertEquals(34, fromFirst.getDurations()[fourth]);
+        assertEquals(1, fromFirst.getChanges()[fourth]);
+
+        TravelTimeRowDTO fromSecond = rows.get(TransportDataForTest.SECOND_STATION);
+        int first = stationIds.indexOf(TransportDataForTest.FIRST_STATION);
+        assertEquals(TravelTimeMatrix.NOT_REACHABLE, fromSecond.getDurations()[first]);
+    }
+
+    @Test
+    public void shouldOnlyCalculateOneTravelTimeMatrixAtATime() {
+        TravelTimeMatrix matrix = dependencies.get(TravelTimeMatrix.class);
+
+        assertTrue(matrix.tryReserve());
+        assertFalse(matrix.tryReserve());
+        matrix.release();
+        assertTrue(matrix.tryReserve());
+        matrix.release();
+    }
+
+    private void assertFirstAndLast(Set<Journey> journeys, String firstStation, String lastStation, int passedStops) {
+        Journey journey = journeys.iterator().next();
+        TransportStage vehicleStage = journey.getStages().get(0);
+        assertEquals(firstStation, vehicleStage.getFirstStation().getId());
+        assertEquals(lastStation, vehicleStage.getLastStation().getId());
+        assertEquals(passedStops, vehicleStage.getPassedStops());
+        assertEquals("RouteClass1", vehicleStage.getDisplayClass());
+        assertTrue(vehicleStage.getBoardingPlatform().isPresent());
+        assertTrue(vehicleStage.getFirstDepartureTime().isAfter(queryTime));
+        assertTrue(vehicleStage.getDuration() > 0);
+    }
+}
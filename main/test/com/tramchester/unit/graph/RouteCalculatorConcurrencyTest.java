@@ -0,0 +1,123 @@
+package com.tramchester.unit.graph;
+
+import com.tramchester.Dependencies;
+import com.tramchester.domain.Journey;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.time.TramServiceDate;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.geo.CoordinateTransforms;
+import com.tramchester.geo.StationLocations;
+import com.tramchester.graph.GraphDatabase;
+import com.tramchester.graph.search.JourneyRequest;
+import com.tramchester.graph.search.RouteCalculator;
+import com.tramchester.integration.IntegrationTramTestConfig;
+import com.tramchester.resources.LocationJourneyPlanner;
+import com.tramchester.testSupport.TestEnv;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.Transaction;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class RouteCalculatorConcurrencyTest {
+    private static final String TMP_DB = "tmp_route_calculator_concurrency.db";
+
+    private final TramServiceDate queryDate = new TramServiceDate(LocalDate.of(2014, 6, 30));
+    private StationLocations stationLocations;
+    private TransportDataForTest transportData;
+    private Dependencies dependencies;
+
+    @Before
+    public void beforeEachTestRuns() throws IOException {
+        FileUtils.deleteDirectory(new IntegrationTramTestConfig(TMP_DB).getDBPath().toFile());
+        stationLocations = new StationLocations(new CoordinateTransforms());
+
+        // builds the graph, query times searched one after another
+        dependencies = new Dependencies();
+        transportData = new TransportDataForTest(stationLocations);
+        dependencies.initialise(createConfig(0), transportData);
+    }
+
+    @After
+    public void afterEachTestRuns() throws IOException {
+        dependencies.close();
+        FileUtils.deleteDirectory(new IntegrationTramTestConfig(TMP_DB).getDBPath().toFile());
+    }
+
+    @Test
+    public void shouldFindSameJourneysWhenQueryTimesSearchedConcurrently() {
+        List<String> sequential = findJourneys();
+        assertFalse(sequential.isEmpty());
+
+        dependencies.close();
+        dependencies = new Dependencies();
+        // graph now exists so not rebuilt, query times searched on their own threads
+        transportData = new TransportDataForTest(stationLocations);
+        dependencies.initialise(createConfig(3), transportData);
+
+        assertEquals(sequential, findJourneys());
+    }
+
+    private List<String> findJourneys() {
+        RouteCalculator calculator = dependencies.get(RouteCalculator.class);
+        LocationJourneyPlanner locationJourneyPlanner = dependencies.get(LocationJourneyPlanner.class);
+        JourneyRequest journeyRequest = new JourneyRequest(queryDate, TramTime.of(7, 57), false);
+        JourneyRequest paretoRequest = new JourneyRequest(queryDate, TramTime.of(7, 57), false,
+                Integer.MAX_VALUE, true);
+
+        List<String> found = new ArrayList<>();
+        GraphDatabase database = dependencies.get(GraphDatabase.class);
+        try (Transaction tx = database.beginTx()) {
+            found.addAll(journeys(calculator, transportData.getFirst(), transportData.getSecond(), journeyRequest));
+            found.addAll(journeys(calculator, transportData.getFirst(), transportData.getLast(), journeyRequest));
+            found.addAll(journeys(calculator, transportData.getFirst(), transportData.getFourthStation(),
+                    journeyRequest));
+            found.addAll(journeys(calculator, transportData.getInterchange(), transportData.getFifthStation(),
+                    journeyRequest));
+            found.addAll(journeys(calculator, transportData.getFirst(), transportData.getFifthStation(),
+                    paretoRequest));
+            found.addAll(collect(locationJourneyPlanner.quickestRouteForLocation(TestEnv.nearAltrincham,
+                    transportData.getSecondStation(), new JourneyRequest(queryDate, TramTime.of(7, 55), false))));
+            tx.success();
+        }
+        return found;
+    }
+
+    private List<String> journeys(RouteCalculator calculator, Station start, Station dest, JourneyRequest request) {
+        return collect(calculator.calculateRoute(start, dest, request));
+    }
+
+    // journeys do not implement equals
+    private List<String> collect(Stream<Journey> journeys) {
+        List<String> result = journeys.map(Journey::toString).collect(Collectors.toList());
+        journeys.close();
+        return result;
+    }
+
+    private IntegrationTramTestConfig createConfig(int queryThreads) {
+        return new IntegrationTramTestConfig(TMP_DB) {
+            @Override
+            public int getNumberQueryThreads() {
+                return queryThreads;
+            }
+
+            @Override
+            public Path getDataPath() {
+                // no source zip, so the timetable is identified by its services
+                return Paths.get("tmp_route_calculator_concurrency_data");
+            }
+        };
+    }
+}
@@ -0,0 +1,121 @@
+package com.tramchester.unit.graph;
+
+import com.tramchester.config.TramchesterConfig;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.CachedNodeOperations;
+import com.tramchester.graph.NodeIdLabelMap;
+import com.tramchester.graph.search.SearchContext;
+import com.tramchester.graph.search.SearchContexts;
+import com.tramchester.testSupport.TestConfig;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SearchContextTest {
+
+    private SearchContexts searchContexts;
+
+    @Before
+    public void beforeEachTestRuns() {
+        searchContexts = createContexts(2);
+    }
+
+    @Test
+    public void shouldRecordVisitsAndBusStations() {
+        SearchContext context = searchContexts.acquire();
+
+        assertFalse(context.hasVisit(5));
+        context.putVisit(5, TramTime.of(8, 42), 2);
+        assertTrue(context.hasVisit(5));
+        assertEquals(TramTime.of(8, 42), context.getVisit(5));
+        assertEquals(2, context.getVisitChanges(5));
+
+        assertTrue(context.firstVisitToBusStation(7));
+        assertFalse(context.firstVisitToBusStation(7));
+        context.release();
+    }
+
+    @Test
+    public void shouldGrowForNodesBeyondExpected() {
+        SearchContext context = searchContexts.acquire();
+
+        assertFalse(context.hasVisit(1000));
+        context.putVisit(1000, TramTime.of(23, 59), 0);
+        assertTrue(context.hasVisit(1000));
+        assertEquals(TramTime.of(23, 59), context.getVisit(1000));
+        context.release();
+    }
+
+    @Test
+    public void shouldForgetPreviousSearchOnReuse() {
+        SearchContext first = searchContexts.acquire();
+        first.putVisit(3, TramTime.of(9, 0), 0);
+        first.firstVisitToBusStation(4);
+        first.release();
+
+        SearchContext second = searchContexts.acquire();
+        assertSame(first, second);
+        assertFalse(second.hasVisit(3));
+        assertTrue(second.firstVisitToBusStation(4));
+        second.release();
+    }
+
+    @Test
+    public void shouldNotShareContextBetweenConcurrentSearches() {
+        SearchContext first = searchContexts.acquire();
+        SearchContext second = searchContexts.acquire();
+        assertNotSame(first, second);
+
+        first.putVisit(3, TramTime.of(9, 0), 0);
+        assertFalse(second.hasVisit(3));
+        second.release();
+        first.release();
+    }
+
+    @Test
+    public void shouldOnlyKeepOneContextPerQueryThread() {
+        List<SearchContext> concurrent = Arrays.asList(searchContexts.acquire(), searchContexts.acquire(),
+                searchContexts.acquire());
+        concurrent.forEach(SearchContext::release);
+        long kept = searchContexts.getKeptBytes();
+
+        SearchContext first = searchContexts.acquire();
+        SearchContext second = searchContexts.acquire();
+        SearchContext third = searchContexts.acquire();
+
+        assertTrue(concurrent.contains(first));
+        assertTrue(concurrent.contains(second));
+        assertFalse(concurrent.contains(third));
+        assertTrue(kept > 0);
+        assertEquals(0, searchContexts.getKeptBytes());
+    }
+
+    @Test
+    public void shouldOnlyReleaseOnce() {
+        SearchContext context = searchContexts.acquire();
+        context.release();
+        context.release();
+
+        assertNotSame(searchContexts.acquire(), searchContexts.acquire());
+    }
+
+    private SearchContexts createContexts(int queryThreads) {
+        TramchesterConfig config = new TestConfig() {
+            @Override
+            public Path getDataFolder() {
+                return null;
+            }
+
+            @Override
+            public int getNumberQueryThreads() {
+                return queryThreads;
+            }
+        };
+        return new SearchContexts(config, new CachedNodeOperations(new NodeIdLabelMap()));
+    }
+}
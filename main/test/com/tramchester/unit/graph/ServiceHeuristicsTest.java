@@ -7,6 +7,7 @@ import com.tramchester.domain.time.TramTime;
 import com.tramchester.graph.*;
 import com.tramchester.graph.search.*;
 import com.tramchester.integration.IntegrationTramTestConfig;
+import com.tramchester.repository.BusReachabilityRepository;
 import com.tramchester.repository.StationRepository;
 import com.tramchester.testSupport.Stations;
 import com.tramchester.repository.TramReachabilityRepository;
@@ -35,6 +36,7 @@ public class ServiceHeuristicsTest extends EasyMockSupport {
     private RunningServices runningServices;
     private Path path;
     private TramReachabilityRepository tramReachabilityRepository;
+    private BusReachabilityRepository busReachabilityRepository;
     private int maxPathLength = 400;
     private StationRepository stationRepository;
     private ProvidesLocalNow providesLocalNow;
@@ -47,6 +49,7 @@ public class ServiceHeuristicsTest extends EasyMockSupport {
         path = createMock(Path.class);
         providesLocalNow = new ProvidesLocalNow();
         tramReachabilityRepository = createMock(TramReachabilityRepository.class);
+        busReachabilityRepository = createMock(BusReachabilityRepository.class);
         stationRepository = createMock(StationRepository.class);
     }
 
@@ -54,7 +57,7 @@ public class ServiceHeuristicsTest extends EasyMockSupport {
     public void shouldCheckNodeBasedOnServiceId() {
         TramTime queryTime = TramTime.of(8,1);
 
-        ServiceHeuristics serviceHeuristics = new ServiceHeuristics(stationRepository, nodeOperations, tramReachabilityRepository, config30MinsWait,
+        ServiceHeuristics serviceHeuristics = new ServiceHeuristics(stationRepository, nodeOperations, tramReachabilityRepository, busReachabilityRepository, config30MinsWait,
                 queryTime, runningServices, endStationIds, new ServiceReasons(providesLocalNow), maxPathLength, 5);
 
         EasyMock.expect(runningServices.isRunning("serviceIdA")).andReturn(true);
@@ -81,7 +84,7 @@ public class ServiceHeuristicsTest extends EasyMockSupport {
         LocalTime elaspsedTime = LocalTime.of(9,1);
         TramTime elaspsedTramTime = TramTime.of(elaspsedTime);
 
-        ServiceHeuristics serviceHeuristics = new ServiceHeuristics(stationRepository, nodeOperations, tramReachabilityRepository, config30MinsWait,
+        ServiceHeuristics serviceHeuristics = new ServiceHeuristics(stationRepository, nodeOperations, tramReachabilityRepository, busReachabilityRepository, config30MinsWait,
                 queryTime, runningServices, endStationIds, new ServiceReasons(providesLocalNow), maxPathLength, 10);
 
         //runningServices.add("serviceIdA");
@@ -142,7 +145,7 @@ public class ServiceHeuristicsTest extends EasyMockSupport {
     public void shouldBeInterestedInCorrectHours() {
         TramTime queryTime = TramTime.of(9,1);
 
-        ServiceHeuristics serviceHeuristics = new ServiceHeuristics(stationRepository, nodeOperations, tramReachabilityRepository, config30MinsWait,
+        ServiceHeuristics serviceHeuristics = new ServiceHeuristics(stationRepository, nodeOperations, tramReachabilityRepository, busReachabilityRepository, config30MinsWait,
                 queryTime, runningServices, endStationIds, new ServiceReasons(providesLocalNow), maxPathLength, 5);
 
         // querytime + costSoFar + maxWait (for board) = latest time could arrive here
@@ -161,7 +164,7 @@ public class ServiceHeuristicsTest extends EasyMockSupport {
     public void shouldBeInterestedInCorrectHoursCrossesNextHour() {
         TramTime queryTime = TramTime.of(7,0);
 
-        ServiceHeuristics serviceHeuristics = new ServiceHeuristics(stationRepository, nodeOperations, tramReachabilityRepository, config30MinsWait,
+        ServiceHeuristics serviceHeuristics = new ServiceHeuristics(stationRepository, nodeOperations, tramReachabilityRepository, busReachabilityRepository, config30MinsWait,
                 queryTime, runningServices, endStationIds, new ServiceReasons(providesLocalNow), maxPathLength, 5);
 
         TramTime elapsed = TramTime.of(10,29);
@@ -175,7 +178,7 @@ public class ServiceHeuristicsTest extends EasyMockSupport {
     public void shouldBeInterestedInCorrectHoursPriorToMidnight() {
         TramTime queryTime = TramTime.of(23,10);
 
-        ServiceHeuristics serviceHeuristics = new ServiceHeuristics(stationRepository, nodeOperations, tramReachabilityRepository, config30MinsWait,
+        ServiceHeuristics serviceHeuristics = new ServiceHeuristics(stationRepository, nodeOperations, tramReachabilityRepository, busReachabilityRepository, config30MinsWait,
                 queryTime, runningServices, endStationIds, new ServiceReasons(providesLocalNow), maxPathLength, 5);
 
         int costSoFar = 15;  // 23.25
@@ -191,7 +194,7 @@ public class ServiceHeuristicsTest extends EasyMockSupport {
     public void shouldBeInterestedInCorrectHoursPriorAcrossMidnight() {
         TramTime queryTime = TramTime.of(23,40);
 
-        ServiceHeuristics serviceHeuristics = new ServiceHeuristics(stationRepository, nodeOperations, tramReachabilityRepository, config30MinsWait,
+        ServiceHeuristics serviceHeuristics = new ServiceHeuristics(stationRepository, nodeOperations, tramReachabilityRepository, busReachabilityRepository, config30MinsWait,
                 queryTime, runningServices, endStationIds, new ServiceReasons(providesLocalNow), maxPathLength, 5);
 
         int costSoFar = 15;  // 23.55
@@ -208,7 +211,7 @@ public class ServiceHeuristicsTest extends EasyMockSupport {
     public void shouldBeInterestedInCorrectHoursEarlyMorning() {
         TramTime queryTime = TramTime.of(0,5);
 
-        ServiceHeuristics serviceHeuristics = new ServiceHeuristics(stationRepository, nodeOperations, tramReachabilityRepository, config30MinsWait,
+        ServiceHeuristics serviceHeuristics = new ServiceHeuristics(stationRepository, nodeOperations, tramReachabilityRepository, busReachabilityRepository, config30MinsWait,
                 queryTime, runningServices, endStationIds, new ServiceReasons(providesLocalNow), maxPathLength, 5);
 
         int costSoFar = 15;  // 23.55
@@ -223,7 +226,7 @@ public class ServiceHeuristicsTest extends EasyMockSupport {
     public void shouldBeInterestedInCorrectHoursEarlyMorningNextHour() {
         TramTime queryTime = TramTime.of(0,50);
 
-        ServiceHeuristics serviceHeuristics = new ServiceHeuristics(stationRepository, nodeOperations, tramReachabilityRepository, config30MinsWait,
+        ServiceHeuristics serviceHeuristics = new ServiceHeuristics(stationRepository, nodeOperations, tramReachabilityRepository, busReachabilityRepository, config30MinsWait,
                 queryTime, runningServices, endStationIds, new ServiceReasons(providesLocalNow), maxPathLength, 5);
 
         int costSoFar = 15;  // 23.55
@@ -238,7 +241,7 @@ public class ServiceHeuristicsTest extends EasyMockSupport {
     public void shouldCheckTimeAtNodeCorrectly() {
         TramTime queryTime = TramTime.of(7,0);
 
-        ServiceHeuristics serviceHeuristics = new ServiceHeuristics(stationRepository, nodeOperations, tramReachabilityRepository, config30MinsWait,
+        ServiceHeuristics serviceHeuristics = new ServiceHeuristics(stationRepository, nodeOperations, tramReachabilityRepository, busReachabilityRepository, config30MinsWait,
                 queryTime, runningServices, endStationIds, new ServiceReasons(providesLocalNow), maxPathLength, 5);
 
         LocalTime nodeTime = LocalTime.of(8, 0);
@@ -266,7 +269,7 @@ public class ServiceHeuristicsTest extends EasyMockSupport {
     public void shouldCheckTimeAtNodeCorrectlyOvermidnight() {
         TramTime queryTime = TramTime.of(23,50);
 
-        ServiceHeuristics serviceHeuristics = new ServiceHeuristics(stationRepository, nodeOperations, tramReachabilityRepository, config30MinsWait,
+        ServiceHeuristics serviceHeuristics = new ServiceHeuristics(stationRepository, nodeOperations, tramReachabilityRepository, busReachabilityRepository, config30MinsWait,
                 queryTime, runningServices, endStationIds, new ServiceReasons(providesLocalNow), maxPathLength, 5);
 
         LocalTime nodeTime = LocalTime.of(0, 5);
@@ -295,7 +298,7 @@ public class ServiceHeuristicsTest extends EasyMockSupport {
     public void shouldBeInterestedInCorrectHoursOverMidnightLongerJourney() {
         TramTime queryTime = TramTime.of(23,10);
 
-        ServiceHeuristics serviceHeuristics = new ServiceHeuristics(stationRepository, nodeOperations, tramReachabilityRepository, config30MinsWait,
+        ServiceHeuristics serviceHeuristics = new ServiceHeuristics(stationRepository, nodeOperations, tramReachabilityRepository, busReachabilityRepository, config30MinsWait,
                 queryTime, runningServices, endStationIds, new ServiceReasons(providesLocalNow), maxPathLength, 5);
 
         TramTime elapsed = TramTime.of(0,1);
@@ -310,7 +313,7 @@ public class ServiceHeuristicsTest extends EasyMockSupport {
     public void shouldCheckMaximumDurationCorrectly() {
         TramTime queryTime = TramTime.of(11,20);
 
-        ServiceHeuristics serviceHeuristics = new ServiceHeuristics(stationRepository, nodeOperations, tramReachabilityRepository,
+        ServiceHeuristics serviceHeuristics = new ServiceHeuristics(stationRepository, nodeOperations, tramReachabilityRepository, busReachabilityRepository,
                 config30MinsWait, queryTime, runningServices, endStationIds, new ServiceReasons(providesLocalNow), maxPathLength, 5);
 
         int overallMaxLen = config30MinsWait.getMaxJourneyDuration();
@@ -326,7 +329,7 @@ public class ServiceHeuristicsTest extends EasyMockSupport {
     public void shouldCheckChangeLimit() {
         TramTime queryTime = TramTime.of(11,20);
 
-        ServiceHeuristics serviceHeuristics = new ServiceHeuristics(stationRepository, nodeOperations, tramReachabilityRepository,
+        ServiceHeuristics serviceHeuristics = new ServiceHeuristics(stationRepository, nodeOperations, tramReachabilityRepository, busReachabilityRepository,
                 config30MinsWait, queryTime, runningServices, endStationIds, new ServiceReasons(providesLocalNow), maxPathLength, 2);
 
         assertTrue(serviceHeuristics.checkNumberChanges(0, path).isValid());
@@ -339,7 +342,7 @@ public class ServiceHeuristicsTest extends EasyMockSupport {
     public void shouldCheckMaximumDurationCorrectlyAcrossMidnight() {
         TramTime queryTime = TramTime.of(23,20);
 
-        ServiceHeuristics serviceHeuristics = new ServiceHeuristics(stationRepository, nodeOperations, tramReachabilityRepository,
+        ServiceHeuristics serviceHeuristics = new ServiceHeuristics(stationRepository, nodeOperations, tramReachabilityRepository, busReachabilityRepository,
                 config30MinsWait, queryTime, runningServices, endStationIds, new ServiceReasons(providesLocalNow), maxPathLength, 5);
 
         int overallMaxLen = config30MinsWait.getMaxJourneyDuration();
@@ -0,0 +1,129 @@
+package com.tramchester.unit.graph;
+
+import com.tramchester.Dependencies;
+import com.tramchester.domain.places.Station;
+import com.tramchester.domain.time.ProvidesLocalNow;
+import com.tramchester.domain.time.TramServiceDate;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.geo.StationLocations;
+import com.tramchester.graph.CachedNodeOperations;
+import com.tramchester.graph.GraphAdjacency;
+import com.tramchester.graph.GraphDatabase;
+import com.tramchester.graph.NodeIdQuery;
+import com.tramchester.graph.search.*;
+import com.tramchester.integration.IntegrationTramTestConfig;
+import com.tramchester.repository.BusReachabilityRepository;
+import com.tramchester.repository.RunningServices;
+import com.tramchester.repository.TramReachabilityRepository;
+import com.tramchester.repository.TravelTimeLowerBounds;
+import org.apache.commons.io.FileUtils;
+import org.junit.*;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Path;
+import org.neo4j.graphdb.Transaction;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class TramNetworkTraverserTest {
+
+    private static final String TMP_DB = "tmp_network_traverser.db";
+
+    private static TransportDataForTest transportData;
+    private static Dependencies dependencies;
+    private static GraphDatabase database;
+    private static IntegrationTramTestConfig config;
+
+    private Transaction tx;
+
+    @BeforeClass
+    public static void onceBeforeAllTestRuns() throws IOException {
+        dependencies = new Dependencies();
+
+        StationLocations stationLocations = dependencies.get(StationLocations.class);
+        transportData = new TransportDataForTest(stationLocations);
+
+        config = new IntegrationTramTestConfig(TMP_DB);
+        FileUtils.deleteDirectory(config.getDBPath().toFile());
+
+        dependencies.initialise(config, transportData);
+
+        database = dependencies.get(GraphDatabase.class);
+    }
+
+    @AfterClass
+    public static void onceAfterAllTestsRun() throws IOException {
+        dependencies.close();
+        FileUtils.deleteDirectory(config.getDBPath().toFile());
+    }
+
+    @Before
+    public void beforeEachTestRuns() {
+        tx = database.beginTx();
+    }
+
+    @After
+    public void afterEachTestRuns() {
+        tx.close();
+    }
+
+    @Test
+    public void shouldReleaseSearchContextWhenTraversalRunsOutWithoutClose() {
+        SearchContexts searchContexts = dependencies.get(SearchContexts.class);
+        SearchContext kept = searchContexts.acquire();
+        kept.release();
+
+        Stream<Path> paths = findPaths(transportData.getFirst(), transportData.getSecondStation());
+        Iterator<Path> iterator = paths.iterator();
+        assertTrue(iterator.hasNext());
+        iterator.forEachRemaining(path -> {});
+
+        // never closed, but the traversal is done so the context is free for the next search
+        SearchContext next = searchContexts.acquire();
+        assertSame(kept, next);
+        next.release();
+    }
+
+    @Test
+    public void shouldReleaseSearchContextWhenClosedBeforeTraversalRunsOut() {
+        SearchContexts searchContexts = dependencies.get(SearchContexts.class);
+        SearchContext kept = searchContexts.acquire();
+        kept.release();
+
+        Stream<Path> paths = findPaths(transportData.getFirst(), transportData.getSecondStation());
+        assertTrue(paths.iterator().hasNext());
+        paths.close();
+
+        SearchContext next = searchContexts.acquire();
+        assertSame(kept, next);
+        next.release();
+    }
+
+    private Stream<Path> findPaths(Station start, Station destination) {
+        CachedNodeOperations nodeOperations = dependencies.get(CachedNodeOperations.class);
+        NodeIdQuery nodeIdQuery = dependencies.get(NodeIdQuery.class);
+        List<Station> destinations = Collections.singletonList(destination);
+        TramServiceDate queryDate = new TramServiceDate(LocalDate.of(2014, 6, 30));
+
+        ServiceReasons reasons = new ServiceReasons(dependencies.get(ProvidesLocalNow.class));
+        ServiceHeuristics serviceHeuristics = new ServiceHeuristics(transportData, nodeOperations,
+                dependencies.get(TramReachabilityRepository.class), dependencies.get(BusReachabilityRepository.class),
+                config, TramTime.of(7, 57), new RunningServices(transportData.getServicesOnDate(queryDate)),
+                destinations, reasons, 400, Integer.MAX_VALUE);
+        List<String> endStationIds = Collections.singletonList(destination.getId());
+        Node endNode = nodeIdQuery.getStationNode(destination.getId());
+
+        TramNetworkTraverser traverser = new TramNetworkTraverser(database, serviceHeuristics, reasons,
+                nodeOperations, dependencies.get(GraphAdjacency.class), dependencies.get(SearchContexts.class), endNode,
+                endStationIds, dependencies.get(TravelTimeLowerBounds.class).lowerBoundsTo(endStationIds),
+                dependencies.get(SearchBudgets.class).create(), false, config);
+
+        return traverser.findPaths(nodeIdQuery.getStationNode(start.getId()));
+    }
+}
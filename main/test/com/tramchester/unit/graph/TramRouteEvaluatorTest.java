@@ -24,6 +24,7 @@ import java.util.List;
 
 import static com.tramchester.graph.TransportRelationshipTypes.WALKS_TO;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 public class TramRouteEvaluatorTest extends EasyMockSupport {
@@ -31,6 +32,7 @@ public class TramRouteEvaluatorTest extends EasyMockSupport {
     private final List<String> destinationStationIds = Arrays.asList("destinationStationId");
     private ServiceHeuristics serviceHeuristics;
     private CachedNodeOperations nodeOperations;
+    private GraphAdjacency adjacency;
     private Path path;
     private Node node;
     private NodeIdLabelMap nodeIdLabelMap;
@@ -41,6 +43,7 @@ public class TramRouteEvaluatorTest extends EasyMockSupport {
     public void onceBeforeEachTestRuns() {
         nodeIdLabelMap = createMock(NodeIdLabelMap.class);
         nodeOperations = new CachedNodeOperations(nodeIdLabelMap);
+        adjacency = new GraphAdjacency(null, null);
         ProvidesLocalNow providesLocalNow = new ProvidesLocalNow();
         reasons = new ServiceReasons(providesLocalNow);
         config = TestEnv.GET();
@@ -55,7 +58,8 @@ public class TramRouteEvaluatorTest extends EasyMockSupport {
 
     @NotNull
     private TramRouteEvaluator getEvaluator(long destinationNodeId) {
-        return new TramRouteEvaluator(serviceHeuristics, nodeOperations, destinationNodeId, reasons, config);
+        return new TramRouteEvaluator(serviceHeuristics, nodeOperations, destinationNodeId, reasons,
+                new SearchContext(64), SearchBudget.unlimited(), false, config);
     }
 
     @Test
@@ -66,7 +70,7 @@ public class TramRouteEvaluatorTest extends EasyMockSupport {
         BranchState<JourneyState> state = new TestBranchState();
 
         TramTime time = TramTime.of(8, 15);
-        NotStartedState traversalState = new NotStartedState(nodeOperations, 88L, destinationStationIds, config);
+        NotStartedState traversalState = new NotStartedState(nodeOperations, adjacency, 88L, destinationStationIds, config);
         state.setState(new JourneyState(time, traversalState));
 
         replayAll();
@@ -75,6 +79,34 @@ public class TramRouteEvaluatorTest extends EasyMockSupport {
         verifyAll();
     }
 
+    @Test
+    public void shouldPruneEverythingOnceSearchBudgetUsedUp() {
+        TramchesterConfig budgetConfig = EasyMock.createMock(TramchesterConfig.class);
+        EasyMock.expect(budgetConfig.getBus()).andReturn(false);
+        EasyMock.expect(budgetConfig.getTramSearchDeadlineMillis()).andReturn(0L);
+        EasyMock.expect(budgetConfig.getTramSearchExpansionBudget()).andReturn(1L);
+        EasyMock.replay(budgetConfig);
+
+        SearchBudgets searchBudgets = new SearchBudgets(budgetConfig);
+        SearchBudget budget = searchBudgets.create();
+        assertTrue(budget.spend());
+
+        TramRouteEvaluator evaluator = new TramRouteEvaluator(serviceHeuristics, nodeOperations, 42L, reasons,
+                new SearchContext(64), budget, false, config);
+
+        BranchState<JourneyState> state = new TestBranchState();
+        NotStartedState traversalState = new NotStartedState(nodeOperations, adjacency, 88L, destinationStationIds, config);
+        state.setState(new JourneyState(TramTime.of(8, 15), traversalState));
+
+        replayAll();
+        // would otherwise match the destination
+        Evaluation result = evaluator.evaluate(path, state);
+        assertEquals(Evaluation.EXCLUDE_AND_PRUNE, result);
+        assertTrue(budget.isExhausted());
+        assertEquals(1, searchBudgets.getNumberExhausted());
+        evaluator.dispose();
+    }
+
     @Test
     public void shouldPruneIfTooLong() {
         TramRouteEvaluator evaluator = getEvaluator(88L);
@@ -82,7 +114,7 @@ public class TramRouteEvaluatorTest extends EasyMockSupport {
 
         BranchState<JourneyState> state = new TestBranchState();
         TramTime time = TramTime.of(8, 15);
-        NotStartedState traversalState = new NotStartedState(nodeOperations, 88L, destinationStationIds, config);
+        NotStartedState traversalState = new NotStartedState(nodeOperations, adjacency, 88L, destinationStationIds, config);
         state.setState(new JourneyState(time, traversalState));
 
         EasyMock.expect(path.length()).andReturn(201);
@@ -108,7 +140,7 @@ public class TramRouteEvaluatorTest extends EasyMockSupport {
                 andReturn(ServiceReason.DoesNotRunOnQueryDate("not running", path));
 
         TramTime time = TramTime.of(8, 15);
-        NotStartedState traversalState = new NotStartedState(nodeOperations, 88L, destinationStationIds, config);
+        NotStartedState traversalState = new NotStartedState(nodeOperations, adjacency, 88L, destinationStationIds, config);
         state.setState(new JourneyState(time, traversalState));
 
         replayAll();
@@ -125,7 +157,7 @@ public class TramRouteEvaluatorTest extends EasyMockSupport {
         EasyMock.expect(serviceHeuristics.checkNumberChanges(0, path)).andStubReturn(ServiceReason.IsValid(path));
 
         TramTime time = TramTime.of(8, 15);
-        NotStartedState traversalState = new NotStartedState(nodeOperations, 88L, destinationStationIds, config);
+        NotStartedState traversalState = new NotStartedState(nodeOperations, adjacency, 88L, destinationStationIds, config);
         JourneyState journeyState = new JourneyState(time, traversalState);
         journeyState.boardTram();
         state.setState(journeyState);
@@ -133,7 +165,7 @@ public class TramRouteEvaluatorTest extends EasyMockSupport {
         EasyMock.expect(path.length()).andReturn(50);
         EasyMock.expect(nodeIdLabelMap.has(TransportGraphBuilder.Labels.ROUTE_STATION, 42)).andReturn(true);
 
-        EasyMock.expect(serviceHeuristics.canReachDestination(node, path)).
+        EasyMock.expect(serviceHeuristics.canReachDestination(node, 0, path)).
                 andReturn(ServiceReason.StationNotReachable(path));
 
         replayAll();
@@ -150,7 +182,7 @@ public class TramRouteEvaluatorTest extends EasyMockSupport {
         EasyMock.expect(serviceHeuristics.checkNumberChanges(0, path)).andStubReturn(ServiceReason.IsValid(path));
 
         TramTime time = TramTime.of(8, 15);
-        NotStartedState traversalState = new NotStartedState(nodeOperations, 88L, destinationStationIds, config);
+        NotStartedState traversalState = new NotStartedState(nodeOperations, adjacency, 88L, destinationStationIds, config);
         JourneyState journeyState = new JourneyState(time, traversalState);
         journeyState.boardBus();
         state.setState(journeyState);
@@ -166,7 +198,7 @@ public class TramRouteEvaluatorTest extends EasyMockSupport {
         
         EasyMock.expect(path.lastRelationship()).andReturn(relationship);
 
-        EasyMock.expect(serviceHeuristics.canReachDestination(node, path)).
+        EasyMock.expect(serviceHeuristics.canReachDestination(node, 0, path)).
                 andReturn(ServiceReason.IsValid(path));
 
         replayAll();
@@ -193,7 +225,7 @@ public class TramRouteEvaluatorTest extends EasyMockSupport {
         EasyMock.expect(path.lastRelationship()).andReturn(relationship);
 
         TramTime time = TramTime.of(8, 15);
-        NotStartedState traversalState = new NotStartedState(nodeOperations, 88L, destinationStationIds, config);
+        NotStartedState traversalState = new NotStartedState(nodeOperations, adjacency, 88L, destinationStationIds, config);
         state.setState(new JourneyState(time, traversalState));
 
         replayAll();
@@ -220,7 +252,7 @@ public class TramRouteEvaluatorTest extends EasyMockSupport {
         TramTime time = TramTime.of(8, 15);
         EasyMock.expect(serviceHeuristics.journeyDurationUnderLimit(0,path)).andReturn(ServiceReason.TookTooLong(time, path));
 
-        NotStartedState traversalState = new NotStartedState(nodeOperations, 88L, destinationStationIds, config);
+        NotStartedState traversalState = new NotStartedState(nodeOperations, adjacency, 88L, destinationStationIds, config);
         state.setState(new JourneyState(time, traversalState));
 
         replayAll();
@@ -240,7 +272,7 @@ public class TramRouteEvaluatorTest extends EasyMockSupport {
         TramTime time = TramTime.of(8, 15);
         EasyMock.expect(serviceHeuristics.checkNumberChanges(0, path)).andStubReturn(ServiceReason.TooManyChanges(path));
 
-        NotStartedState traversalState = new NotStartedState(nodeOperations, 88L, destinationStationIds, config);
+        NotStartedState traversalState = new NotStartedState(nodeOperations, adjacency, 88L, destinationStationIds, config);
         state.setState(new JourneyState(time, traversalState));
 
         replayAll();
@@ -265,7 +297,7 @@ public class TramRouteEvaluatorTest extends EasyMockSupport {
         EasyMock.expect(path.lastRelationship()).andReturn(relationship);
 
         TramTime time = TramTime.of(8, 15);
-        NotStartedState traversalState = new NotStartedState(nodeOperations, 88L, destinationStationIds, config);
+        NotStartedState traversalState = new NotStartedState(nodeOperations, adjacency, 88L, destinationStationIds, config);
 
         state.setState(new JourneyState(time, traversalState));
         EasyMock.expect(serviceHeuristics.checkServiceDate(node, path)).andReturn(ServiceReason.IsValid(path));
@@ -297,7 +329,7 @@ public class TramRouteEvaluatorTest extends EasyMockSupport {
         EasyMock.expect(relationship.isType(WALKS_TO)).andReturn(false);
         EasyMock.expect(path.lastRelationship()).andReturn(relationship);
 
-        NotStartedState traversalState = new NotStartedState(nodeOperations, 88L, destinationStationIds, config);
+        NotStartedState traversalState = new NotStartedState(nodeOperations, adjacency, 88L, destinationStationIds, config);
         TramTime time = TramTime.of(8, 15);
 
         state.setState(new JourneyState(time, traversalState));
@@ -328,7 +360,7 @@ public class TramRouteEvaluatorTest extends EasyMockSupport {
         EasyMock.expect(relationship.isType(WALKS_TO)).andReturn(false);
         EasyMock.expect(path.lastRelationship()).andReturn(relationship);
 
-        NotStartedState traversalState = new NotStartedState(nodeOperations, 88L, destinationStationIds, config);
+        NotStartedState traversalState = new NotStartedState(nodeOperations, adjacency, 88L, destinationStationIds, config);
         TramTime time = TramTime.of(8, 15);
         state.setState(new JourneyState(time, traversalState));
 
@@ -362,7 +394,7 @@ public class TramRouteEvaluatorTest extends EasyMockSupport {
         EasyMock.expect(path.lastRelationship()).andReturn(relationship);
 
         TramTime time = TramTime.of(8, 15);
-        NotStartedState traversalState = new NotStartedState(nodeOperations, 88L, destinationStationIds, config);
+        NotStartedState traversalState = new NotStartedState(nodeOperations, adjacency, 88L, destinationStationIds, config);
         state.setState(new JourneyState(time, traversalState));
 
         EasyMock.expect(serviceHeuristics.journeyDurationUnderLimit(0,path)).andReturn(ServiceReason.IsValid(path));
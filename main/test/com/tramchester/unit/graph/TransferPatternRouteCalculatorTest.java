@@ -0,0 +1,113 @@
+package com.tramchester.unit.graph;
+
+import com.tramchester.Dependencies;
+import com.tramchester.domain.Journey;
+import com.tramchester.domain.presentation.TransportStage;
+import com.tramchester.domain.time.TramServiceDate;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.geo.StationLocations;
+import com.tramchester.graph.search.JourneyRequest;
+import com.tramchester.integration.IntegrationTramTestConfig;
+import com.tramchester.router.raptor.TransferPatternRouteCalculator;
+import com.tramchester.router.raptor.TransferPatterns;
+import org.apache.commons.io.FileUtils;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static junit.framework.TestCase.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TransferPatternRouteCalculatorTest {
+
+    private static final String TMP_DB = "tmp_transfer_patterns.db";
+
+    private static TransportDataForTest transportData;
+    private static TransferPatternRouteCalculator calculator;
+    private static Dependencies dependencies;
+    private static IntegrationTramTestConfig config;
+
+    private TramServiceDate queryDate;
+
+    @BeforeClass
+    public static void onceBeforeAllTestRuns() throws IOException, InterruptedException {
+        dependencies = new Dependencies();
+
+        StationLocations stationLocations = dependencies.get(StationLocations.class);
+        transportData = new TransportDataForTest(stationLocations);
+
+        config = new IntegrationTramTestConfig(TMP_DB) {
+            @Override
+            public boolean getTransferPatterns() {
+                return true;
+            }
+        };
+        FileUtils.deleteDirectory(config.getDBPath().toFile());
+
+        dependencies.initialise(config, transportData);
+
+        calculator = dependencies.get(TransferPatternRouteCalculator.class);
+        TransferPatterns transferPatterns = dependencies.get(TransferPatterns.class);
+        // built in the background
+        for (int attempt = 0; attempt < 100 && !transferPatterns.isReady(); attempt++) {
+            Thread.sleep(100);
+        }
+        assertTrue(transferPatterns.isReady());
+    }
+
+    @AfterClass
+    public static void onceAfterAllTestsRun() throws IOException {
+        dependencies.close();
+        FileUtils.deleteDirectory(config.getDBPath().toFile());
+    }
+
+    @Before
+    public void beforeEachTestRuns() {
+        queryDate = new TramServiceDate(LocalDate.of(2014,6,30));
+    }
+
+    @Test
+    public void shouldFindJourneyOnSameRoute() {
+        Optional<List<Journey>> journeys = calculator.calculateRoute(transportData.getFirst(),
+                transportData.getSecondStation(), new JourneyRequest(queryDate, TramTime.of(7, 57), false));
+        assertTrue(journeys.isPresent());
+        assertEquals(1, journeys.get().size());
+
+        TransportStage stage = journeys.get().get(0).getStages().get(0);
+        assertEquals(TramTime.of(8,0), stage.getFirstDepartureTime());
+        assertEquals(TramTime.of(8,11), stage.getExpectedArrivalTime());
+    }
+
+    @Test
+    public void shouldFindJourneyViaInterchange() {
+        Optional<List<Journey>> journeys = calculator.calculateRoute(transportData.getFirst(),
+                transportData.getFourthStation(), new JourneyRequest(queryDate, TramTime.of(7, 57), false));
+        assertTrue(journeys.isPresent());
+        assertEquals(1, journeys.get().size());
+
+        List<TransportStage> stages = journeys.get().get(0).getStages();
+        assertEquals(2, stages.size());
+        assertEquals(TransportDataForTest.INTERCHANGE, stages.get(1).getFirstStation().getId());
+        assertTrue(stages.get(1).getFirstDepartureTime().isAfter(stages.get(0).getExpectedArrivalTime()));
+    }
+
+    @Test
+    public void shouldFallBackWhenNoPatternOrJourney() {
+        // wrong direction, so no patterns
+        assertFalse(calculator.calculateRoute(transportData.getSecondStation(), transportData.getFirst(),
+                new JourneyRequest(queryDate, TramTime.of(7, 57), false)).isPresent());
+        // too late for the only trip
+        assertFalse(calculator.calculateRoute(transportData.getFirst(), transportData.getInterchange(),
+                new JourneyRequest(queryDate, TramTime.of(9, 0), false)).isPresent());
+        // not answered from the patterns
+        assertFalse(calculator.calculateRoute(transportData.getFirst(), transportData.getSecondStation(),
+                new JourneyRequest(queryDate, TramTime.of(8, 11), true)).isPresent());
+    }
+}
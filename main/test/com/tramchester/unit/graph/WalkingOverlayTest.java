@@ -0,0 +1,87 @@
+package com.tramchester.unit.graph;
+
+import com.tramchester.domain.presentation.LatLong;
+import com.tramchester.graph.GraphStaticKeys;
+import com.tramchester.graph.TransportGraphBuilder;
+import com.tramchester.graph.WalkingOverlay;
+import com.tramchester.graph.search.SearchContext;
+import com.tramchester.testSupport.Stations;
+import org.easymock.EasyMock;
+import org.easymock.EasyMockSupport;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static com.tramchester.graph.TransportRelationshipTypes.*;
+import static org.junit.Assert.*;
+
+public class WalkingOverlayTest extends EasyMockSupport {
+
+    private final LatLong latLong = new LatLong(53.4804263, -2.2392436);
+    private WalkingOverlay overlay;
+    private Node stationNode;
+
+    @Before
+    public void beforeEachTestRuns() {
+        overlay = new WalkingOverlay();
+        stationNode = createMock(Node.class);
+        EasyMock.expect(stationNode.getId()).andStubReturn(42L);
+    }
+
+    @Test
+    public void shouldCreateWalkingNodesOutsideOfGraph() {
+        replayAll();
+        Node walkNode = overlay.createWalkingNode(latLong);
+
+        assertTrue(WalkingOverlay.isVirtual(walkNode.getId()));
+        assertTrue(walkNode.hasLabel(TransportGraphBuilder.Labels.QUERY_NODE));
+        assertEquals(latLong.getLat(), walkNode.getProperty(GraphStaticKeys.Station.LAT));
+        assertEquals(latLong.getLon(), walkNode.getProperty(GraphStaticKeys.Station.LONG));
+        assertNotEquals(walkNode.getId(), overlay.createWalkingNode(latLong).getId());
+
+        SearchContext context = new SearchContext(10);
+        assertFalse(context.hasVisit(walkNode.getId()));
+        context.release();
+        verifyAll();
+    }
+
+    @Test
+    public void shouldAddWalksToStations() {
+        replayAll();
+        Node walkNode = overlay.createWalkingNode(latLong);
+        Relationship walk = overlay.addWalkTo(walkNode, stationNode, Stations.Altrincham.getId(), 7);
+
+        assertTrue(WalkingOverlay.isVirtual(walk.getId()));
+        assertTrue(walk.isType(WALKS_TO));
+        assertEquals(7, walk.getProperty(GraphStaticKeys.COST));
+        assertEquals(Stations.Altrincham.getId(), walk.getProperty(GraphStaticKeys.STATION_ID));
+        assertEquals(42L, walk.getOtherNode(walkNode).getId());
+        assertEquals(Collections.singletonList(walk), walkNode.getRelationships(Direction.OUTGOING, WALKS_TO));
+        assertFalse(walkNode.getRelationships(Direction.INCOMING).iterator().hasNext());
+        verifyAll();
+    }
+
+    @Test
+    public void shouldFindWalksFromStationsToDestination() {
+        replayAll();
+        Node midWalk = overlay.createWalkingNode(latLong);
+        Relationship walk = overlay.addWalkFrom(stationNode, midWalk, Stations.Altrincham.getId(), 5);
+        Node endWalk = overlay.createWalkingNode(latLong);
+        overlay.addFinishWalk(midWalk, endWalk);
+
+        Map<Long, List<Relationship>> walksFrom = WalkingOverlay.walksFromStations(endWalk);
+        assertEquals(1, walksFrom.size());
+        assertEquals(Collections.singletonList(walk), walksFrom.get(42L));
+        assertEquals(midWalk, walk.getEndNode());
+        assertEquals(0, endWalk.getSingleRelationship(FINISH_WALK, Direction.INCOMING).getProperty(GraphStaticKeys.COST));
+
+        assertTrue(WalkingOverlay.walksFromStations(stationNode).isEmpty());
+        verifyAll();
+    }
+}
@@ -0,0 +1,95 @@
+package com.tramchester.unit.repository;
+
+import com.tramchester.domain.places.RouteStation;
+import com.tramchester.geo.CoordinateTransforms;
+import com.tramchester.geo.StationLocations;
+import com.tramchester.repository.BusReachabilityRepository;
+import com.tramchester.testSupport.RoutesForTesting;
+import com.tramchester.testSupport.TestConfig;
+import com.tramchester.unit.graph.TransportDataForTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BusReachabilityRepositoryTest {
+
+    private TransportDataForTest transportData;
+    private Path dataFolder;
+    private TestConfig config;
+    private String firstRouteStationId;
+    private String lastRouteStationId;
+
+    @Before
+    public void onceBeforeEachTestRuns() throws IOException {
+        StationLocations stationLocations = new StationLocations(new CoordinateTransforms());
+        transportData = new TransportDataForTest(stationLocations);
+        transportData.start();
+
+        dataFolder = Files.createTempDirectory("busReachability");
+        config = new TestConfig() {
+            @Override
+            public Path getDataFolder() {
+                return dataFolder;
+            }
+
+            @Override
+            public boolean getBus() {
+                return true;
+            }
+
+            @Override
+            public int getBusReachabilityMaxChanges() {
+                return 2;
+            }
+        };
+
+        firstRouteStationId = RouteStation.formId(transportData.getFirst(), RoutesForTesting.ALTY_TO_BURY);
+        lastRouteStationId = RouteStation.formId(transportData.getLast(), RoutesForTesting.ALTY_TO_BURY);
+    }
+
+    @After
+    public void onceAfterEachTestRuns() throws IOException {
+        Files.deleteIfExists(dataFolder.resolve("bus_reachability.bin"));
+        Files.deleteIfExists(dataFolder);
+        transportData.dispose();
+    }
+
+    @Test
+    public void shouldFindReachableStationsForNumberOfChanges() {
+        BusReachabilityRepository repository = new BusReachabilityRepository(transportData, config);
+        repository.start();
+
+        checkReachable(repository);
+    }
+
+    @Test
+    public void shouldLoadSavedReachability() {
+        BusReachabilityRepository built = new BusReachabilityRepository(transportData, config);
+        built.start();
+        assertTrue(Files.exists(dataFolder.resolve("bus_reachability.bin")));
+
+        BusReachabilityRepository loaded = new BusReachabilityRepository(transportData, config);
+        loaded.start();
+        checkReachable(loaded);
+    }
+
+    private void checkReachable(BusReachabilityRepository repository) {
+        // on the same route
+        assertTrue(repository.stationReachable(firstRouteStationId, 0, transportData.getLast()));
+        // needs a change at the interchange
+        assertFalse(repository.stationReachable(firstRouteStationId, 0, transportData.getFourthStation()));
+        assertTrue(repository.stationReachable(firstRouteStationId, 1, transportData.getFourthStation()));
+        // every level after the first change adds nothing, so covers any number of changes
+        assertTrue(repository.stationReachable(firstRouteStationId, 5, transportData.getFifthStation()));
+        assertFalse(repository.stationReachable(lastRouteStationId, 5, transportData.getFirst()));
+        // unknown so cannot rule out
+        assertTrue(repository.stationReachable("unknownRouteStation", 0, transportData.getFirst()));
+    }
+}
@@ -0,0 +1,69 @@
+package com.tramchester.unit.repository;
+
+import com.tramchester.geo.CoordinateTransforms;
+import com.tramchester.geo.StationLocations;
+import com.tramchester.repository.InterchangeRepository;
+import com.tramchester.repository.TramReachabilityRepository;
+import com.tramchester.testSupport.RoutesForTesting;
+import com.tramchester.testSupport.TestConfig;
+import com.tramchester.unit.graph.TransportDataForTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TramReachabilityRepositoryTest {
+
+    private TransportDataForTest transportData;
+    private TramReachabilityRepository repository;
+
+    @Before
+    public void onceBeforeEachTestRuns() {
+        StationLocations stationLocations = new StationLocations(new CoordinateTransforms());
+        transportData = new TransportDataForTest(stationLocations);
+        transportData.start();
+
+        TestConfig config = new TestConfig() {
+            @Override
+            public Path getDataFolder() {
+                return null;
+            }
+        };
+        InterchangeRepository interchangeRepository = new InterchangeRepository(transportData, config);
+        repository = new TramReachabilityRepository(transportData, interchangeRepository, config);
+        repository.start();
+    }
+
+    @After
+    public void onceAfterEachTestRuns() {
+        repository.stop();
+        transportData.dispose();
+    }
+
+    @Test
+    public void shouldFindReachableStations() {
+        // self reachable
+        assertTrue(repository.stationReachable(transportData.getFirst(), RoutesForTesting.ALTY_TO_BURY,
+                transportData.getFirst()));
+        // on the same route
+        assertTrue(repository.stationReachable(transportData.getFirst(), RoutesForTesting.ALTY_TO_BURY,
+                transportData.getLast()));
+        // wrong direction
+        assertFalse(repository.stationReachable(transportData.getLast(), RoutesForTesting.ALTY_TO_BURY,
+                transportData.getFirst()));
+        // change at the interchange
+        assertTrue(repository.stationReachable(transportData.getFirst(), RoutesForTesting.ALTY_TO_BURY,
+                transportData.getFourthStation()));
+        assertTrue(repository.stationReachable(transportData.getSecond(), RoutesForTesting.ALTY_TO_BURY,
+                transportData.getFifthStation()));
+        // interchange is before, not after, the last station
+        assertFalse(repository.stationReachable(transportData.getLast(), RoutesForTesting.ALTY_TO_BURY,
+                transportData.getFourthStation()));
+        assertFalse(repository.stationReachable(transportData.getFourthStation(), RoutesForTesting.ROCH_TO_DIDS,
+                transportData.getFifthStation()));
+    }
+}
@@ -0,0 +1,62 @@
+package com.tramchester.unit.repository;
+
+import com.tramchester.geo.CoordinateTransforms;
+import com.tramchester.geo.StationLocations;
+import com.tramchester.repository.TravelTimeLowerBounds;
+import com.tramchester.unit.graph.TransportDataForTest;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class TravelTimeLowerBoundsTest {
+
+    private TransportDataForTest transportDataSource;
+    private TravelTimeLowerBounds lowerBounds;
+
+    @Before
+    public void onceBeforeEachTestRuns() {
+        CoordinateTransforms coordinateTransforms = new CoordinateTransforms();
+        StationLocations stationLocations = new StationLocations(coordinateTransforms);
+        transportDataSource = new TransportDataForTest(stationLocations);
+        lowerBounds = new TravelTimeLowerBounds(transportDataSource);
+        transportDataSource.start();
+        lowerBounds.start();
+    }
+
+    @Test
+    public void shouldGiveLowestTravelTimeToDestination() {
+        Map<String, Integer> bounds = lowerBounds.lowerBoundsTo(
+                Collections.singletonList(TransportDataForTest.LAST_STATION));
+
+        assertEquals(0, (int) bounds.get(TransportDataForTest.LAST_STATION));
+        assertEquals(20, (int) bounds.get(TransportDataForTest.INTERCHANGE));
+        assertEquals(29, (int) bounds.get(TransportDataForTest.SECOND_STATION));
+        assertEquals(40, (int) bounds.get(TransportDataForTest.FIRST_STATION));
+    }
+
+    @Test
+    public void shouldNotHaveBoundsForStationsThatCannotReachDestination() {
+        Map<String, Integer> bounds = lowerBounds.lowerBoundsTo(
+                Collections.singletonList(TransportDataForTest.LAST_STATION));
+
+        assertFalse(bounds.containsKey(transportDataSource.getFourthStation().getId()));
+        assertFalse(bounds.containsKey(transportDataSource.getFifthStation().getId()));
+    }
+
+    @Test
+    public void shouldGiveLowestTravelTimeToNearestOfDestinations() {
+        Map<String, Integer> bounds = lowerBounds.lowerBoundsTo(
+                Arrays.asList(TransportDataForTest.LAST_STATION, transportDataSource.getFifthStation().getId()));
+
+        assertEquals(0, (int) bounds.get(transportDataSource.getFifthStation().getId()));
+        assertEquals(4, (int) bounds.get(TransportDataForTest.INTERCHANGE));
+        assertEquals(13, (int) bounds.get(TransportDataForTest.SECOND_STATION));
+        assertEquals(24, (int) bounds.get(TransportDataForTest.FIRST_STATION));
+    }
+}
@@ -0,0 +1,145 @@
+package com.tramchester.unit.router;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.tramchester.domain.Journey;
+import com.tramchester.domain.Service;
+import com.tramchester.domain.time.TramServiceDate;
+import com.tramchester.domain.time.TramTime;
+import com.tramchester.graph.search.JourneyRequest;
+import com.tramchester.repository.TransportData;
+import com.tramchester.router.JourneyResultsCache;
+import com.tramchester.testSupport.Stations;
+import org.easymock.EasyMock;
+import org.easymock.EasyMockSupport;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class JourneyResultsCacheTest extends EasyMockSupport {
+
+    private TransportData transportData;
+    private JourneyResultsCache cache;
+    private TramServiceDate monday;
+    private TramServiceDate tuesday;
+    private List<Journey> journeys;
+    private int searches;
+
+    @Before
+    public void beforeEachTestRuns() {
+        transportData = createMock(TransportData.class);
+        cache = new JourneyResultsCache(transportData, null);
+
+        monday = new TramServiceDate(LocalDate.of(2020, 2, 17));
+        tuesday = new TramServiceDate(LocalDate.of(2020, 2, 18));
+        journeys = Collections.singletonList(new Journey(new ArrayList<>(), TramTime.of(8, 0)));
+        searches = 0;
+    }
+
+    @Test
+    public void shouldShareResultsBetweenDatesWithSameServices() {
+        EasyMock.expect(transportData.getServicesOnDate(monday)).andReturn(services("svcA", "svcB"));
+        EasyMock.expect(transportData.getServicesOnDate(tuesday)).andReturn(services("svcB", "svcA"));
+
+        replayAll();
+        List<Journey> first = cache.getJourneys(Stations.Altrincham, Stations.Deansgate,
+                new JourneyRequest(monday, TramTime.of(8, 0), false), this::search);
+        List<Journey> second = cache.getJourneys(Stations.Altrincham, Stations.Deansgate,
+                new JourneyRequest(tuesday, TramTime.of(8, 0), false), this::search);
+        verifyAll();
+
+        assertEquals(1, searches);
+        assertSame(first, second);
+        CacheStats stats = cache.stats().get(0).getRight();
+        assertEquals(1, stats.hitCount());
+    }
+
+    @Test
+    public void shouldFindRunningServicesOncePerDate() {
+        EasyMock.expect(transportData.getServicesOnDate(monday)).andReturn(services("svcA", "svcB")).once();
+
+        replayAll();
+        cache.getJourneys(Stations.Altrincham, Stations.Deansgate,
+                new JourneyRequest(monday, TramTime.of(8, 0), false), this::search);
+        cache.getJourneys(Stations.Altrincham, Stations.Deansgate,
+                new JourneyRequest(monday, TramTime.of(8, 0), false), this::search);
+        cache.getJourneys(Stations.Altrincham, Stations.Deansgate,
+                new JourneyRequest(monday, TramTime.of(9, 0), false), this::search);
+        verifyAll();
+
+        assertEquals(2, searches);
+    }
+
+    @Test
+    public void shouldNotShareResultsForDifferentRequests() {
+        EasyMock.expect(transportData.getServicesOnDate(monday)).andStubReturn(services("svcA"));
+        EasyMock.expect(transportData.getServicesOnDate(tuesday)).andStubReturn(services("svcB"));
+
+        replayAll();
+        cache.getJourneys(Stations.Altrincham, Stations.Deansgate,
+                new JourneyRequest(monday, TramTime.of(8, 0), false), this::search);
+        cache.getJourneys(Stations.Altrincham, Stations.Deansgate,
+                new JourneyRequest(tuesday, TramTime.of(8, 0), false), this::search);
+        cache.getJourneys(Stations.Altrincham, Stations.Deansgate,
+                new JourneyRequest(monday, TramTime.of(8, 1), false), this::search);
+        cache.getJourneys(Stations.Altrincham, Stations.Deansgate,
+                new JourneyRequest(monday, TramTime.of(8, 0), true), this::search);
+        cache.getJourneys(Stations.Altrincham, Stations.Deansgate,
+                new JourneyRequest(monday, TramTime.of(8, 0), false, 1), this::search);
+        cache.getJourneys(Stations.Altrincham, Stations.Deansgate,
+                new JourneyRequest(monday, TramTime.of(8, 0), false, Integer.MAX_VALUE, true), this::search);
+        cache.getJourneys(Stations.Deansgate, Stations.Altrincham,
+                new JourneyRequest(monday, TramTime.of(8, 0), false), this::search);
+        verifyAll();
+
+        assertEquals(7, searches);
+    }
+
+    @Test
+    public void shouldSearchAgainAfterInvalidate() {
+        EasyMock.expect(transportData.getServicesOnDate(monday)).andStubReturn(services("svcA"));
+
+        replayAll();
+        JourneyRequest journeyRequest = new JourneyRequest(monday, TramTime.of(8, 0), false);
+        cache.getJourneys(Stations.Altrincham, Stations.Deansgate, journeyRequest, this::search);
+        cache.invalidate();
+        cache.getJourneys(Stations.Altrincham, Stations.Deansgate, journeyRequest, this::search);
+        verifyAll();
+
+        assertEquals(2, searches);
+    }
+
+    @Test
+    public void shouldNotCacheWhenSearchBudgetUsedUp() {
+        EasyMock.expect(transportData.getServicesOnDate(monday)).andStubReturn(services("svcA"));
+
+        replayAll();
+        JourneyRequest exhausted = new JourneyRequest(monday, TramTime.of(8, 0), false);
+        cache.getJourneys(Stations.Altrincham, Stations.Deansgate, exhausted, () -> {
+            exhausted.markBudgetExhausted();
+            return search();
+        });
+        cache.getJourneys(Stations.Altrincham, Stations.Deansgate,
+                new JourneyRequest(monday, TramTime.of(8, 0), false), this::search);
+        cache.getJourneys(Stations.Altrincham, Stations.Deansgate,
+                new JourneyRequest(monday, TramTime.of(8, 0), false), this::search);
+        verifyAll();
+
+        assertEquals(2, searches);
+    }
+
+    private List<Journey> search() {
+        searches++;
+        return journeys;
+    }
+
+    private Set<Service> services(String... serviceIds) {
+        Set<Service> services = new HashSet<>();
+        Arrays.stream(serviceIds).forEach(serviceId -> services.add(new Service(serviceId, null)));
+        return services;
+    }
+}